@@ -0,0 +1,57 @@
+#!/usr/bin/env bash
+# 对比平台线程（Tomcat 默认 200 线程）与虚拟线程模式在 1k 在途请求下的吞吐、p99 延迟和内存
+#
+# 用法: loadtest/compare-virtual-threads.sh [并发数] [持续秒数]
+# 环境变量: TTFT_MS（默认 500）、TOKENS（默认 64）、TOKEN_INTERVAL_MS（默认 20）、JAVA_OPTS
+set -euo pipefail
+
+CONCURRENCY=${1:-1000}
+DURATION=${2:-60}
+TTFT_MS=${TTFT_MS:-500}
+TOKENS=${TOKENS:-64}
+TOKEN_INTERVAL_MS=${TOKEN_INTERVAL_MS:-20}
+JAVA_OPTS=${JAVA_OPTS:-"-Xms512m -Xmx2g"}
+STUB_PORT=11500
+APP_PORT=8082
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+cd "$ROOT"
+
+mvn -B -q -DskipTests package
+mvn -B -q -f loadtest/pom.xml package
+APP_JAR=$(ls target/ai-*.jar | grep -v original | head -1)
+LOADTEST_JAR=loadtest/target/ai-loadtest.jar
+
+java -jar "$LOADTEST_JAR" stub-ollama --port $STUB_PORT \
+    --ttft-ms "$TTFT_MS" --tokens "$TOKENS" --token-interval-ms "$TOKEN_INTERVAL_MS" &
+STUB_PID=$!
+trap 'kill $STUB_PID 2>/dev/null || true' EXIT
+
+run_mode() {
+    local label=$1 virtual=$2
+    # -Djdk.tracePinnedThreads=short：虚拟线程 pinning 时在控制台打印调用栈
+    # 关闭 Ollama 并发限制，对比的是线程模型本身能承载的在途请求数
+    java $JAVA_OPTS -Djdk.tracePinnedThreads=short -jar "$APP_JAR" \
+        --server.port=$APP_PORT \
+        --spring.threads.virtual.enabled="$virtual" \
+        --concurrency-limit.ollama.enabled=false \
+        --spring.ai.ollama.base-url=http://localhost:$STUB_PORT \
+        > "loadtest/target/app-$label.log" 2>&1 &
+    local app_pid=$!
+    until curl -sf "http://localhost:$APP_PORT/api/ollama/health" > /dev/null; do sleep 1; done
+
+    java -jar "$LOADTEST_JAR" run --url "http://localhost:$APP_PORT" \
+        --concurrency "$CONCURRENCY" --duration "$DURATION" --warmup 10 \
+        --app-pid $app_pid --label "$label" | tee "loadtest/target/result-$label.txt"
+
+    kill $app_pid
+    wait $app_pid 2>/dev/null || true
+    grep -c "pinned" "loadtest/target/app-$label.log" | xargs echo "pinning 记录数($label):" || true
+}
+
+run_mode platform false
+run_mode virtual true
+
+echo
+echo "==== 汇总 ===="
+grep -h '^RESULT' loadtest/target/result-platform.txt loadtest/target/result-virtual.txt
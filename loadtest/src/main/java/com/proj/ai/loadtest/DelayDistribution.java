@@ -0,0 +1,55 @@
+package com.proj.ai.loadtest;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 桩服务延迟分布
+ * 按给定均值采样延迟，模拟推理服务耗时的抖动和长尾：
+ * <ul>
+ *     <li>fixed：固定为均值</li>
+ *     <li>uniform：均值的 0.5~1.5 倍均匀分布</li>
+ *     <li>exponential：指数分布</li>
+ *     <li>lognormal：对数正态分布（sigma 越大尾部越长），均值保持不变</li>
+ * </ul>
+ */
+public class DelayDistribution {
+
+    public enum Kind {
+        FIXED, UNIFORM, EXPONENTIAL, LOGNORMAL
+    }
+
+    private final Kind kind;
+    private final double sigma;
+
+    /**
+     * @param kind 分布名称：fixed、uniform、exponential、lognormal
+     * @param sigma 对数正态分布的 sigma，其他分布忽略
+     */
+    public DelayDistribution(String kind, double sigma) {
+        this.kind = Kind.valueOf(kind.toUpperCase(Locale.ROOT));
+        this.sigma = sigma;
+    }
+
+    /**
+     * 采样一次延迟（毫秒）
+     */
+    public long sample(long meanMs) {
+        if (meanMs <= 0) {
+            return 0;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double value = switch (kind) {
+            case FIXED -> meanMs;
+            case UNIFORM -> meanMs * (0.5 + random.nextDouble());
+            case EXPONENTIAL -> -meanMs * Math.log(1 - random.nextDouble());
+            case LOGNORMAL -> meanMs * Math.exp(sigma * random.nextGaussian() - sigma * sigma / 2);
+        };
+        return Math.round(value);
+    }
+
+    @Override
+    public String toString() {
+        return kind == Kind.LOGNORMAL ? "lognormal(sigma=" + sigma + ")" : kind.name().toLowerCase(Locale.ROOT);
+    }
+}
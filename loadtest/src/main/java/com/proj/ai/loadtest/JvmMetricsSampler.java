@@ -0,0 +1,159 @@
+package com.proj.ai.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * 被测服务 JVM 指标采样（/actuator/prometheus）
+ * 每秒读取一次堆内存使用量，记录峰值；开始和结束时读取 GC 次数和累计停顿时间，计算压测期间的增量
+ */
+public class JvmMetricsSampler {
+
+    private final HttpClient httpClient;
+    private final HttpRequest request;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    private volatile boolean available;
+    private volatile long peakHeapBytes;
+    private volatile long heapMaxBytes;
+    private volatile double maxPauseSeconds;
+
+    private double startGcCount;
+    private double startGcSeconds;
+    private double gcCount;
+    private double gcSeconds;
+
+    public JvmMetricsSampler(HttpClient httpClient, String baseUrl) {
+        this.httpClient = httpClient;
+        this.request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/prometheus"))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+    }
+
+    public void start() {
+        Snapshot snapshot = sample();
+        if (snapshot != null) {
+            startGcCount = snapshot.gcCount;
+            startGcSeconds = snapshot.gcSeconds;
+        }
+        maxPauseSeconds = 0;
+        running = true;
+        thread = Thread.ofPlatform().daemon().name("jvm-metrics-sampler").start(() -> {
+            while (running) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                sample();
+            }
+        });
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        Snapshot snapshot = sample();
+        if (snapshot != null) {
+            gcCount = snapshot.gcCount - startGcCount;
+            gcSeconds = snapshot.gcSeconds - startGcSeconds;
+        }
+    }
+
+    private Snapshot sample() {
+        String body;
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return null;
+            }
+            body = response.body();
+        } catch (Exception e) {
+            // 未开启 actuator 或服务不可达，忽略
+            return null;
+        }
+        Snapshot snapshot = new Snapshot();
+        long heapUsed = 0;
+        long heapMax = 0;
+        for (String line : body.split("\n")) {
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            boolean heap = line.contains("area=\"heap\"");
+            if (line.startsWith("jvm_gc_pause_seconds_count")) {
+                snapshot.gcCount += value(line);
+            } else if (line.startsWith("jvm_gc_pause_seconds_sum")) {
+                snapshot.gcSeconds += value(line);
+            } else if (line.startsWith("jvm_gc_pause_seconds_max")) {
+                maxPauseSeconds = Math.max(maxPauseSeconds, value(line));
+            } else if (heap && line.startsWith("jvm_memory_used_bytes")) {
+                heapUsed += (long) value(line);
+            } else if (heap && line.startsWith("jvm_memory_max_bytes")) {
+                // 未设置上限的内存区返回 -1
+                heapMax += Math.max(0, (long) value(line));
+            }
+        }
+        available = true;
+        peakHeapBytes = Math.max(peakHeapBytes, heapUsed);
+        heapMaxBytes = heapMax;
+        return snapshot;
+    }
+
+    private static double value(String line) {
+        try {
+            return Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 是否成功读取过指标
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public long getPeakHeapMb() {
+        return peakHeapBytes / 1024 / 1024;
+    }
+
+    public long getHeapMaxMb() {
+        return heapMaxBytes / 1024 / 1024;
+    }
+
+    /**
+     * 压测期间的 GC 次数
+     */
+    public long getGcCount() {
+        return Math.round(gcCount);
+    }
+
+    /**
+     * 压测期间的 GC 停顿总时长（毫秒）
+     */
+    public double getGcPauseMs() {
+        return gcSeconds * 1000;
+    }
+
+    /**
+     * 采样到的最长单次 GC 停顿（毫秒）
+     * Micrometer 的 max 是最近约 2 分钟窗口内的最大值，可能包含开始采样前（预热阶段）的停顿
+     */
+    public double getMaxPauseMs() {
+        return maxPauseSeconds * 1000;
+    }
+
+    private static final class Snapshot {
+        private double gcCount;
+        private double gcSeconds;
+    }
+}
@@ -0,0 +1,88 @@
+package com.proj.ai.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 延迟记录（微秒）
+ * 每个压测线程持有一个实例，不加锁；结束后合并计算分位数
+ * 失败中单独统计过载拒绝（429/503）
+ */
+public class LatencyRecorder {
+
+    private long[] values = new long[1024];
+    private int size;
+    private long errors;
+    private long overloaded;
+
+    public void record(long micros) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = micros;
+    }
+
+    public void error() {
+        errors++;
+    }
+
+    /**
+     * 被服务端过载拒绝（同时计入失败）
+     */
+    public void overloaded() {
+        errors++;
+        overloaded++;
+    }
+
+    public int count() {
+        return size;
+    }
+
+    public long errors() {
+        return errors;
+    }
+
+    public long overloadedCount() {
+        return overloaded;
+    }
+
+    /**
+     * 失败比例（%）
+     */
+    public double errorRate() {
+        long total = size + errors;
+        return total == 0 ? 0 : errors * 100.0 / total;
+    }
+
+    /**
+     * 合并多个记录并排序
+     */
+    public static LatencyRecorder merge(List<LatencyRecorder> recorders) {
+        LatencyRecorder merged = new LatencyRecorder();
+        int total = recorders.stream().mapToInt(LatencyRecorder::count).sum();
+        merged.values = new long[Math.max(1, total)];
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.values, 0, merged.values, merged.size, recorder.size);
+            merged.size += recorder.size;
+            merged.errors += recorder.errors;
+            merged.overloaded += recorder.overloaded;
+        }
+        Arrays.sort(merged.values, 0, merged.size);
+        return merged;
+    }
+
+    /**
+     * 分位数（毫秒），需先 merge 排序
+     */
+    public double percentileMs(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return values[Math.max(0, Math.min(size - 1, index))] / 1000.0;
+    }
+
+    public double maxMs() {
+        return size == 0 ? 0 : values[size - 1] / 1000.0;
+    }
+}
@@ -0,0 +1,343 @@
+package com.proj.ai.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压测驱动
+ * <ul>
+ *     <li>闭环模型（rate 为 0）：concurrency 个虚拟线程各自循环发送请求，保持固定的在途请求数</li>
+ *     <li>开环模型（rate 大于 0）：按泊松过程以平均 rate 个/秒发起请求，不等待前面的请求返回；
+ *     延迟从计划发起时间算起（避免 coordinated omission），在途请求超过 concurrency 时客户端丢弃并计数</li>
+ * </ul>
+ * 目标为 ollama（/api/ollama/chat）或 whisper（/api/whisper/recognize，发送生成的 16kHz WAV）；
+ * 同时按固定间隔探测健康检查接口，观察推理请求是否拖慢轻量接口
+ */
+public class LoadDriver {
+
+    public static final String TARGET_OLLAMA = "ollama";
+    public static final String TARGET_WHISPER = "whisper";
+
+    private final String baseUrl;
+    private final String target;
+    private final String path;
+    private final int concurrency;
+    private final double rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration healthInterval;
+    private final Long appPid;
+
+    private final HttpClient httpClient;
+
+    /**
+     * Whisper 请求体（所有请求共用，Whisper 接口没有缓存）
+     */
+    private final String whisperBody;
+
+    /**
+     * @param target ollama 或 whisper
+     * @param path 接口路径，为 null 时按 target 使用默认接口
+     * @param concurrency 闭环模型的在途请求数；开环模型的在途请求上限
+     * @param rate 开环模型的平均到达率（个/秒），0 表示闭环模型
+     * @param audioSeconds whisper 请求的音频时长（秒）
+     */
+    public LoadDriver(String baseUrl, String target, String path, int concurrency, double rate, Duration warmup,
+                      Duration duration, Duration healthInterval, Long appPid, int audioSeconds) {
+        this.baseUrl = baseUrl;
+        this.target = target;
+        this.path = path != null ? path
+                : TARGET_WHISPER.equals(target) ? "/api/whisper/recognize" : "/api/ollama/chat";
+        this.concurrency = concurrency;
+        this.rate = rate;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.healthInterval = healthInterval;
+        this.appPid = appPid;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.whisperBody = TARGET_WHISPER.equals(target)
+                ? "{\"audioBase64\":\"" + Base64.getEncoder().encodeToString(wav(audioSeconds))
+                        + "\",\"language\":\"zh\"}"
+                : null;
+    }
+
+    public Report run() throws InterruptedException {
+        long start = System.nanoTime();
+        long measureStart = start + warmup.toNanos();
+        long end = measureStart + duration.toNanos();
+
+        System.out.printf("压测开始: %s%s, %s, 预热 %ds, 持续 %ds%n", baseUrl, path,
+                rate > 0 ? String.format("开环 %.1f req/s（在途上限 %d）", rate, concurrency) : "闭环 并发 " + concurrency,
+                warmup.toSeconds(), duration.toSeconds());
+
+        ProcessSampler sampler = appPid != null ? new ProcessSampler(appPid) : null;
+        JvmMetricsSampler jvm = new JvmMetricsSampler(httpClient, baseUrl);
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        LatencyRecorder health = new LatencyRecorder();
+        LongAdder dropped = new LongAdder();
+        long driverGcMs = driverGcMillis();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            workers.submit(() -> probeHealth(health, measureStart, end));
+            Thread.ofPlatform().daemon().name("sampler-start").start(() -> {
+                sleepUntil(measureStart);
+                if (sampler != null) {
+                    sampler.start();
+                }
+                jvm.start();
+            });
+
+            if (rate > 0) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                recorders.add(recorder);
+                arrive(workers, recorder, dropped, measureStart, end);
+            } else {
+                for (int w = 0; w < concurrency; w++) {
+                    LatencyRecorder recorder = new LatencyRecorder();
+                    recorders.add(recorder);
+                    int worker = w;
+                    workers.submit(() -> loop(worker, recorder, measureStart, end));
+                }
+                sleepUntil(end);
+            }
+            workers.shutdown();
+            // 结束时仍在途的请求最多再等待 5 分钟
+            workers.awaitTermination(300, TimeUnit.SECONDS);
+        } finally {
+            if (sampler != null) {
+                sampler.stop();
+            }
+            jvm.stop();
+        }
+        driverGcMs = driverGcMillis() - driverGcMs;
+
+        LatencyRecorder merged = LatencyRecorder.merge(recorders);
+        LatencyRecorder healthMerged = LatencyRecorder.merge(List.of(health));
+        return new Report(target, concurrency, rate, duration.toMillis() / 1000.0, merged, healthMerged,
+                dropped.sum(),
+                sampler != null ? sampler.getPeakRssMb() : -1,
+                sampler != null ? sampler.getPeakThreads() : -1,
+                jvm, driverGcMs);
+    }
+
+    /**
+     * 闭环模型：请求返回后立即发送下一个
+     */
+    private void loop(int worker, LatencyRecorder recorder, long measureStart, long end) {
+        long seq = 0;
+        while (System.nanoTime() < end) {
+            long begin = System.nanoTime();
+            Outcome outcome = call(worker + "-" + (seq++));
+            long finish = System.nanoTime();
+            if (begin < measureStart || finish > end) {
+                continue;
+            }
+            record(recorder, outcome, (finish - begin) / 1000);
+        }
+    }
+
+    /**
+     * 开环模型：到达间隔服从指数分布，每个请求一个虚拟线程
+     */
+    private void arrive(ExecutorService workers, LatencyRecorder recorder, LongAdder dropped, long measureStart,
+                        long end) {
+        Semaphore inFlight = new Semaphore(concurrency);
+        long next = System.nanoTime();
+        long seq = 0;
+        while (next < end) {
+            sleepUntil(next);
+            long scheduled = next;
+            next += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) / rate * 1_000_000_000L);
+            boolean measured = scheduled >= measureStart;
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    dropped.increment();
+                }
+                continue;
+            }
+            String id = "open-" + (seq++);
+            workers.submit(() -> {
+                try {
+                    Outcome outcome = call(id);
+                    if (measured) {
+                        synchronized (recorder) {
+                            record(recorder, outcome, (System.nanoTime() - scheduled) / 1000);
+                        }
+                    }
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private Outcome call(String id) {
+        // 每个对话请求的提示词不同并关闭缓存，避免命中响应缓存或被合并
+        String body = whisperBody != null ? whisperBody
+                : "{\"prompt\":\"压测请求 " + id + "\",\"useCache\":false}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 429 || response.statusCode() == 503) {
+                return Outcome.OVERLOADED;
+            }
+            return response.statusCode() == 200 && response.body().contains("\"code\":200")
+                    ? Outcome.OK : Outcome.ERROR;
+        } catch (Exception e) {
+            return Outcome.ERROR;
+        }
+    }
+
+    private static void record(LatencyRecorder recorder, Outcome outcome, long micros) {
+        switch (outcome) {
+            case OK -> recorder.record(micros);
+            case OVERLOADED -> recorder.overloaded();
+            case ERROR -> recorder.error();
+        }
+    }
+
+    private void probeHealth(LatencyRecorder recorder, long measureStart, long end) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/ollama/health"))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        while (System.nanoTime() < end) {
+            long begin = System.nanoTime();
+            boolean ok;
+            try {
+                ok = httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode() == 200;
+            } catch (Exception e) {
+                ok = false;
+            }
+            if (begin >= measureStart) {
+                if (ok) {
+                    recorder.record((System.nanoTime() - begin) / 1000);
+                } else {
+                    recorder.error();
+                }
+            }
+            try {
+                Thread.sleep(healthInterval.toMillis());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * 压测进程自身的 GC 累计耗时，用于判断压测工具是否成为瓶颈
+     */
+    private static long driverGcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .filter(time -> time > 0)
+                .sum();
+    }
+
+    /**
+     * 生成 16kHz 单声道 16 位 PCM WAV：每秒交替 0.7 秒 440Hz 音调和 0.3 秒静音
+     */
+    static byte[] wav(int seconds) {
+        int sampleRate = 16000;
+        int samples = sampleRate * seconds;
+        ByteBuffer pcm = ByteBuffer.allocate(samples * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < samples; i++) {
+            boolean voiced = i % sampleRate < sampleRate * 7 / 10;
+            pcm.putShort((short) (voiced ? 8000 * Math.sin(2 * Math.PI * 440 * i / sampleRate) : 0));
+        }
+        ByteBuffer header = ByteBuffer.allocate(44).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(36 + pcm.capacity())
+                .put("WAVE".getBytes(StandardCharsets.US_ASCII))
+                .put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(sampleRate).putInt(sampleRate * 2).putShort((short) 2).putShort((short) 16)
+                .put("data".getBytes(StandardCharsets.US_ASCII)).putInt(pcm.capacity());
+        ByteArrayOutputStream out = new ByteArrayOutputStream(44 + pcm.capacity());
+        out.writeBytes(header.array());
+        out.writeBytes(pcm.array());
+        return out.toByteArray();
+    }
+
+    private enum Outcome {
+        OK, OVERLOADED, ERROR
+    }
+
+    /**
+     * 压测结果
+     */
+    public record Report(String target, int concurrency, double rate, double seconds, LatencyRecorder requests,
+                         LatencyRecorder health, long dropped, long peakRssMb, long peakThreads,
+                         JvmMetricsSampler jvm, long driverGcMs) {
+
+        public double throughput() {
+            return requests.count() / seconds;
+        }
+
+        public void print(String label) {
+            System.out.printf("%n==== %s ====%n", label);
+            System.out.printf("目标: %s, %s, 完成: %d, 失败: %d（过载 %d）, 失败率: %.2f%%, 吞吐: %.1f req/s%n",
+                    target, rate > 0 ? String.format("到达率 %.1f req/s", rate) : "并发 " + concurrency,
+                    requests.count(), requests.errors(), requests.overloadedCount(), requests.errorRate(),
+                    throughput());
+            if (rate > 0) {
+                System.out.printf("在途达到上限 %d 被客户端丢弃: %d%n", concurrency, dropped);
+            }
+            System.out.printf("延迟 p50: %.0fms, p99: %.0fms, p999: %.0fms, max: %.0fms%n",
+                    requests.percentileMs(50), requests.percentileMs(99), requests.percentileMs(99.9),
+                    requests.maxMs());
+            System.out.printf("健康检查 p50: %.1fms, p99: %.1fms, 失败: %d%n",
+                    health.percentileMs(50), health.percentileMs(99), health.errors());
+            if (peakRssMb >= 0) {
+                System.out.printf("被测进程峰值 RSS: %dMB, 峰值线程数: %d%n", peakRssMb, peakThreads);
+            }
+            if (jvm.isAvailable()) {
+                System.out.printf("被测进程峰值堆: %dMB / %dMB, GC: %d 次, 停顿合计 %.0fms, 最长 %.1fms%n",
+                        jvm.getPeakHeapMb(), jvm.getHeapMaxMb(), jvm.getGcCount(), jvm.getGcPauseMs(),
+                        jvm.getMaxPauseMs());
+            } else {
+                System.out.println("被测进程 JVM 指标不可用（需开启 /actuator/prometheus）");
+            }
+            System.out.printf("压测进程 GC 耗时: %dms%n", driverGcMs);
+            // 便于脚本汇总的单行结果
+            System.out.printf("RESULT label=%s target=%s concurrency=%d rate=%.1f throughput=%.1f p50=%.0f p99=%.0f "
+                            + "p999=%.0f errors=%d error_rate=%.2f overloaded=%d dropped=%d health_p99=%.1f "
+                            + "rss_mb=%d threads=%d heap_peak_mb=%d gc_count=%d gc_pause_ms=%.0f%n",
+                    label, target, concurrency, rate, throughput(), requests.percentileMs(50),
+                    requests.percentileMs(99), requests.percentileMs(99.9), requests.errors(), requests.errorRate(),
+                    requests.overloadedCount(), dropped, health.percentileMs(99), peakRssMb, peakThreads,
+                    jvm.isAvailable() ? jvm.getPeakHeapMb() : -1, jvm.getGcCount(), jvm.getGcPauseMs());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.proj.ai.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 压测工具入口
+ * <pre>
+ * java -jar ai-loadtest.jar stub-ollama --port 11434 --ttft-ms 500 --tokens 64 --token-interval-ms 20
+ * java -jar ai-loadtest.jar stub-whisper --port 8083 --latency-ms 300 --rtf 0.1 --error-rate 0.01
+ * java -jar ai-loadtest.jar run --url http://localhost:8082 --concurrency 1000 --duration 60 --app-pid 12345
+ * java -jar ai-loadtest.jar run --target whisper --rate 20 --concurrency 500 --audio-seconds 10
+ * </pre>
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+        Map<String, String> options = parse(args);
+        switch (args[0]) {
+            case "stub-ollama" -> {
+                // --token-rate（token/秒）优先于 --token-interval-ms
+                long tokenIntervalMs = options.containsKey("token-rate")
+                        ? Math.round(1000 / Double.parseDouble(options.get("token-rate")))
+                        : Long.parseLong(options.getOrDefault("token-interval-ms", "20"));
+                StubOllamaServer server = new StubOllamaServer(
+                        Integer.parseInt(options.getOrDefault("port", "11434")),
+                        options.getOrDefault("model", "qwen2.5vl:3b"),
+                        Long.parseLong(options.getOrDefault("ttft-ms", "500")),
+                        Integer.parseInt(options.getOrDefault("tokens", "64")),
+                        tokenIntervalMs,
+                        distribution(options),
+                        Double.parseDouble(options.getOrDefault("error-rate", "0")));
+                server.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+                Thread.currentThread().join();
+            }
+            case "stub-whisper" -> {
+                StubWhisperServer server = new StubWhisperServer(
+                        Integer.parseInt(options.getOrDefault("port", "8083")),
+                        Long.parseLong(options.getOrDefault("latency-ms", "300")),
+                        Double.parseDouble(options.getOrDefault("rtf", "0.1")),
+                        distribution(options),
+                        Double.parseDouble(options.getOrDefault("error-rate", "0")));
+                server.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+                Thread.currentThread().join();
+            }
+            case "run" -> {
+                LoadDriver driver = new LoadDriver(
+                        options.getOrDefault("url", "http://localhost:8082"),
+                        options.getOrDefault("target", LoadDriver.TARGET_OLLAMA),
+                        options.get("path"),
+                        Integer.parseInt(options.getOrDefault("concurrency", "1000")),
+                        Double.parseDouble(options.getOrDefault("rate", "0")),
+                        Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10"))),
+                        Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60"))),
+                        Duration.ofMillis(Long.parseLong(options.getOrDefault("health-interval-ms", "200"))),
+                        options.containsKey("app-pid") ? Long.parseLong(options.get("app-pid")) : null,
+                        Integer.parseInt(options.getOrDefault("audio-seconds", "10")));
+                driver.run().print(options.getOrDefault("label", "run"));
+            }
+            default -> usage();
+        }
+    }
+
+    private static DelayDistribution distribution(Map<String, String> options) {
+        return new DelayDistribution(options.getOrDefault("latency-dist", "fixed"),
+                Double.parseDouble(options.getOrDefault("sigma", "0.5")));
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--") && i + 1 < args.length) {
+                options.put(args[i].substring(2), args[++i]);
+            }
+        }
+        return options;
+    }
+
+    private static void usage() {
+        System.out.println("""
+                用法:
+                  stub-ollama [--port 11434] [--model qwen2.5vl:3b] [--ttft-ms 500] [--tokens 64]
+                              [--token-interval-ms 20 | --token-rate 50] [--error-rate 0]
+                              [--latency-dist fixed|uniform|exponential|lognormal] [--sigma 0.5]
+                  stub-whisper [--port 8083] [--latency-ms 300] [--rtf 0.1] [--error-rate 0]
+                               [--latency-dist fixed|uniform|exponential|lognormal] [--sigma 0.5]
+                  run [--url http://localhost:8082] [--target ollama|whisper] [--path 接口路径]
+                      [--concurrency 1000] [--rate 每秒请求数，0 为闭环] [--audio-seconds 10]
+                      [--warmup 10] [--duration 60] [--health-interval-ms 200] [--app-pid PID] [--label NAME]
+                """);
+    }
+}
@@ -0,0 +1,72 @@
+package com.proj.ai.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 被测进程资源采样（Linux /proc）
+ * 每秒读取一次 VmRSS 和线程数，记录峰值
+ */
+public class ProcessSampler {
+
+    private final long pid;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    private volatile long peakRssKb;
+    private volatile long peakThreads;
+
+    public ProcessSampler(long pid) {
+        this.pid = pid;
+    }
+
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().daemon().name("process-sampler").start(() -> {
+            while (running) {
+                sample();
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        sample();
+    }
+
+    private void sample() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    peakRssKb = Math.max(peakRssKb, parseValue(line));
+                } else if (line.startsWith("Threads:")) {
+                    peakThreads = Math.max(peakThreads, parseValue(line));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // 进程不存在或非 Linux，忽略
+        }
+    }
+
+    private long parseValue(String line) {
+        return Long.parseLong(line.replaceAll("[^0-9]", ""));
+    }
+
+    public long getPeakRssMb() {
+        return peakRssKb / 1024;
+    }
+
+    public long getPeakThreads() {
+        return peakThreads;
+    }
+}
@@ -0,0 +1,169 @@
+package com.proj.ai.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Ollama 桩服务
+ * 模拟 /api/generate、/api/chat（流式和非流式）、/api/tags、/api/ps，
+ * 按配置的首 token 延迟（可按分布抖动）和 token 间隔输出，并按错误率返回 500，不需要 GPU
+ */
+public class StubOllamaServer {
+
+    private static final Pattern STREAM_FALSE = Pattern.compile("\"stream\"\\s*:\\s*false");
+
+    private final int port;
+    private final String model;
+    private final long ttftMs;
+    private final int tokens;
+    private final long tokenIntervalMs;
+    private final DelayDistribution ttftDistribution;
+    private final double errorRate;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param port 监听端口
+     * @param model 返回的模型名称
+     * @param ttftMs 首 token 延迟（毫秒，模拟 prefill）
+     * @param tokens 每次生成的 token 数
+     * @param tokenIntervalMs token 间隔（毫秒）
+     * @param ttftDistribution 首 token 延迟分布（ttftMs 为均值）
+     * @param errorRate 返回 500 的比例（0~1），在首 token 延迟之后返回
+     */
+    public StubOllamaServer(int port, String model, long ttftMs, int tokens, long tokenIntervalMs,
+                            DelayDistribution ttftDistribution, double errorRate) {
+        this.port = port;
+        this.model = model;
+        this.ttftMs = ttftMs;
+        this.tokens = tokens;
+        this.tokenIntervalMs = tokenIntervalMs;
+        this.ttftDistribution = ttftDistribution;
+        this.errorRate = errorRate;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 4096);
+        // 每个请求一个虚拟线程，桩服务本身不成为瓶颈
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/tags", exchange -> json(exchange, modelList()));
+        server.createContext("/api/ps", exchange -> json(exchange, modelList()));
+        server.createContext("/api/generate", exchange -> generate(exchange, false));
+        server.createContext("/api/chat", exchange -> generate(exchange, true));
+        server.start();
+        System.out.printf("Ollama 桩服务已启动: http://localhost:%d, model=%s, ttft=%dms(%s), tokens=%d, "
+                        + "interval=%dms, errorRate=%.3f%n",
+                port, model, ttftMs, ttftDistribution, tokens, tokenIntervalMs, errorRate);
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private String modelList() {
+        return "{\"models\":[{\"name\":\"" + model + "\",\"model\":\"" + model + "\",\"size\":3200000000}]}";
+    }
+
+    private void generate(HttpExchange exchange, boolean chat) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        boolean stream = !STREAM_FALSE.matcher(body).find();
+        long start = System.nanoTime();
+        long ttft = ttftDistribution.sample(ttftMs);
+        try {
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                sleep(ttft);
+                send(exchange, 500, "{\"error\":\"stub error\"}");
+                return;
+            }
+            if (!stream) {
+                sleep(ttft + tokenIntervalMs * (tokens - 1));
+                StringBuilder content = new StringBuilder();
+                for (int i = 0; i < tokens; i++) {
+                    content.append(token(i));
+                }
+                json(exchange, line(chat, content.toString(), true, start, ttft));
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                sleep(ttft);
+                for (int i = 0; i < tokens; i++) {
+                    if (i > 0) {
+                        sleep(tokenIntervalMs);
+                    }
+                    out.write(line(chat, token(i), false, start, ttft).getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+                out.write(line(chat, "", true, start, ttft).getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            // 客户端断开
+            exchange.close();
+        }
+    }
+
+    private String token(int index) {
+        return index % 8 == 7 ? "。" : "测试";
+    }
+
+    private String line(boolean chat, String text, boolean done, long start, long ttft) {
+        StringBuilder sb = new StringBuilder(256)
+                .append("{\"model\":\"").append(model)
+                .append("\",\"created_at\":\"").append(Instant.now()).append('"');
+        if (chat) {
+            sb.append(",\"message\":{\"role\":\"assistant\",\"content\":\"").append(text).append("\"}");
+        } else {
+            sb.append(",\"response\":\"").append(text).append('"');
+        }
+        sb.append(",\"done\":").append(done);
+        if (done) {
+            long total = System.nanoTime() - start;
+            sb.append(",\"done_reason\":\"stop\"")
+                    .append(",\"total_duration\":").append(total)
+                    .append(",\"load_duration\":1000000")
+                    .append(",\"prompt_eval_count\":32")
+                    .append(",\"prompt_eval_duration\":").append(ttft * 1_000_000)
+                    .append(",\"eval_count\":").append(tokens)
+                    .append(",\"eval_duration\":").append(Math.max(1, total - ttft * 1_000_000));
+        }
+        return sb.append("}\n").toString();
+    }
+
+    private void json(HttpExchange exchange, String body) throws IOException {
+        send(exchange, 200, body);
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.proj.ai.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Whisper 桩服务
+ * 模拟 whisper.cpp server 的 /inference（multipart 上传）和 /health，
+ * 识别耗时 = 固定延迟 + 音频时长 × 实时率，按分布抖动，并按错误率返回 500，不需要 GPU
+ */
+public class StubWhisperServer {
+
+    /**
+     * 16kHz 单声道 16 位 PCM 每毫秒字节数，用请求体大小估算音频时长
+     */
+    private static final int PCM_BYTES_PER_MS = 32;
+
+    private final int port;
+    private final long latencyMs;
+    private final double realtimeFactor;
+    private final DelayDistribution distribution;
+    private final double errorRate;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param port 监听端口
+     * @param latencyMs 每次识别的固定延迟（毫秒，模拟模型调度和解码开销）
+     * @param realtimeFactor 实时率：每秒音频的处理秒数
+     * @param distribution 识别耗时分布（上面两项之和为均值）
+     * @param errorRate 返回 500 的比例（0~1）
+     */
+    public StubWhisperServer(int port, long latencyMs, double realtimeFactor, DelayDistribution distribution,
+                             double errorRate) {
+        this.port = port;
+        this.latencyMs = latencyMs;
+        this.realtimeFactor = realtimeFactor;
+        this.distribution = distribution;
+        this.errorRate = errorRate;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 4096);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/health", exchange -> send(exchange, 200, "{\"status\":\"ok\"}"));
+        server.createContext("/inference", this::inference);
+        server.start();
+        System.out.printf("Whisper 桩服务已启动: http://localhost:%d/inference, latency=%dms(%s), rtf=%.2f, "
+                + "errorRate=%.3f%n", port, latencyMs, distribution, realtimeFactor, errorRate);
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void inference(HttpExchange exchange) throws IOException {
+        try {
+            long bytes = drain(exchange.getRequestBody());
+            long audioMs = bytes / PCM_BYTES_PER_MS;
+            sleep(distribution.sample(latencyMs + Math.round(audioMs * realtimeFactor)));
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                send(exchange, 500, "{\"error\":\"stub error\"}");
+                return;
+            }
+            send(exchange, 200, "{\"text\":\"这是一段压测音频的识别结果，时长约 " + audioMs / 1000 + " 秒。\"}");
+        } catch (IOException e) {
+            // 客户端断开
+            exchange.close();
+        }
+    }
+
+    /**
+     * 读完请求体（不保留内容），返回字节数
+     */
+    private static long drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[16384];
+        long total = 0;
+        for (int n; (n = in.read(buffer)) != -1; ) {
+            total += n;
+        }
+        return total;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
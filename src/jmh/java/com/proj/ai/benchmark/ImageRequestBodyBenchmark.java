@@ -0,0 +1,132 @@
+package com.proj.ai.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proj.ai.client.OllamaClient;
+import com.proj.ai.client.StreamingImageBody;
+import com.proj.ai.dto.OllamaChatWithImageRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片请求体构建基准测试
+ * 对比 JSON 内嵌 Base64（反序列化请求 → 去 data URL 前缀 → 重新序列化）与上传文件流式编码的耗时和分配，
+ * 并单独测量 OllamaClient#cleanBase64Prefix
+ * <p>
+ * 运行：mvn -Pjmh compile exec:exec -Djmh.include=ImageRequestBodyBenchmark
+ * gc 分析器输出的 gc.alloc.rate.norm 即每次请求的堆分配字节数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageRequestBodyBenchmark {
+
+    private static final String PROMPT = "请描述这张图片中的场景";
+
+    private static final byte[] SUFFIX = "\"]}".getBytes(StandardCharsets.US_ASCII);
+
+    @Param({"1048576", "4194304"})
+    public int imageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    private byte[] image;
+
+    private byte[] jsonRequest;
+
+    private String dataUrl;
+
+    private byte[] prefix;
+
+    @Setup
+    public void setup() throws Exception {
+        image = new byte[imageSize];
+        new Random(42).nextBytes(image);
+
+        OllamaChatWithImageRequest request = new OllamaChatWithImageRequest();
+        request.setPrompt(PROMPT);
+        dataUrl = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(image);
+        request.setImage(dataUrl);
+        jsonRequest = objectMapper.writeValueAsBytes(request);
+
+        prefix = ("{\"model\":\"qwen2.5vl:3b\",\"prompt\":\"" + PROMPT
+                + "\",\"temperature\":0.1,\"stream\":true,\"images\":[\"").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 原实现：请求 JSON 反序列化出 Base64 字符串，split 去掉前缀，放入 Map 后由 Jackson 序列化为请求体
+     */
+    @Benchmark
+    public byte[] jsonBase64() throws Exception {
+        OllamaChatWithImageRequest request = objectMapper.readValue(jsonRequest, OllamaChatWithImageRequest.class);
+        String imageBase64 = request.getImage();
+        if (imageBase64.contains(",")) {
+            imageBase64 = imageBase64.split(",")[1];
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("model", "qwen2.5vl:3b");
+        body.put("prompt", request.getPrompt());
+        body.put("images", new String[]{imageBase64});
+        body.put("temperature", 0.1);
+        body.put("stream", true);
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    /**
+     * 去掉 data URL 前缀（imageBase64 输入每次请求都会执行）
+     */
+    @Benchmark
+    public String cleanBase64Prefix() {
+        return OllamaClient.cleanBase64Prefix(dataUrl);
+    }
+
+    /**
+     * 上传文件：按块读取原始字节，编码后直接写入 DataBuffer
+     */
+    @Benchmark
+    public long streamingUpload() {
+        return StreamingImageBody.encode(bufferFactory, prefix, () -> new ByteArrayInputStream(image), SUFFIX)
+                .map(buffer -> {
+                    int length = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return (long) length;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+    }
+
+    /**
+     * 对照：只分配一次完整 Base64 缓冲区（上传文件但不流式编码）
+     */
+    @Benchmark
+    public DataBuffer encodeWhole() {
+        byte[] encoded = Base64.getEncoder().encode(image);
+        DataBuffer buffer = bufferFactory.allocateBuffer(prefix.length + encoded.length + SUFFIX.length);
+        buffer.write(prefix).write(encoded).write(SUFFIX);
+        return buffer;
+    }
+}
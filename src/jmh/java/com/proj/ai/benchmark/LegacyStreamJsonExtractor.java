@@ -0,0 +1,89 @@
+package com.proj.ai.benchmark;
+
+/**
+ * 原 OllamaClient 中基于 split/indexOf/replace 的流式响应解析实现
+ * 仅作为基准测试的对照组保留，逻辑与替换前保持一致（去掉了日志）
+ */
+public final class LegacyStreamJsonExtractor {
+
+    private LegacyStreamJsonExtractor() {
+    }
+
+    /**
+     * 从流式 JSON 响应中提取并拼接所有 response 字段
+     */
+    public static String extractResponseFromStreamJson(String streamResult) {
+        if (streamResult == null || streamResult.trim().isEmpty()) {
+            return "图片识别失败，未收到响应";
+        }
+
+        StringBuilder fullResponse = new StringBuilder();
+        String[] lines = streamResult.split("\n");
+
+        for (String line : lines) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            int responseStart = line.indexOf("\"response\":\"");
+            if (responseStart == -1) {
+                continue;
+            }
+
+            responseStart += "\"response\":\"".length();
+
+            int responseEnd = findResponseEnd(line, responseStart);
+
+            if (responseEnd == -1) {
+                continue;
+            }
+
+            String responseFragment = line.substring(responseStart, responseEnd);
+
+            responseFragment = unescapeJson(responseFragment);
+
+            fullResponse.append(responseFragment);
+        }
+
+        String result = fullResponse.toString();
+
+        if (result.isEmpty()) {
+            return "图片识别失败，未提取到有效内容";
+        }
+
+        return result;
+    }
+
+    /**
+     * 找到 JSON 字符串值的结束位置（处理转义字符）
+     */
+    public static int findResponseEnd(String line, int start) {
+        for (int i = start; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (c == '"') {
+                int backslashCount = 0;
+                for (int j = i - 1; j >= start && line.charAt(j) == '\\'; j--) {
+                    backslashCount++;
+                }
+
+                if (backslashCount % 2 == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 反转义 JSON 字符串
+     */
+    public static String unescapeJson(String str) {
+        return str.replace("\\n", "\n")
+                  .replace("\\r", "\r")
+                  .replace("\\t", "\t")
+                  .replace("\\\"", "\"")
+                  .replace("\\\\", "\\");
+    }
+}
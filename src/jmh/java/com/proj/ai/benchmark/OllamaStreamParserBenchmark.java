@@ -0,0 +1,165 @@
+package com.proj.ai.benchmark;
+
+import com.proj.ai.client.OllamaStreamChunk;
+import com.proj.ai.client.OllamaStreamParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ollama 流式响应解析基准测试
+ * 对比原 split/indexOf/replace 实现与增量字节解析器在 2k~4k token 流上的耗时和分配，
+ * 并单独测量原实现中逐行的 findResponseEnd 和 unescapeJson
+ * <p>
+ * 运行：mvn -Pjmh compile exec:exec -Djmh.include=OllamaStreamParserBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OllamaStreamParserBenchmark {
+
+    /**
+     * 模拟模型输出的 token（已按 JSON 转义），包含中文、英文、换行、引号、\\u 转义和 4 字节 emoji
+     */
+    private static final String[] TOKENS = {
+            "这是", "一个", "生日", "派对", "场景", "，", " The", " table", " has", " a",
+            " cake", "\\n", "\\\"", "蛋糕", "和", "气球", "。", " caf\\u00e9", " 😀", "\\t",
+    };
+
+    /**
+     * TCP 报文大小，模拟 DataBuffer 按网络包到达
+     */
+    private static final int NETWORK_CHUNK_SIZE = 1460;
+
+    private static final String RESPONSE_KEY = "\"response\":\"";
+
+    @Param({"2000", "4000"})
+    public int tokens;
+
+    private byte[] stream;
+
+    private byte[][] networkChunks;
+
+    private String[] lines;
+
+    private String[] fragments;
+
+    @Setup
+    public void setup() {
+        stream = buildStream(tokens);
+        int count = (stream.length + NETWORK_CHUNK_SIZE - 1) / NETWORK_CHUNK_SIZE;
+        networkChunks = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            int from = i * NETWORK_CHUNK_SIZE;
+            networkChunks[i] = Arrays.copyOfRange(stream, from, Math.min(stream.length, from + NETWORK_CHUNK_SIZE));
+        }
+
+        lines = new String(stream, StandardCharsets.UTF_8).split("\n");
+        fragments = new String[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            int start = lines[i].indexOf(RESPONSE_KEY) + RESPONSE_KEY.length();
+            fragments[i] = lines[i].substring(start, LegacyStreamJsonExtractor.findResponseEnd(lines[i], start));
+        }
+    }
+
+    /**
+     * 原实现：bodyToMono(String) 整体解码后 split + indexOf + replace
+     */
+    @Benchmark
+    public String legacyExtract() {
+        String body = new String(stream, StandardCharsets.UTF_8);
+        return LegacyStreamJsonExtractor.extractResponseFromStreamJson(body);
+    }
+
+    /**
+     * 原实现逐行部分：定位 response 字段并查找未转义的结束引号（不含 split 和反转义）
+     */
+    @Benchmark
+    public void legacyFindResponseEnd(Blackhole blackhole) {
+        for (String line : lines) {
+            int start = line.indexOf(RESPONSE_KEY) + RESPONSE_KEY.length();
+            blackhole.consume(LegacyStreamJsonExtractor.findResponseEnd(line, start));
+        }
+    }
+
+    /**
+     * 原实现逐行部分：5 次 String.replace 反转义 response 片段
+     */
+    @Benchmark
+    public void legacyUnescapeJson(Blackhole blackhole) {
+        for (String fragment : fragments) {
+            blackhole.consume(LegacyStreamJsonExtractor.unescapeJson(fragment));
+        }
+    }
+
+    /**
+     * 增量解析（聚合模式）：按网络包输入，所有 response 追加到同一个 StringBuilder
+     */
+    @Benchmark
+    public String parserAggregating() {
+        OllamaStreamParser parser = OllamaStreamParser.aggregating();
+        for (byte[] chunk : networkChunks) {
+            parser.feed(chunk, 0, chunk.length);
+        }
+        parser.finish();
+        return parser.getResponse();
+    }
+
+    /**
+     * 增量解析（分片模式）：SSE 流式接口使用，每行输出一个片段
+     */
+    @Benchmark
+    public void parserChunking(Blackhole blackhole) {
+        OllamaStreamParser parser = OllamaStreamParser.chunking();
+        for (byte[] chunk : networkChunks) {
+            for (OllamaStreamChunk item : parser.feed(chunk, 0, chunk.length)) {
+                blackhole.consume(item);
+            }
+        }
+        for (OllamaStreamChunk item : parser.finish()) {
+            blackhole.consume(item);
+        }
+    }
+
+    /**
+     * 构造与 Ollama /api/generate 格式一致的 NDJSON 流，最后一行携带 context 数组和统计字段
+     */
+    static byte[] buildStream(int tokenCount) {
+        StringBuilder sb = new StringBuilder(tokenCount * 110);
+        for (int i = 0; i < tokenCount; i++) {
+            sb.append("{\"model\":\"qwen2.5vl:3b\",\"created_at\":\"2025-06-01T08:00:00.")
+                    .append(100000 + i)
+                    .append("Z\",\"response\":\"")
+                    .append(TOKENS[i % TOKENS.length])
+                    .append("\",\"done\":false}\n");
+        }
+        sb.append("{\"model\":\"qwen2.5vl:3b\",\"created_at\":\"2025-06-01T08:00:09.000000Z\",\"response\":\"\",")
+                .append("\"done\":true,\"done_reason\":\"stop\",\"context\":[");
+        for (int i = 0; i < tokenCount + 1260; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(151643 + (i * 31) % 5000);
+        }
+        sb.append("],\"total_duration\":9123456789,\"load_duration\":23456789,\"prompt_eval_count\":1260,")
+                .append("\"prompt_eval_duration\":812345678,\"eval_count\":").append(tokenCount)
+                .append(",\"eval_duration\":8234567890}\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
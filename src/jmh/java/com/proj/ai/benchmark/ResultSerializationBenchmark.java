@@ -0,0 +1,90 @@
+package com.proj.ai.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.proj.ai.common.Result;
+import com.proj.ai.dto.OllamaResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口返回结果序列化基准测试
+ * 测量 Result&lt;OllamaResponse&gt; 的 Jackson 序列化耗时和分配（ObjectMapper 配置与 Spring Boot 默认一致）
+ * <p>
+ * 运行：mvn -Pjmh compile exec:exec -Djmh.include=ResultSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultSerializationBenchmark {
+
+    private static final String SENTENCE = "这是一个生日派对场景，桌上有蛋糕和气球。The table has a \"cake\".\n";
+
+    /**
+     * 模型输出长度（字符）
+     */
+    @Param({"200", "4000"})
+    public int responseLength;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final ObjectWriter resultWriter = objectMapper.writerFor(new TypeReference<Result<OllamaResponse>>() {
+    });
+
+    private Result<OllamaResponse> result;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder(responseLength + SENTENCE.length());
+        while (sb.length() < responseLength) {
+            sb.append(SENTENCE);
+        }
+        sb.setLength(responseLength);
+        result = Result.ok(OllamaResponse.builder()
+                .response(sb.toString())
+                .modelName("qwen2.5vl:3b")
+                .responseTime(1834L)
+                .cached(false)
+                .build());
+    }
+
+    /**
+     * 序列化为 UTF-8 字节（MVC 和 WebFlux 的 JSON 编码器写出的形式）
+     */
+    @Benchmark
+    public byte[] writeBytes() throws Exception {
+        return objectMapper.writeValueAsBytes(result);
+    }
+
+    /**
+     * 序列化为 String 后再编码（多一次 char[] → byte[] 拷贝）
+     */
+    @Benchmark
+    public String writeString() throws Exception {
+        return objectMapper.writeValueAsString(result);
+    }
+
+    /**
+     * 预先按完整泛型类型创建 ObjectWriter
+     */
+    @Benchmark
+    public byte[] typedWriter() throws Exception {
+        return resultWriter.writeValueAsBytes(result);
+    }
+}
@@ -0,0 +1,189 @@
+package com.proj.ai.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proj.ai.dto.WhisperRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.codec.multipart.MultipartHttpMessageWriter;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Whisper 请求处理基准测试
+ * 测量 /api/whisper/recognize 的请求 JSON 解析、audioBase64 解码，以及 WhisperClient 构建 multipart 请求体的耗时和分配
+ * <p>
+ * 运行：mvn -Pjmh compile exec:exec -Djmh.include=WhisperRequestBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WhisperRequestBenchmark {
+
+    /**
+     * 上传文件时 DataBuffer 的大小
+     */
+    private static final int UPLOAD_CHUNK_SIZE = 8192;
+
+    /**
+     * 音频大小：16kHz 单声道 16 位 PCM 的 30 秒和 4 分钟
+     */
+    @Param({"960000", "7680000"})
+    public int audioSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final MultipartHttpMessageWriter multipartWriter =
+            new MultipartHttpMessageWriter(ExchangeStrategies.withDefaults().messageWriters());
+
+    private byte[] audio;
+
+    private String audioBase64;
+
+    private byte[] jsonRequest;
+
+    @Setup
+    public void setup() throws Exception {
+        audio = new byte[audioSize];
+        new Random(42).nextBytes(audio);
+        audioBase64 = Base64.getEncoder().encodeToString(audio);
+
+        WhisperRequest request = new WhisperRequest();
+        request.setAudioBase64(audioBase64);
+        jsonRequest = objectMapper.writeValueAsBytes(request);
+    }
+
+    /**
+     * 请求 JSON 反序列化（audioBase64 作为 String 读出）
+     */
+    @Benchmark
+    public WhisperRequest parseRequest() throws Exception {
+        return objectMapper.readValue(jsonRequest, WhisperRequest.class);
+    }
+
+    /**
+     * audioBase64 解码，与 WhisperServiceImpl 一致
+     */
+    @Benchmark
+    public byte[] decodeBase64() {
+        return Base64.getDecoder().decode(audioBase64);
+    }
+
+    /**
+     * multipart 请求体：音频为字节数组（Base64 接口和 Servlet 上传），与 WhisperClient#inference(String, byte[], ...) 一致
+     */
+    @Benchmark
+    public long multipartBytes() {
+        MultipartBodyBuilder body = new MultipartBodyBuilder();
+        body.part("file", new ByteArrayResource(audio)).filename("audio.wav");
+        return writeMultipart(body);
+    }
+
+    /**
+     * multipart 请求体：音频为 DataBuffer 流（WebFlux 上传），与 WhisperClient#inference(String, Flux, ...) 一致
+     */
+    @Benchmark
+    public long multipartStream() {
+        DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+        Flux<DataBuffer> content = Flux.range(0, (audio.length + UPLOAD_CHUNK_SIZE - 1) / UPLOAD_CHUNK_SIZE)
+                .map(i -> {
+                    int from = i * UPLOAD_CHUNK_SIZE;
+                    return bufferFactory.wrap(ByteBuffer.wrap(audio, from, Math.min(UPLOAD_CHUNK_SIZE, audio.length - from)));
+                });
+        MultipartBodyBuilder body = new MultipartBodyBuilder();
+        body.asyncPart("file", content, DataBuffer.class).filename("audio.wav");
+        return writeMultipart(body);
+    }
+
+    /**
+     * 加上 language 和 response_format 字段后编码整个请求体，返回写出的字节数
+     */
+    private long writeMultipart(MultipartBodyBuilder body) {
+        body.part("language", "zh");
+        body.part("response_format", "json");
+        CountingOutputMessage message = new CountingOutputMessage();
+        multipartWriter.write(Mono.just(body.build()), ResolvableType.forClass(MultiValueMap.class),
+                MediaType.MULTIPART_FORM_DATA, message, Map.of()).block();
+        return message.bytes;
+    }
+
+    /**
+     * 只统计写出字节数的输出，代替 WebClient 的网络请求
+     */
+    private static final class CountingOutputMessage implements ReactiveHttpOutputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private long bytes;
+
+        @Override
+        public DataBufferFactory bufferFactory() {
+            return DefaultDataBufferFactory.sharedInstance;
+        }
+
+        @Override
+        public void beforeCommit(Supplier<? extends Mono<Void>> action) {
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return Flux.from(body)
+                    .doOnNext(buffer -> {
+                        bytes += buffer.readableByteCount();
+                        DataBufferUtils.release(buffer);
+                    })
+                    .then();
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).concatMap(Flux::from));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return Mono.empty();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.proj.ai.asr;
+
+import com.alibaba.fastjson2.JSON;
+import com.proj.ai.dto.StreamingAsrMessage;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * 实时语音识别 WebSocket 处理器（WebFlux 模式）
+ * 二进制消息为 PCM 音频，文本消息 "end" 结束当前句子；VAD 在 IO 线程上执行，识别请求不阻塞
+ */
+public class StreamingAsrReactiveHandler implements WebSocketHandler {
+
+    private final StreamingAsrService streamingAsrService;
+
+    public StreamingAsrReactiveHandler(StreamingAsrService streamingAsrService) {
+        this.streamingAsrService = streamingAsrService;
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        // StreamingAsrSession 在锁内发送，不会并发调用 tryEmitNext
+        Sinks.Many<StreamingAsrMessage> outbound = Sinks.many().unicast().onBackpressureBuffer();
+        StreamingAsrSession asr = streamingAsrService.open(session.getHandshakeInfo().getUri(), outbound::tryEmitNext);
+        if (asr == null) {
+            return session.close(CloseStatus.SERVICE_OVERLOAD);
+        }
+
+        Mono<Void> input = session.receive()
+                .doOnNext(message -> {
+                    if (message.getType() == WebSocketMessage.Type.BINARY) {
+                        byte[] data = new byte[message.getPayload().readableByteCount()];
+                        message.getPayload().read(data);
+                        asr.onAudio(data);
+                    } else if (message.getType() == WebSocketMessage.Type.TEXT
+                            && "end".equalsIgnoreCase(message.getPayloadAsText().trim())) {
+                        asr.flush();
+                    }
+                })
+                .doFinally(signal -> {
+                    asr.close();
+                    outbound.tryEmitComplete();
+                })
+                .then();
+        Mono<Void> output = session.send(outbound.asFlux()
+                .map(message -> session.textMessage(JSON.toJSONString(message))));
+        return Mono.when(input, output);
+    }
+}
@@ -0,0 +1,169 @@
+package com.proj.ai.asr;
+
+import com.proj.ai.config.StreamingAsrConfig;
+import com.proj.ai.dto.StreamingAsrMessage;
+import com.proj.ai.dto.StreamingAsrStats;
+import com.proj.ai.dto.WhisperResponse;
+import com.proj.ai.service.WhisperService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 实时语音识别服务
+ * 创建连接对应的 {@link StreamingAsrSession}，限制连接数，调用 Whisper 并统计说话结束到最终结果的耗时
+ */
+@Slf4j
+@Component
+public class StreamingAsrService {
+
+    private static final int LATENCY_SAMPLES = 1024;
+
+    @Autowired
+    private StreamingAsrConfig config;
+
+    @Autowired
+    private WhisperService whisperService;
+
+    private final AtomicInteger activeSessions = new AtomicInteger();
+
+    private final LongAdder totalSessions = new LongAdder();
+    private final LongAdder rejectedSessions = new LongAdder();
+    private final LongAdder utterances = new LongAdder();
+    private final LongAdder interims = new LongAdder();
+    private final LongAdder skippedInterims = new LongAdder();
+    private final LongAdder finals = new LongAdder();
+    private final LongAdder finalFailures = new LongAdder();
+    private final LongAdder finalLatencyMs = new LongAdder();
+
+    /**
+     * 最近的最终结果耗时（环形缓冲）
+     */
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private final ReentrantLock latencyLock = new ReentrantLock();
+    private int latencyCount;
+    private long maxLatencyMs;
+
+    /**
+     * 建立识别会话
+     *
+     * @param uri 连接地址，支持 language（默认 zh）和 sampleRate（默认 whisper.streaming.default-sample-rate）参数
+     * @param sender 向客户端发送消息
+     * @return 会话；超过最大连接数时返回 null
+     */
+    public StreamingAsrSession open(URI uri, Consumer<StreamingAsrMessage> sender) {
+        if (activeSessions.incrementAndGet() > config.getMaxSessions()) {
+            activeSessions.decrementAndGet();
+            rejectedSessions.increment();
+            log.warn("实时识别连接数已达上限 {}，拒绝新连接", config.getMaxSessions());
+            return null;
+        }
+        totalSessions.increment();
+
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(uri).build().getQueryParams();
+        String language = StringUtils.hasText(params.getFirst("language")) ? params.getFirst("language") : "zh";
+        int sampleRate = config.getDefaultSampleRate();
+        if (StringUtils.hasText(params.getFirst("sampleRate"))) {
+            try {
+                sampleRate = Math.max(8000, Math.min(48000, Integer.parseInt(params.getFirst("sampleRate"))));
+            } catch (NumberFormatException e) {
+                log.warn("无效的 sampleRate: {}，使用默认值 {}", params.getFirst("sampleRate"), sampleRate);
+            }
+        }
+        log.info("建立实时识别连接，language: {}, sampleRate: {}, 当前连接数: {}",
+                language, sampleRate, activeSessions.get());
+
+        StreamingAsrSession session = new StreamingAsrSession(this, config, language, sampleRate, sender);
+        session.start();
+        return session;
+    }
+
+    /**
+     * 识别一段 WAV
+     */
+    Mono<WhisperResponse> recognize(byte[] wav, String language) {
+        return whisperService.recognizeBytesReactive(wav, language);
+    }
+
+    void sessionClosed() {
+        activeSessions.decrementAndGet();
+    }
+
+    void utteranceStarted() {
+        utterances.increment();
+    }
+
+    void interimSent() {
+        interims.increment();
+    }
+
+    void interimSkipped() {
+        skippedInterims.increment();
+    }
+
+    void finalFailed() {
+        finalFailures.increment();
+    }
+
+    void finalSent(long latencyMs) {
+        finals.increment();
+        finalLatencyMs.add(latencyMs);
+        latencyLock.lock();
+        try {
+            latencies[latencyCount % LATENCY_SAMPLES] = latencyMs;
+            latencyCount++;
+            maxLatencyMs = Math.max(maxLatencyMs, latencyMs);
+        } finally {
+            latencyLock.unlock();
+        }
+    }
+
+    /**
+     * 获取统计
+     */
+    public StreamingAsrStats stats() {
+        long[] recent;
+        long max;
+        latencyLock.lock();
+        try {
+            recent = Arrays.copyOf(latencies, Math.min(latencyCount, LATENCY_SAMPLES));
+            max = maxLatencyMs;
+        } finally {
+            latencyLock.unlock();
+        }
+        Arrays.sort(recent);
+        long finalCount = finals.sum();
+        return StreamingAsrStats.builder()
+                .activeSessions(activeSessions.get())
+                .totalSessions(totalSessions.sum())
+                .rejectedSessions(rejectedSessions.sum())
+                .utterances(utterances.sum())
+                .interimCount(interims.sum())
+                .skippedInterimCount(skippedInterims.sum())
+                .finalCount(finalCount)
+                .finalFailureCount(finalFailures.sum())
+                .avgFinalLatencyMs(finalCount > 0 ? finalLatencyMs.sum() / finalCount : 0)
+                .p50FinalLatencyMs(percentile(recent, 0.50))
+                .p95FinalLatencyMs(percentile(recent, 0.95))
+                .maxFinalLatencyMs(max)
+                .build();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
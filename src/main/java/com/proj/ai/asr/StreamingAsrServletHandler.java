@@ -0,0 +1,86 @@
+package com.proj.ai.asr;
+
+import com.alibaba.fastjson2.JSON;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实时语音识别 WebSocket 处理器（Servlet 模式）
+ * 二进制消息为 PCM 音频，文本消息 "end" 结束当前句子
+ */
+@Slf4j
+public class StreamingAsrServletHandler extends AbstractWebSocketHandler {
+
+    /**
+     * 客户端读得慢时最多缓冲的发送时间（毫秒）和字节数
+     */
+    private static final int SEND_TIME_LIMIT = 10_000;
+    private static final int SEND_BUFFER_LIMIT = 512 * 1024;
+
+    private final StreamingAsrService streamingAsrService;
+
+    private final Map<String, StreamingAsrSession> sessions = new ConcurrentHashMap<>();
+
+    public StreamingAsrServletHandler(StreamingAsrService streamingAsrService) {
+        this.streamingAsrService = streamingAsrService;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        WebSocketSession concurrent = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT, SEND_BUFFER_LIMIT);
+        StreamingAsrSession asr = streamingAsrService.open(session.getUri(), message -> {
+            try {
+                concurrent.sendMessage(new TextMessage(JSON.toJSONString(message)));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        if (asr == null) {
+            session.close(CloseStatus.SERVICE_OVERLOAD);
+            return;
+        }
+        sessions.put(session.getId(), asr);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        StreamingAsrSession asr = sessions.get(session.getId());
+        if (asr != null) {
+            ByteBuffer payload = message.getPayload();
+            byte[] data = new byte[payload.remaining()];
+            payload.get(data);
+            asr.onAudio(data);
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        StreamingAsrSession asr = sessions.get(session.getId());
+        if (asr != null && "end".equalsIgnoreCase(message.getPayload().trim())) {
+            asr.flush();
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("实时识别连接异常: {}", exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        StreamingAsrSession asr = sessions.remove(session.getId());
+        if (asr != null) {
+            asr.close();
+        }
+    }
+}
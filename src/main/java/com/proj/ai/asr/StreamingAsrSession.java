@@ -0,0 +1,338 @@
+package com.proj.ai.asr;
+
+import com.proj.ai.audio.VoiceActivityDetector;
+import com.proj.ai.audio.WavWriter;
+import com.proj.ai.config.StreamingAsrConfig;
+import com.proj.ai.dto.StreamingAsrMessage;
+import com.proj.ai.dto.WhisperResponse;
+import com.proj.ai.exception.OverloadException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 一个 WebSocket 连接的实时识别状态
+ * <p>
+ * 收到的 PCM 按帧做 VAD：连续语音达到 speechStartMs 后开始一句话（带上 preRollMs 的前置音频），
+ * 说话过程中每积累 interimIntervalMs 的新音频发送最近 interimWindowSeconds 的音频做中间识别（同一时刻最多一个），
+ * 连续静音达到 silenceMs 或句子达到 maxUtteranceSeconds 时发送整句做最终识别。
+ * 最终结果按句子顺序输出，迟到的中间结果丢弃。
+ * <p>
+ * 与传输层无关：Servlet 和 WebFlux 的 WebSocket 处理器都把收到的数据交给本类，消息通过 sender 发出；
+ * 所有方法和发送都在本对象的 lock 内执行，sender 不会被并发调用
+ */
+@Slf4j
+public class StreamingAsrSession {
+
+    private final StreamingAsrService service;
+
+    private final String language;
+
+    private final int sampleRate;
+
+    private final Consumer<StreamingAsrMessage> sender;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final VoiceActivityDetector vad;
+
+    private final int frameMs;
+    private final int frameBytes;
+    private final int speechStartFrames;
+    private final int silenceFrames;
+    private final int preRollFrames;
+    private final int interimFrames;
+    private final int interimWindowBytes;
+    private final int maxUtteranceBytes;
+
+    /**
+     * 不足一帧的剩余数据
+     */
+    private final byte[] carry;
+    private int carryLength;
+
+    /**
+     * 开始说话前的最近几帧
+     */
+    private final Deque<byte[]> preRoll = new ArrayDeque<>();
+
+    /**
+     * 当前句子的 PCM，未在说话时为 null
+     */
+    private byte[] utterance;
+    private int utteranceLength;
+
+    private int utteranceId;
+    private int voicedFrames;
+    private int silentFrames;
+    private int framesSinceInterim;
+    private long lastVoiceNanos;
+    /**
+     * 是否有中间识别未返回；只由该次识别的回调清除，句子结束时不清除，保证同一时间最多一个中间识别
+     */
+    private boolean interimInFlight;
+    private boolean closed;
+
+    /**
+     * 最终识别链，保证按句子顺序输出
+     */
+    private CompletableFuture<Void> finals = CompletableFuture.completedFuture(null);
+
+    StreamingAsrSession(StreamingAsrService service, StreamingAsrConfig config, String language, int sampleRate,
+                        Consumer<StreamingAsrMessage> sender) {
+        this.service = service;
+        this.language = language;
+        this.sampleRate = sampleRate;
+        this.sender = sender;
+        this.vad = new VoiceActivityDetector(config.getMinSpeechRms(), config.getNoiseMultiplier());
+        this.frameMs = config.getFrameMs();
+        this.frameBytes = sampleRate * frameMs / 1000 * 2;
+        this.speechStartFrames = Math.max(1, config.getSpeechStartMs() / frameMs);
+        this.silenceFrames = Math.max(1, config.getSilenceMs() / frameMs);
+        this.preRollFrames = config.getPreRollMs() / frameMs;
+        this.interimFrames = Math.max(1, config.getInterimIntervalMs() / frameMs);
+        this.interimWindowBytes = config.getInterimWindowSeconds() * sampleRate * 2;
+        this.maxUtteranceBytes = config.getMaxUtteranceSeconds() * sampleRate * 2;
+        this.carry = new byte[frameBytes];
+    }
+
+    /**
+     * 连接建立后通知客户端
+     */
+    void start() {
+        lock.lock();
+        try {
+            send(StreamingAsrMessage.builder()
+                    .type(StreamingAsrMessage.TYPE_READY)
+                    .sampleRate(sampleRate)
+                    .build());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 收到音频（小端 16 位单声道 PCM）
+     */
+    public void onAudio(byte[] data) {
+        lock.lock();
+        try {
+            if (!closed) {
+                processAudio(data);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 客户端主动结束当前句子（如松开按键），立即输出最终结果
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            if (!closed && utterance != null) {
+                finishUtterance();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 连接关闭，丢弃未完成的句子
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            utterance = null;
+            preRoll.clear();
+            service.sessionClosed();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void processAudio(byte[] data) {
+        int position = 0;
+        if (carryLength > 0) {
+            int n = Math.min(frameBytes - carryLength, data.length);
+            System.arraycopy(data, 0, carry, carryLength, n);
+            carryLength += n;
+            position = n;
+            if (carryLength < frameBytes) {
+                return;
+            }
+            processFrame(carry, 0);
+            carryLength = 0;
+        }
+        while (position + frameBytes <= data.length) {
+            processFrame(data, position);
+            position += frameBytes;
+        }
+        carryLength = data.length - position;
+        System.arraycopy(data, position, carry, 0, carryLength);
+    }
+
+    private void processFrame(byte[] data, int offset) {
+        boolean speech = vad.isSpeech(data, offset, frameBytes);
+        if (utterance == null) {
+            if (preRollFrames > 0) {
+                if (preRoll.size() >= preRollFrames) {
+                    preRoll.pollFirst();
+                }
+                preRoll.addLast(Arrays.copyOfRange(data, offset, offset + frameBytes));
+            }
+            voicedFrames = speech ? voicedFrames + 1 : 0;
+            if (voicedFrames >= speechStartFrames) {
+                startUtterance();
+            }
+            return;
+        }
+
+        append(data, offset, frameBytes);
+        framesSinceInterim++;
+        if (speech) {
+            silentFrames = 0;
+            lastVoiceNanos = System.nanoTime();
+        } else {
+            silentFrames++;
+        }
+
+        if (silentFrames >= silenceFrames || utteranceLength >= maxUtteranceBytes) {
+            finishUtterance();
+        } else if (framesSinceInterim >= interimFrames) {
+            framesSinceInterim = 0;
+            requestInterim();
+        }
+    }
+
+    private void startUtterance() {
+        utteranceId++;
+        utterance = new byte[Math.min(maxUtteranceBytes, sampleRate * 2 * 4)];
+        utteranceLength = 0;
+        for (byte[] frame : preRoll) {
+            append(frame, 0, frame.length);
+        }
+        preRoll.clear();
+        voicedFrames = 0;
+        silentFrames = 0;
+        framesSinceInterim = 0;
+        lastVoiceNanos = System.nanoTime();
+        service.utteranceStarted();
+        send(StreamingAsrMessage.builder()
+                .type(StreamingAsrMessage.TYPE_SPEECH_START)
+                .utteranceId(utteranceId)
+                .build());
+    }
+
+    private void append(byte[] data, int offset, int length) {
+        if (utteranceLength + length > utterance.length) {
+            utterance = Arrays.copyOf(utterance, Math.max(utteranceLength + length,
+                    Math.min(maxUtteranceBytes, utterance.length * 2)));
+        }
+        System.arraycopy(data, offset, utterance, utteranceLength, length);
+        utteranceLength += length;
+    }
+
+    /**
+     * 中间识别：上一次还未返回时跳过（包括上一句的中间识别，其结果返回后会被丢弃）
+     */
+    private void requestInterim() {
+        if (interimInFlight) {
+            service.interimSkipped();
+            return;
+        }
+        interimInFlight = true;
+        int id = utteranceId;
+        int length = Math.min(utteranceLength, interimWindowBytes);
+        byte[] wav = WavWriter.wrap(utterance, utteranceLength - length, length, sampleRate, 1);
+        service.recognize(wav, language).toFuture().whenComplete((response, error) -> {
+            lock.lock();
+            try {
+                interimInFlight = false;
+                if (error != null || !Boolean.TRUE.equals(response.getSuccess())) {
+                    service.interimSkipped();
+                    return;
+                }
+                // 句子已结束或已开始下一句时丢弃
+                if (id == utteranceId && utterance != null) {
+                    service.interimSent();
+                    send(StreamingAsrMessage.builder()
+                            .type(StreamingAsrMessage.TYPE_INTERIM)
+                            .utteranceId(id)
+                            .text(response.getText())
+                            .build());
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * 最终识别：识别立即开始，结果排在前一句之后输出
+     */
+    private void finishUtterance() {
+        int id = utteranceId;
+        long audioMs = utteranceLength * 1000L / (sampleRate * 2L);
+        long speechEndNanos = lastVoiceNanos;
+        byte[] wav = WavWriter.wrap(utterance, 0, utteranceLength, sampleRate, 1);
+        utterance = null;
+        utteranceLength = 0;
+        silentFrames = 0;
+
+        CompletableFuture<WhisperResponse> result = service.recognize(wav, language).toFuture();
+        finals = finals.thenCompose(v -> result.handle((response, error) -> {
+            lock.lock();
+            try {
+                emitFinal(id, audioMs, speechEndNanos, response, error);
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        }));
+    }
+
+    private void emitFinal(int id, long audioMs, long speechEndNanos, WhisperResponse response, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause != null || !Boolean.TRUE.equals(response.getSuccess())) {
+            service.finalFailed();
+            String message = cause instanceof OverloadException ? cause.getMessage()
+                    : cause != null ? "语音识别失败: " + cause.getMessage() : response.getErrorMessage();
+            log.warn("实时识别第 {} 句失败: {}", id, message);
+            send(StreamingAsrMessage.error(id, message));
+            return;
+        }
+        long latencyMs = (System.nanoTime() - speechEndNanos) / 1_000_000;
+        service.finalSent(latencyMs);
+        send(StreamingAsrMessage.builder()
+                .type(StreamingAsrMessage.TYPE_FINAL)
+                .utteranceId(id)
+                .text(response.getText())
+                .audioMs(audioMs)
+                .latencyMs(latencyMs)
+                .build());
+    }
+
+    private void send(StreamingAsrMessage message) {
+        if (closed) {
+            return;
+        }
+        try {
+            sender.accept(message);
+        } catch (Exception e) {
+            log.debug("实时识别消息发送失败: {}", e.getMessage());
+        }
+    }
+}
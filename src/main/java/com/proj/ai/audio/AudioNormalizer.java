@@ -0,0 +1,203 @@
+package com.proj.ai.audio;
+
+import com.proj.ai.config.WhisperConfig;
+import com.proj.ai.dto.AudioNormalizeStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 音频归一化
+ * <p>
+ * 发送给 Whisper 前解码并转换为 16kHz 单声道 16 位 PCM WAV（whisper.cpp 的输入格式），
+ * 48kHz 立体声 WAV 转换后只有原来的 1/6，减少上传流量，Whisper 服务也不需要再解码和重采样。
+ * 已是目标格式的音频原样发送；javax.sound 无法解码的格式（mp3、m4a 等）以及转换后反而更大的音频也原样发送
+ */
+@Slf4j
+@Component
+public class AudioNormalizer {
+
+    @Autowired
+    private WhisperConfig whisperConfig;
+
+    private final LongAdder converted = new LongAdder();
+    private final LongAdder passthrough = new LongAdder();
+    private final LongAdder unsupported = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder convertNanos = new LongAdder();
+
+    /**
+     * 是否启用归一化
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(whisperConfig.getNormalize().getEnabled());
+    }
+
+    /**
+     * 归一化音频（CPU 密集，调用方负责调度到合适的线程）
+     *
+     * @param audio 原始音频
+     * @return 归一化结果；未启用、已是目标格式或无法转换时 bytes 为原数组
+     */
+    public NormalizedAudio normalize(byte[] audio) {
+        if (!isEnabled()) {
+            return new NormalizedAudio(audio, audio.length, false, 0, 0);
+        }
+        long start = System.nanoTime();
+        int targetRate = whisperConfig.getNormalize().getSampleRate();
+
+        AudioFormat format;
+        try {
+            AudioFileFormat fileFormat = AudioSystem.getAudioFileFormat(new ByteArrayInputStream(audio));
+            format = fileFormat.getFormat();
+            if (fileFormat.getType() == AudioFileFormat.Type.WAVE && isTarget(format, targetRate)) {
+                passthrough.increment();
+                long audioMs = fileFormat.getFrameLength() > 0
+                        ? fileFormat.getFrameLength() * 1000L / targetRate : 0;
+                return new NormalizedAudio(audio, audio.length, false, elapsedMs(start), audioMs);
+            }
+        } catch (Exception e) {
+            log.debug("音频格式无法解码，原样发送: {}", e.getMessage());
+            unsupported.increment();
+            return new NormalizedAudio(audio, audio.length, false, elapsedMs(start), 0);
+        }
+
+        try {
+            int sourceRate = (int) format.getSampleRate();
+            int channels = format.getChannels();
+            AudioFormat pcmFormat = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED,
+                    sourceRate, 16, channels, channels * 2, sourceRate, false);
+            byte[] pcm;
+            try (AudioInputStream source = AudioSystem.getAudioInputStream(new ByteArrayInputStream(audio));
+                 AudioInputStream decoded = AudioSystem.getAudioInputStream(pcmFormat, source)) {
+                pcm = decoded.readAllBytes();
+            }
+
+            short[] mono = downmix(pcm, channels);
+            short[] resampled = resample(mono, sourceRate, targetRate);
+            byte[] output = toBytes(resampled);
+            long audioMs = resampled.length * 1000L / targetRate;
+            if (output.length + 44 >= audio.length) {
+                unsupported.increment();
+                return new NormalizedAudio(audio, audio.length, false, elapsedMs(start), audioMs);
+            }
+            byte[] wav = WavWriter.wrap(output, 0, output.length, targetRate, 1);
+
+            long elapsed = System.nanoTime() - start;
+            converted.increment();
+            bytesIn.add(audio.length);
+            bytesOut.add(wav.length);
+            convertNanos.add(elapsed);
+            log.info("音频归一化完成: {}Hz/{}声道 -> {}Hz/单声道, {} -> {} bytes, 耗时: {}ms",
+                    sourceRate, channels, targetRate, audio.length, wav.length, elapsed / 1_000_000);
+            return new NormalizedAudio(wav, audio.length, true, elapsed / 1_000_000, audioMs);
+
+        } catch (Exception e) {
+            log.warn("音频归一化失败，原样发送: {}", e.getMessage());
+            unsupported.increment();
+            return new NormalizedAudio(audio, audio.length, false, elapsedMs(start), 0);
+        }
+    }
+
+    /**
+     * 是否已是目标格式：单声道、16 位小端 PCM、目标采样率
+     */
+    private boolean isTarget(AudioFormat format, int targetRate) {
+        return AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding())
+                && format.getChannels() == 1
+                && format.getSampleSizeInBits() == 16
+                && !format.isBigEndian()
+                && (int) format.getSampleRate() == targetRate;
+    }
+
+    /**
+     * 多声道取平均混为单声道
+     */
+    static short[] downmix(byte[] pcm, int channels) {
+        int frames = pcm.length / (channels * 2);
+        short[] mono = new short[frames];
+        for (int frame = 0; frame < frames; frame++) {
+            int sum = 0;
+            int offset = frame * channels * 2;
+            for (int channel = 0; channel < channels; channel++) {
+                int index = offset + channel * 2;
+                sum += (short) ((pcm[index] & 0xFF) | (pcm[index + 1] << 8));
+            }
+            mono[frame] = (short) (sum / channels);
+        }
+        return mono;
+    }
+
+    /**
+     * 重采样
+     * 降采样时每个输出采样取其覆盖的输入区间的平均值（盒式低通，抑制混叠），升采样时线性插值
+     */
+    static short[] resample(short[] input, int sourceRate, int targetRate) {
+        if (sourceRate == targetRate || input.length == 0) {
+            return input;
+        }
+        double ratio = (double) sourceRate / targetRate;
+        int outputLength = (int) ((long) input.length * targetRate / sourceRate);
+        short[] output = new short[outputLength];
+        if (ratio > 1) {
+            for (int i = 0; i < outputLength; i++) {
+                int from = (int) (i * ratio);
+                int to = Math.min(input.length, Math.max(from + 1, (int) ((i + 1) * ratio)));
+                long sum = 0;
+                for (int j = from; j < to; j++) {
+                    sum += input[j];
+                }
+                output[i] = (short) Math.round((double) sum / (to - from));
+            }
+        } else {
+            for (int i = 0; i < outputLength; i++) {
+                double position = i * ratio;
+                int index = (int) position;
+                double fraction = position - index;
+                int next = Math.min(index + 1, input.length - 1);
+                output[i] = (short) Math.round(input[index] + (input[next] - input[index]) * fraction);
+            }
+        }
+        return output;
+    }
+
+    private static byte[] toBytes(short[] samples) {
+        byte[] bytes = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            bytes[i * 2] = (byte) samples[i];
+            bytes[i * 2 + 1] = (byte) (samples[i] >> 8);
+        }
+        return bytes;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * 获取归一化统计
+     */
+    public AudioNormalizeStats stats() {
+        long count = converted.sum();
+        long in = bytesIn.sum();
+        long out = bytesOut.sum();
+        return AudioNormalizeStats.builder()
+                .enabled(isEnabled())
+                .convertedCount(count)
+                .passthroughCount(passthrough.sum())
+                .unsupportedCount(unsupported.sum())
+                .bytesIn(in)
+                .bytesOut(out)
+                .bytesSaved(in - out)
+                .averageTimeMs(count == 0 ? 0.0 : convertNanos.sum() / 1_000_000.0 / count)
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.proj.ai.audio;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 长音频切分后的一个分段
+ */
+@Data
+@AllArgsConstructor
+public class AudioSegment {
+
+    /**
+     * 分段序号（从 0 开始）
+     */
+    private int index;
+
+    /**
+     * 分段实际起点（包含与上一段的重叠部分），相对原音频的毫秒数
+     */
+    private long offsetMs;
+
+    /**
+     * 分段名义起点（切点），重叠部分的识别结果以此为界去重
+     */
+    private long boundaryMs;
+
+    /**
+     * 分段终点，相对原音频的毫秒数
+     */
+    private long endMs;
+
+    /**
+     * 分段音频（PCM WAV）
+     */
+    private byte[] wav;
+}
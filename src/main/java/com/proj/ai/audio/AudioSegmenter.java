@@ -0,0 +1,158 @@
+package com.proj.ai.audio;
+
+import com.proj.ai.config.WhisperConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 长音频切分器
+ * 将音频解码为 16 位 PCM，按目标时长在静音位置切分，相邻分段保留一段重叠
+ * 仅支持 javax.sound 可解码的格式（WAV/AIFF/AU），其他格式返回空列表，由调用方整段识别
+ */
+@Slf4j
+@Component
+public class AudioSegmenter {
+
+    /**
+     * 能量分析的窗口长度（毫秒）
+     */
+    private static final int ANALYSIS_WINDOW_MS = 20;
+
+    /**
+     * 切分音频
+     *
+     * @param audioBytes 原始音频
+     * @param config 长音频配置
+     * @return 分段列表；音频不可解码或未超过阈值时返回空列表
+     */
+    public List<AudioSegment> split(byte[] audioBytes, WhisperConfig.LongAudio config) {
+        AudioFormat sourceFormat;
+        long frameLength;
+        try {
+            AudioFileFormat fileFormat = AudioSystem.getAudioFileFormat(new ByteArrayInputStream(audioBytes));
+            sourceFormat = fileFormat.getFormat();
+            frameLength = fileFormat.getFrameLength();
+        } catch (Exception e) {
+            log.debug("音频格式无法解码，不进行分段: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+
+        float sampleRate = sourceFormat.getSampleRate();
+        if (frameLength != AudioSystem.NOT_SPECIFIED
+                && frameLength / sampleRate <= config.getThresholdSeconds()) {
+            return Collections.emptyList();
+        }
+
+        try {
+            int channels = sourceFormat.getChannels();
+            AudioFormat pcmFormat = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED,
+                    sampleRate, 16, channels, channels * 2, sampleRate, false);
+            byte[] pcm;
+            try (AudioInputStream source = AudioSystem.getAudioInputStream(new ByteArrayInputStream(audioBytes));
+                 AudioInputStream converted = AudioSystem.getAudioInputStream(pcmFormat, source)) {
+                pcm = converted.readAllBytes();
+            }
+
+            int frameSize = pcmFormat.getFrameSize();
+            int totalFrames = pcm.length / frameSize;
+            if (totalFrames / sampleRate <= config.getThresholdSeconds()) {
+                return Collections.emptyList();
+            }
+
+            List<Integer> boundaries = findBoundaries(pcm, pcmFormat, totalFrames, config);
+            int overlapFrames = (int) (config.getOverlapSeconds() * sampleRate);
+
+            List<AudioSegment> segments = new ArrayList<>(boundaries.size() - 1);
+            for (int i = 0; i < boundaries.size() - 1; i++) {
+                int boundary = boundaries.get(i);
+                int start = Math.max(0, boundary - overlapFrames);
+                int end = boundaries.get(i + 1);
+                segments.add(new AudioSegment(i,
+                        framesToMs(start, sampleRate),
+                        framesToMs(boundary, sampleRate),
+                        framesToMs(end, sampleRate),
+                        toWav(pcm, start * frameSize, (end - start) * frameSize, pcmFormat)));
+            }
+            log.info("长音频切分完成，时长: {}s, 分段数: {}", totalFrames / (long) sampleRate, segments.size());
+            return segments;
+
+        } catch (Exception e) {
+            log.warn("长音频切分失败，改为整段识别: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 计算切点（帧序号），包含起点 0 和终点 totalFrames
+     * 每个切点取目标位置之前 silenceSearchSeconds 范围内能量最低的窗口
+     */
+    private List<Integer> findBoundaries(byte[] pcm, AudioFormat format, int totalFrames,
+                                         WhisperConfig.LongAudio config) {
+        float sampleRate = format.getSampleRate();
+        int windowFrames = Math.max(1, (int) (sampleRate * ANALYSIS_WINDOW_MS / 1000));
+        int segmentFrames = (int) (config.getSegmentSeconds() * sampleRate);
+        int searchFrames = (int) (config.getSilenceSearchSeconds() * sampleRate);
+
+        List<Integer> boundaries = new ArrayList<>();
+        boundaries.add(0);
+        int position = 0;
+        // 最后一段不足半个分段时并入上一段
+        while (totalFrames - position > segmentFrames + segmentFrames / 2) {
+            int target = position + segmentFrames;
+            int searchStart = Math.max(position + segmentFrames / 2, target - searchFrames);
+            int cut = target;
+            double minEnergy = Double.MAX_VALUE;
+            for (int window = searchStart; window + windowFrames <= target; window += windowFrames) {
+                double energy = windowEnergy(pcm, format, window, windowFrames);
+                if (energy < minEnergy) {
+                    minEnergy = energy;
+                    cut = window + windowFrames / 2;
+                }
+            }
+            boundaries.add(cut);
+            position = cut;
+        }
+        boundaries.add(totalFrames);
+        return boundaries;
+    }
+
+    /**
+     * 计算窗口内所有声道采样的均方能量
+     */
+    private double windowEnergy(byte[] pcm, AudioFormat format, int startFrame, int frames) {
+        int channels = format.getChannels();
+        int offset = startFrame * format.getFrameSize();
+        int samples = frames * channels;
+        double sum = 0;
+        for (int i = 0; i < samples; i++) {
+            int index = offset + i * 2;
+            short sample = (short) ((pcm[index] & 0xFF) | (pcm[index + 1] << 8));
+            sum += (double) sample * sample;
+        }
+        return sum / samples;
+    }
+
+    private byte[] toWav(byte[] pcm, int offset, int length, AudioFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length + 44);
+        try (AudioInputStream stream = new AudioInputStream(
+                new ByteArrayInputStream(pcm, offset, length), format, length / format.getFrameSize())) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, out);
+        }
+        return out.toByteArray();
+    }
+
+    private long framesToMs(int frames, float sampleRate) {
+        return (long) (frames * 1000.0 / sampleRate);
+    }
+}
@@ -0,0 +1,13 @@
+package com.proj.ai.audio;
+
+/**
+ * 归一化后的音频
+ *
+ * @param bytes 发送给 Whisper 的音频
+ * @param originalBytes 原始音频字节数
+ * @param converted 是否经过转换（false 表示原样发送）
+ * @param elapsedMs 归一化耗时（毫秒）
+ * @param audioMs 音频时长（毫秒），无法解码时为 0
+ */
+public record NormalizedAudio(byte[] bytes, int originalBytes, boolean converted, long elapsedMs, long audioMs) {
+}
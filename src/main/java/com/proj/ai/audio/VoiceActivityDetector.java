@@ -0,0 +1,50 @@
+package com.proj.ai.audio;
+
+/**
+ * 基于能量的语音活动检测（VAD）
+ * 按帧计算 16 位 PCM 的 RMS 能量，高于 max(最低能量, 背景噪声 × 倍数) 判定为语音；
+ * 背景噪声由非语音帧的能量指数平均得到，适应不同环境的底噪。每个连接一个实例，非线程安全
+ */
+public class VoiceActivityDetector {
+
+    private final double minSpeechRms;
+
+    private final double noiseMultiplier;
+
+    private double noiseFloor;
+
+    public VoiceActivityDetector(double minSpeechRms, double noiseMultiplier) {
+        this.minSpeechRms = minSpeechRms;
+        this.noiseMultiplier = noiseMultiplier;
+    }
+
+    /**
+     * 判断一帧是否为语音
+     *
+     * @param pcm 小端 16 位单声道 PCM
+     * @param offset 帧起始位置
+     * @param length 帧字节数
+     * @return 是否为语音
+     */
+    public boolean isSpeech(byte[] pcm, int offset, int length) {
+        double rms = rms(pcm, offset, length);
+        boolean speech = rms > Math.max(minSpeechRms, noiseFloor * noiseMultiplier);
+        if (!speech) {
+            noiseFloor = noiseFloor == 0 ? rms : noiseFloor * 0.95 + rms * 0.05;
+        }
+        return speech;
+    }
+
+    private static double rms(byte[] pcm, int offset, int length) {
+        int samples = length / 2;
+        if (samples == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = offset; i + 1 < offset + length; i += 2) {
+            int sample = (short) ((pcm[i] & 0xFF) | (pcm[i + 1] << 8));
+            sum += (double) sample * sample;
+        }
+        return Math.sqrt(sum / samples);
+    }
+}
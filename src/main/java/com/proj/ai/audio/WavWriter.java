@@ -0,0 +1,44 @@
+package com.proj.ai.audio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 16 位 PCM WAV 封装
+ */
+public final class WavWriter {
+
+    private static final int HEADER_SIZE = 44;
+
+    private WavWriter() {
+    }
+
+    /**
+     * 为小端 16 位 PCM 数据加上 WAV 头
+     *
+     * @param pcm PCM 数据
+     * @param offset 起始位置
+     * @param length 字节数
+     * @param sampleRate 采样率
+     * @param channels 声道数
+     * @return WAV 文件内容
+     */
+    public static byte[] wrap(byte[] pcm, int offset, int length, int sampleRate, int channels) {
+        int blockAlign = channels * 2;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(new byte[]{'R', 'I', 'F', 'F'});
+        buffer.putInt(36 + length);
+        buffer.put(new byte[]{'W', 'A', 'V', 'E', 'f', 'm', 't', ' '});
+        buffer.putInt(16);
+        buffer.putShort((short) 1);
+        buffer.putShort((short) channels);
+        buffer.putInt(sampleRate);
+        buffer.putInt(sampleRate * blockAlign);
+        buffer.putShort((short) blockAlign);
+        buffer.putShort((short) 16);
+        buffer.put(new byte[]{'d', 'a', 't', 'a'});
+        buffer.putInt(length);
+        buffer.put(pcm, offset, length);
+        return buffer.array();
+    }
+}
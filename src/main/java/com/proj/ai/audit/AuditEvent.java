@@ -0,0 +1,36 @@
+package com.proj.ai.audit;
+
+/**
+ * 审计记录（入队时的原始内容，哈希和截断在写入线程完成）
+ *
+ * @param timestamp 请求开始时间
+ * @param endpoint 接口名
+ * @param model 模型名称
+ * @param input 提示词（音频等二进制输入为 null）
+ * @param inputSize 输入大小：文本为字符数，二进制为字节数
+ * @param output 模型输出（流式接口为 null）
+ * @param success 是否成功
+ * @param cached 是否命中缓存
+ * @param latencyMs 耗时（毫秒）
+ * @param errorMessage 错误信息
+ */
+public record AuditEvent(long timestamp, String endpoint, String model, String input, long inputSize,
+                         String output, boolean success, Boolean cached, long latencyMs, String errorMessage) {
+
+    /**
+     * 记录对象及其字段之外的固定开销估算（字节）
+     */
+    private static final int OVERHEAD_BYTES = 128;
+
+    /**
+     * 在队列中占用内存的估算（字节），提示词和输出按每字符 2 字节计算
+     */
+    long weight() {
+        return OVERHEAD_BYTES + 2L * (length(endpoint) + length(model) + length(input) + length(output)
+                + length(errorMessage));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
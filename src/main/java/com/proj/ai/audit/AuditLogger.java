@@ -0,0 +1,319 @@
+package com.proj.ai.audit;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.proj.ai.config.AuditConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 请求审计日志
+ * <p>
+ * 请求线程只做采样判断和一次非阻塞入队（有界环形队列 ArrayBlockingQueue，同时按排队原文的估算字节数限制，
+ * 避免长输出较多时队列占用过多内存，任一超限时丢弃并计数）；
+ * 单独的写入线程批量取出记录，计算提示词和输出的哈希、按配置截断原文，序列化为 JSON 行，
+ * 每批只刷一次盘，写入 audit-yyyy-MM-dd.log，不进入应用日志
+ */
+@Slf4j
+@Component
+public class AuditLogger {
+
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    @Autowired
+    private AuditConfig config;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ArrayBlockingQueue<AuditEvent> queue;
+
+    /**
+     * 队列中记录的估算占用内存（字节）
+     */
+    private final AtomicLong queuedBytes = new AtomicLong();
+
+    private long maxQueuedBytes;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    private Path dir;
+
+    private BufferedWriter writer;
+
+    private LocalDate writerDate;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            log.info("审计日志未启用");
+            return;
+        }
+        this.dir = Files.createDirectories(Path.of(config.getDir()));
+        this.queue = new ArrayBlockingQueue<>(config.getQueueSize());
+        this.maxQueuedBytes = config.getQueueMaxMb() * 1024L * 1024L;
+
+        Gauge.builder("ai.audit.queue.size", queue, ArrayBlockingQueue::size)
+                .description("审计日志待写入记录数")
+                .register(meterRegistry);
+        Gauge.builder("ai.audit.queue.bytes", queuedBytes, AtomicLong::get)
+                .description("审计日志待写入记录估算占用内存（字节）")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.audit.events", written, LongAdder::sum)
+                .tag("result", "written").register(meterRegistry);
+        FunctionCounter.builder("ai.audit.events", dropped, LongAdder::sum)
+                .tag("result", "dropped").register(meterRegistry);
+        FunctionCounter.builder("ai.audit.events", sampledOut, LongAdder::sum)
+                .tag("result", "sampled_out").register(meterRegistry);
+
+        running = true;
+        writerThread = new Thread(this::drain, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("初始化审计日志，目录: {}, 采样率: {}, 失败采样率: {}, 记录原文: {}, 队列容量: {}（{}MB）",
+                dir, config.getSampleRate(), config.getErrorSampleRate(), config.getIncludePayload(),
+                config.getQueueSize(), config.getQueueMaxMb());
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        // 写入线程退出前写完队列中剩余的记录
+        running = false;
+        writerThread.join(config.getFlushInterval() * 5);
+    }
+
+    /**
+     * 记录成功的请求
+     *
+     * @param endpoint 接口名
+     * @param model 模型名称
+     * @param input 提示词（二进制输入传 null）
+     * @param inputSize 输入大小：文本为字符数，二进制为字节数
+     * @param output 模型输出（流式接口传 null）
+     * @param cached 是否命中缓存
+     * @param startTime 请求开始时间（毫秒）
+     */
+    public void success(String endpoint, String model, String input, long inputSize, String output,
+                        Boolean cached, long startTime) {
+        if (sampled(endpoint, true)) {
+            enqueue(new AuditEvent(startTime, endpoint, model, input, inputSize, output, true, cached,
+                    System.currentTimeMillis() - startTime, null));
+        }
+    }
+
+    /**
+     * 记录失败的请求
+     *
+     * @param endpoint 接口名
+     * @param input 提示词（二进制输入传 null）
+     * @param inputSize 输入大小：文本为字符数，二进制为字节数
+     * @param errorMessage 错误信息
+     * @param startTime 请求开始时间（毫秒）
+     */
+    public void failure(String endpoint, String input, long inputSize, String errorMessage, long startTime) {
+        if (sampled(endpoint, false)) {
+            enqueue(new AuditEvent(startTime, endpoint, null, input, inputSize, null, false, null,
+                    System.currentTimeMillis() - startTime, errorMessage));
+        }
+    }
+
+    private boolean sampled(String endpoint, boolean success) {
+        if (queue == null) {
+            return false;
+        }
+        double rate = success
+                ? config.getEndpointSampleRates().getOrDefault(endpoint, config.getSampleRate())
+                : config.getErrorSampleRate();
+        if (rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate) {
+            return true;
+        }
+        sampledOut.increment();
+        return false;
+    }
+
+    private void enqueue(AuditEvent event) {
+        long weight = event.weight();
+        if (queuedBytes.addAndGet(weight) > maxQueuedBytes || !queue.offer(event)) {
+            queuedBytes.addAndGet(-weight);
+            dropped.increment();
+        }
+    }
+
+    /**
+     * 写入线程：取出一批记录写入后刷盘，队列为空时最多等待 flushInterval
+     */
+    private void drain() {
+        List<AuditEvent> batch = new ArrayList<>(config.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditEvent first = queue.poll(config.getFlushInterval(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, config.getBatchSize() - 1);
+                release(batch);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("写入审计日志失败，丢弃 {} 条: {}", batch.size(), e.getMessage());
+                closeWriter();
+            } finally {
+                batch.clear();
+            }
+        }
+        closeWriter();
+    }
+
+    /**
+     * 已取出的记录不再计入队列占用
+     */
+    private void release(List<AuditEvent> batch) {
+        long weight = 0;
+        for (AuditEvent event : batch) {
+            weight += event.weight();
+        }
+        queuedBytes.addAndGet(-weight);
+    }
+
+    private void write(List<AuditEvent> batch) throws IOException {
+        LocalDate today = LocalDate.now();
+        if (writer == null || !today.equals(writerDate)) {
+            closeWriter();
+            writer = Files.newBufferedWriter(dir.resolve("audit-" + FILE_DATE.format(today) + ".log"),
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            writerDate = today;
+            deleteExpired(today);
+        }
+        for (AuditEvent event : batch) {
+            writer.write(format(event));
+            writer.newLine();
+        }
+        writer.flush();
+        written.add(batch.size());
+    }
+
+    /**
+     * 序列化为一行 JSON：原文只记录长度和哈希，includePayload 时附带截断后的原文
+     */
+    private String format(AuditEvent event) {
+        JSONObject line = new JSONObject();
+        line.put("time", Instant.ofEpochMilli(event.timestamp()).toString());
+        line.put("endpoint", event.endpoint());
+        line.put("model", event.model());
+        line.put("success", event.success());
+        line.put("cached", event.cached());
+        line.put("latencyMs", event.latencyMs());
+        line.put("inputSize", event.inputSize());
+        if (event.input() != null) {
+            line.put("inputHash", hash(event.input()));
+            putPayload(line, "input", event.input());
+        }
+        if (event.output() != null) {
+            line.put("outputLength", event.output().length());
+            line.put("outputHash", hash(event.output()));
+            putPayload(line, "output", event.output());
+        }
+        line.put("error", event.errorMessage());
+        return line.toJSONString();
+    }
+
+    private void putPayload(JSONObject line, String key, String text) {
+        if (!Boolean.TRUE.equals(config.getIncludePayload())) {
+            return;
+        }
+        int max = config.getMaxPayloadChars();
+        line.put(key, text.length() <= max ? text : text.substring(0, max) + "...");
+    }
+
+    private String hash(String text) {
+        try {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            byte[] digest;
+            if (StringUtils.hasText(config.getHashKey())) {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(config.getHashKey().getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+                digest = mac.doFinal(bytes);
+            } else {
+                digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            }
+            return HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            throw new IllegalStateException("计算哈希失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 删除超过保留天数的审计日志
+     */
+    private void deleteExpired(LocalDate today) {
+        String oldest = "audit-" + FILE_DATE.format(today.minusDays(config.getRetentionDays())) + ".log";
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith("audit-") && name.endsWith(".log") && name.compareTo(oldest) < 0;
+                    })
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException e) {
+                            log.warn("删除过期审计日志失败 {}: {}", file, e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            log.warn("清理过期审计日志失败: {}", e.getMessage());
+        }
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("关闭审计日志文件失败: {}", e.getMessage());
+        }
+        writer = null;
+    }
+}
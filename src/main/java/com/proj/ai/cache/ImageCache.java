@@ -0,0 +1,498 @@
+package com.proj.ai.cache;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONObject;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.proj.ai.config.ImageCacheConfig;
+import com.proj.ai.metrics.InferenceMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * imageUrl 图片缓存
+ * <p>
+ * 两级缓存，存储的都是已编码好的 Base64：
+ * <ul>
+ *     <li>内存：Caffeine，按 Base64 长度限制容量</li>
+ *     <li>磁盘：data/{内容SHA-256}.b64 按内容寻址（相同图片只存一份），meta/{URL SHA-256}.json 记录 URL 到内容及校验信息的映射，
+ *     超出容量后按最近访问时间淘汰</li>
+ * </ul>
+ * 新鲜期内直接命中；过期后使用 ETag/Last-Modified 条件请求校验，304 时复用缓存。
+ * 同一 URL 的并发请求共享一次下载。
+ */
+@Slf4j
+@Component
+public class ImageCache {
+
+    @Autowired
+    private ImageCacheConfig cacheConfig;
+
+    @Autowired
+    private InferenceMetrics inferenceMetrics;
+
+    private WebClient webClient;
+
+    private Cache<String, ImageEntry> memory;
+
+    private Path dataDir;
+
+    private Path metaDir;
+
+    /**
+     * 同一 URL 正在进行中的加载
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<ImageEntry>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong diskUsage = new AtomicLong();
+
+    private final ReentrantLock trimLock = new ReentrantLock();
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder downloads = new LongAdder();
+
+    @PostConstruct
+    public void init() throws IOException {
+        this.webClient = WebClient.builder()
+                // 增加缓冲区大小到 10MB，避免 DataBufferLimitException
+                .codecs(configurer -> configurer
+                        .defaultCodecs()
+                        .maxInMemorySize(10 * 1024 * 1024)) // 10MB
+                .build();
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(cacheConfig.getMemoryMaxMb() * 1024L * 1024L)
+                .weigher((String url, ImageEntry entry) -> url.length() + entry.getBase64().length())
+                .build();
+
+        if (isEnabled()) {
+            Path root = Path.of(cacheConfig.getDiskDir());
+            this.dataDir = Files.createDirectories(root.resolve("data"));
+            this.metaDir = Files.createDirectories(root.resolve("meta"));
+            try (Stream<Path> files = Files.list(dataDir)) {
+                diskUsage.set(files.mapToLong(this::sizeOf).sum());
+            }
+        }
+        log.info("初始化图片缓存，enabled: {}, memory: {}MB, disk: {} ({}MB, 已使用 {} bytes)",
+                cacheConfig.getEnabled(), cacheConfig.getMemoryMaxMb(), cacheConfig.getDiskDir(),
+                cacheConfig.getDiskMaxMb(), diskUsage.get());
+    }
+
+    /**
+     * 是否启用缓存
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(cacheConfig.getEnabled());
+    }
+
+    /**
+     * 获取图片 Base64（同步）
+     *
+     * @param url 图片 URL
+     * @return Base64 编码的图片数据
+     */
+    public String getBase64(String url) {
+        return getEntry(url).getBase64();
+    }
+
+    /**
+     * 获取图片缓存条目（同步）
+     *
+     * @param url 图片 URL
+     * @return 图片缓存条目
+     */
+    public ImageEntry getEntry(String url) {
+        try {
+            return getEntryAsync(url).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * 获取图片 Base64（异步），同一 URL 的并发请求共享一次加载
+     *
+     * @param url 图片 URL
+     * @return Base64 编码的图片数据
+     */
+    public CompletableFuture<String> getBase64Async(String url) {
+        return getEntryAsync(url).thenApply(ImageEntry::getBase64);
+    }
+
+    /**
+     * 获取图片缓存条目（异步），包含 Base64 和内容摘要，同一 URL 的并发请求共享一次加载
+     *
+     * @param url 图片 URL
+     * @return 图片缓存条目
+     */
+    public CompletableFuture<ImageEntry> getEntryAsync(String url) {
+        ImageEntry cached = isEnabled() ? memory.getIfPresent(url) : null;
+        if (cached != null && isFresh(cached)) {
+            memoryHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<ImageEntry> future = inFlight.computeIfAbsent(url, u -> load(u, cached));
+        future.whenComplete((entry, error) -> inFlight.remove(url, future));
+        return future;
+    }
+
+    /**
+     * 图片内容标识（内容 SHA-256），用于请求合并和复用预处理结果
+     *
+     * @param entry 图片缓存条目
+     * @return 内容标识
+     */
+    public static String imageId(ImageEntry entry) {
+        return "sha256:" + entry.getContentHash();
+    }
+
+    /**
+     * 计算 Base64 图片的摘要，用于识别相同图片
+     * 直接对 data URL 前缀之后的 Base64 字符（忽略空白）分块计算 SHA-256，不解码、不复制整段字符串
+     *
+     * @param base64 图片 Base64（可带 data URL 前缀）
+     * @return Base64 字符的 SHA-256
+     */
+    public static String digestBase64(String base64) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] chunk = new byte[8192];
+            int length = 0;
+            for (int i = base64.indexOf(',') + 1; i < base64.length(); i++) {
+                char c = base64.charAt(i);
+                if (c <= ' ') {
+                    continue;
+                }
+                chunk[length++] = (byte) c;
+                if (length == chunk.length) {
+                    digest.update(chunk, 0, length);
+                    length = 0;
+                }
+            }
+            digest.update(chunk, 0, length);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.sum();
+    }
+
+    public long getDiskHits() {
+        return diskHits.sum();
+    }
+
+    public long getRevalidations() {
+        return revalidations.sum();
+    }
+
+    public long getDownloads() {
+        return downloads.sum();
+    }
+
+    /**
+     * 依次尝试：内存中的过期条目 / 磁盘条目 -> 新鲜则直接使用，否则到源站校验或下载
+     */
+    private CompletableFuture<ImageEntry> load(String url, ImageEntry memoryEntry) {
+        return Mono.fromCallable(() -> Optional.ofNullable(memoryEntry != null ? memoryEntry : readDisk(url)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(stored -> {
+                    if (stored.isPresent() && isFresh(stored.get())) {
+                        diskHits.increment();
+                        return Mono.just(stored.get());
+                    }
+                    return fetch(url, stored.orElse(null));
+                })
+                .doOnNext(entry -> {
+                    if (isEnabled()) {
+                        memory.put(url, entry);
+                    }
+                })
+                .toFuture();
+    }
+
+    /**
+     * 到源站获取图片，有缓存时携带 If-None-Match / If-Modified-Since
+     * 网络错误、超时或 5xx 且有旧缓存时继续使用旧缓存；4xx（如 404/410）说明图片已删除或不可访问，直接返回错误
+     */
+    private Mono<ImageEntry> fetch(String url, ImageEntry stale) {
+        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        return webClient.get()
+                .uri(url)
+                .headers(headers -> {
+                    if (stale != null && stale.getEtag() != null) {
+                        headers.set(HttpHeaders.IF_NONE_MATCH, stale.getEtag());
+                    }
+                    if (stale != null && stale.getLastModified() != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, stale.getLastModified());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (stale != null && response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        revalidations.increment();
+                        inferenceMetrics.recordImageDownload("not_modified", System.nanoTime() - startNanos);
+                        log.info("图片未修改（304），复用缓存: {}", url);
+                        ImageEntry entry = new ImageEntry(stale.getBase64(), stale.getContentHash(),
+                                stale.getEtag(), stale.getLastModified(), System.currentTimeMillis());
+                        return response.releaseBody().then(Mono.fromCallable(() -> {
+                            writeMeta(url, entry);
+                            return entry;
+                        }).subscribeOn(Schedulers.boundedElastic()));
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.createException().flatMap(e -> Mono.<ImageEntry>error(e));
+                    }
+                    HttpHeaders headers = response.headers().asHttpHeaders();
+                    return response.bodyToMono(byte[].class)
+                            .switchIfEmpty(Mono.error(new RuntimeException("下载的图片为空")))
+                            .doOnNext(bytes -> {
+                                inferenceMetrics.recordImageDownload("downloaded", System.nanoTime() - startNanos);
+                                inferenceMetrics.recordPayload(InferenceMetrics.BACKEND_IMAGE,
+                                        InferenceMetrics.DIRECTION_RESPONSE, bytes.length);
+                            })
+                            .publishOn(Schedulers.boundedElastic())
+                            .map(bytes -> store(url, bytes, headers.getETag(),
+                                    headers.getFirst(HttpHeaders.LAST_MODIFIED), startTime));
+                })
+                .timeout(Duration.ofMillis(cacheConfig.getDownloadTimeout()))
+                .doOnError(e -> {
+                    inferenceMetrics.recordImageDownload("error", System.nanoTime() - startNanos);
+                    inferenceMetrics.recordError(InferenceMetrics.BACKEND_IMAGE, e);
+                })
+                .onErrorResume(e -> {
+                    if (stale != null && isTransientError(e)) {
+                        log.warn("图片下载失败，使用旧缓存: {}, 错误: {}", url, e.getMessage());
+                        return Mono.just(stale);
+                    }
+                    return Mono.error(e);
+                });
+    }
+
+    /**
+     * 编码并写入磁盘
+     */
+    private ImageEntry store(String url, byte[] bytes, String etag, String lastModified, long startTime) {
+        if (bytes.length == 0) {
+            throw new RuntimeException("下载的图片为空");
+        }
+        downloads.increment();
+        String base64 = Base64.getEncoder().encodeToString(bytes);
+        ImageEntry entry = new ImageEntry(base64, sha256(bytes), etag, lastModified, System.currentTimeMillis());
+        log.info("图片下载成功，大小: {} bytes, Base64 长度: {}, 耗时: {}ms",
+                bytes.length, base64.length(), System.currentTimeMillis() - startTime);
+        if (isEnabled()) {
+            try {
+                writeData(entry);
+                writeMeta(url, entry);
+            } catch (IOException e) {
+                log.warn("写入图片磁盘缓存失败: {}", e.getMessage());
+            }
+        }
+        return entry;
+    }
+
+    private ImageEntry readDisk(String url) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Path metaFile = metaDir.resolve(sha256(url.getBytes(StandardCharsets.UTF_8)) + ".json");
+        try {
+            if (!Files.exists(metaFile)) {
+                return null;
+            }
+            JSONObject meta = JSON.parseObject(Files.readString(metaFile));
+            Path dataFile = dataDir.resolve(meta.getString("contentHash") + ".b64");
+            if (!Files.exists(dataFile)) {
+                return null;
+            }
+            // 更新访问时间，用于磁盘淘汰
+            Files.setLastModifiedTime(dataFile, FileTime.fromMillis(System.currentTimeMillis()));
+            return new ImageEntry(Files.readString(dataFile, StandardCharsets.US_ASCII),
+                    meta.getString("contentHash"), meta.getString("etag"),
+                    meta.getString("lastModified"), meta.getLongValue("validatedAt"));
+        } catch (IOException e) {
+            log.warn("读取图片磁盘缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeData(ImageEntry entry) throws IOException {
+        Path dataFile = dataDir.resolve(entry.getContentHash() + ".b64");
+        if (Files.exists(dataFile)) {
+            Files.setLastModifiedTime(dataFile, FileTime.fromMillis(System.currentTimeMillis()));
+            return;
+        }
+        writeAtomically(dataFile, entry.getBase64());
+        diskUsage.addAndGet(entry.getBase64().length());
+        trimDisk();
+    }
+
+    private void writeMeta(String url, ImageEntry entry) throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        JSONObject meta = new JSONObject();
+        meta.put("url", url);
+        meta.put("contentHash", entry.getContentHash());
+        meta.put("etag", entry.getEtag());
+        meta.put("lastModified", entry.getLastModified());
+        meta.put("validatedAt", entry.getValidatedAt());
+        writeAtomically(metaDir.resolve(sha256(url.getBytes(StandardCharsets.UTF_8)) + ".json"), meta.toJSONString());
+    }
+
+    private void writeAtomically(Path target, String content) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), "tmp-", ".part");
+        try {
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 磁盘超出上限时删除最久未访问的数据文件，直到降到上限的 90%，并删除指向这些数据文件的 meta 文件
+     */
+    private void trimDisk() {
+        long maxBytes = cacheConfig.getDiskMaxMb() * 1024L * 1024L;
+        if (diskUsage.get() <= maxBytes || !trimLock.tryLock()) {
+            return;
+        }
+        try {
+            List<Path> files;
+            try (Stream<Path> stream = Files.list(dataDir)) {
+                files = new ArrayList<>(stream.filter(file -> file.toString().endsWith(".b64")).toList());
+            }
+            files.sort(Comparator.comparingLong(this::lastModifiedOf));
+            long target = maxBytes * 9 / 10;
+            Set<String> evicted = new HashSet<>();
+            for (Path file : files) {
+                if (diskUsage.get() <= target) {
+                    break;
+                }
+                long size = sizeOf(file);
+                if (Files.deleteIfExists(file)) {
+                    diskUsage.addAndGet(-size);
+                    String name = file.getFileName().toString();
+                    evicted.add(name.substring(0, name.length() - ".b64".length()));
+                }
+            }
+            int removedMeta = trimMeta(evicted);
+            log.info("图片磁盘缓存淘汰 {} 个数据文件、{} 个 meta 文件，当前占用: {} bytes",
+                    evicted.size(), removedMeta, diskUsage.get());
+        } catch (IOException e) {
+            log.warn("图片磁盘缓存淘汰失败: {}", e.getMessage());
+        } finally {
+            trimLock.unlock();
+        }
+    }
+
+    /**
+     * 删除 contentHash 指向已淘汰数据文件的 meta 文件
+     *
+     * @return 删除的 meta 文件数
+     */
+    private int trimMeta(Set<String> evictedHashes) throws IOException {
+        if (evictedHashes.isEmpty()) {
+            return 0;
+        }
+        List<Path> metaFiles;
+        try (Stream<Path> stream = Files.list(metaDir)) {
+            metaFiles = stream.filter(file -> file.toString().endsWith(".json")).toList();
+        }
+        int removed = 0;
+        for (Path metaFile : metaFiles) {
+            try {
+                JSONObject meta = JSON.parseObject(Files.readString(metaFile));
+                if (meta == null || evictedHashes.contains(meta.getString("contentHash"))) {
+                    Files.deleteIfExists(metaFile);
+                    removed++;
+                }
+            } catch (IOException | JSONException e) {
+                log.debug("清理图片 meta 文件失败: {}, {}", metaFile, e.getMessage());
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 源站暂时不可用：连接失败、超时或 5xx
+     */
+    private static boolean isTransientError(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError();
+        }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException || e instanceof IOException;
+    }
+
+    private boolean isFresh(ImageEntry entry) {
+        return System.currentTimeMillis() - entry.getValidatedAt() < cacheConfig.getMaxAgeSeconds() * 1000;
+    }
+
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private long lastModifiedOf(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+}
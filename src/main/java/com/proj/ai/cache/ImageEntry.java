@@ -0,0 +1,37 @@
+package com.proj.ai.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 图片缓存条目
+ */
+@Data
+@AllArgsConstructor
+public class ImageEntry {
+
+    /**
+     * 图片 Base64 编码
+     */
+    private String base64;
+
+    /**
+     * 图片内容 SHA-256，作为磁盘数据文件名（相同内容只存一份）
+     */
+    private String contentHash;
+
+    /**
+     * 源站返回的 ETag
+     */
+    private String etag;
+
+    /**
+     * 源站返回的 Last-Modified
+     */
+    private String lastModified;
+
+    /**
+     * 最近一次从源站确认有效的时间（毫秒时间戳）
+     */
+    private long validatedAt;
+}
@@ -0,0 +1,151 @@
+package com.proj.ai.cache;
+
+import com.proj.ai.config.ResponseCacheConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 相同请求合并（single-flight）
+ * 同一个 key 的请求正在执行时，后到的相同请求不再调用模型，而是等待并共享第一个请求的结果；
+ * 流式请求共享同一个 token 流，后加入的订阅者会先收到已生成的部分
+ * <p>
+ * 请求结束（成功、失败或所有订阅者都取消）后立即移除 key，之后的请求重新调用模型；
+ * 第一个请求失败时，正在等待的请求收到同样的异常
+ */
+@Slf4j
+@Component
+public class RequestCoalescer {
+
+    @Autowired
+    private ResponseCacheConfig cacheConfig;
+
+    /**
+     * 同步和非阻塞请求共用：同步调用为其结果 future 的包装，非阻塞调用为按订阅者计数共享的上游
+     */
+    private final Map<String, Flux<Object>> calls = new ConcurrentHashMap<>();
+
+    private final Map<String, Flux<?>> streams = new ConcurrentHashMap<>();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * 是否启用请求合并
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(cacheConfig.getCoalesce());
+    }
+
+    /**
+     * 执行同步请求，相同 key 的并发请求只执行一次
+     *
+     * @param key 请求 key
+     * @param call 实际调用
+     * @return 调用结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> call) {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        Flux<Object> result = Mono.fromFuture(created, true).flux();
+        Flux<Object> existing = calls.putIfAbsent(key, result);
+        if (existing != null) {
+            coalesced.increment();
+            log.info("相同请求正在执行，等待共享结果");
+            // 等待期间作为共享调用的订阅者，非阻塞的第一个请求取消后调用仍会继续
+            return (T) existing.singleOrEmpty().block();
+        }
+        try {
+            T value = call.get();
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, result);
+        }
+    }
+
+    /**
+     * 执行非阻塞请求，与 {@link #execute} 共用同一组 key，同步和非阻塞的相同请求之间也会合并
+     * 所有订阅者共享同一次调用，最后一个订阅者取消时才取消实际调用
+     *
+     * @param key 请求 key
+     * @param call 实际调用（第一个订阅者订阅时才执行）
+     * @return 调用结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> executeReactive(String key, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            boolean[] leader = {false};
+            Flux<Object> shared = calls.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                AtomicReference<Flux<Object>> self = new AtomicReference<>();
+                Flux<Object> flux = Flux.<Object>from(Mono.defer(call))
+                        .doFinally(signal -> calls.remove(k, self.get()))
+                        .replay()
+                        .refCount(1);
+                self.set(flux);
+                return flux;
+            });
+            if (!leader[0]) {
+                coalesced.increment();
+                log.info("相同请求正在执行，等待共享结果");
+            }
+            return shared.singleOrEmpty().map(result -> (T) result);
+        });
+    }
+
+    /**
+     * 执行流式请求，相同 key 的并发订阅共享同一个上游流
+     * 上游在最后一个订阅者取消时才会取消
+     *
+     * @param key 请求 key
+     * @param source 实际调用（第一个订阅者订阅时才执行）
+     * @return 共享的流
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> stream(String key, Supplier<Flux<T>> source) {
+        return Flux.defer(() -> {
+            boolean[] leader = {false};
+            Flux<T> shared = (Flux<T>) streams.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                AtomicReference<Flux<T>> self = new AtomicReference<>();
+                Flux<T> flux = Flux.defer(source)
+                        .doFinally(signal -> streams.remove(k, self.get()))
+                        .replay()
+                        .refCount(1);
+                self.set(flux);
+                return flux;
+            });
+            if (!leader[0]) {
+                coalesced.increment();
+                log.info("相同流式请求正在执行，加入共享流");
+            }
+            return shared;
+        });
+    }
+
+    /**
+     * 被合并（未实际调用模型）的请求数
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * 正在执行的请求数（同步/非阻塞 + 流式）
+     */
+    public int getInFlightCount() {
+        return calls.size() + streams.size();
+    }
+}
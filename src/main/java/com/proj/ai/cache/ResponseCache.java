@@ -0,0 +1,131 @@
+package com.proj.ai.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.proj.ai.config.ResponseCacheConfig;
+import com.proj.ai.dto.ResponseCacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * 文本对话响应缓存（精确匹配）
+ * 以 模型 + 规范化后的提示词 + 推理参数 的 SHA-256 作为 key，
+ * 使用 Caffeine（W-TinyLFU 淘汰策略）按估算内存大小限制容量，写入后 ttlSeconds 过期
+ */
+@Slf4j
+@Component
+public class ResponseCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * 每个条目的固定开销估算（字节）
+     */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    @Autowired
+    private ResponseCacheConfig cacheConfig;
+
+    private Cache<String, String> cache;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(cacheConfig.getMaxSizeMb() * 1024L * 1024L)
+                .weigher((String key, String value) -> ENTRY_OVERHEAD + (key.length() + value.length()) * 2)
+                .expireAfterWrite(Duration.ofSeconds(cacheConfig.getTtlSeconds()))
+                .recordStats()
+                .build();
+        log.info("初始化响应缓存，enabled: {}, maxSize: {}MB, ttl: {}s",
+                cacheConfig.getEnabled(), cacheConfig.getMaxSizeMb(), cacheConfig.getTtlSeconds());
+    }
+
+    /**
+     * 是否启用缓存
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(cacheConfig.getEnabled());
+    }
+
+    /**
+     * 计算缓存 key
+     * 提示词做 NFC 规范化、去除首尾空白并合并连续空白，参数按名称排序
+     *
+     * @param model 模型名称
+     * @param prompt 提示词
+     * @param options 推理参数
+     * @return key（SHA-256 十六进制）
+     */
+    public String key(String model, String prompt, Map<String, ?> options) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(prompt, Normalizer.Form.NFC).strip())
+                .replaceAll(" ");
+        StringBuilder material = new StringBuilder(normalized.length() + 64)
+                .append(model).append('\u0000')
+                .append(normalized).append('\u0000');
+        new TreeMap<>(options).forEach((name, value) -> material.append(name).append('=').append(value).append(';'));
+        return digest(material.toString());
+    }
+
+    /**
+     * 计算字符串的 SHA-256（十六进制），用于图片等大参数参与 key 计算
+     */
+    public static String digest(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @return 缓存的响应，未命中时返回 null
+     */
+    public String get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * 写入缓存
+     */
+    public void put(String key, String response) {
+        cache.put(key, response);
+    }
+
+    /**
+     * 获取缓存统计
+     */
+    public ResponseCacheStats stats() {
+        CacheStats stats = cache.stats();
+        return ResponseCacheStats.builder()
+                .enabled(isEnabled())
+                .size(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+
+    /**
+     * 获取底层 Caffeine 缓存
+     */
+    public Cache<String, String> getNativeCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,218 @@
+package com.proj.ai.client;
+
+import com.proj.ai.config.ModelLifecycleConfig;
+import com.proj.ai.metrics.InferenceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模型生命周期管理
+ * <p>
+ * 启动时在所有能服务该模型的节点上发送不带 prompt 的 /api/generate 加载模型，之后按 rewarm-interval
+ * 检查节点健康检查获取的 /api/ps，重新加载被 Ollama 卸载的模型，把冷启动耗时从用户请求中移走。
+ * 每个模型至少在一个节点上加载成功之前，就绪检查（/actuator/health/readiness）为 OUT_OF_SERVICE
+ */
+@Slf4j
+@Component
+public class ModelLifecycleManager {
+
+    private static final String STATE_LOADED = "loaded";
+    private static final String STATE_WARMING = "warming";
+    private static final String STATE_UNLOADED = "unloaded";
+
+    @Autowired
+    private ModelLifecycleConfig config;
+
+    @Autowired
+    private OllamaNodePool nodePool;
+
+    @Autowired
+    private ModelRouter modelRouter;
+
+    @Autowired
+    private InferenceMetrics inferenceMetrics;
+
+    private List<String> models = Collections.emptyList();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 正在预热的 节点地址 + 模型，避免上一轮未完成时重复加载
+     */
+    private final Set<String> warming = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 最近一次预热失败的原因，key 为 节点地址 + 模型，成功后移除
+     */
+    private final Map<String, String> failures = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void init() {
+        if (!Boolean.TRUE.equals(config.getWarmupEnabled())) {
+            ready = true;
+            log.info("模型预热未启用，keep_alive: {}", config.getKeepAlive());
+            return;
+        }
+        models = config.getModels().isEmpty()
+                ? List.copyOf(modelRouter.getDefaultModels()) : List.copyOf(config.getModels());
+        log.info("初始化模型生命周期管理，预热模型: {}, keep_alive: {}, 检查间隔: {}ms",
+                models, config.getKeepAlive(), config.getRewarmInterval());
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ollama-model-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::warmup, 0, config.getRewarmInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 初始预热是否完成（每个模型至少在一个节点上已加载）；完成后不再回到未就绪，被卸载的模型在后台重新加载
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 各模型在各节点上的状态：loaded、warming、unloaded 或预热失败原因
+     */
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("ready", ready);
+        for (String model : models) {
+            Map<String, String> nodes = new LinkedHashMap<>();
+            for (OllamaNode node : nodePool.getNodes()) {
+                if (node.serves(model)) {
+                    nodes.put(node.getUrl(), state(node, model));
+                }
+            }
+            status.put(model, nodes);
+        }
+        return status;
+    }
+
+    /**
+     * 加载所有健康节点上未加载的模型；各节点并行，同一节点上的模型依次加载，避免同时加载多个模型争抢显存
+     */
+    private void warmup() {
+        try {
+            Flux.fromIterable(nodePool.getNodes())
+                    .filter(OllamaNode::isHealthy)
+                    .flatMap(node -> Flux.fromIterable(models)
+                            .filter(model -> node.serves(model) && !node.isLoaded(model))
+                            .concatMap(model -> warmup(node, model)))
+                    .then()
+                    .block();
+            if (!ready && models.stream().allMatch(this::loadedOnAnyNode)) {
+                ready = true;
+                log.info("模型预热完成，就绪检查通过，模型: {}", models);
+            }
+        } catch (Exception e) {
+            log.warn("模型预热异常: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在节点上加载模型：不带 prompt 的 /api/generate 只加载模型不生成，同时按配置设置 keep_alive
+     */
+    private Mono<Void> warmup(OllamaNode node, String model) {
+        return Mono.defer(() -> {
+            String key = key(node, model);
+            if (!warming.add(key)) {
+                return Mono.empty();
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("model", model);
+            body.put("stream", false);
+            String keepAlive = config.getKeepAlive(model);
+            if (StringUtils.hasText(keepAlive)) {
+                body.put("keep_alive", keepAlive);
+            }
+            log.info("预热模型: {}, 节点: {}", model, node.getUrl());
+            long start = System.nanoTime();
+            return node.getWebClient().post()
+                    .uri("/api/generate")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(body)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .timeout(Duration.ofMillis(config.getWarmupTimeout()))
+                    .doOnNext(response -> {
+                        long nanos = System.nanoTime() - start;
+                        markLoaded(node, model);
+                        failures.remove(key);
+                        inferenceMetrics.recordWarmup(model, node.getUrl(), nanos, null);
+                        log.info("模型预热完成: {}, 节点: {}, 耗时: {}ms", model, node.getUrl(), nanos / 1_000_000);
+                    })
+                    .doOnError(e -> {
+                        failures.put(key, "failed: " + e.getMessage());
+                        inferenceMetrics.recordWarmup(model, node.getUrl(), System.nanoTime() - start, e);
+                        log.warn("模型预热失败: {}, 节点: {}, 原因: {}", model, node.getUrl(), e.getMessage());
+                    })
+                    .onErrorResume(e -> Mono.empty())
+                    .doFinally(signal -> warming.remove(key))
+                    .then();
+        });
+    }
+
+    /**
+     * 预热成功后立即记为已加载，不等下一次健康检查的 /api/ps
+     */
+    private void markLoaded(OllamaNode node, String model) {
+        Set<String> loaded = new HashSet<>(node.getLoadedModels());
+        loaded.add(model);
+        node.setLoadedModels(Collections.unmodifiableSet(loaded));
+    }
+
+    private boolean loadedOnAnyNode(String model) {
+        for (OllamaNode node : nodePool.getNodes()) {
+            if (node.isHealthy() && node.isLoaded(model)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String state(OllamaNode node, String model) {
+        String key = key(node, model);
+        if (warming.contains(key)) {
+            return STATE_WARMING;
+        }
+        if (node.isLoaded(model)) {
+            return STATE_LOADED;
+        }
+        return failures.getOrDefault(key, STATE_UNLOADED);
+    }
+
+    private static String key(OllamaNode node, String model) {
+        return node.getUrl() + " " + model;
+    }
+}
@@ -0,0 +1,135 @@
+package com.proj.ai.client;
+
+import com.proj.ai.config.ModelRoutingConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 模型路由
+ * 按请求类型（纯文本/图片）选择模型，校验请求指定的模型是否在白名单内、是否支持图片输入
+ */
+@Slf4j
+@Component
+public class ModelRouter {
+
+    @Autowired
+    private ModelRoutingConfig config;
+
+    @Value("${spring.ai.ollama.chat.options.model:qwen2.5vl:3b}")
+    private String defaultModel;
+
+    private String textModel;
+    private String visionModel;
+
+    /**
+     * 允许请求指定的模型
+     */
+    private Set<String> allowedModels;
+
+    /**
+     * 支持图片输入的模型
+     */
+    private Set<String> visionModels;
+
+    @PostConstruct
+    public void init() {
+        textModel = orDefault(config.getTextModel());
+        visionModel = orDefault(config.getVisionModel());
+
+        Set<String> vision = new LinkedHashSet<>();
+        vision.add(defaultModel);
+        vision.add(visionModel);
+        addIfPresent(vision, config.getFallbackVisionModel());
+        config.getVisionModels().forEach(model -> addIfPresent(vision, model));
+
+        Set<String> allowed = new LinkedHashSet<>(vision);
+        allowed.add(textModel);
+        addIfPresent(allowed, config.getFallbackTextModel());
+        config.getAllowedModels().forEach(model -> addIfPresent(allowed, model));
+
+        visionModels = Collections.unmodifiableSet(vision);
+        allowedModels = Collections.unmodifiableSet(allowed);
+        log.info("初始化模型路由，文本: {}, 图片: {}, 文本备用: {}, 图片备用: {}, 可用模型: {}",
+                textModel, visionModel, config.getFallbackTextModel(), config.getFallbackVisionModel(), allowedModels);
+    }
+
+    /**
+     * 纯文本请求的模型
+     *
+     * @param requested 请求指定的模型，为空时按配置路由
+     * @param fallback 是否使用更大的备用模型（未配置备用模型时忽略）
+     */
+    public String textModel(String requested, Boolean fallback) {
+        return route(requested, fallback, false);
+    }
+
+    /**
+     * 图片请求的模型
+     *
+     * @param requested 请求指定的模型，为空时按配置路由；必须支持图片输入
+     * @param fallback 是否使用更大的备用模型（未配置备用模型时忽略）
+     */
+    public String visionModel(String requested, Boolean fallback) {
+        return route(requested, fallback, true);
+    }
+
+    /**
+     * 允许请求指定的模型
+     */
+    public Set<String> getAllowedModels() {
+        return allowedModels;
+    }
+
+    /**
+     * 未指定模型且不使用备用模型时路由到的模型（文本模型和图片模型）
+     */
+    public Set<String> getDefaultModels() {
+        Set<String> models = new LinkedHashSet<>();
+        models.add(textModel);
+        models.add(visionModel);
+        return models;
+    }
+
+    /**
+     * 模型是否支持图片输入
+     */
+    public boolean supportsImage(String model) {
+        return visionModels.contains(model);
+    }
+
+    private String route(String requested, Boolean fallback, boolean image) {
+        if (StringUtils.hasText(requested)) {
+            String model = requested.trim();
+            if (!allowedModels.contains(model)) {
+                throw new IllegalArgumentException("不支持的模型: " + model + "，可用模型: " + allowedModels);
+            }
+            if (image && !visionModels.contains(model)) {
+                throw new IllegalArgumentException("模型不支持图片输入: " + model + "，可用模型: " + visionModels);
+            }
+            return model;
+        }
+        String fallbackModel = image ? config.getFallbackVisionModel() : config.getFallbackTextModel();
+        if (Boolean.TRUE.equals(fallback) && StringUtils.hasText(fallbackModel)) {
+            return fallbackModel.trim();
+        }
+        return image ? visionModel : textModel;
+    }
+
+    private String orDefault(String model) {
+        return StringUtils.hasText(model) ? model.trim() : defaultModel;
+    }
+
+    private static void addIfPresent(Set<String> models, String model) {
+        if (StringUtils.hasText(model)) {
+            models.add(model.trim());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.proj.ai.client;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 模型预热健康检查（modelWarmup），加入 readiness 分组：初始预热完成前返回 OUT_OF_SERVICE（503），
+ * 负载均衡/Kubernetes 不会把流量转发到模型尚未加载的实例
+ */
+@Component
+public class ModelWarmupHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private ModelLifecycleManager lifecycleManager;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = lifecycleManager.isReady() ? Health.up() : Health.outOfService();
+        return builder.withDetails(lifecycleManager.status()).build();
+    }
+}
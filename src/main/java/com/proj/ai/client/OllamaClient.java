@@ -1,63 +1,103 @@
 package com.proj.ai.client;
 
+import com.alibaba.fastjson2.JSON;
+import com.proj.ai.cache.ImageCache;
+import com.proj.ai.cache.ImageEntry;
+import com.proj.ai.config.ModelLifecycleConfig;
+import com.proj.ai.exception.OverloadException;
+import com.proj.ai.image.ImagePreprocessor;
+import com.proj.ai.metrics.InferenceMetrics;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.ollama.api.OllamaOptions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.client.reactive.ClientHttpRequest;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import jakarta.annotation.PostConstruct;
-import java.util.Base64;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Ollama 客户端
- * 使用 Spring AI 1.0.3 调用 Ollama 服务
+ * 使用 Spring AI 1.0.3 调用 Ollama 服务，请求通过 {@link OllamaNodePool} 路由到负载最低的节点
+ * 各方法的 model 参数由 {@link ModelRouter} 选择，只路由到已拉取该模型的节点
  */
 @Slf4j
 @Component
 public class OllamaClient {
     
     @Autowired
-    private ChatModel chatModel;
+    private OllamaNodePool nodePool;
+    
+    /**
+     * 流式图片请求体的 JSON 后缀
+     */
+    private static final byte[] IMAGE_BODY_SUFFIX = "\"]}".getBytes(StandardCharsets.US_ASCII);
     
     @Value("${spring.ai.ollama.chat.options.model:qwen2.5vl:3b}")
     private String defaultModel;
     
-    @Value("${spring.ai.ollama.base-url:http://35.221.238.240:11434}")
-    private String ollamaBaseUrl;
+    @Autowired
+    private ImageCache imageCache;
     
-    private WebClient webClient;
+    @Autowired
+    private ImagePreprocessor imagePreprocessor;
+    
+    @Autowired
+    private InferenceMetrics inferenceMetrics;
+    
+    @Autowired
+    private ModelLifecycleConfig lifecycleConfig;
     
     @PostConstruct
     public void init() {
-        log.info("初始化 OllamaClient，baseUrl: {}", ollamaBaseUrl);
-        this.webClient = WebClient.builder()
-                .baseUrl(ollamaBaseUrl)
-                // 增加缓冲区大小到 10MB，避免 DataBufferLimitException
-                .codecs(configurer -> configurer
-                        .defaultCodecs()
-                        .maxInMemorySize(10 * 1024 * 1024)) // 10MB
-                .build();
-        log.info("WebClient 初始化完成");
+        log.info("初始化 OllamaClient，节点数: {}, 图片缓存: {}, 图片预处理: {}",
+                nodePool.getNodes().size(), imageCache.isEnabled(), imagePreprocessor.isEnabled());
     }
     
     /**
      * 发送文本请求到 Ollama
      * 
+     * @param model 模型名称
      * @param prompt 提示词
      * @return AI 响应内容
      */
-    public String chat(String prompt) {
+    public String chat(String model, String prompt) {
         try {
-            log.info("发送文本请求到 Ollama, prompt length: {}", prompt.length());
+            log.info("发送文本请求到 Ollama, model: {}, prompt length: {}", model, prompt.length());
             long startTime = System.currentTimeMillis();
             
-            ChatResponse response = chatModel.call(new Prompt(prompt));
-            String result = response.getResult().getOutput().getText();
+            String result = nodePool.execute(model, node -> {
+                log.debug("文本请求路由到节点: {}", node.getUrl());
+                inferenceMetrics.recordPayload(InferenceMetrics.BACKEND_OLLAMA, InferenceMetrics.DIRECTION_REQUEST,
+                        InferenceMetrics.utf8Length(prompt));
+                ChatResponse response = node.getChatModel().call(buildPrompt(model, prompt));
+                OllamaStreamChunk stats = toStreamChunk(response);
+                recordGeneration(model, node, stats);
+                inferenceMetrics.recordPayload(InferenceMetrics.BACKEND_OLLAMA, InferenceMetrics.DIRECTION_RESPONSE,
+                        InferenceMetrics.utf8Length(stats.getText()));
+                return response.getResult().getOutput().getText();
+            });
             
             long endTime = System.currentTimeMillis();
             log.info("Ollama 文本响应完成, 耗时: {}ms, 响应长度: {}", 
@@ -65,6 +105,8 @@ public class OllamaClient {
             
             return result;
             
+        } catch (OverloadException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Ollama 文本对话失败: {}", e.getMessage(), e);
             throw new RuntimeException("Ollama 调用失败: " + e.getMessage());
@@ -76,63 +118,30 @@ public class OllamaClient {
      * 使用原生 HTTP API 调用 Ollama 的多模态功能
      * 支持 imageBase64 和 imageUrl 两种输入方式，imageBase64 优先
      * 
+     * @param model 模型名称（需要支持图片输入）
      * @param prompt 提示词
      * @param imageBase64 图片 Base64 编码（优先使用）
      * @param imageUrl 图片 URL（当 imageBase64 为空时使用）
+     * @param imageId imageBase64 的内容标识（如摘要），用于复用预处理结果，未知时为 null；imageUrl 使用下载时计算的内容摘要
      * @return AI 响应内容
      */
-    public String chatWithImage(String prompt, String imageBase64, String imageUrl) {
+    public String chatWithImage(String model, String prompt, String imageBase64, String imageUrl, String imageId) {
         try {
-            log.info("发送图片+文本请求到 Ollama, prompt length: {}, imageBase64: {}, imageUrl: {}", 
-                    prompt.length(), imageBase64 != null ? "有值" : "无值", imageUrl != null ? "有值" : "无值");
+            log.info("发送图片+文本请求到 Ollama, model: {}, prompt length: {}, imageBase64: {}, imageUrl: {}", 
+                    model, prompt.length(), imageBase64 != null ? "有值" : "无值", imageUrl != null ? "有值" : "无值");
             long startTime = System.currentTimeMillis();
             
-            String finalImageBase64;
-            
-            // 1. 优先使用 imageBase64，如果为空则从 imageUrl 下载
-            if (imageBase64 != null && !imageBase64.trim().isEmpty()) {
-                log.info("使用 imageBase64 输入");
-                finalImageBase64 = cleanBase64Prefix(imageBase64);
-            } else if (imageUrl != null && !imageUrl.trim().isEmpty()) {
-                log.info("使用 imageUrl 输入，开始下载图片: {}", imageUrl);
-                finalImageBase64 = downloadImageAsBase64(imageUrl);
-            } else {
-                throw new IllegalArgumentException("图片不能为空，请提供 imageBase64 或 imageUrl");
-            }
-            
-            log.debug("最终使用的 Base64 长度: {}", finalImageBase64.length());
+            // 1. 解析图片（imageBase64 优先，否则从 imageUrl 下载）
+            String finalImageBase64 = resolveImageBase64(model, imageBase64, imageUrl, imageId);
             
             // 2. 构建请求体（使用 Ollama 官方格式：images 数组参数）
-            Map<String, Object> body = new java.util.HashMap<>();
-            body.put("model", defaultModel);
-            body.put("prompt", prompt);  // 只放文本提示，不包含图片
-            body.put("images", new String[]{finalImageBase64});  // 图片单独作为数组传递（Ollama 官方格式）
-            body.put("temperature", 0.1);
-            body.put("stream", true);  // 使用流式响应，逐行解析
-            
-            log.debug("请求体构建完成，prompt: {}, images数组长度: 1", prompt);
-            
-            // 4. 调用 Ollama 原生 API，使用流式处理
-            log.info("准备调用 Ollama API，URL: {}/api/generate", ollamaBaseUrl);
-            String result = webClient.post()
-                    .uri("/api/generate")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .bodyValue(body)
-                    .retrieve()
-                    .bodyToMono(String.class) // 一次性接收所有流式数据
-                    .block(); // 同步调用
-            
-            long endTime = System.currentTimeMillis();
-            log.info("Ollama 图片识别完成, 耗时: {}ms, 响应行数: {}", 
-                    (endTime - startTime), result != null ? result.split("\n").length : 0);
+            Map<String, Object> body = buildGenerateBody(model, prompt, finalImageBase64);
             
-            // 5. 解析流式响应，拼接所有 response 字段
-            String finalResponse = extractResponseFromStreamJson(result);
-            
-            log.info("模型识别结果（提取后的描述）: {}", finalResponse);
-            
-            return finalResponse;
+            // 3. 调用 Ollama 原生 API，按到达的字节块增量解析流式响应
+            return generate(model, BodyInserters.fromValue(body), startTime);
             
+        } catch (OverloadException e) {
+            throw e;
         } catch (IllegalArgumentException e) {
             log.error("参数错误: {}", e.getMessage());
             throw new RuntimeException("参数错误: " + e.getMessage());
@@ -143,148 +152,519 @@ public class OllamaClient {
     }
     
     /**
-     * 从 URL 下载图片并转换为 Base64
+     * 发送图片+文本请求到 Ollama（图片为原始字节）
+     * 请求体流式构建：图片按块读取并直接编码为 Base64 写入发送缓冲区，不生成 Base64 String
+     * 启用图片预处理时先读入原图缩放，再流式发送缩放后的 JPEG
      * 
-     * @param imageUrl 图片 URL
-     * @return Base64 编码的图片数据
+     * @param model 模型名称（需要支持图片输入）
+     * @param prompt 提示词
+     * @param image 图片（例如上传的 MultipartFile）
+     * @return AI 响应内容
      */
-    private String downloadImageAsBase64(String imageUrl) {
+    public String chatWithImageBytes(String model, String prompt, InputStreamSource image) {
         try {
-            log.info("开始下载图片: {}", imageUrl);
-            
-            // 使用 WebClient 下载图片
-            byte[] imageBytes = webClient.get()
-                    .uri(imageUrl)
-                    .retrieve()
-                    .bodyToMono(byte[].class)
-                    .block();
+            log.info("发送图片+文本请求到 Ollama（二进制图片）, model: {}, prompt length: {}", model, prompt.length());
+            long startTime = System.currentTimeMillis();
             
-            if (imageBytes == null || imageBytes.length == 0) {
-                throw new RuntimeException("下载的图片为空");
+            InputStreamSource source = image;
+            if (imagePreprocessor.isEnabled()) {
+                byte[] original;
+                try (InputStream input = image.getInputStream()) {
+                    original = input.readAllBytes();
+                }
+                source = new ByteArrayResource(imagePreprocessor.process(model, original));
             }
+            InputStreamSource finalSource = source;
             
-            String base64 = Base64.getEncoder().encodeToString(imageBytes);
-            log.info("图片下载成功，大小: {} bytes, Base64 长度: {}", imageBytes.length, base64.length());
+            // JSON 前缀：{"model":...,"prompt":...,"images":["   后缀："]}
+            String fields = JSON.toJSONString(buildGenerateBody(model, prompt));
+            byte[] prefix = (fields.substring(0, fields.length() - 1) + ",\"images\":[\"")
+                    .getBytes(StandardCharsets.UTF_8);
             
-            return base64;
+            BodyInserter<Flux<DataBuffer>, ReactiveHttpOutputMessage> body = (message, context) ->
+                    message.writeWith(StreamingImageBody.encode(message.bufferFactory(), prefix,
+                                    finalSource::getInputStream, IMAGE_BODY_SUFFIX)
+                            // 读取上传文件是阻塞 IO，不能在 Netty 线程执行
+                            .subscribeOn(Schedulers.boundedElastic()));
+            return generate(model, body, startTime);
             
+        } catch (OverloadException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("下载图片失败: {}", e.getMessage(), e);
-            throw new RuntimeException("下载图片失败: " + e.getMessage());
+            log.error("Ollama 图片识别失败: {}", e.getMessage(), e);
+            throw new RuntimeException("Ollama 图片识别失败: " + e.getMessage());
         }
     }
     
     /**
-     * 清理 Base64 前缀
+     * 发送文本请求到 Ollama（非阻塞）
+     * 通过流式接口逐块接收并拼接，不占用调用线程
+     * 
+     * @param model 模型名称
+     * @param prompt 提示词
+     * @return AI 响应内容
      */
-    private String cleanBase64Prefix(String base64) {
-        if (base64.contains(",")) {
-            return base64.split(",")[1];
-        }
-        return base64;
+    public Mono<String> chatReactive(String model, String prompt) {
+        return Mono.defer(() -> {
+            long startTime = System.currentTimeMillis();
+            return chatStream(model, prompt)
+                    .filter(chunk -> chunk.getText() != null)
+                    .collect(StringBuilder::new, (text, chunk) -> text.append(chunk.getText()))
+                    .map(StringBuilder::toString)
+                    .doOnNext(result -> log.info("Ollama 文本响应完成, 耗时: {}ms, 响应长度: {}",
+                            System.currentTimeMillis() - startTime, result.length()));
+        });
+    }
+    
+    /**
+     * 发送图片+文本请求到 Ollama（非阻塞）
+     * 图片下载、预处理和生成请求都不阻塞调用线程，预处理在 boundedElastic 线程执行
+     * 
+     * @param model 模型名称（需要支持图片输入）
+     * @param prompt 提示词
+     * @param imageBase64 图片 Base64 编码（优先使用）
+     * @param imageUrl 图片 URL（当 imageBase64 为空时使用）
+     * @param imageId imageBase64 的内容标识（如摘要），用于复用预处理结果，未知时为 null；imageUrl 使用下载时计算的内容摘要
+     * @return AI 响应内容
+     */
+    public Mono<String> chatWithImageReactive(String model, String prompt, String imageBase64, String imageUrl,
+                                              String imageId) {
+        return Mono.defer(() -> {
+                    long startTime = System.currentTimeMillis();
+                    return resolveImageBase64Reactive(model, imageBase64, imageUrl, imageId)
+                            .flatMap(finalImageBase64 -> generateReactive(model,
+                                    BodyInserters.fromValue(buildGenerateBody(model, prompt, finalImageBase64)),
+                                    startTime));
+                })
+                .onErrorMap(e -> !(e instanceof OverloadException), e -> e instanceof IllegalArgumentException
+                        ? new RuntimeException("参数错误: " + e.getMessage(), e)
+                        : new RuntimeException("Ollama 图片识别失败: " + e.getMessage(), e));
+    }
+    
+    /**
+     * 发送图片+文本请求到 Ollama（图片为上传的字节流，非阻塞）
+     * 未启用预处理时上传内容边接收边编码为 Base64 发送给 Ollama；启用时先汇总再在 boundedElastic 线程缩放
+     * 
+     * @param model 模型名称（需要支持图片输入）
+     * @param prompt 提示词
+     * @param image 图片字节流（例如 WebFlux 的 FilePart#content）
+     * @return AI 响应内容
+     */
+    public Mono<String> chatWithImageBytesReactive(String model, String prompt, Flux<DataBuffer> image) {
+        return Mono.defer(() -> {
+                    log.info("发送图片+文本请求到 Ollama（二进制图片）, model: {}, prompt length: {}",
+                            model, prompt.length());
+                    long startTime = System.currentTimeMillis();
+                    
+                    String fields = JSON.toJSONString(buildGenerateBody(model, prompt));
+                    byte[] prefix = (fields.substring(0, fields.length() - 1) + ",\"images\":[\"")
+                            .getBytes(StandardCharsets.UTF_8);
+                    
+                    Flux<DataBuffer> source = !imagePreprocessor.isEnabled() ? image : DataBufferUtils.join(image)
+                            .map(buffer -> {
+                                try {
+                                    byte[] original = new byte[buffer.readableByteCount()];
+                                    buffer.read(original);
+                                    return original;
+                                } finally {
+                                    DataBufferUtils.release(buffer);
+                                }
+                            })
+                            .publishOn(Schedulers.boundedElastic())
+                            .map(original -> DefaultDataBufferFactory.sharedInstance
+                                    .wrap(imagePreprocessor.process(model, original)))
+                            .cast(DataBuffer.class)
+                            .flux();
+                    
+                    BodyInserter<Flux<DataBuffer>, ReactiveHttpOutputMessage> body = (message, context) ->
+                            message.writeWith(StreamingImageBody.encode(message.bufferFactory(), prefix,
+                                    source, IMAGE_BODY_SUFFIX));
+                    return generateReactive(model, body, startTime);
+                })
+                .onErrorMap(e -> !(e instanceof OverloadException),
+                        e -> new RuntimeException("Ollama 图片识别失败: " + e.getMessage(), e));
+    }
+    
+    /**
+     * 下载图片（非阻塞，批量图片识别的下载阶段）
+     * 下载由相同 URL 的请求共享，取消时不取消下载
+     * 
+     * @param imageUrl 图片 URL
+     * @return 图片缓存条目（原图 Base64 和内容摘要）
+     */
+    public Mono<ImageEntry> downloadImageReactive(String imageUrl) {
+        return Mono.fromFuture(() -> imageCache.getEntryAsync(imageUrl), true)
+                .doOnNext(entry -> log.info("图片获取成功，Base64 长度: {}", entry.getBase64().length()))
+                .onErrorMap(e -> new RuntimeException("下载图片失败: " + e.getMessage(), e));
+    }
+    
+    /**
+     * 按模型预处理图片（批量图片识别的预处理阶段，CPU 密集，调用方负责调度到合适的线程）
+     * 
+     * @param model 模型名称
+     * @param imageBase64 原图 Base64（可带 data URL 前缀）
+     * @param imageId 图片内容标识，用于复用预处理结果，未知时为 null
+     * @return 缩放、重新编码后的 Base64
+     */
+    public String preprocessImage(String model, String imageBase64, String imageId) {
+        return imagePreprocessor.processBase64(model, cleanBase64Prefix(imageBase64), imageId);
     }
     
     /**
-     * 从流式 JSON 响应中提取并拼接所有 response 字段
+     * 发送已预处理的图片+文本请求到 Ollama（非阻塞，批量图片识别的推理阶段）
      * 
-     * @param streamResult 流式返回的多行 JSON 字符串
-     * @return 拼接后的完整 response 文本
+     * @param model 模型名称（需要支持图片输入）
+     * @param prompt 提示词
+     * @param imageBase64 已预处理的图片 Base64
+     * @return AI 响应内容
+     */
+    public Mono<String> chatWithPreparedImageReactive(String model, String prompt, String imageBase64) {
+        return Mono.defer(() -> generateReactive(model,
+                        BodyInserters.fromValue(buildGenerateBody(model, prompt, imageBase64)),
+                        System.currentTimeMillis()))
+                .onErrorMap(e -> !(e instanceof OverloadException),
+                        e -> new RuntimeException("Ollama 图片识别失败: " + e.getMessage(), e));
+    }
+    
+    /**
+     * 调用 /api/generate，按到达的字节块增量解析流式响应并拼接结果
      */
-    private String extractResponseFromStreamJson(String streamResult) {
-        if (streamResult == null || streamResult.trim().isEmpty()) {
+    private String generate(String model, BodyInserter<?, ? super ClientHttpRequest> body, long startTime) {
+        return generateReactive(model, body, startTime).block(); // 同步调用
+    }
+    
+    /**
+     * 调用 /api/generate（非阻塞），响应结束时发出拼接后的结果
+     */
+    private Mono<String> generateReactive(String model, BodyInserter<?, ? super ClientHttpRequest> body,
+                                          long startTime) {
+        return Mono.defer(() -> {
+            OllamaStreamParser parser = OllamaStreamParser.aggregating();
+            return nodePool.executeFlux(model, node -> {
+                        log.info("准备调用 Ollama API，URL: {}/api/generate", node.getUrl());
+                        return inferenceMetrics.measureResponse(InferenceMetrics.BACKEND_OLLAMA, node.getWebClient().post()
+                                        .uri("/api/generate")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .body(inferenceMetrics.measureRequest(InferenceMetrics.BACKEND_OLLAMA, body))
+                                        .retrieve()
+                                        .bodyToFlux(DataBuffer.class))
+                                .doOnNext(buffer -> {
+                                    try {
+                                        parser.feed(buffer);
+                                    } finally {
+                                        DataBufferUtils.release(buffer);
+                                    }
+                                })
+                                .doOnComplete(() -> inferenceMetrics.recordGeneration(model, node.getUrl(),
+                                        parser.getPromptEvalCount(), parser.getEvalCount(), parser.getEvalDuration()));
+                    })
+                    .then(Mono.fromCallable(() -> aggregateResult(parser, startTime)));
+        });
+    }
+    
+    /**
+     * 结束解析并检查结果
+     */
+    private String aggregateResult(OllamaStreamParser parser, long startTime) {
+        parser.finish();
+        
+        long endTime = System.currentTimeMillis();
+        log.info("Ollama 图片识别完成, 耗时: {}ms, 响应行数: {}", 
+                (endTime - startTime), parser.getLineCount());
+        
+        // 检查解析结果
+        if (parser.getErrorMessage() != null) {
+            throw new RuntimeException("Ollama 返回错误: " + parser.getErrorMessage());
+        }
+        if (parser.getLineCount() == 0) {
             log.warn("流式结果为空");
             return "图片识别失败，未收到响应";
         }
+        if (parser.getResponseLength() == 0) {
+            return "图片识别失败，未提取到有效内容";
+        }
+        String finalResponse = parser.getResponse();
         
-        try {
-            StringBuilder fullResponse = new StringBuilder();
-            String[] lines = streamResult.split("\n");
-            
-            log.debug("开始解析流式响应，共 {} 行", lines.length);
-            
-            for (String line : lines) {
-                line = line.trim();
-                if (line.isEmpty()) {
-                    continue;
-                }
-                
-                // 每行格式：{"model":"...","created_at":"...","response":"文本片段","done":false}
-                int responseStart = line.indexOf("\"response\":\"");
-                if (responseStart == -1) {
-                    continue; // 跳过没有 response 字段的行
-                }
-                
-                responseStart += "\"response\":\"".length();
-                
-                // 找到 response 值的结束位置（注意处理转义的引号）
-                int responseEnd = findResponseEnd(line, responseStart);
-                
-                if (responseEnd == -1) {
-                    log.warn("无法找到 response 字段的结束位置，行内容: {}", line);
-                    continue;
-                }
-                
-                String responseFragment = line.substring(responseStart, responseEnd);
-                
-                // 处理转义字符
-                responseFragment = unescapeJson(responseFragment);
-                
-                fullResponse.append(responseFragment);
-            }
-            
-            String result = fullResponse.toString();
-            log.debug("成功拼接流式响应，总长度: {}", result.length());
-            
-            if (result.isEmpty()) {
-                return "图片识别失败，未提取到有效内容";
+        log.debug("模型识别结果（提取后的描述）: {}", finalResponse);
+        
+        return finalResponse;
+    }
+    
+    /**
+     * 流式发送文本请求到 Ollama
+     * 每个片段携带增量文本，最后一个片段携带 token 统计
+     * 
+     * @param model 模型名称
+     * @param prompt 提示词
+     * @return 增量片段流
+     */
+    public Flux<OllamaStreamChunk> chatStream(String model, String prompt) {
+        log.info("发送流式文本请求到 Ollama, model: {}, prompt length: {}", model, prompt.length());
+        return nodePool.executeFlux(model, node -> {
+                    inferenceMetrics.recordPayload(InferenceMetrics.BACKEND_OLLAMA, InferenceMetrics.DIRECTION_REQUEST,
+                            InferenceMetrics.utf8Length(prompt));
+                    long[] responseBytes = new long[1];
+                    return node.getChatModel().stream(buildPrompt(model, prompt))
+                            .map(this::toStreamChunk)
+                            .doOnNext(chunk -> {
+                                responseBytes[0] += InferenceMetrics.utf8Length(chunk.getText());
+                                recordGeneration(model, node, chunk);
+                            })
+                            .doOnComplete(() -> inferenceMetrics.recordPayload(InferenceMetrics.BACKEND_OLLAMA,
+                                    InferenceMetrics.DIRECTION_RESPONSE, responseBytes[0]));
+                })
+                .onErrorMap(e -> !(e instanceof OverloadException),
+                        e -> new RuntimeException("Ollama 调用失败: " + e.getMessage(), e));
+    }
+    
+    /**
+     * 流式发送图片+文本请求到 Ollama
+     * 直接转发 /api/generate 的 NDJSON 流，逐行解析为增量片段，不在内存中拼接完整响应
+     * 
+     * @param model 模型名称（需要支持图片输入）
+     * @param prompt 提示词
+     * @param imageBase64 图片 Base64 编码（优先使用）
+     * @param imageUrl 图片 URL（当 imageBase64 为空时使用）
+     * @param imageId imageBase64 的内容标识（如摘要），用于复用预处理结果，未知时为 null；imageUrl 使用下载时计算的内容摘要
+     * @return 增量片段流
+     */
+    public Flux<OllamaStreamChunk> chatWithImageStream(String model, String prompt, String imageBase64,
+                                                       String imageUrl, String imageId) {
+        log.info("发送流式图片+文本请求到 Ollama, model: {}, prompt length: {}, imageBase64: {}, imageUrl: {}",
+                model, prompt.length(), imageBase64 != null ? "有值" : "无值", imageUrl != null ? "有值" : "无值");
+        return resolveImageBase64Reactive(model, imageBase64, imageUrl, imageId)
+                .flatMapMany(finalImageBase64 -> nodePool.executeFlux(model, node -> {
+                    OllamaStreamParser parser = OllamaStreamParser.chunking();
+                    return inferenceMetrics.measureResponse(InferenceMetrics.BACKEND_OLLAMA, node.getWebClient().post()
+                                    .uri("/api/generate")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .body(inferenceMetrics.measureRequest(InferenceMetrics.BACKEND_OLLAMA,
+                                            BodyInserters.fromValue(buildGenerateBody(model, prompt,
+                                                    finalImageBase64))))
+                                    .retrieve()
+                                    .bodyToFlux(DataBuffer.class))
+                            .concatMapIterable(buffer -> {
+                                try {
+                                    return checkStreamError(parser, parser.feed(buffer));
+                                } finally {
+                                    DataBufferUtils.release(buffer);
+                                }
+                            })
+                            .concatWith(Flux.defer(() -> Flux.fromIterable(checkStreamError(parser, parser.finish()))))
+                            .doOnNext(chunk -> recordGeneration(model, node, chunk));
+                }))
+                .onErrorMap(e -> !(e instanceof OverloadException), e -> e instanceof IllegalArgumentException
+                        ? new RuntimeException("参数错误: " + e.getMessage(), e)
+                        : new RuntimeException("Ollama 图片识别失败: " + e.getMessage(), e));
+    }
+    
+    /**
+     * 流式发送会话请求到 Ollama（/api/generate + context）
+     * 上一轮返回的 context 原样发回，不再重复发送历史文本；优先路由到上一轮的节点，
+     * 节点上缓存的前缀可以直接复用，只需处理本轮新增的提示词。最后一个片段携带新的 context 和节点地址
+     * 
+     * @param model 模型名称
+     * @param system 系统提示词，只在首轮发送（Ollama 每次请求都会把 system 拼进模板）
+     * @param prompt 本轮提示词
+     * @param context 上一轮返回的 context，首轮为 null
+     * @param preferredNode 上一轮的节点地址，首轮为 null
+     * @return 增量片段流
+     */
+    public Flux<OllamaStreamChunk> chatWithContextStream(String model, String system, String prompt, int[] context,
+                                                         String preferredNode) {
+        log.info("发送会话请求到 Ollama, model: {}, prompt length: {}, context tokens: {}",
+                model, prompt.length(), context != null ? context.length : 0);
+        Map<String, Object> body = buildGenerateBody(model, prompt);
+        if (context != null && context.length > 0) {
+            body.put("context", context);
+        } else if (StringUtils.hasText(system)) {
+            body.put("system", system);
+        }
+        return nodePool.executeFlux(model, preferredNode, node -> {
+                    OllamaStreamParser parser = OllamaStreamParser.chunkingWithContext();
+                    return inferenceMetrics.measureResponse(InferenceMetrics.BACKEND_OLLAMA, node.getWebClient().post()
+                                    .uri("/api/generate")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .body(inferenceMetrics.measureRequest(InferenceMetrics.BACKEND_OLLAMA,
+                                            BodyInserters.fromValue(body)))
+                                    .retrieve()
+                                    .bodyToFlux(DataBuffer.class))
+                            .concatMapIterable(buffer -> {
+                                try {
+                                    return checkStreamError(parser, parser.feed(buffer));
+                                } finally {
+                                    DataBufferUtils.release(buffer);
+                                }
+                            })
+                            .concatWith(Flux.defer(() -> Flux.fromIterable(checkStreamError(parser, parser.finish()))))
+                            .doOnNext(chunk -> {
+                                recordGeneration(model, node, chunk);
+                                if (chunk.isDone()) {
+                                    chunk.setNode(node.getUrl());
+                                }
+                            });
+                })
+                .onErrorMap(e -> !(e instanceof OverloadException),
+                        e -> new RuntimeException("Ollama 调用失败: " + e.getMessage(), e));
+    }
+    
+    /**
+     * Ollama 在流中返回 error 字段时（如模型不存在）终止流
+     */
+    private List<OllamaStreamChunk> checkStreamError(OllamaStreamParser parser, List<OllamaStreamChunk> chunks) {
+        if (parser.getErrorMessage() != null) {
+            throw new RuntimeException("Ollama 返回错误: " + parser.getErrorMessage());
+        }
+        return chunks;
+    }
+    
+    /**
+     * 解析图片输入，imageBase64 优先，为空时从 imageUrl 下载
+     */
+    private String resolveImageBase64(String model, String imageBase64, String imageUrl, String imageId) {
+        String finalImageBase64;
+        if (imageBase64 != null && !imageBase64.trim().isEmpty()) {
+            log.info("使用 imageBase64 输入");
+            finalImageBase64 = cleanBase64Prefix(imageBase64);
+        } else if (imageUrl != null && !imageUrl.trim().isEmpty()) {
+            log.info("使用 imageUrl 输入，开始下载图片: {}", imageUrl);
+            ImageEntry entry = downloadImage(imageUrl);
+            finalImageBase64 = entry.getBase64();
+            imageId = ImageCache.imageId(entry);
+        } else {
+            throw new IllegalArgumentException("图片不能为空，请提供 imageBase64 或 imageUrl");
+        }
+        // 缩放、重新编码、去除元数据；相同图片复用上次的结果
+        finalImageBase64 = imagePreprocessor.processBase64(model, finalImageBase64, imageId);
+        log.debug("最终使用的 Base64 长度: {}", finalImageBase64.length());
+        return finalImageBase64;
+    }
+    
+    /**
+     * 解析图片输入（非阻塞）：imageUrl 通过图片缓存异步下载，预处理在 boundedElastic 线程执行
+     */
+    private Mono<String> resolveImageBase64Reactive(String model, String imageBase64, String imageUrl,
+                                                    String imageId) {
+        // 缩放、重新编码、去除元数据；相同图片复用上次的结果
+        if (imageBase64 != null && !imageBase64.trim().isEmpty()) {
+            log.info("使用 imageBase64 输入");
+            return Mono.fromSupplier(() -> cleanBase64Prefix(imageBase64))
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(base64 -> imagePreprocessor.processBase64(model, base64, imageId));
+        } else if (imageUrl != null && !imageUrl.trim().isEmpty()) {
+            log.info("使用 imageUrl 输入，开始下载图片: {}", imageUrl);
+            return downloadImageReactive(imageUrl)
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(entry -> imagePreprocessor.processBase64(model, entry.getBase64(), ImageCache.imageId(entry)));
+        }
+        return Mono.error(new IllegalArgumentException("图片不能为空，请提供 imageBase64 或 imageUrl"));
+    }
+    
+    /**
+     * 构建 /api/generate 请求体（使用 Ollama 官方格式：images 数组参数）
+     */
+    private Map<String, Object> buildGenerateBody(String model, String prompt, String imageBase64) {
+        Map<String, Object> body = buildGenerateBody(model, prompt);
+        body.put("images", new String[]{imageBase64});  // 图片单独作为数组传递（Ollama 官方格式）
+        log.debug("请求体构建完成，prompt: {}, images数组长度: 1", prompt);
+        return body;
+    }
+    
+    /**
+     * 构建 /api/generate 请求体中除图片外的字段
+     */
+    private Map<String, Object> buildGenerateBody(String model, String prompt) {
+        Map<String, Object> body = new java.util.HashMap<>();
+        body.put("model", model);
+        body.put("prompt", prompt);  // 只放文本提示，不包含图片
+        body.put("temperature", 0.1);
+        body.put("stream", true);  // 使用流式响应，逐行解析
+        String keepAlive = lifecycleConfig.getKeepAlive(model);
+        if (StringUtils.hasText(keepAlive)) {
+            body.put("keep_alive", keepAlive);  // 模型空闲多久后卸载，每个请求都会重置
+        }
+        return body;
+    }
+    
+    /**
+     * 构建 Spring AI 请求，指定模型和 keep_alive，其余参数沿用节点 ChatModel 的默认配置
+     */
+    private Prompt buildPrompt(String model, String prompt) {
+        String keepAlive = lifecycleConfig.getKeepAlive(model);
+        return new Prompt(prompt, OllamaOptions.builder()
+                .model(model)
+                .keepAlive(StringUtils.hasText(keepAlive) ? keepAlive : null)
+                .build());
+    }
+    
+    /**
+     * 将 Spring AI 的流式响应转换为增量片段
+     */
+    private OllamaStreamChunk toStreamChunk(ChatResponse response) {
+        String text = "";
+        if (response.getResult() != null && response.getResult().getOutput() != null
+                && response.getResult().getOutput().getText() != null) {
+            text = response.getResult().getOutput().getText();
+        }
+        OllamaStreamChunk.OllamaStreamChunkBuilder builder = OllamaStreamChunk.builder().text(text);
+        ChatResponseMetadata metadata = response.getMetadata();
+        Usage usage = metadata != null ? metadata.getUsage() : null;
+        if (usage != null && usage.getCompletionTokens() != null && usage.getCompletionTokens() > 0) {
+            builder.promptEvalCount(usage.getPromptTokens() != null ? usage.getPromptTokens().longValue() : null)
+                    .evalCount(usage.getCompletionTokens().longValue());
+            // Spring AI 把 Ollama 的 eval_duration 以 Duration 放在元数据中
+            Object evalDuration = metadata.get("eval-duration");
+            if (evalDuration instanceof Duration duration) {
+                builder.evalDuration(duration.toNanos());
             }
-            
-            return result;
-            
-        } catch (Exception e) {
-            log.error("解析流式JSON失败: {}", e.getMessage(), e);
-            log.error("原始响应（前500字符）: {}", streamResult.substring(0, Math.min(500, streamResult.length())));
-            return "解析失败：" + e.getMessage();
         }
+        return builder.build();
     }
     
     /**
-     * 找到 JSON 字符串值的结束位置（处理转义字符）
+     * 记录最后一个片段携带的 token 统计
      */
-    private int findResponseEnd(String line, int start) {
-        for (int i = start; i < line.length(); i++) {
-            char c = line.charAt(i);
+    private void recordGeneration(String model, OllamaNode node, OllamaStreamChunk chunk) {
+        if (chunk.getEvalCount() != null) {
+            inferenceMetrics.recordGeneration(model, node.getUrl(), chunk.getPromptEvalCount(),
+                    chunk.getEvalCount(), chunk.getEvalDuration());
+        }
+    }
+    
+    /**
+     * 从 URL 获取图片（经过图片缓存）
+     * 
+     * @param imageUrl 图片 URL
+     * @return 图片缓存条目（Base64 和内容摘要）
+     */
+    private ImageEntry downloadImage(String imageUrl) {
+        try {
+            log.info("开始获取图片: {}", imageUrl);
             
-            // 遇到非转义的引号，说明字符串结束
-            if (c == '"') {
-                // 检查前面是否有转义符
-                int backslashCount = 0;
-                for (int j = i - 1; j >= start && line.charAt(j) == '\\'; j--) {
-                    backslashCount++;
-                }
-                
-                // 如果反斜杠数量是偶数（包括0），说明引号没有被转义
-                if (backslashCount % 2 == 0) {
-                    return i;
-                }
-            }
+            // 通过图片缓存获取（内存/磁盘命中或条件请求校验，未命中时下载并编码）
+            ImageEntry entry = imageCache.getEntry(imageUrl);
+            log.info("图片获取成功，Base64 长度: {}", entry.getBase64().length());
+            
+            return entry;
+            
+        } catch (Exception e) {
+            log.error("下载图片失败: {}", e.getMessage(), e);
+            throw new RuntimeException("下载图片失败: " + e.getMessage());
         }
-        return -1;
     }
     
     /**
-     * 反转义 JSON 字符串
+     * 清理 Base64 前缀（data:image/jpeg;base64,）
      */
-    private String unescapeJson(String str) {
-        return str.replace("\\n", "\n")
-                  .replace("\\r", "\r")
-                  .replace("\\t", "\t")
-                  .replace("\\\"", "\"")
-                  .replace("\\\\", "\\");
+    public static String cleanBase64Prefix(String base64) {
+        if (base64.contains(",")) {
+            return base64.split(",")[1];
+        }
+        return base64;
     }
     
     /**
-     * 获取当前使用的模型名称
+     * 获取默认模型名称（spring.ai.ollama.chat.options.model）
      */
     public String getModelName() {
         return defaultModel;
@@ -0,0 +1,90 @@
+package com.proj.ai.client;
+
+import lombok.Getter;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ollama 后端节点
+ * 持有节点对应的 WebClient（原生 API）和 ChatModel（Spring AI），并记录在途请求数和健康状态
+ */
+@Getter
+public class OllamaNode {
+
+    private final String url;
+
+    private final int weight;
+
+    /**
+     * 配置的模型列表，为空表示不限制
+     */
+    private final Set<String> configuredModels;
+
+    private final WebClient webClient;
+
+    private final ChatModel chatModel;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile boolean healthy = true;
+
+    /**
+     * /api/tags 探测到的已安装模型
+     */
+    private volatile Set<String> availableModels = Collections.emptySet();
+
+    /**
+     * /api/ps 探测到的已加载到显存的模型
+     */
+    private volatile Set<String> loadedModels = Collections.emptySet();
+
+    private volatile long lastCheckTime;
+
+    public OllamaNode(String url, int weight, Set<String> configuredModels, WebClient webClient, ChatModel chatModel) {
+        this.url = url;
+        this.weight = Math.max(1, weight);
+        this.configuredModels = configuredModels;
+        this.webClient = webClient;
+        this.chatModel = chatModel;
+    }
+
+    /**
+     * 节点是否可以服务指定模型
+     */
+    public boolean serves(String model) {
+        if (!configuredModels.isEmpty()) {
+            return configuredModels.contains(model);
+        }
+        // 未探测到模型列表时不做限制
+        return availableModels.isEmpty() || availableModels.contains(model);
+    }
+
+    /**
+     * 模型是否已加载（命中时无需冷启动）
+     */
+    public boolean isLoaded(String model) {
+        return loadedModels.contains(model);
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    void setAvailableModels(Set<String> availableModels) {
+        this.availableModels = availableModels;
+    }
+
+    void setLoadedModels(Set<String> loadedModels) {
+        this.loadedModels = loadedModels;
+    }
+
+    void setLastCheckTime(long lastCheckTime) {
+        this.lastCheckTime = lastCheckTime;
+    }
+}
@@ -0,0 +1,410 @@
+package com.proj.ai.client;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.proj.ai.config.ConcurrencyLimitConfig;
+import com.proj.ai.config.OllamaPoolConfig;
+import com.proj.ai.exception.OverloadException;
+import com.proj.ai.limit.AdaptiveConcurrencyLimiter;
+import com.proj.ai.metrics.InferenceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.ai.ollama.api.OllamaOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Ollama 节点池
+ * 按 在途请求数/权重 选择负载最低的健康节点（least outstanding requests），
+ * 并定时探测 /api/tags、/api/ps 摘除或恢复节点；
+ * 所有调用先经过自适应并发限制，超出上限的请求短暂排队，排队已满或超时时快速失败
+ */
+@Slf4j
+@Component
+public class OllamaNodePool {
+
+    @Autowired
+    private OllamaPoolConfig poolConfig;
+
+    @Autowired
+    private ObjectProvider<RestClient.Builder> restClientBuilderProvider;
+
+    @Autowired
+    private ConcurrencyLimitConfig limitConfig;
+
+    @Autowired
+    private InferenceMetrics inferenceMetrics;
+
+    @Value("${spring.ai.ollama.base-url:http://35.221.238.240:11434}")
+    private String ollamaBaseUrl;
+
+    @Value("${spring.ai.ollama.chat.options.model:qwen2.5vl:3b}")
+    private String defaultModel;
+
+    /**
+     * spring.ai.ollama.chat.options 绑定的对话参数
+     */
+    @Autowired
+    private OllamaOptions chatOptions;
+
+    private List<OllamaNode> nodes = Collections.emptyList();
+
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * 所有节点共用的连接池（每个节点地址单独计数），流式生成和图片识别都经过这里
+     */
+    private ConnectionProvider connectionProvider;
+
+    private ReactorClientHttpConnector connector;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @PostConstruct
+    public void init() {
+        // 默认连接池每个地址只有 2*CPU（至少 16）个连接、2 倍的等待队列，高并发流式请求会直接被拒绝
+        this.connectionProvider = ConnectionProvider.builder("ollama")
+                .maxConnections(poolConfig.getMaxConnections())
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMillis(poolConfig.getPendingAcquireTimeout()))
+                .build();
+        this.connector = new ReactorClientHttpConnector(HttpClient.create(connectionProvider));
+        this.limiter = new AdaptiveConcurrencyLimiter("ollama", limitConfig.getOllama());
+
+        List<OllamaNode> created = new ArrayList<>();
+        if (poolConfig.getNodes().isEmpty()) {
+            // 未配置节点池时使用 spring.ai.ollama.base-url 单节点
+            created.add(new OllamaNode(ollamaBaseUrl, 1, Collections.emptySet(),
+                    buildWebClient(ollamaBaseUrl), buildChatModel(ollamaBaseUrl)));
+        } else {
+            for (OllamaPoolConfig.Node node : poolConfig.getNodes()) {
+                created.add(new OllamaNode(node.getUrl(), node.getWeight(), new HashSet<>(node.getModels()),
+                        buildWebClient(node.getUrl()), buildChatModel(node.getUrl())));
+            }
+        }
+        this.nodes = List.copyOf(created);
+        log.info("初始化 Ollama 节点池，节点数: {}, 节点: {}", nodes.size(),
+                nodes.stream().map(OllamaNode::getUrl).toList());
+
+        healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ollama-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, 0,
+                poolConfig.getHealthCheckInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+    }
+
+    /**
+     * 在选中的节点上执行同步调用，按模型和节点记录耗时
+     *
+     * @param model 模型名称
+     * @param call 调用逻辑
+     * @return 调用结果
+     */
+    public <T> T execute(String model, Function<OllamaNode, T> call) {
+        try {
+            return limiter.execute(() -> {
+                OllamaNode node = acquire(model);
+                long start = System.nanoTime();
+                try {
+                    T result = call.apply(node);
+                    inferenceMetrics.recordOllama(model, node.getUrl(), System.nanoTime() - start, null);
+                    return result;
+                } catch (RuntimeException e) {
+                    recordCallFailure(node, e);
+                    inferenceMetrics.recordOllama(model, node.getUrl(), System.nanoTime() - start, e);
+                    throw e;
+                } finally {
+                    release(node);
+                }
+            });
+        } catch (OverloadException e) {
+            inferenceMetrics.recordError(InferenceMetrics.BACKEND_OLLAMA, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 在选中的节点上执行流式调用，流结束、出错或取消时释放节点；
+     * 按模型和节点记录耗时和首个响应块耗时
+     *
+     * @param model 模型名称
+     * @param call 调用逻辑
+     * @return 响应流
+     */
+    public <T> Flux<T> executeFlux(String model, Function<OllamaNode, Flux<T>> call) {
+        return executeFlux(model, null, call);
+    }
+
+    /**
+     * 在选中的节点上执行流式调用，优先使用指定节点（会话亲和，复用节点上已缓存的上下文）
+     *
+     * @param model 模型名称
+     * @param preferredNode 优先使用的节点地址，为 null 或该节点不可用时按负载选择
+     * @param call 调用逻辑
+     * @return 响应流
+     */
+    public <T> Flux<T> executeFlux(String model, String preferredNode, Function<OllamaNode, Flux<T>> call) {
+        return limiter.executeFlux(() -> Flux.using(
+                        () -> acquire(model, preferredNode),
+                        node -> inferenceMetrics.observeOllama(
+                                call.apply(node).doOnError(e -> recordCallFailure(node, e)), model, node.getUrl()),
+                        this::release))
+                .doOnError(OverloadException.class,
+                        e -> inferenceMetrics.recordError(InferenceMetrics.BACKEND_OLLAMA, e));
+    }
+
+    /**
+     * 选择节点：健康且能服务该模型的节点中，在途请求数/权重最小者；
+     * 负载相同时优先已加载模型的节点，再随机打散
+     */
+    public OllamaNode acquire(String model) {
+        List<OllamaNode> candidates = new ArrayList<>(nodes.size());
+        for (OllamaNode node : nodes) {
+            if (node.isHealthy() && node.serves(model)) {
+                candidates.add(node);
+            }
+        }
+        if (candidates.isEmpty()) {
+            // 全部节点不可用时不直接拒绝，退回到所有可服务该模型的节点，避免探测抖动导致整体不可用
+            for (OllamaNode node : nodes) {
+                if (node.serves(model)) {
+                    candidates.add(node);
+                }
+            }
+            if (candidates.isEmpty()) {
+                throw new IllegalStateException("没有可用的 Ollama 节点提供模型: " + model);
+            }
+            log.warn("没有健康的 Ollama 节点，退回到全部节点，model: {}", model);
+        }
+
+        OllamaNode best = null;
+        int ties = 0;
+        for (OllamaNode node : candidates) {
+            if (best == null) {
+                best = node;
+                ties = 1;
+                continue;
+            }
+            int compare = compareLoad(node, best, model);
+            if (compare < 0) {
+                best = node;
+                ties = 1;
+            } else if (compare == 0 && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+                best = node;
+            }
+        }
+        best.getInFlight().incrementAndGet();
+        log.debug("选择 Ollama 节点: {}, 在途请求数: {}", best.getUrl(), best.getInFlight().get());
+        return best;
+    }
+
+    /**
+     * 选择节点：指定节点健康且能服务该模型时直接使用（不比较负载），否则按 {@link #acquire(String)} 选择
+     */
+    public OllamaNode acquire(String model, String preferredNode) {
+        if (preferredNode != null) {
+            for (OllamaNode node : nodes) {
+                if (node.getUrl().equals(preferredNode) && node.isHealthy() && node.serves(model)) {
+                    node.getInFlight().incrementAndGet();
+                    log.debug("选择亲和 Ollama 节点: {}, 在途请求数: {}", node.getUrl(), node.getInFlight().get());
+                    return node;
+                }
+            }
+        }
+        return acquire(model);
+    }
+
+    /**
+     * 释放节点
+     */
+    public void release(OllamaNode node) {
+        node.getInFlight().decrementAndGet();
+    }
+
+    /**
+     * 获取并发限制器
+     */
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * 获取所有节点
+     */
+    public List<OllamaNode> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 比较两个节点的负载：inFlight(a)/weight(a) 与 inFlight(b)/weight(b)，交叉相乘避免浮点运算
+     */
+    private int compareLoad(OllamaNode a, OllamaNode b, String model) {
+        long loadA = (long) a.getInFlight().get() * b.getWeight();
+        long loadB = (long) b.getInFlight().get() * a.getWeight();
+        if (loadA != loadB) {
+            return Long.compare(loadA, loadB);
+        }
+        return Boolean.compare(b.isLoaded(model), a.isLoaded(model));
+    }
+
+    /**
+     * 调用失败时，仅连接类异常计入节点失败次数（模型本身的错误不摘除节点）
+     */
+    private void recordCallFailure(OllamaNode node, Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof WebClientRequestException || t instanceof ResourceAccessException) {
+                markFailure(node, "调用失败: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 探测所有节点
+     */
+    private void checkHealth() {
+        try {
+            Flux.fromIterable(nodes)
+                    .flatMap(this::probe)
+                    .then()
+                    .block(Duration.ofMillis(poolConfig.getHealthCheckTimeout() * 2));
+        } catch (Exception e) {
+            log.warn("Ollama 节点健康检查异常: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 探测单个节点：/api/tags 判断存活并获取模型列表，/api/ps 获取已加载模型
+     */
+    private Mono<Void> probe(OllamaNode node) {
+        Duration timeout = Duration.ofMillis(poolConfig.getHealthCheckTimeout());
+        Mono<Set<String>> tags = node.getWebClient().get()
+                .uri("/api/tags")
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(timeout)
+                .map(this::parseModelNames);
+        Mono<Set<String>> ps = node.getWebClient().get()
+                .uri("/api/ps")
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(timeout)
+                .map(this::parseModelNames)
+                .onErrorReturn(Collections.emptySet());
+
+        return Mono.zip(tags, ps)
+                .doOnNext(result -> {
+                    node.setAvailableModels(result.getT1());
+                    node.setLoadedModels(result.getT2());
+                    node.setLastCheckTime(System.currentTimeMillis());
+                    node.getConsecutiveFailures().set(0);
+                    if (!node.isHealthy()) {
+                        node.setHealthy(true);
+                        log.info("Ollama 节点恢复: {}", node.getUrl());
+                    }
+                })
+                .doOnError(e -> markFailure(node, "健康检查失败: " + e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private void markFailure(OllamaNode node, String reason) {
+        node.setLastCheckTime(System.currentTimeMillis());
+        int failures = node.getConsecutiveFailures().incrementAndGet();
+        if (failures >= poolConfig.getFailureThreshold() && node.isHealthy()) {
+            node.setHealthy(false);
+            log.warn("Ollama 节点摘除: {}, 连续失败 {} 次, 原因: {}", node.getUrl(), failures, reason);
+        }
+    }
+
+    /**
+     * 解析 /api/tags、/api/ps 返回的模型名称
+     * 格式：{"models":[{"name":"qwen2.5vl:3b", ...}]}
+     */
+    private Set<String> parseModelNames(String body) {
+        JSONArray models = JSON.parseObject(body).getJSONArray("models");
+        if (models == null) {
+            return Collections.emptySet();
+        }
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < models.size(); i++) {
+            JSONObject model = models.getJSONObject(i);
+            names.add(model.getString("name"));
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    private WebClient buildWebClient(String baseUrl) {
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(connector)
+                // 增加缓冲区大小到 10MB，避免 DataBufferLimitException
+                .codecs(configurer -> configurer
+                        .defaultCodecs()
+                        .maxInMemorySize(10 * 1024 * 1024)) // 10MB
+                .build();
+    }
+
+    private ChatModel buildChatModel(String baseUrl) {
+        return OllamaChatModel.builder()
+                // 同步调用使用 Spring Boot 配置的 RestClient，流式调用使用共享连接池
+                .ollamaApi(OllamaApi.builder()
+                        .baseUrl(baseUrl)
+                        .restClientBuilder(restClientBuilderProvider.getIfAvailable(RestClient::builder))
+                        .webClientBuilder(WebClient.builder().clientConnector(connector))
+                        .build())
+                .defaultOptions(buildDefaultOptions())
+                .build();
+    }
+
+    /**
+     * 节点 ChatModel 的默认参数：复制 spring.ai.ollama.chat.options 的全部参数，未配置模型时使用默认模型
+     */
+    private OllamaOptions buildDefaultOptions() {
+        OllamaOptions options = OllamaOptions.fromOptions(chatOptions);
+        if (options.getModel() == null) {
+            options.setModel(defaultModel);
+        }
+        return options;
+    }
+}
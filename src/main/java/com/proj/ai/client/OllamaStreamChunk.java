@@ -0,0 +1,62 @@
+package com.proj.ai.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ollama 流式响应片段
+ * 对应 /api/generate 流式返回的一行 JSON，done=true 的最后一行携带耗时统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OllamaStreamChunk {
+
+    /**
+     * 本次增量文本
+     */
+    private String text;
+
+    /**
+     * 是否为最后一个片段
+     */
+    private boolean done;
+
+    /**
+     * 提示词 token 数
+     */
+    private Long promptEvalCount;
+
+    /**
+     * 生成 token 数
+     */
+    private Long evalCount;
+
+    /**
+     * 生成耗时（纳秒）
+     */
+    private Long evalDuration;
+
+    /**
+     * 总耗时（纳秒）
+     */
+    private Long totalDuration;
+
+    /**
+     * 模型加载耗时（纳秒）
+     */
+    private Long loadDuration;
+
+    /**
+     * 对话上下文 token（仅会话接口的最后一个片段），下一轮请求原样发回
+     */
+    private int[] context;
+
+    /**
+     * 处理请求的节点地址（仅会话接口的最后一个片段）
+     */
+    private String node;
+}
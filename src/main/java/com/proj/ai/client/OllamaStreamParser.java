@@ -0,0 +1,647 @@
+package com.proj.ai.client;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ollama 流式响应（NDJSON）增量解析器
+ * <p>
+ * 直接处理网络到达的字节块，按行切分后在字节层面解析顶层 JSON 字段：
+ * response 文本按 JSON 字符串转义规则（含 \\uXXXX）解码，done/统计字段从结束行中提取，
+ * 其余字段直接跳过，不创建中间 String；context 数组只在会话接口需要时解析为 int[]，否则同样跳过。
+ * <p>
+ * 两种模式：
+ * <ul>
+ *     <li>聚合模式：所有 response 片段追加到同一个可复用的 StringBuilder，用于同步接口</li>
+ *     <li>分片模式：每行输出一个 {@link OllamaStreamChunk}，用于 SSE 流式接口</li>
+ * </ul>
+ * 非线程安全，一个请求使用一个实例（Reactor 保证 onNext 串行调用）。
+ */
+public final class OllamaStreamParser {
+
+    private static final byte[] KEY_RESPONSE = ascii("response");
+    private static final byte[] KEY_DONE = ascii("done");
+    private static final byte[] KEY_ERROR = ascii("error");
+    private static final byte[] KEY_PROMPT_EVAL_COUNT = ascii("prompt_eval_count");
+    private static final byte[] KEY_EVAL_COUNT = ascii("eval_count");
+    private static final byte[] KEY_EVAL_DURATION = ascii("eval_duration");
+    private static final byte[] KEY_TOTAL_DURATION = ascii("total_duration");
+    private static final byte[] KEY_LOAD_DURATION = ascii("load_duration");
+    private static final byte[] KEY_CONTEXT = ascii("context");
+
+    private static final long ABSENT = -1L;
+
+    private final boolean emitChunks;
+
+    /**
+     * 是否解析 context 数组
+     */
+    private final boolean captureContext;
+
+    /**
+     * 聚合模式下的完整响应；分片模式下的当前行文本
+     */
+    private final StringBuilder text;
+
+    /**
+     * 未处理完的字节（最后一个换行之后的部分）
+     */
+    private byte[] lineBuffer = new byte[4096];
+    private int lineLength;
+
+    // 当前行解析结果
+    private boolean lineDone;
+    private long linePromptEvalCount;
+    private long lineEvalCount;
+    private long lineEvalDuration;
+    private long lineTotalDuration;
+    private long lineLoadDuration;
+    private int[] lineContext;
+
+    /**
+     * 解析 context 时复用的缓冲区
+     */
+    private int[] contextBuffer;
+
+    // 整个流的最终结果（取自 done=true 的行）
+    private boolean done;
+    private long promptEvalCount = ABSENT;
+    private long evalCount = ABSENT;
+    private long evalDuration = ABSENT;
+    private long totalDuration = ABSENT;
+    private long loadDuration = ABSENT;
+    private int[] context;
+    private String errorMessage;
+    private int lineCount;
+
+    // 行内解析位置
+    private int pos;
+    private int end;
+
+    private OllamaStreamParser(boolean emitChunks, boolean captureContext, int initialCapacity) {
+        this.emitChunks = emitChunks;
+        this.captureContext = captureContext;
+        this.text = new StringBuilder(initialCapacity);
+    }
+
+    /**
+     * 创建聚合模式解析器
+     */
+    public static OllamaStreamParser aggregating() {
+        return new OllamaStreamParser(false, false, 1024);
+    }
+
+    /**
+     * 创建分片模式解析器
+     */
+    public static OllamaStreamParser chunking() {
+        return new OllamaStreamParser(true, false, 64);
+    }
+
+    /**
+     * 创建分片模式解析器，同时解析结束行的 context（会话接口使用，下一轮请求原样发回以复用 KV 缓存）
+     */
+    public static OllamaStreamParser chunkingWithContext() {
+        return new OllamaStreamParser(true, true, 64);
+    }
+
+    /**
+     * 输入一个 DataBuffer（不释放 buffer，由调用方负责）
+     *
+     * @return 分片模式下本次解析出的完整行，聚合模式下为空列表
+     */
+    public List<OllamaStreamChunk> feed(DataBuffer buffer) {
+        int readable = buffer.readableByteCount();
+        ensureCapacity(lineLength + readable);
+        buffer.read(lineBuffer, lineLength, readable);
+        return consume(readable);
+    }
+
+    /**
+     * 输入一段字节
+     *
+     * @return 分片模式下本次解析出的完整行，聚合模式下为空列表
+     */
+    public List<OllamaStreamChunk> feed(byte[] bytes, int offset, int length) {
+        ensureCapacity(lineLength + length);
+        System.arraycopy(bytes, offset, lineBuffer, lineLength, length);
+        return consume(length);
+    }
+
+    /**
+     * 流结束时调用，解析最后一行（没有换行符结尾的情况）
+     *
+     * @return 分片模式下最后一行的片段，聚合模式下为空列表
+     */
+    public List<OllamaStreamChunk> finish() {
+        List<OllamaStreamChunk> out = emitChunks ? new ArrayList<>(1) : Collections.emptyList();
+        if (lineLength > 0) {
+            processLine(0, lineLength, out);
+            lineLength = 0;
+        }
+        return out;
+    }
+
+    /**
+     * 重置状态，便于复用内部缓冲区
+     */
+    public void reset() {
+        text.setLength(0);
+        lineLength = 0;
+        done = false;
+        promptEvalCount = ABSENT;
+        evalCount = ABSENT;
+        evalDuration = ABSENT;
+        totalDuration = ABSENT;
+        loadDuration = ABSENT;
+        context = null;
+        errorMessage = null;
+        lineCount = 0;
+    }
+
+    /**
+     * 聚合模式下拼接后的完整响应文本
+     */
+    public String getResponse() {
+        return text.toString();
+    }
+
+    /**
+     * 聚合模式下拼接后的响应长度
+     */
+    public int getResponseLength() {
+        return text.length();
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public Long getPromptEvalCount() {
+        return boxed(promptEvalCount);
+    }
+
+    public Long getEvalCount() {
+        return boxed(evalCount);
+    }
+
+    public Long getEvalDuration() {
+        return boxed(evalDuration);
+    }
+
+    public Long getTotalDuration() {
+        return boxed(totalDuration);
+    }
+
+    public Long getLoadDuration() {
+        return boxed(loadDuration);
+    }
+
+    /**
+     * 结束行的 context（仅 {@link #chunkingWithContext()} 解析）
+     */
+    public int[] getContext() {
+        return context;
+    }
+
+    /**
+     * Ollama 返回的 error 字段（如模型不存在）
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * 已解析的非空行数
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    private List<OllamaStreamChunk> consume(int appended) {
+        int scanFrom = lineLength;
+        lineLength += appended;
+        List<OllamaStreamChunk> out = emitChunks ? new ArrayList<>(2) : Collections.emptyList();
+
+        int lineStart = 0;
+        for (int i = scanFrom; i < lineLength; i++) {
+            if (lineBuffer[i] == '\n') {
+                processLine(lineStart, i, out);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart > 0) {
+            lineLength -= lineStart;
+            System.arraycopy(lineBuffer, lineStart, lineBuffer, 0, lineLength);
+        }
+        return out;
+    }
+
+    private void processLine(int from, int to) {
+        pos = from;
+        end = to;
+        skipWhitespace();
+        if (pos >= end) {
+            return;
+        }
+        lineCount++;
+        lineDone = false;
+        linePromptEvalCount = ABSENT;
+        lineEvalCount = ABSENT;
+        lineEvalDuration = ABSENT;
+        lineTotalDuration = ABSENT;
+        lineLoadDuration = ABSENT;
+        lineContext = null;
+        if (emitChunks) {
+            text.setLength(0);
+        }
+
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            int keyStart = pos;
+            int keyEnd = skipStringBody();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            if (keyEquals(keyStart, keyEnd, KEY_RESPONSE) && peek() == '"') {
+                pos++;
+                readString(text);
+            } else if (keyEquals(keyStart, keyEnd, KEY_DONE)) {
+                lineDone = readBoolean();
+            } else if (keyEquals(keyStart, keyEnd, KEY_EVAL_COUNT)) {
+                lineEvalCount = readLong();
+            } else if (keyEquals(keyStart, keyEnd, KEY_EVAL_DURATION)) {
+                lineEvalDuration = readLong();
+            } else if (keyEquals(keyStart, keyEnd, KEY_PROMPT_EVAL_COUNT)) {
+                linePromptEvalCount = readLong();
+            } else if (keyEquals(keyStart, keyEnd, KEY_TOTAL_DURATION)) {
+                lineTotalDuration = readLong();
+            } else if (keyEquals(keyStart, keyEnd, KEY_LOAD_DURATION)) {
+                lineLoadDuration = readLong();
+            } else if (captureContext && keyEquals(keyStart, keyEnd, KEY_CONTEXT) && peek() == '[') {
+                lineContext = readIntArray();
+            } else if (keyEquals(keyStart, keyEnd, KEY_ERROR) && peek() == '"') {
+                pos++;
+                StringBuilder error = new StringBuilder();
+                readString(error);
+                errorMessage = error.toString();
+            } else {
+                skipValue();
+            }
+
+            skipWhitespace();
+            byte b = next();
+            if (b == '}') {
+                break;
+            }
+            if (b != ',') {
+                throw malformed("期望 ',' 或 '}'");
+            }
+        }
+
+        if (lineDone) {
+            done = true;
+            promptEvalCount = linePromptEvalCount;
+            evalCount = lineEvalCount;
+            evalDuration = lineEvalDuration;
+            totalDuration = lineTotalDuration;
+            loadDuration = lineLoadDuration;
+            context = lineContext;
+        }
+    }
+
+    private void processLine(int from, int to, List<OllamaStreamChunk> out) {
+        int before = lineCount;
+        processLine(from, to);
+        if (emitChunks && lineCount != before) {
+            out.add(OllamaStreamChunk.builder()
+                    .text(text.toString())
+                    .done(lineDone)
+                    .promptEvalCount(boxed(linePromptEvalCount))
+                    .evalCount(boxed(lineEvalCount))
+                    .evalDuration(boxed(lineEvalDuration))
+                    .totalDuration(boxed(lineTotalDuration))
+                    .loadDuration(boxed(lineLoadDuration))
+                    .context(lineContext)
+                    .build());
+        }
+    }
+
+    /**
+     * 解码 JSON 字符串（起始引号已消费），UTF-8 字节直接解码为 char 追加到 target
+     */
+    private void readString(StringBuilder target) {
+        byte[] buf = lineBuffer;
+        while (pos < end) {
+            int b = buf[pos++];
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                readEscape(target);
+            } else if (b >= 0) {
+                target.append((char) b);
+            } else {
+                readMultiByte(b, target);
+            }
+        }
+        throw malformed("字符串未结束");
+    }
+
+    private void readEscape(StringBuilder target) {
+        if (pos >= end) {
+            throw malformed("转义序列不完整");
+        }
+        byte e = lineBuffer[pos++];
+        switch (e) {
+            case '"' -> target.append('"');
+            case '\\' -> target.append('\\');
+            case '/' -> target.append('/');
+            case 'b' -> target.append('\b');
+            case 'f' -> target.append('\f');
+            case 'n' -> target.append('\n');
+            case 'r' -> target.append('\r');
+            case 't' -> target.append('\t');
+            case 'u' -> {
+                // 代理对（\\uD83D\\uDE00）按两个 char 依次追加即可还原
+                if (pos + 4 > end) {
+                    throw malformed("\\u 转义不完整");
+                }
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    code = (code << 4) | hexValue(lineBuffer[pos++]);
+                }
+                target.append((char) code);
+            }
+            default -> throw malformed("非法转义字符");
+        }
+    }
+
+    private void readMultiByte(int first, StringBuilder target) {
+        int b0 = first & 0xFF;
+        int codePoint;
+        int extra;
+        if ((b0 & 0xE0) == 0xC0) {
+            codePoint = b0 & 0x1F;
+            extra = 1;
+        } else if ((b0 & 0xF0) == 0xE0) {
+            codePoint = b0 & 0x0F;
+            extra = 2;
+        } else if ((b0 & 0xF8) == 0xF0) {
+            codePoint = b0 & 0x07;
+            extra = 3;
+        } else {
+            target.append('\uFFFD');
+            return;
+        }
+        if (pos + extra > end) {
+            pos = end;
+            target.append('\uFFFD');
+            return;
+        }
+        for (int i = 0; i < extra; i++) {
+            int b = lineBuffer[pos] & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                target.append('\uFFFD');
+                return;
+            }
+            codePoint = (codePoint << 6) | (b & 0x3F);
+            pos++;
+        }
+        if (codePoint < 0x10000) {
+            target.append((char) codePoint);
+        } else if (codePoint <= Character.MAX_CODE_POINT) {
+            target.append(Character.highSurrogate(codePoint));
+            target.append(Character.lowSurrogate(codePoint));
+        } else {
+            target.append('\uFFFD');
+        }
+    }
+
+    /**
+     * 跳过字符串内容（起始引号已消费），返回结束引号的位置
+     */
+    private int skipStringBody() {
+        byte[] buf = lineBuffer;
+        while (pos < end) {
+            byte b = buf[pos++];
+            if (b == '"') {
+                return pos - 1;
+            }
+            if (b == '\\') {
+                pos++;
+            }
+        }
+        throw malformed("字符串未结束");
+    }
+
+    /**
+     * 跳过任意 JSON 值（字符串、数字、字面量、对象、数组）
+     */
+    private void skipValue() {
+        byte b = peek();
+        if (b == '"') {
+            pos++;
+            skipStringBody();
+        } else if (b == '{' || b == '[') {
+            int depth = 0;
+            while (pos < end) {
+                byte c = lineBuffer[pos++];
+                if (c == '"') {
+                    skipStringBody();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (--depth == 0) {
+                        return;
+                    }
+                }
+            }
+            throw malformed("对象或数组未结束");
+        } else {
+            while (pos < end) {
+                byte c = lineBuffer[pos];
+                if (c == ',' || c == '}' || c == ' ' || c == '\t' || c == '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * 读取整数数组（context），直接解析为 int[]，不创建装箱对象
+     */
+    private int[] readIntArray() {
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return new int[0];
+        }
+        int[] values = contextBuffer != null ? contextBuffer : new int[1024];
+        int count = 0;
+        while (true) {
+            skipWhitespace();
+            boolean negative = false;
+            if (peek() == '-') {
+                negative = true;
+                pos++;
+            }
+            int value = 0;
+            int start = pos;
+            while (pos < end) {
+                byte c = lineBuffer[pos];
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value * 10 + (c - '0');
+                pos++;
+            }
+            if (pos == start) {
+                throw malformed("期望数字");
+            }
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = negative ? -value : value;
+            skipWhitespace();
+            byte b = next();
+            if (b == ']') {
+                break;
+            }
+            if (b != ',') {
+                throw malformed("期望 ',' 或 ']'");
+            }
+        }
+        contextBuffer = values;
+        return Arrays.copyOf(values, count);
+    }
+
+    private boolean readBoolean() {
+        if (matchLiteral("true")) {
+            return true;
+        }
+        if (matchLiteral("false")) {
+            return false;
+        }
+        skipValue();
+        return false;
+    }
+
+    private long readLong() {
+        if (peek() == 'n' && matchLiteral("null")) {
+            return ABSENT;
+        }
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            pos++;
+        }
+        long value = 0;
+        int start = pos;
+        while (pos < end) {
+            byte c = lineBuffer[pos];
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            pos++;
+        }
+        if (pos == start) {
+            throw malformed("期望数字");
+        }
+        // 小数或指数部分直接跳过（统计字段均为整数）
+        skipValue();
+        return negative ? -value : value;
+    }
+
+    private boolean matchLiteral(String literal) {
+        int length = literal.length();
+        if (pos + length > end) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (lineBuffer[pos + i] != literal.charAt(i)) {
+                return false;
+            }
+        }
+        pos += length;
+        return true;
+    }
+
+    private boolean keyEquals(int keyStart, int keyEnd, byte[] key) {
+        return Arrays.equals(lineBuffer, keyStart, keyEnd, key, 0, key.length);
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte b = lineBuffer[pos];
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private byte peek() {
+        if (pos >= end) {
+            throw malformed("行意外结束");
+        }
+        return lineBuffer[pos];
+    }
+
+    private byte next() {
+        byte b = peek();
+        pos++;
+        return b;
+    }
+
+    private void expect(char c) {
+        if (next() != c) {
+            throw malformed("期望 '" + c + "'");
+        }
+    }
+
+    private IllegalStateException malformed(String reason) {
+        return new IllegalStateException("Ollama 流式响应格式错误: " + reason + "，位置: " + pos);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > lineBuffer.length) {
+            lineBuffer = Arrays.copyOf(lineBuffer, Math.max(capacity, lineBuffer.length * 2));
+        }
+    }
+
+    private static int hexValue(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        throw new IllegalStateException("Ollama 流式响应格式错误: 非法十六进制字符");
+    }
+
+    private static Long boxed(long value) {
+        return value == ABSENT ? null : value;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,124 @@
+package com.proj.ai.client;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.Callable;
+
+/**
+ * 流式构建带图片的 /api/generate 请求体
+ * <p>
+ * 请求体由三部分组成：JSON 前缀（model/prompt 等字段 + {@code "images":["}）、图片 Base64、JSON 后缀（<code>"]}</code>）。
+ * 图片按块读取原始字节，编码后直接写入发送用的 DataBuffer，不生成 Base64 String，也不经过 Jackson 序列化。
+ */
+public final class StreamingImageBody {
+
+    /**
+     * 每次读取的原始字节数，必须是 3 的倍数，保证只有最后一块需要补齐 '='
+     */
+    static final int RAW_CHUNK_SIZE = 3 * 16 * 1024;
+
+    private static final Base64.Encoder ENCODER = Base64.getEncoder();
+
+    private StreamingImageBody() {
+    }
+
+    /**
+     * 生成请求体 DataBuffer 流
+     *
+     * @param bufferFactory 发送端的 DataBuffer 工厂（Reactor Netty 下为池化的直接内存）
+     * @param prefix JSON 前缀
+     * @param image 图片输入流（订阅时打开，结束时关闭）
+     * @param suffix JSON 后缀
+     * @return 请求体
+     */
+    public static Flux<DataBuffer> encode(DataBufferFactory bufferFactory, byte[] prefix,
+                                          Callable<InputStream> image, byte[] suffix) {
+        Flux<DataBuffer> imageBody = Flux.using(image, input -> {
+            byte[] raw = new byte[RAW_CHUNK_SIZE];
+            byte[] encoded = new byte[RAW_CHUNK_SIZE / 3 * 4];
+            return Flux.<DataBuffer>generate(sink -> {
+                try {
+                    int read = input.readNBytes(raw, 0, RAW_CHUNK_SIZE);
+                    if (read == 0) {
+                        sink.complete();
+                        return;
+                    }
+                    // 只有最后一块可能不足 RAW_CHUNK_SIZE
+                    int length = read == RAW_CHUNK_SIZE
+                            ? ENCODER.encode(raw, encoded)
+                            : ENCODER.encode(Arrays.copyOf(raw, read), encoded);
+                    DataBuffer buffer = bufferFactory.allocateBuffer(length);
+                    buffer.write(encoded, 0, length);
+                    sink.next(buffer);
+                } catch (IOException e) {
+                    sink.error(new UncheckedIOException("读取图片失败: " + e.getMessage(), e));
+                }
+            });
+        }, StreamingImageBody::closeQuietly);
+
+        return Flux.concat(
+                Mono.fromSupplier(() -> bufferFactory.wrap(prefix)),
+                imageBody,
+                Mono.fromSupplier(() -> bufferFactory.wrap(suffix)));
+    }
+
+    /**
+     * 生成请求体 DataBuffer 流（图片为上游 DataBuffer 流，例如 WebFlux 上传的 FilePart）
+     * 上游每块的长度不一定是 3 的倍数，不足 3 字节的尾部留到下一块一起编码；请求体按上游的节奏读取，背压传递到上传端
+     *
+     * @param bufferFactory 发送端的 DataBuffer 工厂
+     * @param prefix JSON 前缀
+     * @param image 图片字节流（每块编码后释放）
+     * @param suffix JSON 后缀
+     * @return 请求体
+     */
+    public static Flux<DataBuffer> encode(DataBufferFactory bufferFactory, byte[] prefix,
+                                          Flux<DataBuffer> image, byte[] suffix) {
+        Flux<DataBuffer> imageBody = Flux.defer(() -> {
+            byte[] pending = new byte[2];
+            int[] pendingLength = {0};
+            return image
+                    .<DataBuffer>handle((buffer, sink) -> {
+                        byte[] raw;
+                        try {
+                            raw = new byte[pendingLength[0] + buffer.readableByteCount()];
+                            System.arraycopy(pending, 0, raw, 0, pendingLength[0]);
+                            buffer.read(raw, pendingLength[0], raw.length - pendingLength[0]);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                        int whole = raw.length - raw.length % 3;
+                        pendingLength[0] = raw.length - whole;
+                        System.arraycopy(raw, whole, pending, 0, pendingLength[0]);
+                        if (whole > 0) {
+                            sink.next(bufferFactory.wrap(ENCODER.encode(ByteBuffer.wrap(raw, 0, whole))));
+                        }
+                    })
+                    .concatWith(Mono.fromSupplier(() -> pendingLength[0] == 0 ? null
+                            : bufferFactory.wrap(ENCODER.encode(Arrays.copyOf(pending, pendingLength[0])))));
+        });
+
+        return Flux.concat(
+                Mono.fromSupplier(() -> bufferFactory.wrap(prefix)),
+                imageBody,
+                Mono.fromSupplier(() -> bufferFactory.wrap(suffix)));
+    }
+
+    private static void closeQuietly(InputStream input) {
+        try {
+            input.close();
+        } catch (IOException ignored) {
+            // 关闭失败不影响请求
+        }
+    }
+}
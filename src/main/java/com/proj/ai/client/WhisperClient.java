@@ -0,0 +1,228 @@
+package com.proj.ai.client;
+
+import com.proj.ai.config.ConcurrencyLimitConfig;
+import com.proj.ai.config.WhisperConfig;
+import com.proj.ai.dto.ConcurrencyLimitStats;
+import com.proj.ai.dto.WhisperPoolStats;
+import com.proj.ai.exception.OverloadException;
+import com.proj.ai.limit.AdaptiveConcurrencyLimiter;
+import com.proj.ai.metrics.InferenceMetrics;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Whisper 服务客户端
+ * 基于 Reactor Netty 连接池（keep-alive 复用连接），支持连接、读、总超时，并记录连接池指标；
+ * 请求先经过自适应并发限制，Whisper 服务饱和时快速失败而不是在连接池中长时间等待
+ */
+@Slf4j
+@Component
+public class WhisperClient {
+
+    @Autowired
+    private WhisperConfig whisperConfig;
+
+    @Autowired
+    private ConcurrencyLimitConfig limitConfig;
+
+    @Autowired
+    private InferenceMetrics inferenceMetrics;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    private ConnectionProvider connectionProvider;
+
+    private WebClient webClient;
+
+    /**
+     * 各服务（远端地址）的连接池指标
+     */
+    private final Map<String, ConnectionPoolMetrics> poolMetrics = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        WhisperConfig.Pool pool = whisperConfig.getPool();
+        this.connectionProvider = ConnectionProvider.builder("whisper")
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireTimeout(Duration.ofMillis(pool.getPendingAcquireTimeout()))
+                .maxIdleTime(Duration.ofMillis(pool.getMaxIdleTime()))
+                .maxLifeTime(Duration.ofMillis(pool.getMaxLifeTime()))
+                .evictInBackground(Duration.ofMillis(pool.getMaxIdleTime()))
+                .metrics(true, () -> new ConnectionProvider.MeterRegistrar() {
+                    @Override
+                    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+                                                ConnectionPoolMetrics metrics) {
+                        poolMetrics.put(remoteAddress.toString(), metrics);
+                    }
+
+                    @Override
+                    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+                        poolMetrics.remove(remoteAddress.toString());
+                    }
+                })
+                .build();
+
+        this.limiter = new AdaptiveConcurrencyLimiter("whisper", limitConfig.getWhisper());
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, whisperConfig.getConnectTimeout().intValue())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(whisperConfig.getReadTimeout()));
+
+        this.webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // verbose_json 包含逐句时间戳，长音频响应可能较大
+                .codecs(configurer -> configurer
+                        .defaultCodecs()
+                        .maxInMemorySize(10 * 1024 * 1024)) // 10MB
+                .build();
+
+        log.info("初始化 Whisper 客户端，服务: {}, 每服务最大连接数: {}, 连接超时: {}ms, 读超时: {}ms, 总超时: {}ms",
+                whisperConfig.getServerUrls(), pool.getMaxConnections(), whisperConfig.getConnectTimeout(),
+                whisperConfig.getReadTimeout(), whisperConfig.getTimeout());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        connectionProvider.dispose();
+    }
+
+    /**
+     * 发送 multipart 识别请求到指定 Whisper 服务
+     *
+     * @param url 推理接口 URL
+     * @param audioBytes 音频字节数组
+     * @param audioMs 音频时长（毫秒），并发限制以每秒音频的耗时作为延迟样本；未知时传 0，只按错误和超时调整
+     * @param language 语言代码
+     * @param responseFormat 响应格式
+     * @return 原始响应内容
+     */
+    public Mono<String> inference(String url, byte[] audioBytes, long audioMs, String language,
+                                  String responseFormat) {
+        // 构建 multipart 请求
+        MultipartBodyBuilder body = new MultipartBodyBuilder();
+        body.part("file", new ByteArrayResource(audioBytes)).filename("audio.wav");
+        return inference(url, body, audioMs, language, responseFormat);
+    }
+
+    /**
+     * 发送 multipart 识别请求到指定 Whisper 服务（音频为 DataBuffer 流）
+     * 音频边接收边转发，不在内存中汇总；上游只能订阅一次，因此不能重试；
+     * 时长未知，并发限制只按错误和超时调整
+     *
+     * @param url 推理接口 URL
+     * @param audio 音频字节流（例如 WebFlux 上传的 FilePart#content）
+     * @param language 语言代码
+     * @param responseFormat 响应格式
+     * @return 原始响应内容
+     */
+    public Mono<String> inference(String url, Flux<DataBuffer> audio, String language, String responseFormat) {
+        MultipartBodyBuilder body = new MultipartBodyBuilder();
+        body.asyncPart("file", audio, DataBuffer.class).filename("audio.wav");
+        return inference(url, body, 0, language, responseFormat);
+    }
+
+    private Mono<String> inference(String url, MultipartBodyBuilder body, long audioMs, String language,
+                                   String responseFormat) {
+        if (StringUtils.hasText(language)) {
+            body.part("language", language);
+        }
+        if (StringUtils.hasText(responseFormat)) {
+            body.part("response_format", responseFormat);
+        }
+
+        // 超时放在并发限制内部，超时作为过载信号参与上限调整；排队时间不计入总超时
+        return limiter.executeMono(() -> {
+                    requests.increment();
+                    log.info("调用 Whisper 服务: {}", url);
+                    long start = System.nanoTime();
+                    return webClient.post()
+                            .uri(url)
+                            .body(inferenceMetrics.measureRequest(InferenceMetrics.BACKEND_WHISPER,
+                                    BodyInserters.fromMultipartData(body.build())))
+                            .retrieve()
+                            .onStatus(status -> !status.is2xxSuccessful(), response -> response.createException()
+                                    .map(e -> new RuntimeException("Whisper 服务返回错误: " + response.statusCode(), e)))
+                            .bodyToMono(String.class)
+                            .switchIfEmpty(Mono.error(() -> new RuntimeException("Whisper 服务返回空响应")))
+                            .timeout(Duration.ofMillis(whisperConfig.getTimeout()))
+                            .doOnNext(result -> {
+                                inferenceMetrics.recordWhisper(url, System.nanoTime() - start, null);
+                                inferenceMetrics.recordPayload(InferenceMetrics.BACKEND_WHISPER,
+                                        InferenceMetrics.DIRECTION_RESPONSE, InferenceMetrics.utf8Length(result));
+                            })
+                            .doOnError(e -> inferenceMetrics.recordWhisper(url, System.nanoTime() - start, e));
+                }, audioMs / 1000.0)
+                .doOnError(OverloadException.class,
+                        e -> inferenceMetrics.recordError(InferenceMetrics.BACKEND_WHISPER, e))
+                .onErrorMap(e -> !(e instanceof OverloadException), e -> {
+                    failures.increment();
+                    if (e instanceof TimeoutException) {
+                        timeouts.increment();
+                        return new RuntimeException("调用 Whisper 服务超时（" + whisperConfig.getTimeout() + "ms）", e);
+                    }
+                    return new RuntimeException("调用 Whisper 服务失败: " + e.getMessage(), e);
+                })
+                .doOnError(e -> log.error("{}，url: {}", e.getMessage(), url));
+    }
+
+    /**
+     * 获取并发限制统计
+     */
+    public ConcurrencyLimitStats limitStats() {
+        return limiter.stats();
+    }
+
+    /**
+     * 获取连接池统计
+     */
+    public WhisperPoolStats stats() {
+        int total = 0;
+        int active = 0;
+        int idle = 0;
+        int pending = 0;
+        for (ConnectionPoolMetrics metrics : poolMetrics.values()) {
+            total += metrics.allocatedSize();
+            active += metrics.acquiredSize();
+            idle += metrics.idleSize();
+            pending += metrics.pendingAcquireSize();
+        }
+        return WhisperPoolStats.builder()
+                .maxConnections(whisperConfig.getPool().getMaxConnections())
+                .totalConnections(total)
+                .activeConnections(active)
+                .idleConnections(idle)
+                .pendingAcquire(pending)
+                .requestCount(requests.sum())
+                .failureCount(failures.sum())
+                .timeoutCount(timeouts.sum())
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.proj.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 审计日志配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "audit")
+public class AuditConfig {
+    
+    /**
+     * 是否启用审计日志
+     */
+    private Boolean enabled = true;
+    
+    /**
+     * 审计日志目录，按天写入 audit-yyyy-MM-dd.log
+     */
+    private String dir = "./logs/audit";
+    
+    /**
+     * 成功请求的采样率（0~1）
+     */
+    private Double sampleRate = 1.0;
+    
+    /**
+     * 失败请求的采样率（0~1）
+     */
+    private Double errorSampleRate = 1.0;
+    
+    /**
+     * 按接口覆盖成功请求的采样率，key 为接口名（如 ollama.chat、whisper.recognize）
+     */
+    private Map<String, Double> endpointSampleRates = new HashMap<>();
+    
+    /**
+     * 是否记录截断后的提示词/结果原文（默认只记录长度和哈希）
+     */
+    private Boolean includePayload = false;
+    
+    /**
+     * 记录原文时的最大字符数
+     */
+    private Integer maxPayloadChars = 256;
+    
+    /**
+     * 哈希密钥，非空时使用 HMAC-SHA256，避免短提示词被穷举还原
+     */
+    private String hashKey = "";
+    
+    /**
+     * 队列容量，写入跟不上时丢弃新记录
+     */
+    private Integer queueSize = 8192;
+    
+    /**
+     * 队列中记录（含提示词和输出原文）估算占用内存上限（MB），超出时丢弃新记录
+     */
+    private Integer queueMaxMb = 32;
+    
+    /**
+     * 每批最多写入条数
+     */
+    private Integer batchSize = 512;
+    
+    /**
+     * 队列为空时最长等待时间（毫秒），也是最长刷盘间隔
+     */
+    private Long flushInterval = 1000L;
+    
+    /**
+     * 审计日志保留天数
+     */
+    private Integer retentionDays = 30;
+}
@@ -0,0 +1,94 @@
+package com.proj.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 推理服务并发限制配置
+ * Ollama 和 Whisper 各自一个自适应并发上限，超出上限的请求短暂排队，排队已满或超时时快速失败
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "concurrency-limit")
+public class ConcurrencyLimitConfig {
+
+    /**
+     * Ollama 并发限制
+     */
+    private Limit ollama = new Limit();
+
+    /**
+     * Whisper 并发限制
+     */
+    private Limit whisper = new Limit();
+
+    /**
+     * 并发限制参数
+     */
+    @Data
+    public static class Limit {
+
+        /**
+         * 是否启用（关闭时只统计在途请求数，不限制）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 初始并发上限
+         */
+        private Integer initialLimit = 16;
+
+        /**
+         * 并发上限的下限
+         */
+        private Integer minLimit = 2;
+
+        /**
+         * 并发上限的上限
+         */
+        private Integer maxLimit = 256;
+
+        /**
+         * 排队请求数上限，超出时直接拒绝
+         */
+        private Integer maxQueue = 64;
+
+        /**
+         * 排队等待超时时间（毫秒），超时后拒绝
+         */
+        private Long queueTimeout = 2000L;
+
+        /**
+         * 初始延迟阈值（毫秒），延迟样本超过阈值视为过载信号，并发上限按 backoffRatio 下调；
+         * 采集到 latencyWindow 个基线样本后改为 基线 p90 × latencyTolerance。
+         * 延迟样本与请求大小无关：Ollama 流式调用为首个响应块耗时，Whisper 为每秒音频的识别耗时
+         */
+        private Long latencyThreshold = 15000L;
+
+        /**
+         * 基线样本数：在途请求数不超过上限一半时开始的成功请求，取最近这么多个计算 p90
+         */
+        private Integer latencyWindow = 100;
+
+        /**
+         * 延迟阈值相对基线 p90 的倍数
+         */
+        private Double latencyTolerance = 2.0;
+
+        /**
+         * 过载时并发上限的下调比例
+         */
+        private Double backoffRatio = 0.9;
+
+        /**
+         * 拒绝时返回的 HTTP 状态码（429 或 503）
+         */
+        private Integer rejectStatus = 503;
+
+        /**
+         * Retry-After 的最大秒数
+         */
+        private Integer maxRetryAfter = 30;
+    }
+}
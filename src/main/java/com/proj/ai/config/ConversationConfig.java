@@ -0,0 +1,39 @@
+package com.proj.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 多轮会话配置（/api/ollama/sessions）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ollama.session")
+public class ConversationConfig {
+
+    /**
+     * 会话数上限，超出时淘汰最久未使用的会话
+     */
+    private Integer maxSessions = 10000;
+
+    /**
+     * 会话占用内存上限（MB），按 context token 数 × 4 字节估算，超出时淘汰最久未使用的会话
+     */
+    private Integer maxMemoryMb = 256;
+
+    /**
+     * 会话空闲多久后过期（秒）
+     */
+    private Long idleTtlSeconds = 1800L;
+
+    /**
+     * 单个会话 context 的 token 数上限，超出后清空 context 从新一轮开始（通常应与模型的 num_ctx 一致）
+     */
+    private Integer maxContextTokens = 32768;
+
+    /**
+     * 清理过期会话的间隔（毫秒）
+     */
+    private Long sweepInterval = 60000L;
+}
@@ -0,0 +1,44 @@
+package com.proj.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * imageUrl 图片缓存配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ollama.image-cache")
+public class ImageCacheConfig {
+    
+    /**
+     * 是否启用图片缓存
+     */
+    private Boolean enabled = true;
+    
+    /**
+     * 内存缓存上限（MB，按 Base64 长度计算）
+     */
+    private Integer memoryMaxMb = 128;
+    
+    /**
+     * 磁盘缓存目录
+     */
+    private String diskDir = "./cache/images";
+    
+    /**
+     * 磁盘缓存上限（MB），超出后按最近访问时间淘汰
+     */
+    private Integer diskMaxMb = 1024;
+    
+    /**
+     * 缓存新鲜期（秒），期内直接使用缓存，过期后用 ETag/Last-Modified 条件请求校验
+     */
+    private Long maxAgeSeconds = 60L;
+    
+    /**
+     * 图片下载超时时间（毫秒）
+     */
+    private Long downloadTimeout = 10000L;
+}
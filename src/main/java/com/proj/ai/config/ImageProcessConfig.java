@@ -0,0 +1,78 @@
+package com.proj.ai.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 图片预处理配置（缩放、重新编码、去除元数据）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ollama.image-process")
+public class ImageProcessConfig {
+
+    /**
+     * 是否启用图片预处理
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 默认限制（模型未单独配置时使用）
+     */
+    private Limits defaults = new Limits(1024, 1024L * 1024L, 0.85f);
+
+    /**
+     * 按模型配置的限制，key 为模型名称（如 qwen2.5vl:3b），未配置的字段沿用 defaults
+     */
+    private Map<String, Limits> models = new HashMap<>();
+
+    /**
+     * 预处理结果缓存容量（MB，按 Base64 长度计），内容相同且限制相同的图片直接复用上次的结果；0 表示不缓存
+     */
+    private Integer cacheMaxMb = 64;
+
+    /**
+     * 获取模型对应的限制
+     */
+    public Limits getLimits(String model) {
+        Limits limits = models.get(model);
+        if (limits == null) {
+            return defaults;
+        }
+        Limits merged = new Limits();
+        merged.setMaxSide(limits.getMaxSide() != null ? limits.getMaxSide() : defaults.getMaxSide());
+        merged.setMaxPixels(limits.getMaxPixels() != null ? limits.getMaxPixels() : defaults.getMaxPixels());
+        merged.setJpegQuality(limits.getJpegQuality() != null ? limits.getJpegQuality() : defaults.getJpegQuality());
+        return merged;
+    }
+
+    /**
+     * 图片尺寸和编码限制
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limits {
+
+        /**
+         * 最长边上限（像素）
+         */
+        private Integer maxSide;
+
+        /**
+         * 总像素数上限
+         */
+        private Long maxPixels;
+
+        /**
+         * JPEG 编码质量（0.0 ~ 1.0）
+         */
+        private Float jpegQuality;
+    }
+}
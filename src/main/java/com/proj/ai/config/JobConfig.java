@@ -0,0 +1,49 @@
+package com.proj.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 异步任务配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "jobs")
+public class JobConfig {
+    
+    /**
+     * 任务持久化目录，每个任务一个 JSON 文件，重启后未完成的任务重新排队
+     */
+    private String dir = "./data/jobs";
+    
+    /**
+     * 工作线程数（同时执行的任务数）
+     */
+    private Integer workers = 4;
+    
+    /**
+     * 排队任务数上限，超出后提交返回 429
+     */
+    private Integer maxPending = 10000;
+    
+    /**
+     * 单个任务最多执行次数（推理服务过载时延迟重试）
+     */
+    private Integer maxAttempts = 3;
+    
+    /**
+     * 已结束任务的保留时间（小时），过期后删除
+     */
+    private Integer retentionHours = 24;
+    
+    /**
+     * Webhook 回调超时（毫秒）
+     */
+    private Long webhookTimeout = 10000L;
+    
+    /**
+     * Webhook 回调失败后的重试次数
+     */
+    private Integer webhookRetries = 3;
+}
@@ -0,0 +1,56 @@
+package com.proj.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 模型生命周期配置（预热、keep_alive、被卸载后重新预热）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ollama.lifecycle")
+public class ModelLifecycleConfig {
+
+    /**
+     * 是否启用预热：启动时在所有节点加载模型，定时重新加载被卸载的模型，预热完成前就绪检查（readiness）为 DOWN
+     */
+    private Boolean warmupEnabled = true;
+
+    /**
+     * 需要预热的模型，为空时预热未指定模型时使用的文本模型和图片模型（见 ollama.routing）
+     */
+    private List<String> models = new ArrayList<>();
+
+    /**
+     * 默认 keep_alive（模型空闲多久后卸载），随每个请求发送，例如 30m、1h；负值（如 -1m）表示不卸载；为空时使用 Ollama 服务端配置
+     */
+    private String keepAlive = "30m";
+
+    /**
+     * 按模型配置的 keep_alive，key 为模型名称（如 qwen2.5vl:3b），未配置的模型使用 keepAlive
+     */
+    private Map<String, String> modelKeepAlive = new HashMap<>();
+
+    /**
+     * 检查模型是否被卸载的间隔（毫秒），根据节点健康检查获取的 /api/ps 判断
+     */
+    private Long rewarmInterval = 30000L;
+
+    /**
+     * 单次预热（加载模型）的超时时间（毫秒）
+     */
+    private Long warmupTimeout = 120000L;
+
+    /**
+     * 获取模型对应的 keep_alive
+     */
+    public String getKeepAlive(String model) {
+        return modelKeepAlive.getOrDefault(model, keepAlive);
+    }
+}
@@ -0,0 +1,49 @@
+package com.proj.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 模型路由配置
+ * 请求未指定模型时，纯文本请求使用 textModel，图片请求使用 visionModel；
+ * 请求 fallback=true 时使用对应的更大模型。模型为空时使用 spring.ai.ollama.chat.options.model
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ollama.routing")
+public class ModelRoutingConfig {
+
+    /**
+     * 纯文本请求默认使用的模型
+     */
+    private String textModel = "";
+
+    /**
+     * 图片请求默认使用的模型（需要支持图片输入）
+     */
+    private String visionModel = "";
+
+    /**
+     * 纯文本请求 fallback=true 时使用的更大模型
+     */
+    private String fallbackTextModel = "";
+
+    /**
+     * 图片请求 fallback=true 时使用的更大模型（需要支持图片输入）
+     */
+    private String fallbackVisionModel = "";
+
+    /**
+     * 允许请求通过 model 字段指定的其他模型（上面配置的模型和默认模型自动允许）
+     */
+    private List<String> allowedModels = new ArrayList<>();
+
+    /**
+     * allowedModels 中支持图片输入的模型（visionModel、fallbackVisionModel 和默认模型自动计入）
+     */
+    private List<String> visionModels = new ArrayList<>();
+}
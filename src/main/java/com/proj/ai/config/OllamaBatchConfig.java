@@ -0,0 +1,56 @@
+package com.proj.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 批量对话配置（批量文本对话、批量图片识别）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ollama.batch")
+public class OllamaBatchConfig {
+    
+    /**
+     * 单次请求最多包含的提示词数量
+     */
+    private Integer maxSize = 100;
+    
+    /**
+     * 默认并行数（请求未指定 concurrency 时使用）
+     */
+    private Integer concurrency = 4;
+    
+    /**
+     * 并行数上限，实际并行数还不超过 Ollama 当前的并发上限
+     */
+    private Integer maxConcurrency = 16;
+    
+    /**
+     * 批量图片识别配置，推理阶段的并行数沿用 concurrency/maxConcurrency
+     */
+    private Image image = new Image();
+    
+    /**
+     * 批量图片识别流水线配置
+     */
+    @Data
+    public static class Image {
+        
+        /**
+         * 单次请求最多包含的图片数量
+         */
+        private Integer maxSize = 1000;
+        
+        /**
+         * 下载阶段并行数
+         */
+        private Integer downloadConcurrency = 16;
+        
+        /**
+         * 预处理阶段并行数，0 表示 CPU 核数
+         */
+        private Integer processConcurrency = 0;
+    }
+}
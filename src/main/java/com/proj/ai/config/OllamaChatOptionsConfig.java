@@ -0,0 +1,21 @@
+package com.proj.ai.config;
+
+import org.springframework.ai.ollama.api.OllamaOptions;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Spring AI Ollama 对话参数配置
+ * 绑定 spring.ai.ollama.chat.options 下的全部参数，作为每个节点 ChatModel 的默认参数；
+ * 自动配置的 OllamaChatModel 只连接 base-url 单节点，已通过 spring.ai.model.chat=none 关闭
+ */
+@Configuration
+public class OllamaChatOptionsConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.ai.ollama.chat.options")
+    public OllamaOptions ollamaChatOptions() {
+        return OllamaOptions.builder().build();
+    }
+}
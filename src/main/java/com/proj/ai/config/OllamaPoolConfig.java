@@ -0,0 +1,70 @@
+package com.proj.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ollama 多节点配置
+ * 未配置节点时使用 spring.ai.ollama.base-url 单节点
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ollama.pool")
+public class OllamaPoolConfig {
+
+    /**
+     * Ollama 节点列表
+     */
+    private List<Node> nodes = new ArrayList<>();
+
+    /**
+     * 健康检查间隔（毫秒）
+     */
+    private Long healthCheckInterval = 10000L;
+
+    /**
+     * 健康检查超时时间（毫秒）
+     */
+    private Long healthCheckTimeout = 3000L;
+
+    /**
+     * 连续失败多少次后摘除节点
+     */
+    private Integer failureThreshold = 2;
+
+    /**
+     * 每个节点的最大 HTTP 连接数（流式请求每个占用一个连接）
+     */
+    private Integer maxConnections = 1024;
+
+    /**
+     * 连接数已满时等待连接的超时时间（毫秒）
+     */
+    private Long pendingAcquireTimeout = 60000L;
+
+    /**
+     * Ollama 节点
+     */
+    @Data
+    public static class Node {
+
+        /**
+         * 节点地址，例如 http://10.0.0.11:11434
+         */
+        private String url;
+
+        /**
+         * 权重，按 在途请求数/权重 选择负载最低的节点
+         */
+        private Integer weight = 1;
+
+        /**
+         * 节点上可用的模型，为空表示以 /api/tags 探测结果为准
+         */
+        private List<String> models = new ArrayList<>();
+    }
+}
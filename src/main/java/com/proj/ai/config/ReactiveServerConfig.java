@@ -0,0 +1,24 @@
+package com.proj.ai.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * WebFlux 模式服务器配置（spring.main.web-application-type=reactive，见 application-reactive.yml）
+ * classpath 上同时有 Tomcat 和 Netty 时 Spring Boot 默认用 Tomcat 承载 WebFlux，
+ * 这里显式使用 Netty，使请求从接入到调用 Ollama/Whisper 都在同一组事件循环上完成
+ */
+@Slf4j
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        log.info("WebFlux 模式，使用 Netty 服务器");
+        return new NettyReactiveWebServerFactory();
+    }
+}
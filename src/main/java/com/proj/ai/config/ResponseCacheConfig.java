@@ -0,0 +1,34 @@
+package com.proj.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文本对话响应缓存配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ollama.cache")
+public class ResponseCacheConfig {
+    
+    /**
+     * 是否启用响应缓存
+     */
+    private Boolean enabled = true;
+    
+    /**
+     * 缓存占用内存上限（MB），按提示词和响应文本大小估算
+     */
+    private Integer maxSizeMb = 64;
+    
+    /**
+     * 缓存有效期（秒）
+     */
+    private Long ttlSeconds = 3600L;
+    
+    /**
+     * 是否合并正在执行的相同请求（文本、图片及其流式接口）
+     */
+    private Boolean coalesce = true;
+}
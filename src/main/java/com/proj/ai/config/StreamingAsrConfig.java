@@ -0,0 +1,79 @@
+package com.proj.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 实时语音识别（WebSocket）配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "whisper.streaming")
+public class StreamingAsrConfig {
+    
+    /**
+     * 是否启用实时识别
+     */
+    private Boolean enabled = true;
+    
+    /**
+     * WebSocket 路径
+     */
+    private String path = "/ws/whisper/stream";
+    
+    /**
+     * 最大同时连接数，超出后以 1013（Try Again Later）关闭新连接
+     */
+    private Integer maxSessions = 100;
+    
+    /**
+     * 客户端未指定 sampleRate 时的采样率
+     */
+    private Integer defaultSampleRate = 16000;
+    
+    /**
+     * VAD 分析帧长（毫秒）
+     */
+    private Integer frameMs = 20;
+    
+    /**
+     * 语音判定的最低 RMS 能量（16 位采样）
+     */
+    private Double minSpeechRms = 400.0;
+    
+    /**
+     * 语音判定阈值相对背景噪声的倍数
+     */
+    private Double noiseMultiplier = 3.0;
+    
+    /**
+     * 连续语音达到该时长（毫秒）才视为开始说话，过滤短暂噪声
+     */
+    private Integer speechStartMs = 100;
+    
+    /**
+     * 连续静音达到该时长（毫秒）视为一句话结束
+     */
+    private Integer silenceMs = 600;
+    
+    /**
+     * 开始说话前保留的音频（毫秒），避免丢掉第一个字的开头
+     */
+    private Integer preRollMs = 300;
+    
+    /**
+     * 说话过程中每积累该时长（毫秒）的新音频发送一次中间识别
+     */
+    private Integer interimIntervalMs = 1000;
+    
+    /**
+     * 中间识别只发送最近的音频（秒）
+     */
+    private Integer interimWindowSeconds = 10;
+    
+    /**
+     * 单句最长时长（秒），超过后强制结束并输出最终结果
+     */
+    private Integer maxUtteranceSeconds = 30;
+}
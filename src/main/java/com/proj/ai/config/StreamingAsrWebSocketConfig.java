@@ -0,0 +1,69 @@
+package com.proj.ai.config;
+
+import com.proj.ai.asr.StreamingAsrReactiveHandler;
+import com.proj.ai.asr.StreamingAsrService;
+import com.proj.ai.asr.StreamingAsrServletHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+import java.util.Map;
+
+/**
+ * 实时语音识别 WebSocket 注册
+ * Servlet 模式使用 spring-websocket，WebFlux 模式使用 Reactor Netty 的 WebSocket，路径相同
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "whisper.streaming", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StreamingAsrWebSocketConfig {
+
+    /**
+     * 单条二进制消息上限（字节），足够容纳 48kHz 下 500ms 的 PCM
+     */
+    private static final int MAX_BINARY_MESSAGE_SIZE = 64 * 1024;
+
+    @Configuration
+    @EnableWebSocket
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class ServletWebSocketConfig implements WebSocketConfigurer {
+
+        @Autowired
+        private StreamingAsrConfig streamingAsrConfig;
+
+        @Autowired
+        private StreamingAsrService streamingAsrService;
+
+        @Override
+        public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+            registry.addHandler(new StreamingAsrServletHandler(streamingAsrService), streamingAsrConfig.getPath())
+                    .setAllowedOrigins("*");
+        }
+
+        @Bean
+        public ServletServerContainerFactoryBean webSocketContainer() {
+            ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+            container.setMaxBinaryMessageBufferSize(MAX_BINARY_MESSAGE_SIZE);
+            return container;
+        }
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    static class ReactiveWebSocketConfig {
+
+        @Bean
+        public HandlerMapping streamingAsrHandlerMapping(StreamingAsrConfig streamingAsrConfig,
+                                                         StreamingAsrService streamingAsrService) {
+            return new SimpleUrlHandlerMapping(Map.of(streamingAsrConfig.getPath(),
+                    new StreamingAsrReactiveHandler(streamingAsrService)), -1);
+        }
+    }
+}
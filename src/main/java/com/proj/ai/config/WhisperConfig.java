@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Whisper 服务配置
  */
@@ -23,15 +26,140 @@ public class WhisperConfig {
     private String inferencePath = "/inference";
     
     /**
-     * 请求超时时间（毫秒）
+     * 单次请求总超时时间（毫秒），包括等待连接、上传音频和等待识别结果
      */
     private Long timeout = 60000L;
     
+    /**
+     * 建立连接超时时间（毫秒）
+     */
+    private Long connectTimeout = 5000L;
+    
+    /**
+     * 读超时时间（毫秒）：请求发送完成后等待响应的最长时间
+     */
+    private Long readTimeout = 60000L;
+    
+    /**
+     * 连接池配置
+     */
+    private Pool pool = new Pool();
+    
+    /**
+     * Whisper 服务地址列表（长音频分段并行识别时使用，为空时只使用 url）
+     */
+    private List<String> servers = new ArrayList<>();
+    
+    /**
+     * 长音频分段识别配置
+     */
+    private LongAudio longAudio = new LongAudio();
+    
+    /**
+     * 音频归一化配置（发送前转换为 16kHz 单声道 16 位 PCM WAV）
+     */
+    private Normalize normalize = new Normalize();
+    
     /**
      * 获取完整的推理接口 URL
      */
     public String getInferenceUrl() {
         return url + inferencePath;
     }
+    
+    /**
+     * 获取指定服务地址的推理接口 URL
+     */
+    public String getInferenceUrl(String serverUrl) {
+        return serverUrl + inferencePath;
+    }
+    
+    /**
+     * 获取所有可用的 Whisper 服务地址
+     */
+    public List<String> getServerUrls() {
+        return servers.isEmpty() ? List.of(url) : servers;
+    }
+    
+    /**
+     * 连接池配置
+     */
+    @Data
+    public static class Pool {
+        
+        /**
+         * 每个 Whisper 服务的最大连接数
+         */
+        private Integer maxConnections = 32;
+        
+        /**
+         * 连接池满时等待连接的超时时间（毫秒）
+         */
+        private Long pendingAcquireTimeout = 10000L;
+        
+        /**
+         * 空闲连接保留时间（毫秒），超过后关闭
+         */
+        private Long maxIdleTime = 30000L;
+        
+        /**
+         * 连接最长存活时间（毫秒）
+         */
+        private Long maxLifeTime = 300000L;
+    }
+    
+    /**
+     * 长音频分段识别配置
+     */
+    @Data
+    public static class LongAudio {
+        
+        /**
+         * 是否启用长音频分段识别
+         */
+        private Boolean enabled = true;
+        
+        /**
+         * 超过该时长（秒）的音频按分段识别
+         */
+        private Integer thresholdSeconds = 60;
+        
+        /**
+         * 分段目标时长（秒）
+         */
+        private Integer segmentSeconds = 30;
+        
+        /**
+         * 相邻分段的重叠时长（秒），避免切点处的字词丢失
+         */
+        private Double overlapSeconds = 1.0;
+        
+        /**
+         * 在目标切点前多长范围内（秒）寻找静音位置
+         */
+        private Double silenceSearchSeconds = 5.0;
+        
+        /**
+         * 每个 Whisper 服务同时处理的分段数
+         */
+        private Integer concurrencyPerServer = 2;
+    }
+    
+    /**
+     * 音频归一化配置
+     */
+    @Data
+    public static class Normalize {
+        
+        /**
+         * 是否启用音频归一化
+         */
+        private Boolean enabled = true;
+        
+        /**
+         * 目标采样率（whisper.cpp 使用 16kHz）
+         */
+        private Integer sampleRate = 16000;
+    }
 }
 
@@ -0,0 +1,154 @@
+package com.proj.ai.controller;
+
+import com.proj.ai.audit.AuditLogger;
+import com.proj.ai.common.Result;
+import com.proj.ai.dto.ConversationChatRequest;
+import com.proj.ai.dto.ConversationCreateRequest;
+import com.proj.ai.dto.ConversationInfo;
+import com.proj.ai.dto.ConversationReply;
+import com.proj.ai.dto.ConversationStats;
+import com.proj.ai.dto.OllamaStreamEvent;
+import com.proj.ai.exception.OverloadException;
+import com.proj.ai.session.ConversationManager;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.NoSuchElementException;
+
+/**
+ * 多轮会话接口控制器
+ * Servlet 和 WebFlux 模式共用；服务端保存每个会话的 context，客户端每轮只发送本轮提示词
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/ollama/sessions")
+@Tag(name = "多轮会话接口", description = "服务端保存对话上下文，每轮复用 Ollama 的 context，避免重复发送和 prefill 历史对话")
+@CrossOrigin(origins = "*")
+public class ConversationController {
+
+    @Autowired
+    private ConversationManager conversationManager;
+
+    @Autowired
+    private AuditLogger auditLogger;
+
+    /**
+     * 创建会话接口
+     */
+    @PostMapping
+    @Operation(summary = "创建会话", description = "创建会话并返回会话 ID，会话内模型固定；空闲超过 ollama.session.idle-ttl-seconds 后过期")
+    public Mono<Result<ConversationInfo>> create(@RequestBody(required = false) ConversationCreateRequest request) {
+        ConversationCreateRequest createRequest = request != null ? request : new ConversationCreateRequest();
+        log.info("[创建会话] 入参 -> model: {}, fallback: {}", createRequest.getModel(), createRequest.getFallback());
+        return Mono.fromCallable(() -> Result.ok(conversationManager.create(createRequest)))
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    log.error("[创建会话] 失败 -> 错误: {}", e.getMessage());
+                    return Mono.just(Result.error("创建会话失败: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * 会话对话接口
+     */
+    @PostMapping("/{id}/chat")
+    @Operation(summary = "会话对话", description = "发送本轮提示词，历史对话由服务端保存的 context 提供")
+    public Mono<Result<ConversationReply>> chat(@Parameter(description = "会话 ID") @PathVariable String id,
+                                                @Valid @RequestBody ConversationChatRequest request) {
+        log.debug("[会话对话] 入参 -> id: {}, prompt: {}", id, request.getPrompt());
+        long startTime = System.currentTimeMillis();
+        return conversationManager.chat(id, request.getPrompt())
+                .map(reply -> {
+                    log.debug("[会话对话] 出参 -> id: {}, turn: {}, contextTokens: {}, promptEvalCount: {}",
+                            id, reply.getTurn(), reply.getContextTokens(), reply.getPromptEvalCount());
+                    auditLogger.success("ollama.session.chat", reply.getModelName(), request.getPrompt(),
+                            request.getPrompt().length(), reply.getResponse(), false, startTime);
+                    return Result.ok(reply);
+                })
+                .doOnError(e -> auditLogger.failure("ollama.session.chat", request.getPrompt(),
+                        request.getPrompt().length(), e.getMessage(), startTime))
+                .onErrorResume(NoSuchElementException.class,
+                        e -> Mono.just(Result.<ConversationReply>build(404, e.getMessage(), null)))
+                .onErrorResume(IllegalStateException.class,
+                        e -> Mono.just(Result.<ConversationReply>build(409, e.getMessage(), null)))
+                .onErrorResume(e -> !(e instanceof OverloadException), e -> {
+                    log.error("[会话对话] 失败 -> id: {}, 错误: {}", id, e.getMessage(), e);
+                    return Mono.just(Result.error("会话对话失败: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * 会话对话接口（流式）
+     */
+    @PostMapping(value = "/{id}/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "会话对话（流式）", description = "以 SSE 逐段返回生成内容，事件格式与 /api/ollama/chat/stream 相同")
+    public Flux<ServerSentEvent<OllamaStreamEvent>> chatStream(@Parameter(description = "会话 ID") @PathVariable String id,
+                                                               @Valid @RequestBody ConversationChatRequest request) {
+        log.debug("[会话对话-流式] 入参 -> id: {}, prompt: {}", id, request.getPrompt());
+        long startTime = System.currentTimeMillis();
+        String prompt = request.getPrompt();
+        return conversationManager.chatStream(id, prompt)
+                .doOnNext(event -> {
+                    if (OllamaStreamEvent.EVENT_DONE.equals(event.getEvent())) {
+                        log.debug("[会话对话-流式] 出参 -> id: {}, responseTime: {}ms, promptEvalCount: {}",
+                                id, event.getResponseTime(), event.getPromptEvalCount());
+                        auditLogger.success("ollama.session.chat.stream", event.getModelName(), prompt,
+                                prompt.length(), null, null, startTime);
+                    }
+                })
+                .doOnError(e -> auditLogger.failure("ollama.session.chat.stream", prompt, prompt.length(),
+                        e.getMessage(), startTime))
+                .onErrorResume(e -> !(e instanceof OverloadException), e -> {
+                    log.error("[会话对话-流式] 失败 -> id: {}, 错误: {}", id, e.getMessage());
+                    return Flux.just(OllamaStreamEvent.error(e.getMessage()));
+                })
+                .map(event -> ServerSentEvent.<OllamaStreamEvent>builder()
+                        .event(event.getEvent())
+                        .data(event)
+                        .build());
+    }
+
+    /**
+     * 查询会话接口
+     */
+    @GetMapping("/{id}")
+    @Operation(summary = "查询会话", description = "查询会话的模型、所在节点、轮数、context token 数和过期时间")
+    public Mono<Result<ConversationInfo>> get(@Parameter(description = "会话 ID") @PathVariable String id) {
+        return Mono.fromSupplier(() -> {
+            ConversationInfo info = conversationManager.get(id);
+            return info != null ? Result.ok(info)
+                    : Result.<ConversationInfo>build(404, "会话不存在或已过期: " + id, null);
+        });
+    }
+
+    /**
+     * 删除会话接口
+     */
+    @DeleteMapping("/{id}")
+    @Operation(summary = "删除会话", description = "对话结束后删除会话，释放服务端保存的 context")
+    public Mono<Result<ConversationInfo>> delete(@Parameter(description = "会话 ID") @PathVariable String id) {
+        log.info("[删除会话] 入参 -> id: {}", id);
+        return Mono.fromSupplier(() -> {
+            ConversationInfo info = conversationManager.delete(id);
+            return info != null ? Result.ok(info)
+                    : Result.<ConversationInfo>build(404, "会话不存在或已过期: " + id, null);
+        });
+    }
+
+    /**
+     * 会话统计接口
+     */
+    @GetMapping("/stats")
+    @Operation(summary = "会话统计", description = "查看当前会话数、估算内存占用以及创建/过期/淘汰/对话轮数")
+    public Mono<Result<ConversationStats>> stats() {
+        return Mono.fromSupplier(() -> Result.ok(conversationManager.stats()));
+    }
+}
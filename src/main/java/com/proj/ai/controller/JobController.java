@@ -0,0 +1,83 @@
+package com.proj.ai.controller;
+
+import com.proj.ai.common.Result;
+import com.proj.ai.dto.JobInfo;
+import com.proj.ai.dto.JobStats;
+import com.proj.ai.dto.JobSubmitRequest;
+import com.proj.ai.job.JobManager;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 异步任务接口控制器
+ * Servlet 和 WebFlux 模式共用；提交需要写任务文件，在 boundedElastic 线程执行，不占用 Netty IO 线程
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/jobs")
+@Tag(name = "异步任务接口", description = "提交长时间的语音识别/生成任务，轮询或回调获取结果")
+@CrossOrigin(origins = "*")
+public class JobController {
+
+    @Autowired
+    private JobManager jobManager;
+
+    /**
+     * 提交任务接口
+     */
+    @PostMapping
+    @Operation(summary = "提交任务", description = "提交 Whisper 或 Ollama 任务，立即返回任务 ID，结果通过查询接口或 webhookUrl 回调获取")
+    public Mono<Result<JobInfo>> submit(@Valid @RequestBody JobSubmitRequest request) {
+        log.info("[提交任务] 入参 -> type: {}, webhookUrl: {}", request.getType(), request.getWebhookUrl());
+        return Mono.fromCallable(() -> Result.ok(jobManager.submit(request)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    log.error("[提交任务] 失败 -> 错误: {}", e.getMessage());
+                    return Mono.just(Result.error("提交任务失败: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * 查询任务接口
+     */
+    @GetMapping("/{id}")
+    @Operation(summary = "查询任务", description = "查询任务状态，结束后返回识别/生成结果")
+    public Mono<Result<JobInfo>> get(@Parameter(description = "任务 ID") @PathVariable String id) {
+        return Mono.fromSupplier(() -> {
+            JobInfo job = jobManager.get(id);
+            return job != null ? Result.ok(job) : Result.<JobInfo>build(404, "任务不存在: " + id, null);
+        });
+    }
+
+    /**
+     * 取消任务接口
+     */
+    @DeleteMapping("/{id}")
+    @Operation(summary = "取消任务", description = "取消排队中的任务，执行中或已结束的任务不能取消")
+    public Mono<Result<JobInfo>> cancel(@Parameter(description = "任务 ID") @PathVariable String id) {
+        log.info("[取消任务] 入参 -> id: {}", id);
+        return Mono.fromCallable(() -> {
+                    JobInfo job = jobManager.cancel(id);
+                    return job != null ? Result.ok(job) : Result.<JobInfo>build(404, "任务不存在: " + id, null);
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(IllegalStateException.class,
+                        e -> Mono.just(Result.error("取消任务失败: " + e.getMessage())));
+    }
+
+    /**
+     * 任务统计接口
+     */
+    @GetMapping("/stats")
+    @Operation(summary = "任务统计", description = "查看排队/执行中任务数、保留期内各状态任务数以及平均排队和执行时间")
+    public Mono<Result<JobStats>> stats() {
+        return Mono.fromSupplier(() -> Result.ok(jobManager.stats()));
+    }
+}
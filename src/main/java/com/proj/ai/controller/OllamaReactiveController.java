@@ -0,0 +1,320 @@
+package com.proj.ai.controller;
+
+import com.proj.ai.audit.AuditLogger;
+import com.proj.ai.common.Result;
+import com.proj.ai.dto.ConcurrencyLimitStats;
+import com.proj.ai.dto.ImageProcessStats;
+import com.proj.ai.dto.OllamaBatchChatRequest;
+import com.proj.ai.dto.OllamaBatchItem;
+import com.proj.ai.dto.OllamaBatchResponse;
+import com.proj.ai.dto.OllamaChatRequest;
+import com.proj.ai.dto.OllamaChatWithImageRequest;
+import com.proj.ai.dto.OllamaImageBatchEvent;
+import com.proj.ai.dto.OllamaImageBatchRequest;
+import com.proj.ai.dto.OllamaModelStats;
+import com.proj.ai.dto.OllamaNodeStatus;
+import com.proj.ai.dto.OllamaResponse;
+import com.proj.ai.dto.OllamaStreamEvent;
+import com.proj.ai.dto.ResponseCacheStats;
+import com.proj.ai.exception.OverloadException;
+import com.proj.ai.service.OllamaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Ollama 接口控制器（WebFlux 模式）
+ * 与 {@link OllamaController} 路径和返回格式相同，所有接口返回 Mono/Flux，运行在 Netty 上，不阻塞 IO 线程
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/ollama")
+@Tag(name = "Ollama 接口", description = "Ollama 大模型调用接口")
+@CrossOrigin(origins = "*")
+public class OllamaReactiveController {
+
+    @Autowired
+    private OllamaService ollamaService;
+
+    @Autowired
+    private AuditLogger auditLogger;
+
+    /**
+     * 文本对话接口
+     */
+    @PostMapping("/chat")
+    @Operation(summary = "文本对话", description = "发送纯文本请求到 Ollama")
+    public Mono<Result<OllamaResponse>> chat(@Valid @RequestBody OllamaChatRequest request) {
+        log.debug("[文本对话] 入参 -> prompt: {}", request.getPrompt());
+        long startTime = System.currentTimeMillis();
+        return ollamaService.chatReactive(request)
+                .map(response -> {
+                    log.debug("[文本对话] 出参 -> model: {}, cached: {}, response: {}",
+                            response.getModelName(), response.getCached(), response.getResponse());
+                    auditLogger.success("ollama.chat", response.getModelName(), request.getPrompt(),
+                            request.getPrompt().length(), response.getResponse(), response.getCached(), startTime);
+                    return Result.ok(response);
+                })
+                .doOnError(e -> auditLogger.failure("ollama.chat", request.getPrompt(), request.getPrompt().length(),
+                        e.getMessage(), startTime))
+                .onErrorResume(e -> !(e instanceof OverloadException), e -> {
+                    log.error("[文本对话] 失败 ->, 错误: {}", e.getMessage(), e);
+                    return Mono.just(Result.error("文本对话失败: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * 图片+文本对话接口
+     */
+    @PostMapping("/chat-with-image")
+    @Operation(summary = "图片+文本对话", description = "发送图片+文本请求到 Ollama（用于场景识别）")
+    public Mono<Result<OllamaResponse>> chatWithImage(@Valid @RequestBody OllamaChatWithImageRequest request) {
+        log.debug("[图片识别] 入参 -> prompt: {}, image: {}", request.getPrompt(), imageInfo(request));
+        long startTime = System.currentTimeMillis();
+        return ollamaService.chatWithImageReactive(request)
+                .map(response -> {
+                    log.debug("[图片识别] 出参 -> model: {},  response: {}",
+                            response.getModelName(), response.getResponse());
+                    auditLogger.success("ollama.chat-with-image", response.getModelName(), request.getPrompt(),
+                            request.getPrompt().length(), response.getResponse(), response.getCached(), startTime);
+                    return Result.ok(response);
+                })
+                .doOnError(e -> auditLogger.failure("ollama.chat-with-image", request.getPrompt(),
+                        request.getPrompt().length(), e.getMessage(), startTime))
+                .onErrorResume(e -> !(e instanceof OverloadException), e -> {
+                    log.error("[图片识别] 失败 -> 错误: {}", e.getMessage(), e);
+                    return Mono.just(Result.error("图片+文本对话失败: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * 图片+文本对话接口（文件上传）
+     */
+    @PostMapping(value = "/chat-with-image/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "图片+文本对话（文件上传）", description = "上传图片文件，发送时流式编码为 Base64，适合大图片")
+    public Mono<Result<OllamaResponse>> chatWithImageUpload(
+            @Parameter(description = "图片文件", required = true)
+            @RequestPart("file") FilePart file,
+
+            @Parameter(description = "提示词", required = true, example = "描述这张图片")
+            @RequestPart("prompt") String prompt,
+
+            @Parameter(description = "模型名称（可选，需支持图片输入）", example = "qwen2.5vl:3b")
+            @RequestPart(value = "model", required = false) String model) {
+        log.debug("[图片识别-文件] 入参 -> prompt: {}, fileName: {}", prompt, file.filename());
+        long startTime = System.currentTimeMillis();
+        return ollamaService.chatWithImageUploadReactive(prompt, model, file)
+                .map(response -> {
+                    log.debug("[图片识别-文件] 出参 -> model: {},  response: {}",
+                            response.getModelName(), response.getResponse());
+                    auditLogger.success("ollama.chat-with-image.upload", response.getModelName(), prompt,
+                            prompt.length(), response.getResponse(), response.getCached(), startTime);
+                    return Result.ok(response);
+                })
+                .doOnError(e -> auditLogger.failure("ollama.chat-with-image.upload", prompt, prompt.length(),
+                        e.getMessage(), startTime))
+                .onErrorResume(e -> !(e instanceof OverloadException), e -> {
+                    log.error("[图片识别-文件] 失败 -> 错误: {}", e.getMessage(), e);
+                    return Mono.just(Result.error("图片+文本对话失败: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * 文本对话接口（SSE 流式）
+     * Netty 按连接的可写状态请求数据，客户端读得慢时上游 Ollama 连接也随之暂停读取
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "文本对话（流式）", description = "以 SSE 逐个返回 token，最后返回携带耗时统计的 done 事件")
+    public Flux<ServerSentEvent<OllamaStreamEvent>> chatStream(@Valid @RequestBody OllamaChatRequest request) {
+        log.debug("[文本对话-流式] 入参 -> prompt: {}", request.getPrompt());
+        return toServerSentEvents(ollamaService.chatStream(request), "[文本对话-流式]",
+                "ollama.chat.stream", request.getPrompt());
+    }
+
+    /**
+     * 图片+文本对话接口（SSE 流式）
+     */
+    @PostMapping(value = "/chat-with-image/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "图片+文本对话（流式）", description = "以 SSE 逐个返回 token，最后返回携带耗时统计的 done 事件")
+    public Flux<ServerSentEvent<OllamaStreamEvent>> chatWithImageStream(
+            @Valid @RequestBody OllamaChatWithImageRequest request) {
+        log.debug("[图片识别-流式] 入参 -> prompt: {}, image: {}", request.getPrompt(), imageInfo(request));
+        return toServerSentEvents(ollamaService.chatWithImageStream(request), "[图片识别-流式]",
+                "ollama.chat-with-image.stream", request.getPrompt());
+    }
+
+    /**
+     * 批量文本对话接口
+     * 全部提示词完成后按请求顺序返回，单条失败记录在对应结果中
+     */
+    @PostMapping("/chat/batch")
+    @Operation(summary = "批量文本对话", description = "一次提交多个提示词，有限并行执行，按请求顺序返回每条结果及成功/失败状态")
+    public Mono<Result<OllamaBatchResponse>> chatBatch(@Valid @RequestBody OllamaBatchChatRequest request) {
+        log.info("[批量对话] 入参 -> 数量: {}, concurrency: {}", request.getPrompts().size(), request.getConcurrency());
+        return ollamaService.chatBatch(request)
+                .map(response -> {
+                    log.info("[批量对话] 出参 -> total: {}, success: {}, failure: {}, responseTime: {}ms",
+                            response.getTotal(), response.getSuccessCount(), response.getFailureCount(),
+                            response.getResponseTime());
+                    return Result.ok(response);
+                })
+                .onErrorResume(e -> {
+                    log.error("[批量对话] 失败 -> 错误: {}", e.getMessage(), e);
+                    return Mono.just(Result.error("批量对话失败: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * 批量文本对话接口（NDJSON 流式）
+     * 每完成一个提示词输出一行结果（按完成顺序，index 为请求中的下标）；参数错误时只输出一行失败结果
+     */
+    @PostMapping(value = "/chat/batch/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "批量文本对话（流式）", description = "以 NDJSON 逐行返回每个提示词的结果，先完成的先返回")
+    public Flux<OllamaBatchItem> chatBatchStream(@Valid @RequestBody OllamaBatchChatRequest request) {
+        log.info("[批量对话-流式] 入参 -> 数量: {}, concurrency: {}", request.getPrompts().size(), request.getConcurrency());
+        return ollamaService.chatBatchStream(request)
+                .onErrorResume(e -> !(e instanceof OverloadException), e -> {
+                    log.error("[批量对话-流式] 失败 -> 错误: {}", e.getMessage(), e);
+                    return Flux.just(OllamaBatchItem.builder()
+                            .success(false)
+                            .errorMessage("批量对话失败: " + e.getMessage())
+                            .build());
+                });
+    }
+
+    /**
+     * 批量图片识别接口（SSE 流式）
+     * 下载、预处理、推理流水线执行，每完成一张图片推送一个 item 事件，全部完成后推送携带吞吐量的 done 事件
+     */
+    @PostMapping(value = "/chat-with-image/batch/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "批量图片识别（流式）", description = "提交图片 URL 列表，以 SSE 逐张返回识别结果，最后返回吞吐量统计")
+    public Flux<ServerSentEvent<OllamaImageBatchEvent>> chatWithImageBatchStream(
+            @Valid @RequestBody OllamaImageBatchRequest request) {
+        log.info("[批量图片识别] 入参 -> promptLength: {}, 数量: {}, concurrency: {}",
+                request.getPrompt().length(), request.getImageUrls().size(), request.getConcurrency());
+        log.debug("[批量图片识别] 入参 -> prompt: {}", request.getPrompt());
+        return ollamaService.chatWithImageBatchStream(request)
+                .doOnNext(event -> {
+                    if (OllamaImageBatchEvent.EVENT_DONE.equals(event.getEvent())) {
+                        log.info("[批量图片识别] 出参 -> total: {}, success: {}, responseTime: {}ms, imagesPerSecond: {}",
+                                event.getTotal(), event.getSuccessCount(), event.getResponseTime(),
+                                event.getImagesPerSecond());
+                    }
+                })
+                .onErrorResume(e -> !(e instanceof OverloadException), e -> {
+                    log.error("[批量图片识别] 失败 -> 错误: {}", e.getMessage(), e);
+                    return Flux.just(OllamaImageBatchEvent.error("批量图片识别失败: " + e.getMessage()));
+                })
+                .map(event -> ServerSentEvent.<OllamaImageBatchEvent>builder()
+                        .event(event.getEvent())
+                        .data(event)
+                        .build());
+    }
+
+    /**
+     * 图片信息简化显示
+     */
+    private String imageInfo(OllamaChatWithImageRequest request) {
+        if (request.getImage() != null && !request.getImage().isEmpty()) {
+            return "Base64(长度:" + request.getImage().length() + ")";
+        } else if (request.getImageUrl() != null && !request.getImageUrl().isEmpty()) {
+            return "URL:" + request.getImageUrl();
+        }
+        return "";
+    }
+
+    /**
+     * 将流式事件包装为 SSE，异常时以 error 事件结束流；结束或失败时写入审计日志
+     * 过载时还未发出任何事件，直接返回 429/503 和 Retry-After
+     */
+    private Flux<ServerSentEvent<OllamaStreamEvent>> toServerSentEvents(Flux<OllamaStreamEvent> events, String tag,
+                                                                       String endpoint, String prompt) {
+        long startTime = System.currentTimeMillis();
+        return events
+                .doOnNext(event -> {
+                    if (OllamaStreamEvent.EVENT_DONE.equals(event.getEvent())) {
+                        log.info("{} 出参 -> model: {}, firstTokenTime: {}ms, responseTime: {}ms, evalCount: {}",
+                                tag, event.getModelName(), event.getFirstTokenTime(),
+                                event.getResponseTime(), event.getEvalCount());
+                        auditLogger.success(endpoint, event.getModelName(), prompt, prompt.length(), null,
+                                null, startTime);
+                    }
+                })
+                .doOnError(e -> auditLogger.failure(endpoint, prompt, prompt.length(), e.getMessage(), startTime))
+                .onErrorResume(e -> !(e instanceof OverloadException), e -> {
+                    log.error("{} 失败 -> 错误: {}", tag, e.getMessage(), e);
+                    return Flux.just(OllamaStreamEvent.error(e.getMessage()));
+                })
+                .map(event -> ServerSentEvent.<OllamaStreamEvent>builder()
+                        .event(event.getEvent())
+                        .data(event)
+                        .build());
+    }
+
+    /**
+     * 健康检查接口
+     */
+    @GetMapping("/health")
+    @Operation(summary = "健康检查", description = "检查服务是否正常运行")
+    public Mono<Result<String>> health() {
+        return Mono.just(Result.ok("AI Cloud 服务运行正常"));
+    }
+
+    /**
+     * Ollama 节点状态接口
+     */
+    @GetMapping("/nodes")
+    @Operation(summary = "节点状态", description = "查看 Ollama 节点池中各节点的健康状态、在途请求数和模型")
+    public Mono<Result<List<OllamaNodeStatus>>> nodes() {
+        return Mono.fromSupplier(() -> Result.ok(ollamaService.getNodeStatus()));
+    }
+
+    /**
+     * 响应缓存统计接口
+     */
+    @GetMapping("/cache/stats")
+    @Operation(summary = "缓存统计", description = "查看文本对话响应缓存的命中、未命中和淘汰次数")
+    public Mono<Result<ResponseCacheStats>> cacheStats() {
+        return Mono.fromSupplier(() -> Result.ok(ollamaService.getCacheStats()));
+    }
+
+    /**
+     * 图片预处理统计接口
+     */
+    @GetMapping("/image-process/stats")
+    @Operation(summary = "图片预处理统计", description = "查看图片缩放/重新编码的次数、节省的字节数和平均耗时")
+    public Mono<Result<ImageProcessStats>> imageProcessStats() {
+        return Mono.fromSupplier(() -> Result.ok(ollamaService.getImageProcessStats()));
+    }
+
+    /**
+     * 并发限制统计接口
+     */
+    @GetMapping("/limit/stats")
+    @Operation(summary = "并发限制统计", description = "查看 Ollama 当前并发上限、在途/排队请求数以及拒绝次数")
+    public Mono<Result<ConcurrencyLimitStats>> limitStats() {
+        return Mono.fromSupplier(() -> Result.ok(ollamaService.getLimitStats()));
+    }
+
+    /**
+     * 可用模型及调用统计接口
+     */
+    @GetMapping("/models")
+    @Operation(summary = "模型统计", description = "查看可通过 model 字段指定的模型，以及各模型的调用数、耗时、首 token 耗时和生成速度")
+    public Mono<Result<List<OllamaModelStats>>> models() {
+        return Mono.fromSupplier(() -> Result.ok(ollamaService.getModelStats()));
+    }
+}
@@ -1,8 +1,15 @@
 package com.proj.ai.controller;
 
+import com.proj.ai.asr.StreamingAsrService;
+import com.proj.ai.audit.AuditLogger;
 import com.proj.ai.common.Result;
+import com.proj.ai.dto.AudioNormalizeStats;
+import com.proj.ai.dto.ConcurrencyLimitStats;
+import com.proj.ai.dto.StreamingAsrStats;
+import com.proj.ai.dto.WhisperPoolStats;
 import com.proj.ai.dto.WhisperRequest;
 import com.proj.ai.dto.WhisperResponse;
+import com.proj.ai.exception.OverloadException;
 import com.proj.ai.service.WhisperService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,6 +17,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -18,6 +26,7 @@ import org.springframework.web.multipart.MultipartFile;
  */
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/whisper")
 @Tag(name = "Whisper 语音识别接口", description = "Whisper 语音转文字接口")
 @CrossOrigin(origins = "*")
@@ -26,12 +35,20 @@ public class WhisperController {
     @Autowired
     private WhisperService whisperService;
     
+    @Autowired
+    private StreamingAsrService streamingAsrService;
+    
+    @Autowired
+    private AuditLogger auditLogger;
+    
     /**
      * 语音识别接口（Base64）
      */
     @PostMapping("/recognize")
     @Operation(summary = "语音识别（Base64）", description = "通过 Base64 编码的音频进行语音识别")
     public Result<WhisperResponse> recognize(@Valid @RequestBody WhisperRequest request) {
+        long startTime = System.currentTimeMillis();
+        long audioSize = request.getAudioBase64() != null ? request.getAudioBase64().length() * 3L / 4 : 0;
         try {
             // 打印入参（Base64 简化显示）
             String audioInfo = request.getAudioBase64() != null 
@@ -42,18 +59,26 @@ public class WhisperController {
             // 调用服务
             WhisperResponse response = whisperService.recognize(request);
             
-            // 打印出参
+            // 打印出参（识别文本只在 debug 级别输出，审计日志记录哈希）
             if (response.getSuccess()) {
-                log.info("[语音识别] 出参 -> text: {}, processingTime: {}ms", 
+                log.debug("[语音识别] 出参 -> text: {}, processingTime: {}ms", 
                     response.getText(), response.getProcessingTime());
+                auditLogger.success("whisper.recognize", "whisper", null, audioSize, response.getText(),
+                    null, startTime);
                 return Result.ok(response);
             } else {
                 log.error("[语音识别] 失败 -> error: {}", response.getErrorMessage());
+                auditLogger.failure("whisper.recognize", null, audioSize, response.getErrorMessage(), startTime);
                 return Result.error(response.getErrorMessage());
             }
             
+        } catch (OverloadException e) {
+            // 由全局异常处理器返回 429/503 和 Retry-After
+            auditLogger.failure("whisper.recognize", null, audioSize, e.getMessage(), startTime);
+            throw e;
         } catch (Exception e) {
             log.error("[语音识别] 异常 -> {}", e.getMessage(), e);
+            auditLogger.failure("whisper.recognize", null, audioSize, e.getMessage(), startTime);
             return Result.error("语音识别失败: " + e.getMessage());
         }
     }
@@ -70,6 +95,7 @@ public class WhisperController {
             @Parameter(description = "语言代码（zh=中文, en=英文, auto=自动检测）", example = "zh")
             @RequestParam(value = "language", required = false, defaultValue = "zh") String language) {
         
+        long startTime = System.currentTimeMillis();
         try {
             // 打印入参
             log.info("[语音识别-文件] 入参 -> fileName: {}, fileSize: {} bytes, language: {}", 
@@ -80,20 +106,65 @@ public class WhisperController {
             
             // 打印出参
             if (response.getSuccess()) {
-                log.info("[语音识别-文件] 出参 -> text: {}, processingTime: {}ms", 
+                log.debug("[语音识别-文件] 出参 -> text: {}, processingTime: {}ms", 
                     response.getText(), response.getProcessingTime());
+                auditLogger.success("whisper.recognize-file", "whisper", null, file.getSize(), response.getText(),
+                    null, startTime);
                 return Result.ok(response);
             } else {
                 log.error("[语音识别-文件] 失败 -> error: {}", response.getErrorMessage());
+                auditLogger.failure("whisper.recognize-file", null, file.getSize(), response.getErrorMessage(),
+                    startTime);
                 return Result.error(response.getErrorMessage());
             }
             
+        } catch (OverloadException e) {
+            // 由全局异常处理器返回 429/503 和 Retry-After
+            auditLogger.failure("whisper.recognize-file", null, file.getSize(), e.getMessage(), startTime);
+            throw e;
         } catch (Exception e) {
             log.error("[语音识别-文件] 异常 -> {}", e.getMessage(), e);
+            auditLogger.failure("whisper.recognize-file", null, file.getSize(), e.getMessage(), startTime);
             return Result.error("语音识别失败: " + e.getMessage());
         }
     }
     
+    /**
+     * 连接池统计接口
+     */
+    @GetMapping("/pool/stats")
+    @Operation(summary = "连接池统计", description = "查看 Whisper 连接池的连接数、等待数以及请求/失败/超时次数")
+    public Result<WhisperPoolStats> poolStats() {
+        return Result.ok(whisperService.getPoolStats());
+    }
+    
+    /**
+     * 并发限制统计接口
+     */
+    @GetMapping("/limit/stats")
+    @Operation(summary = "并发限制统计", description = "查看 Whisper 当前并发上限、在途/排队请求数以及拒绝次数")
+    public Result<ConcurrencyLimitStats> limitStats() {
+        return Result.ok(whisperService.getLimitStats());
+    }
+    
+    /**
+     * 实时识别统计接口
+     */
+    @GetMapping("/stream/stats")
+    @Operation(summary = "实时识别统计", description = "查看 WebSocket 实时识别的连接数、句子数以及说话结束到最终结果的耗时")
+    public Result<StreamingAsrStats> streamStats() {
+        return Result.ok(streamingAsrService.stats());
+    }
+    
+    /**
+     * 音频归一化统计接口
+     */
+    @GetMapping("/normalize/stats")
+    @Operation(summary = "音频归一化统计", description = "查看转换为 16kHz 单声道 WAV 的音频数、节省的上传字节数以及平均转换耗时")
+    public Result<AudioNormalizeStats> normalizeStats() {
+        return Result.ok(whisperService.getNormalizeStats());
+    }
+    
     /**
      * 健康检查接口
      */
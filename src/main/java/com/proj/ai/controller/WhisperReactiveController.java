@@ -0,0 +1,143 @@
+package com.proj.ai.controller;
+
+import com.proj.ai.asr.StreamingAsrService;
+import com.proj.ai.audit.AuditLogger;
+import com.proj.ai.common.Result;
+import com.proj.ai.dto.AudioNormalizeStats;
+import com.proj.ai.dto.ConcurrencyLimitStats;
+import com.proj.ai.dto.StreamingAsrStats;
+import com.proj.ai.dto.WhisperPoolStats;
+import com.proj.ai.dto.WhisperRequest;
+import com.proj.ai.dto.WhisperResponse;
+import com.proj.ai.service.WhisperService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Whisper 语音识别接口控制器（WebFlux 模式）
+ * 与 {@link WhisperController} 路径和返回格式相同，上传的音频以 DataBuffer 流转发给 Whisper 服务
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/whisper")
+@Tag(name = "Whisper 语音识别接口", description = "Whisper 语音转文字接口")
+@CrossOrigin(origins = "*")
+public class WhisperReactiveController {
+
+    @Autowired
+    private WhisperService whisperService;
+
+    @Autowired
+    private StreamingAsrService streamingAsrService;
+
+    @Autowired
+    private AuditLogger auditLogger;
+
+    /**
+     * 语音识别接口（Base64）
+     */
+    @PostMapping("/recognize")
+    @Operation(summary = "语音识别（Base64）", description = "通过 Base64 编码的音频进行语音识别")
+    public Mono<Result<WhisperResponse>> recognize(@Valid @RequestBody WhisperRequest request) {
+        String audioInfo = request.getAudioBase64() != null
+            ? "Base64(长度:" + request.getAudioBase64().length() + ")"
+            : "null";
+        log.info("[语音识别] 入参 -> audio: {}, language: {}", audioInfo, request.getLanguage());
+        long startTime = System.currentTimeMillis();
+        long audioSize = request.getAudioBase64() != null ? request.getAudioBase64().length() * 3L / 4 : 0;
+        return whisperService.recognizeReactive(request)
+                .doOnError(e -> auditLogger.failure("whisper.recognize", null, audioSize, e.getMessage(), startTime))
+                .map(response -> toResult(response, "[语音识别]", "whisper.recognize", audioSize, startTime));
+    }
+
+    /**
+     * 语音识别接口（文件上传）
+     */
+    @PostMapping(value = "/recognize-file", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "语音识别（文件上传）", description = "通过上传音频文件进行语音识别（支持 mp3、wav、m4a 等格式）")
+    public Mono<Result<WhisperResponse>> recognizeFile(
+            @Parameter(description = "音频文件", required = true)
+            @RequestPart("file") FilePart file,
+
+            @Parameter(description = "语言代码（zh=中文, en=英文, auto=自动检测）", example = "zh")
+            @RequestPart(value = "language", required = false) String language) {
+        log.info("[语音识别-文件] 入参 -> fileName: {}, language: {}", file.filename(), language);
+        long startTime = System.currentTimeMillis();
+        long fileSize = file.headers().getContentLength();
+        return whisperService.recognizeFileReactive(file, language)
+                .doOnError(e -> auditLogger.failure("whisper.recognize-file", null, fileSize, e.getMessage(),
+                        startTime))
+                .map(response -> toResult(response, "[语音识别-文件]", "whisper.recognize-file", fileSize, startTime));
+    }
+
+    /**
+     * 识别结果转换为统一返回结果，并写入审计日志（识别文本只在 debug 级别输出）
+     */
+    private Result<WhisperResponse> toResult(WhisperResponse response, String tag, String endpoint, long audioSize,
+                                             long startTime) {
+        if (response.getSuccess()) {
+            log.debug("{} 出参 -> text: {}, processingTime: {}ms",
+                tag, response.getText(), response.getProcessingTime());
+            auditLogger.success(endpoint, "whisper", null, audioSize, response.getText(), null, startTime);
+            return Result.ok(response);
+        }
+        log.error("{} 失败 -> error: {}", tag, response.getErrorMessage());
+        auditLogger.failure(endpoint, null, audioSize, response.getErrorMessage(), startTime);
+        return Result.error(response.getErrorMessage());
+    }
+
+    /**
+     * 连接池统计接口
+     */
+    @GetMapping("/pool/stats")
+    @Operation(summary = "连接池统计", description = "查看 Whisper 连接池的连接数、等待数以及请求/失败/超时次数")
+    public Mono<Result<WhisperPoolStats>> poolStats() {
+        return Mono.fromSupplier(() -> Result.ok(whisperService.getPoolStats()));
+    }
+
+    /**
+     * 并发限制统计接口
+     */
+    @GetMapping("/limit/stats")
+    @Operation(summary = "并发限制统计", description = "查看 Whisper 当前并发上限、在途/排队请求数以及拒绝次数")
+    public Mono<Result<ConcurrencyLimitStats>> limitStats() {
+        return Mono.fromSupplier(() -> Result.ok(whisperService.getLimitStats()));
+    }
+
+    /**
+     * 实时识别统计接口
+     */
+    @GetMapping("/stream/stats")
+    @Operation(summary = "实时识别统计", description = "查看 WebSocket 实时识别的连接数、句子数以及说话结束到最终结果的耗时")
+    public Mono<Result<StreamingAsrStats>> streamStats() {
+        return Mono.fromSupplier(() -> Result.ok(streamingAsrService.stats()));
+    }
+
+    /**
+     * 音频归一化统计接口
+     */
+    @GetMapping("/normalize/stats")
+    @Operation(summary = "音频归一化统计", description = "查看转换为 16kHz 单声道 WAV 的音频数、节省的上传字节数以及平均转换耗时")
+    public Mono<Result<AudioNormalizeStats>> normalizeStats() {
+        return Mono.fromSupplier(() -> Result.ok(whisperService.getNormalizeStats()));
+    }
+
+    /**
+     * 健康检查接口
+     */
+    @GetMapping("/health")
+    @Operation(summary = "健康检查", description = "检查 Whisper 服务是否正常")
+    public Mono<Result<String>> health() {
+        return Mono.just(Result.ok("Whisper 语音识别服务运行正常"));
+    }
+}
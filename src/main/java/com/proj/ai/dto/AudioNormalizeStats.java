@@ -0,0 +1,42 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 音频归一化统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "音频归一化统计")
+public class AudioNormalizeStats {
+
+    @Schema(description = "是否启用", example = "true")
+    private Boolean enabled;
+
+    @Schema(description = "已转换的音频数", example = "512")
+    private Long convertedCount;
+
+    @Schema(description = "已是目标格式、原样发送的音频数", example = "100")
+    private Long passthroughCount;
+
+    @Schema(description = "无法解码（如 mp3/m4a）或转换后反而更大、原样发送的音频数", example = "8")
+    private Long unsupportedCount;
+
+    @Schema(description = "转换前总字节数", example = "1610612736")
+    private Long bytesIn;
+
+    @Schema(description = "转换后总字节数", example = "268435456")
+    private Long bytesOut;
+
+    @Schema(description = "节省的字节数", example = "1342177280")
+    private Long bytesSaved;
+
+    @Schema(description = "平均转换耗时（毫秒）", example = "42.5")
+    private Double averageTimeMs;
+}
@@ -0,0 +1,57 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 并发限制统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "并发限制统计")
+public class ConcurrencyLimitStats {
+
+    @Schema(description = "后端名称", example = "ollama")
+    private String name;
+
+    @Schema(description = "是否启用限制")
+    private Boolean enabled;
+
+    @Schema(description = "当前并发上限（自适应调整）", example = "16")
+    private Integer limit;
+
+    @Schema(description = "在途请求数", example = "12")
+    private Integer inFlight;
+
+    @Schema(description = "排队请求数", example = "0")
+    private Integer queued;
+
+    @Schema(description = "排队请求数上限", example = "64")
+    private Integer maxQueue;
+
+    @Schema(description = "累计放行数", example = "1024")
+    private Long acceptedCount;
+
+    @Schema(description = "累计拒绝数（排队已满 + 排队超时）", example = "5")
+    private Long rejectedCount;
+
+    @Schema(description = "累计排队超时数", example = "2")
+    private Long queueTimeoutCount;
+
+    @Schema(description = "累计下调并发上限的次数", example = "3")
+    private Long limitDecreaseCount;
+
+    @Schema(description = "许可平均占用时长（毫秒，指数加权），用于估算 Retry-After", example = "3200")
+    private Long avgLatencyMs;
+
+    @Schema(description = "基线延迟 p90（毫秒，在途请求数不超过上限一半时的成功请求），样本不足时为空", example = "600")
+    private Long baselineP90Ms;
+
+    @Schema(description = "当前延迟阈值（毫秒），延迟样本超过时下调并发上限", example = "1200")
+    private Long latencyThresholdMs;
+}
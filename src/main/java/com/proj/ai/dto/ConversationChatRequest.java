@@ -0,0 +1,17 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * 会话对话请求，只需发送本轮提示词，历史对话由服务端保存的 context 提供
+ */
+@Data
+@Schema(description = "会话对话请求")
+public class ConversationChatRequest {
+    
+    @Schema(description = "本轮提示词", required = true, example = "那第二点具体说说")
+    @NotBlank(message = "提示词不能为空")
+    private String prompt;
+}
@@ -0,0 +1,21 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 创建会话请求
+ */
+@Data
+@Schema(description = "创建会话请求")
+public class ConversationCreateRequest {
+    
+    @Schema(description = "模型名称（可选，需在 ollama.routing 允许的模型内；为空时使用文本模型），会话内不可更改", example = "qwen2.5:3b")
+    private String model;
+    
+    @Schema(description = "是否使用更大的备用模型（未指定 model 时生效，需配置 ollama.routing.fallback-text-model）", example = "false")
+    private Boolean fallback;
+    
+    @Schema(description = "系统提示词（可选，只在第一轮发送，之后包含在 context 中）", example = "你是一个简洁的中文助手")
+    private String system;
+}
@@ -0,0 +1,42 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 会话信息
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "会话信息")
+public class ConversationInfo {
+    
+    @Schema(description = "会话 ID", example = "3f2b9c0e8a7d4e6f9b1c2d3e4f5a6b7c")
+    private String sessionId;
+    
+    @Schema(description = "模型名称", example = "qwen2.5:3b")
+    private String modelName;
+    
+    @Schema(description = "上一轮所在的 Ollama 节点，下一轮优先路由到该节点", example = "http://localhost:11434")
+    private String node;
+    
+    @Schema(description = "已完成的轮数", example = "3")
+    private Integer turns;
+    
+    @Schema(description = "context 的 token 数", example = "1536")
+    private Integer contextTokens;
+    
+    @Schema(description = "创建时间（毫秒时间戳）", example = "1718000000000")
+    private Long createTime;
+    
+    @Schema(description = "最近访问时间（毫秒时间戳）", example = "1718000060000")
+    private Long lastAccessTime;
+    
+    @Schema(description = "空闲过期时间（毫秒时间戳），每次访问后顺延", example = "1718001860000")
+    private Long expireTime;
+}
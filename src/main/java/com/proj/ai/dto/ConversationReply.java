@@ -0,0 +1,45 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 会话对话响应
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "会话对话响应")
+public class ConversationReply {
+    
+    @Schema(description = "会话 ID", example = "3f2b9c0e8a7d4e6f9b1c2d3e4f5a6b7c")
+    private String sessionId;
+    
+    @Schema(description = "响应内容")
+    private String response;
+    
+    @Schema(description = "模型名称", example = "qwen2.5:3b")
+    private String modelName;
+    
+    @Schema(description = "本轮是第几轮", example = "4")
+    private Integer turn;
+    
+    @Schema(description = "本轮结束后 context 的 token 数", example = "1536")
+    private Integer contextTokens;
+    
+    @Schema(description = "本轮实际 prefill 的 token 数（复用 context 时只包含本轮提示词）", example = "42")
+    private Long promptEvalCount;
+    
+    @Schema(description = "生成的 token 数", example = "180")
+    private Long evalCount;
+    
+    @Schema(description = "响应时间（毫秒）", example = "2300")
+    private Long responseTime;
+    
+    @Schema(description = "context 超过 ollama.session.max-context-tokens 已清空，下一轮不再包含之前的对话", example = "false")
+    private Boolean contextReset;
+}
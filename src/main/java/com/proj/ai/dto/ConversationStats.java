@@ -0,0 +1,45 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 会话统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "会话统计")
+public class ConversationStats {
+    
+    @Schema(description = "当前会话数", example = "320")
+    private Integer activeSessions;
+    
+    @Schema(description = "会话数上限", example = "10000")
+    private Integer maxSessions;
+    
+    @Schema(description = "会话估算占用内存（字节）", example = "5242880")
+    private Long usedBytes;
+    
+    @Schema(description = "会话内存上限（字节）", example = "268435456")
+    private Long maxBytes;
+    
+    @Schema(description = "累计创建数（本次启动以来）", example = "1200")
+    private Long createdCount;
+    
+    @Schema(description = "累计空闲过期数", example = "850")
+    private Long expiredCount;
+    
+    @Schema(description = "累计淘汰数（超出会话数或内存上限）", example = "0")
+    private Long evictedCount;
+    
+    @Schema(description = "累计完成的轮数", example = "5400")
+    private Long turnCount;
+    
+    @Schema(description = "累计因超出 token 上限清空 context 的次数", example = "3")
+    private Long contextResetCount;
+}
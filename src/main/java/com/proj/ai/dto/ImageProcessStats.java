@@ -0,0 +1,42 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 图片预处理统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "图片预处理统计")
+public class ImageProcessStats {
+
+    @Schema(description = "是否启用", example = "true")
+    private Boolean enabled;
+
+    @Schema(description = "已缩放/重新编码的图片数", example = "512")
+    private Long processedCount;
+
+    @Schema(description = "未处理的图片数（无法解码或无需处理）", example = "8")
+    private Long skippedCount;
+
+    @Schema(description = "处理前总字节数", example = "1610612736")
+    private Long bytesIn;
+
+    @Schema(description = "处理后总字节数", example = "104857600")
+    private Long bytesOut;
+
+    @Schema(description = "节省的字节数", example = "1505755136")
+    private Long bytesSaved;
+
+    @Schema(description = "平均处理耗时（毫秒）", example = "85.3")
+    private Double averageTimeMs;
+
+    @Schema(description = "预处理结果缓存命中次数（跳过解码和重新编码）", example = "240")
+    private Long cacheHitCount;
+}
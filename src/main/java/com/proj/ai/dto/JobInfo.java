@@ -0,0 +1,55 @@
+package com.proj.ai.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.proj.ai.job.JobStatus;
+import com.proj.ai.job.JobType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 异步任务详情
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "异步任务详情")
+public class JobInfo {
+    
+    @Schema(description = "任务 ID")
+    private String id;
+    
+    @Schema(description = "任务类型")
+    private JobType type;
+    
+    @Schema(description = "任务状态：PENDING/RUNNING/SUCCEEDED/FAILED/CANCELLED")
+    private JobStatus status;
+    
+    @Schema(description = "提交时间（毫秒时间戳）")
+    private Long createdAt;
+    
+    @Schema(description = "开始执行时间（毫秒时间戳）")
+    private Long startedAt;
+    
+    @Schema(description = "结束时间（毫秒时间戳）")
+    private Long finishedAt;
+    
+    @Schema(description = "已执行次数（过载时延迟重试）")
+    private Integer attempts;
+    
+    @Schema(description = "Ollama 结果（OLLAMA_CHAT/OLLAMA_IMAGE 成功时）")
+    private OllamaResponse ollamaResult;
+    
+    @Schema(description = "Whisper 结果（WHISPER 结束时）")
+    private WhisperResponse whisperResult;
+    
+    @Schema(description = "错误信息（失败时）")
+    private String errorMessage;
+    
+    @Schema(description = "Webhook 回调状态：pending/delivered/failed")
+    private String webhookStatus;
+}
@@ -0,0 +1,48 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 异步任务统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "异步任务统计")
+public class JobStats {
+    
+    @Schema(description = "工作线程数", example = "4")
+    private Integer workers;
+    
+    @Schema(description = "排队任务数", example = "120")
+    private Integer pending;
+    
+    @Schema(description = "执行中任务数", example = "4")
+    private Integer running;
+    
+    @Schema(description = "保留期内成功的任务数", example = "980")
+    private Integer succeeded;
+    
+    @Schema(description = "保留期内失败的任务数", example = "3")
+    private Integer failed;
+    
+    @Schema(description = "保留期内取消的任务数", example = "1")
+    private Integer cancelled;
+    
+    @Schema(description = "累计提交数（本次启动以来）", example = "1108")
+    private Long submittedCount;
+    
+    @Schema(description = "累计拒绝数（排队已满）", example = "0")
+    private Long rejectedCount;
+    
+    @Schema(description = "任务平均排队时间（毫秒）", example = "5300")
+    private Long avgQueueTimeMs;
+    
+    @Schema(description = "任务平均执行时间（毫秒）", example = "42000")
+    private Long avgRunTimeMs;
+}
@@ -0,0 +1,35 @@
+package com.proj.ai.dto;
+
+import com.proj.ai.job.JobType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * 异步任务提交请求
+ * 按 type 填写对应的请求参数：OLLAMA_CHAT -> chat，OLLAMA_IMAGE -> image，WHISPER -> whisper
+ */
+@Data
+@Schema(description = "异步任务提交请求")
+public class JobSubmitRequest {
+    
+    @Schema(description = "任务类型：OLLAMA_CHAT/OLLAMA_IMAGE/WHISPER", required = true, example = "WHISPER")
+    @NotNull(message = "任务类型不能为空")
+    private JobType type;
+    
+    @Schema(description = "文本对话参数（OLLAMA_CHAT）")
+    @Valid
+    private OllamaChatRequest chat;
+    
+    @Schema(description = "图片+文本对话参数（OLLAMA_IMAGE）")
+    @Valid
+    private OllamaChatWithImageRequest image;
+    
+    @Schema(description = "语音识别参数（WHISPER）")
+    @Valid
+    private WhisperRequest whisper;
+    
+    @Schema(description = "任务结束后回调的地址（可选），以 POST 发送任务详情", example = "https://example.com/callback")
+    private String webhookUrl;
+}
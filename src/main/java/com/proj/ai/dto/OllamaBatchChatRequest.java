@@ -0,0 +1,35 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Ollama 批量文本对话请求
+ */
+@Data
+@Schema(description = "Ollama 批量文本对话请求")
+public class OllamaBatchChatRequest {
+    
+    @Schema(description = "提示词列表（数量上限见 ollama.batch.max-size）", required = true,
+            example = "[\"你好，请介绍一下你自己\", \"把这句话翻译成英文：今天天气很好\"]")
+    @NotEmpty(message = "提示词列表不能为空")
+    private List<@NotBlank(message = "提示词不能为空") String> prompts;
+    
+    @Schema(description = "是否使用响应缓存（相同提示词直接返回缓存结果）", example = "true")
+    private Boolean useCache = true;
+    
+    @Schema(description = "并行数（可选，不超过 ollama.batch.max-concurrency 和 Ollama 当前并发上限）", example = "4")
+    @Min(value = 1, message = "并行数不能小于 1")
+    private Integer concurrency;
+    
+    @Schema(description = "模型名称（可选，需在 ollama.routing 允许的模型内；为空时纯文本请求使用文本模型）", example = "qwen2.5:3b")
+    private String model;
+    
+    @Schema(description = "是否使用更大的备用模型（未指定 model 时生效，需配置 ollama.routing.fallback-text-model）", example = "false")
+    private Boolean fallback;
+}
@@ -0,0 +1,36 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ollama 批量文本对话的单条结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Ollama 批量文本对话的单条结果")
+public class OllamaBatchItem {
+    
+    @Schema(description = "对应提示词在请求中的下标（从 0 开始）", example = "0")
+    private Integer index;
+    
+    @Schema(description = "是否成功")
+    private Boolean success;
+    
+    @Schema(description = "AI 响应内容")
+    private String response;
+    
+    @Schema(description = "是否来自响应缓存")
+    private Boolean cached;
+    
+    @Schema(description = "响应时间（毫秒）")
+    private Long responseTime;
+    
+    @Schema(description = "错误信息（失败时）")
+    private String errorMessage;
+}
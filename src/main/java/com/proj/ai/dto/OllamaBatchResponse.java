@@ -0,0 +1,38 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Ollama 批量文本对话响应
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Ollama 批量文本对话响应")
+public class OllamaBatchResponse {
+    
+    @Schema(description = "提示词数量", example = "10")
+    private Integer total;
+    
+    @Schema(description = "成功数量", example = "9")
+    private Integer successCount;
+    
+    @Schema(description = "失败数量", example = "1")
+    private Integer failureCount;
+    
+    @Schema(description = "使用的模型名称")
+    private String modelName;
+    
+    @Schema(description = "总耗时（毫秒）")
+    private Long responseTime;
+    
+    @Schema(description = "各提示词的结果，按请求中的顺序排列")
+    private List<OllamaBatchItem> items;
+}
@@ -14,5 +14,14 @@ public class OllamaChatRequest {
     @Schema(description = "提示词", required = true, example = "你好，请介绍一下你自己")
     @NotBlank(message = "提示词不能为空")
     private String prompt;
+    
+    @Schema(description = "是否使用响应缓存（相同提示词直接返回缓存结果）", example = "true")
+    private Boolean useCache = true;
+    
+    @Schema(description = "模型名称（可选，需在 ollama.routing 允许的模型内；为空时纯文本请求使用文本模型）", example = "qwen2.5:3b")
+    private String model;
+    
+    @Schema(description = "是否使用更大的备用模型（未指定 model 时生效，需配置 ollama.routing.fallback-text-model）", example = "false")
+    private Boolean fallback;
 }
 
@@ -20,5 +20,11 @@ public class OllamaChatWithImageRequest {
     
     @Schema(description = "图片 URL（当 imageBase64 为空时使用）", example = "https://example.com/image.jpg")
     private String imageUrl;
+    
+    @Schema(description = "模型名称（可选，需在 ollama.routing 允许且支持图片输入的模型内；为空时使用图片模型）", example = "qwen2.5vl:3b")
+    private String model;
+    
+    @Schema(description = "是否使用更大的备用模型（未指定 model 时生效，需配置 ollama.routing.fallback-vision-model）", example = "false")
+    private Boolean fallback;
 }
 
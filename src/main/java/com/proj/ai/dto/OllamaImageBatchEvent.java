@@ -0,0 +1,92 @@
+package com.proj.ai.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ollama 批量图片识别事件（SSE）
+ * item 事件携带单张图片的结果和各阶段耗时，done 事件携带整批的吞吐统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Ollama 批量图片识别事件")
+public class OllamaImageBatchEvent {
+
+    public static final String EVENT_ITEM = "item";
+    public static final String EVENT_DONE = "done";
+    public static final String EVENT_ERROR = "error";
+
+    @Schema(description = "事件类型：item/done/error", example = "item")
+    private String event;
+
+    @Schema(description = "图片在请求中的下标（item 事件）", example = "0")
+    private Integer index;
+
+    @Schema(description = "图片 URL（item 事件）")
+    private String imageUrl;
+
+    @Schema(description = "是否成功（item 事件）")
+    private Boolean success;
+
+    @Schema(description = "AI 响应内容（item 事件）")
+    private String response;
+
+    @Schema(description = "失败的阶段：download/process/inference（item 事件）")
+    private String failedStage;
+
+    @Schema(description = "下载耗时（毫秒，item 事件）")
+    private Long downloadTime;
+
+    @Schema(description = "预处理耗时（毫秒，item 事件）")
+    private Long processTime;
+
+    @Schema(description = "推理耗时（毫秒，含等待并发名额，item 事件）")
+    private Long inferenceTime;
+
+    @Schema(description = "图片数量（done 事件）")
+    private Integer total;
+
+    @Schema(description = "成功数量（done 事件）")
+    private Integer successCount;
+
+    @Schema(description = "失败数量（done 事件）")
+    private Integer failureCount;
+
+    @Schema(description = "使用的模型名称（done 事件）")
+    private String modelName;
+
+    @Schema(description = "总耗时（毫秒，done 事件）")
+    private Long responseTime;
+
+    @Schema(description = "吞吐量（成功识别的图片数/秒，done 事件）")
+    private Double imagesPerSecond;
+
+    @Schema(description = "平均下载耗时（毫秒，done 事件）")
+    private Long avgDownloadTime;
+
+    @Schema(description = "平均预处理耗时（毫秒，done 事件）")
+    private Long avgProcessTime;
+
+    @Schema(description = "平均推理耗时（毫秒，done 事件）")
+    private Long avgInferenceTime;
+
+    @Schema(description = "错误信息（item 事件失败时、error 事件）")
+    private String errorMessage;
+
+    /**
+     * 构建 error 事件
+     */
+    public static OllamaImageBatchEvent error(String errorMessage) {
+        return OllamaImageBatchEvent.builder()
+                .event(EVENT_ERROR)
+                .errorMessage(errorMessage)
+                .build();
+    }
+}
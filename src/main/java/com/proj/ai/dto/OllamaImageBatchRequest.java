@@ -0,0 +1,36 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Ollama 批量图片识别请求
+ */
+@Data
+@Schema(description = "Ollama 批量图片识别请求")
+public class OllamaImageBatchRequest {
+    
+    @Schema(description = "提示词（所有图片共用）", required = true, example = "请用几个标签描述这张图片中的场景")
+    @NotBlank(message = "提示词不能为空")
+    private String prompt;
+    
+    @Schema(description = "图片 URL 列表（数量上限见 ollama.batch.image.max-size）", required = true,
+            example = "[\"https://example.com/1.jpg\", \"https://example.com/2.jpg\"]")
+    @NotEmpty(message = "图片列表不能为空")
+    private List<@NotBlank(message = "图片 URL 不能为空") String> imageUrls;
+    
+    @Schema(description = "推理并行数（可选，不超过 ollama.batch.max-concurrency 和 Ollama 当前并发上限）", example = "4")
+    @Min(value = 1, message = "并行数不能小于 1")
+    private Integer concurrency;
+    
+    @Schema(description = "模型名称（可选，需在 ollama.routing 允许且支持图片输入的模型内；为空时使用图片模型）", example = "qwen2.5vl:3b")
+    private String model;
+    
+    @Schema(description = "是否使用更大的备用模型（未指定 model 时生效，需配置 ollama.routing.fallback-vision-model）", example = "false")
+    private Boolean fallback;
+}
@@ -0,0 +1,45 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个模型的调用统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "单个模型的调用统计")
+public class OllamaModelStats {
+
+    @Schema(description = "模型名称", example = "qwen2.5:3b")
+    private String model;
+
+    @Schema(description = "是否支持图片输入")
+    private Boolean vision;
+
+    @Schema(description = "成功调用数", example = "1024")
+    private Long successCount;
+
+    @Schema(description = "失败调用数", example = "3")
+    private Long errorCount;
+
+    @Schema(description = "平均调用耗时（毫秒）", example = "1830.5")
+    private Double avgLatencyMs;
+
+    @Schema(description = "平均首 token 耗时（毫秒）", example = "210.3")
+    private Double avgFirstTokenMs;
+
+    @Schema(description = "平均生成速度（token/秒）", example = "85.2")
+    private Double avgTokensPerSecond;
+
+    @Schema(description = "累计提示词 token 数", example = "52000")
+    private Long promptTokens;
+
+    @Schema(description = "累计生成 token 数", example = "310000")
+    private Long completionTokens;
+}
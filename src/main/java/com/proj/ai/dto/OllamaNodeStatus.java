@@ -0,0 +1,41 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * Ollama 节点状态
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Ollama 节点状态")
+public class OllamaNodeStatus {
+
+    @Schema(description = "节点地址", example = "http://10.0.0.11:11434")
+    private String url;
+
+    @Schema(description = "权重", example = "1")
+    private Integer weight;
+
+    @Schema(description = "是否健康", example = "true")
+    private Boolean healthy;
+
+    @Schema(description = "在途请求数", example = "3")
+    private Integer inFlight;
+
+    @Schema(description = "已安装的模型（/api/tags）")
+    private Set<String> availableModels;
+
+    @Schema(description = "已加载的模型（/api/ps）")
+    private Set<String> loadedModels;
+
+    @Schema(description = "最近一次检查时间（毫秒时间戳）")
+    private Long lastCheckTime;
+}
@@ -24,5 +24,8 @@ public class OllamaResponse {
     
     @Schema(description = "响应时间（毫秒）")
     private Long responseTime;
+    
+    @Schema(description = "是否来自响应缓存")
+    private Boolean cached;
 }
 
@@ -0,0 +1,75 @@
+package com.proj.ai.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ollama 流式响应事件（SSE）
+ * token 事件只携带 delta，done 事件携带本次生成的统计信息
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Ollama 流式响应事件")
+public class OllamaStreamEvent {
+
+    public static final String EVENT_TOKEN = "token";
+    public static final String EVENT_DONE = "done";
+    public static final String EVENT_ERROR = "error";
+
+    @Schema(description = "事件类型：token/done/error", example = "token")
+    private String event;
+
+    @Schema(description = "增量文本（token 事件）")
+    private String delta;
+
+    @Schema(description = "使用的模型名称（done 事件）")
+    private String modelName;
+
+    @Schema(description = "首个 token 时间（毫秒，done 事件）")
+    private Long firstTokenTime;
+
+    @Schema(description = "响应时间（毫秒，done 事件）")
+    private Long responseTime;
+
+    @Schema(description = "响应文本总长度（done 事件）")
+    private Integer responseLength;
+
+    @Schema(description = "提示词 token 数（done 事件）")
+    private Long promptEvalCount;
+
+    @Schema(description = "生成 token 数（done 事件）")
+    private Long evalCount;
+
+    @Schema(description = "生成速度（token/秒，done 事件）")
+    private Double tokensPerSecond;
+
+    @Schema(description = "错误信息（error 事件）")
+    private String errorMessage;
+
+    /**
+     * 构建 token 事件
+     */
+    public static OllamaStreamEvent token(String delta) {
+        return OllamaStreamEvent.builder()
+                .event(EVENT_TOKEN)
+                .delta(delta)
+                .build();
+    }
+
+    /**
+     * 构建 error 事件
+     */
+    public static OllamaStreamEvent error(String errorMessage) {
+        return OllamaStreamEvent.builder()
+                .event(EVENT_ERROR)
+                .errorMessage(errorMessage)
+                .build();
+    }
+}
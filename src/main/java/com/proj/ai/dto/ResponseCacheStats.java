@@ -0,0 +1,42 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 响应缓存统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "响应缓存统计")
+public class ResponseCacheStats {
+    
+    @Schema(description = "是否启用", example = "true")
+    private Boolean enabled;
+    
+    @Schema(description = "缓存条目数", example = "128")
+    private Long size;
+    
+    @Schema(description = "命中次数", example = "1024")
+    private Long hitCount;
+    
+    @Schema(description = "未命中次数", example = "256")
+    private Long missCount;
+    
+    @Schema(description = "命中率", example = "0.8")
+    private Double hitRate;
+    
+    @Schema(description = "淘汰次数（容量或过期）", example = "12")
+    private Long evictionCount;
+    
+    @Schema(description = "被合并到正在执行的相同请求上的请求数", example = "36")
+    private Long coalescedCount;
+    
+    @Schema(description = "正在执行的可合并请求数", example = "2")
+    private Integer inFlightCount;
+}
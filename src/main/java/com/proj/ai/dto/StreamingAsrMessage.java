@@ -0,0 +1,59 @@
+package com.proj.ai.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 实时语音识别消息（服务端发给客户端）
+ * interim 为说话过程中的中间结果，final 为一句话结束后的最终结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "实时语音识别消息")
+public class StreamingAsrMessage {
+
+    public static final String TYPE_READY = "ready";
+    public static final String TYPE_SPEECH_START = "speech_start";
+    public static final String TYPE_INTERIM = "interim";
+    public static final String TYPE_FINAL = "final";
+    public static final String TYPE_ERROR = "error";
+
+    @Schema(description = "消息类型：ready/speech_start/interim/final/error", example = "final")
+    private String type;
+
+    @Schema(description = "句子序号（从 1 开始）", example = "1")
+    private Integer utteranceId;
+
+    @Schema(description = "识别文本（interim/final）")
+    private String text;
+
+    @Schema(description = "本句音频时长（毫秒，final）")
+    private Long audioMs;
+
+    @Schema(description = "说话结束到输出最终结果的耗时（毫秒，final）")
+    private Long latencyMs;
+
+    @Schema(description = "采样率（ready）")
+    private Integer sampleRate;
+
+    @Schema(description = "错误信息（error）")
+    private String message;
+
+    /**
+     * 构建 error 消息
+     */
+    public static StreamingAsrMessage error(Integer utteranceId, String message) {
+        return StreamingAsrMessage.builder()
+                .type(TYPE_ERROR)
+                .utteranceId(utteranceId)
+                .message(message)
+                .build();
+    }
+}
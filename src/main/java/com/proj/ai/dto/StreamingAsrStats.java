@@ -0,0 +1,54 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 实时语音识别统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "实时语音识别统计")
+public class StreamingAsrStats {
+
+    @Schema(description = "当前连接数", example = "12")
+    private Integer activeSessions;
+
+    @Schema(description = "累计连接数", example = "340")
+    private Long totalSessions;
+
+    @Schema(description = "累计拒绝连接数（超过最大连接数）", example = "0")
+    private Long rejectedSessions;
+
+    @Schema(description = "累计检测到的句子数", example = "2100")
+    private Long utterances;
+
+    @Schema(description = "累计中间结果数", example = "5300")
+    private Long interimCount;
+
+    @Schema(description = "累计跳过的中间识别数（上一次还未返回或 Whisper 繁忙）", example = "120")
+    private Long skippedInterimCount;
+
+    @Schema(description = "累计最终结果数", example = "2095")
+    private Long finalCount;
+
+    @Schema(description = "累计最终识别失败数", example = "5")
+    private Long finalFailureCount;
+
+    @Schema(description = "说话结束到最终结果的平均耗时（毫秒）", example = "950")
+    private Long avgFinalLatencyMs;
+
+    @Schema(description = "最近 1024 句的 P50 耗时（毫秒）", example = "880")
+    private Long p50FinalLatencyMs;
+
+    @Schema(description = "最近 1024 句的 P95 耗时（毫秒）", example = "1500")
+    private Long p95FinalLatencyMs;
+
+    @Schema(description = "最大耗时（毫秒）", example = "4200")
+    private Long maxFinalLatencyMs;
+}
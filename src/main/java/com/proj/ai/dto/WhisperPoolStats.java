@@ -0,0 +1,42 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Whisper 连接池统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Whisper 连接池统计")
+public class WhisperPoolStats {
+
+    @Schema(description = "每个服务的最大连接数", example = "32")
+    private Integer maxConnections;
+
+    @Schema(description = "已建立的连接数（所有服务）", example = "6")
+    private Integer totalConnections;
+
+    @Schema(description = "正在使用的连接数", example = "4")
+    private Integer activeConnections;
+
+    @Schema(description = "空闲连接数", example = "2")
+    private Integer idleConnections;
+
+    @Schema(description = "等待连接的请求数", example = "0")
+    private Integer pendingAcquire;
+
+    @Schema(description = "累计请求数", example = "1024")
+    private Long requestCount;
+
+    @Schema(description = "累计失败数（含超时）", example = "3")
+    private Long failureCount;
+
+    @Schema(description = "累计超时数", example = "1")
+    private Long timeoutCount;
+}
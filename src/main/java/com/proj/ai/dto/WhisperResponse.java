@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.util.List;
 
 /**
  * Whisper 语音识别响应
@@ -32,5 +33,17 @@ public class WhisperResponse implements Serializable {
     
     @Schema(description = "错误信息（如果失败）", example = "")
     private String errorMessage;
+    
+    @Schema(description = "识别分段（长音频分段识别时返回，时间戳相对原音频）")
+    private List<WhisperSegment> segments;
+    
+    @Schema(description = "原始音频字节数", example = "5760044")
+    private Long originalBytes;
+    
+    @Schema(description = "实际发送给 Whisper 的音频字节数（归一化为 16kHz 单声道后）", example = "960044")
+    private Long uploadBytes;
+    
+    @Schema(description = "音频归一化耗时（毫秒）", example = "35")
+    private Long normalizeTime;
 }
 
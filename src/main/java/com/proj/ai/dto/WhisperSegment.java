@@ -0,0 +1,29 @@
+package com.proj.ai.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Whisper 识别分段（时间戳相对原音频）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Whisper识别分段")
+public class WhisperSegment implements Serializable {
+    
+    @Schema(description = "起始时间（毫秒）", example = "30000")
+    private Long start;
+    
+    @Schema(description = "结束时间（毫秒）", example = "33500")
+    private Long end;
+    
+    @Schema(description = "分段文本", example = "今天天气真好")
+    private String text;
+}
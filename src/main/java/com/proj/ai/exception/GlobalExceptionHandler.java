@@ -2,11 +2,15 @@ package com.proj.ai.exception;
 
 import com.proj.ai.common.Result;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.util.stream.Collectors;
 
@@ -29,6 +33,18 @@ public class GlobalExceptionHandler {
         return Result.error("参数校验失败: " + message);
     }
     
+    /**
+     * 参数校验异常（WebFlux 模式）
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public Result<?> handleWebExchangeBindException(WebExchangeBindException e) {
+        String message = e.getBindingResult().getFieldErrors().stream()
+                .map(FieldError::getDefaultMessage)
+                .collect(Collectors.joining(", "));
+        log.error("参数校验失败: {}", message);
+        return Result.error("参数校验失败: " + message);
+    }
+    
     /**
      * 参数绑定异常
      */
@@ -41,6 +57,19 @@ public class GlobalExceptionHandler {
         return Result.error("参数绑定失败: " + message);
     }
     
+    /**
+     * 推理服务过载：返回 429/503，并通过 Retry-After 告知客户端多久后重试
+     * 显式指定 JSON 类型，SSE/NDJSON 接口在发出第一个事件前被拒绝时同样返回该响应
+     */
+    @ExceptionHandler(OverloadException.class)
+    public ResponseEntity<Result<?>> handleOverloadException(OverloadException e) {
+        log.warn("请求被拒绝: {}", e.getMessage());
+        return ResponseEntity.status(e.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Result.build(e.getStatus(), e.getMessage(), null));
+    }
+    
     /**
      * 运行时异常
      */
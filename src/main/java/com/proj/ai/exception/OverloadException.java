@@ -0,0 +1,27 @@
+package com.proj.ai.exception;
+
+import lombok.Getter;
+
+/**
+ * 推理服务过载异常
+ * 并发限制的排队已满或排队超时时抛出，由 {@link GlobalExceptionHandler} 转换为 429/503 并携带 Retry-After
+ */
+@Getter
+public class OverloadException extends RuntimeException {
+
+    /**
+     * HTTP 状态码
+     */
+    private final int status;
+
+    /**
+     * 建议的重试间隔（秒）
+     */
+    private final long retryAfterSeconds;
+
+    public OverloadException(String message, int status, long retryAfterSeconds) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
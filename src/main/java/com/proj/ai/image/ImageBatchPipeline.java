@@ -0,0 +1,234 @@
+package com.proj.ai.image;
+
+import com.proj.ai.cache.ImageCache;
+import com.proj.ai.client.OllamaClient;
+import com.proj.ai.config.OllamaBatchConfig;
+import com.proj.ai.dto.OllamaImageBatchEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * 批量图片识别流水线
+ * <p>
+ * 每张图片依次经过 下载 -> 预处理 -> 推理 三个阶段，各阶段独立限制并行数：
+ * <ul>
+ *     <li>下载：网络 IO，并行数 ollama.batch.image.download-concurrency</li>
+ *     <li>预处理：CPU 缩放和重新编码，在 boundedElastic 线程执行，并行数默认等于 CPU 核数</li>
+ *     <li>推理：GPU，并行数由调用方按 Ollama 并发上限计算</li>
+ * </ul>
+ * 前一张图片推理时后面的图片已在下载和预处理，网络与 GPU 时间重叠。
+ * 每个阶段只向上游请求一个元素（prefetch=1），推理跟不上时下载自动暂停，内存中的图片数量不超过各阶段并行数之和。
+ * 单张图片在任一阶段失败只影响这张图片，后续阶段直接跳过
+ */
+@Slf4j
+@Component
+public class ImageBatchPipeline {
+
+    private static final String STAGE_DOWNLOAD = "download";
+    private static final String STAGE_PROCESS = "process";
+    private static final String STAGE_INFERENCE = "inference";
+
+    @Autowired
+    private OllamaClient ollamaClient;
+
+    @Autowired
+    private OllamaBatchConfig batchConfig;
+
+    /**
+     * 执行批量图片识别
+     *
+     * @param prompt 提示词（所有图片共用）
+     * @param model 模型名称（需要支持图片输入）
+     * @param imageUrls 图片 URL 列表
+     * @param inferenceConcurrency 推理阶段并行数
+     * @return 按完成顺序返回每张图片的 item 事件，最后返回 done 事件
+     */
+    public Flux<OllamaImageBatchEvent> run(String prompt, String model, List<String> imageUrls,
+                                           int inferenceConcurrency) {
+        return Flux.defer(() -> {
+            OllamaBatchConfig.Image config = batchConfig.getImage();
+            int downloadConcurrency = Math.max(1, config.getDownloadConcurrency());
+            int processConcurrency = config.getProcessConcurrency() > 0
+                    ? config.getProcessConcurrency() : Runtime.getRuntime().availableProcessors();
+            log.info("开始批量图片识别，模型: {}, 数量: {}, 并行数 下载/预处理/推理: {}/{}/{}",
+                    model, imageUrls.size(), downloadConcurrency, processConcurrency, inferenceConcurrency);
+
+            long startNanos = System.nanoTime();
+            Summary summary = new Summary(model);
+            return Flux.range(0, imageUrls.size())
+                    .map(index -> new Task(index, imageUrls.get(index)))
+                    .flatMap(this::download, downloadConcurrency, 1)
+                    .flatMap(task -> preprocess(model, task), processConcurrency, 1)
+                    .flatMap(task -> infer(prompt, model, task), inferenceConcurrency, 1)
+                    // flatMap 的输出是串行的，summary 不需要同步
+                    .map(task -> {
+                        summary.add(task);
+                        return task.toEvent();
+                    })
+                    .concatWith(Mono.fromSupplier(() -> summary.toEvent(startNanos)));
+        });
+    }
+
+    /**
+     * 下载阶段
+     */
+    private Mono<Task> download(Task task) {
+        long start = System.nanoTime();
+        return ollamaClient.downloadImageReactive(task.imageUrl)
+                .map(entry -> {
+                    task.image = entry.getBase64();
+                    task.imageId = ImageCache.imageId(entry);
+                    task.downloadTime = elapsedMs(start);
+                    return task;
+                })
+                .onErrorResume(e -> Mono.just(task.fail(STAGE_DOWNLOAD, e)));
+    }
+
+    /**
+     * 预处理阶段
+     */
+    private Mono<Task> preprocess(String model, Task task) {
+        if (task.errorMessage != null) {
+            return Mono.just(task);
+        }
+        return Mono.fromCallable(() -> {
+                    long start = System.nanoTime();
+                    task.image = ollamaClient.preprocessImage(model, task.image, task.imageId);
+                    task.processTime = elapsedMs(start);
+                    return task;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> Mono.just(task.fail(STAGE_PROCESS, e)));
+    }
+
+    /**
+     * 推理阶段，完成后释放图片数据
+     */
+    private Mono<Task> infer(String prompt, String model, Task task) {
+        if (task.errorMessage != null) {
+            return Mono.just(task);
+        }
+        long start = System.nanoTime();
+        return ollamaClient.chatWithPreparedImageReactive(model, prompt, task.image)
+                .map(response -> {
+                    task.response = response;
+                    task.image = null;
+                    task.inferenceTime = elapsedMs(start);
+                    return task;
+                })
+                .onErrorResume(e -> Mono.just(task.fail(STAGE_INFERENCE, e)));
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * 单张图片在流水线中的状态，同一时刻只在一个阶段中处理
+     */
+    private static final class Task {
+
+        private final int index;
+        private final String imageUrl;
+        private String image;
+        private String imageId;
+        private String response;
+        private String failedStage;
+        private String errorMessage;
+        private Long downloadTime;
+        private Long processTime;
+        private Long inferenceTime;
+
+        private Task(int index, String imageUrl) {
+            this.index = index;
+            this.imageUrl = imageUrl;
+        }
+
+        private Task fail(String stage, Throwable e) {
+            log.warn("批量图片识别第 {} 张图片在 {} 阶段失败: {}", index, stage, e.getMessage());
+            this.image = null;
+            this.failedStage = stage;
+            this.errorMessage = e.getMessage();
+            return this;
+        }
+
+        private OllamaImageBatchEvent toEvent() {
+            return OllamaImageBatchEvent.builder()
+                    .event(OllamaImageBatchEvent.EVENT_ITEM)
+                    .index(index)
+                    .imageUrl(imageUrl)
+                    .success(errorMessage == null)
+                    .response(response)
+                    .failedStage(failedStage)
+                    .downloadTime(downloadTime)
+                    .processTime(processTime)
+                    .inferenceTime(inferenceTime)
+                    .errorMessage(errorMessage)
+                    .build();
+        }
+    }
+
+    /**
+     * 整批统计
+     */
+    private final class Summary {
+
+        private final String model;
+        private int total;
+        private int successCount;
+        private long downloadTimeSum;
+        private int downloadCount;
+        private long processTimeSum;
+        private int processCount;
+        private long inferenceTimeSum;
+        private int inferenceCount;
+
+        private Summary(String model) {
+            this.model = model;
+        }
+
+        private void add(Task task) {
+            total++;
+            if (task.errorMessage == null) {
+                successCount++;
+            }
+            if (task.downloadTime != null) {
+                downloadTimeSum += task.downloadTime;
+                downloadCount++;
+            }
+            if (task.processTime != null) {
+                processTimeSum += task.processTime;
+                processCount++;
+            }
+            if (task.inferenceTime != null) {
+                inferenceTimeSum += task.inferenceTime;
+                inferenceCount++;
+            }
+        }
+
+        private OllamaImageBatchEvent toEvent(long startNanos) {
+            long responseTime = elapsedMs(startNanos);
+            double imagesPerSecond = responseTime > 0 ? successCount * 1000.0 / responseTime : 0;
+            log.info("批量图片识别完成，数量: {}, 成功: {}, 耗时: {}ms, 吞吐量: {} 张/秒",
+                    total, successCount, responseTime, String.format("%.2f", imagesPerSecond));
+            return OllamaImageBatchEvent.builder()
+                    .event(OllamaImageBatchEvent.EVENT_DONE)
+                    .total(total)
+                    .successCount(successCount)
+                    .failureCount(total - successCount)
+                    .modelName(model)
+                    .responseTime(responseTime)
+                    .imagesPerSecond(Math.round(imagesPerSecond * 100) / 100.0)
+                    .avgDownloadTime(downloadCount > 0 ? downloadTimeSum / downloadCount : null)
+                    .avgProcessTime(processCount > 0 ? processTimeSum / processCount : null)
+                    .avgInferenceTime(inferenceCount > 0 ? inferenceTimeSum / inferenceCount : null)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.proj.ai.image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.proj.ai.config.ImageProcessConfig;
+import com.proj.ai.dto.ImageProcessStats;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 图片预处理器
+ * 发送给视觉模型前解码图片，按模型配置限制最长边和总像素数，重新编码为 JPEG 并去除 EXIF 等元数据
+ * <p>
+ * EXIF 方向会先应用到像素上再丢弃，避免手机竖拍照片被识别为横图；
+ * 无法解码的格式（如 HEIC/WebP）原样发送。
+ * 调用方给出图片内容标识时，处理结果按 内容标识 + 模型限制 缓存，重复的图片不再解码和重新编码
+ */
+@Slf4j
+@Component
+public class ImagePreprocessor {
+
+    @Autowired
+    private ImageProcessConfig processConfig;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+
+    /**
+     * 预处理结果缓存，未启用时为 null
+     */
+    private Cache<CacheKey, String> cache;
+
+    @PostConstruct
+    public void init() {
+        ImageProcessConfig.Limits defaults = processConfig.getDefaults();
+        if (processConfig.getCacheMaxMb() > 0) {
+            cache = Caffeine.newBuilder()
+                    .maximumWeight(processConfig.getCacheMaxMb() * 1024L * 1024L)
+                    .weigher((CacheKey key, String base64) -> key.imageId().length() + base64.length())
+                    .build();
+        }
+        log.info("初始化图片预处理，enabled: {}, maxSide: {}, maxPixels: {}, jpegQuality: {}, 单独配置的模型: {}, "
+                        + "结果缓存: {}MB",
+                processConfig.getEnabled(), defaults.getMaxSide(), defaults.getMaxPixels(),
+                defaults.getJpegQuality(), processConfig.getModels().keySet(), processConfig.getCacheMaxMb());
+    }
+
+    /**
+     * 是否启用预处理
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(processConfig.getEnabled());
+    }
+
+    /**
+     * 预处理 Base64 图片
+     *
+     * @param model 目标模型
+     * @param imageBase64 图片 Base64（不含 data URL 前缀）
+     * @return 处理后的 Base64；未启用或无需处理时返回原值
+     */
+    public String processBase64(String model, String imageBase64) {
+        if (!isEnabled()) {
+            return imageBase64;
+        }
+        byte[] original = Base64.getDecoder().decode(imageBase64);
+        byte[] result = process(model, original);
+        return result == original ? imageBase64 : Base64.getEncoder().encodeToString(result);
+    }
+
+    /**
+     * 预处理 Base64 图片，结果按 内容标识 + 模型限制 缓存
+     * 同一图片的并发请求只处理一次，其余等待并复用结果
+     *
+     * @param model 目标模型
+     * @param imageBase64 图片 Base64（不含 data URL 前缀）
+     * @param imageId 图片内容标识（如内容摘要），为 null 时不使用缓存
+     * @return 处理后的 Base64；未启用或无需处理时返回原值
+     */
+    public String processBase64(String model, String imageBase64, String imageId) {
+        if (!isEnabled() || imageId == null || cache == null) {
+            return processBase64(model, imageBase64);
+        }
+        boolean[] computed = new boolean[1];
+        String result = cache.get(new CacheKey(imageId, processConfig.getLimits(model)), key -> {
+            computed[0] = true;
+            return processBase64(model, imageBase64);
+        });
+        if (!computed[0]) {
+            cacheHits.increment();
+            log.debug("图片预处理命中缓存，model: {}, image: {}", model, imageId);
+        }
+        return result;
+    }
+
+    /**
+     * 预处理图片
+     *
+     * @param model 目标模型
+     * @param image 原始图片字节
+     * @return 处理后的 JPEG 字节；未启用、无法解码或重新编码后反而更大时返回原数组
+     */
+    public byte[] process(String model, byte[] image) {
+        if (!isEnabled()) {
+            return image;
+        }
+        long start = System.nanoTime();
+        ImageProcessConfig.Limits limits = processConfig.getLimits(model);
+        try {
+            byte[] result = resizeAndEncode(image, limits);
+            if (result == null) {
+                skipped.increment();
+                return image;
+            }
+            long elapsed = System.nanoTime() - start;
+            processed.increment();
+            bytesIn.add(image.length);
+            bytesOut.add(result.length);
+            processingNanos.add(elapsed);
+            log.info("图片预处理完成，model: {}, 大小: {} -> {} bytes, 耗时: {}ms",
+                    model, image.length, result.length, elapsed / 1_000_000);
+            return result;
+        } catch (Exception e) {
+            skipped.increment();
+            log.warn("图片预处理失败，发送原图: {}", e.getMessage());
+            return image;
+        }
+    }
+
+    /**
+     * 解码、缩放、应用方向并编码为 JPEG
+     *
+     * @return JPEG 字节；格式无法解码，或未缩放且重新编码后不小于原图时返回 null
+     */
+    private byte[] resizeAndEncode(byte[] image, ImageProcessConfig.Limits limits) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(image))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                log.debug("图片格式无法解码，跳过预处理");
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                double scale = targetScale(width, height, limits);
+                int targetWidth = Math.max(1, (int) Math.round(width * scale));
+                int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+                // 缩小倍数较大时解码阶段直接隔行采样，保留至少 2 倍目标尺寸供后续平滑缩放
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, (int) (1 / (scale * 2)));
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                BufferedImage decoded = reader.read(0, param);
+
+                BufferedImage resized = resize(decoded, targetWidth, targetHeight);
+                BufferedImage oriented = applyOrientation(resized, ExifOrientation.read(image));
+                byte[] encoded = encodeJpeg(oriented, limits.getJpegQuality());
+                if (scale >= 1.0 && encoded.length >= image.length) {
+                    return null;
+                }
+                return encoded;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 计算缩放比例（不放大）
+     */
+    private double targetScale(int width, int height, ImageProcessConfig.Limits limits) {
+        double scale = 1.0;
+        if (limits.getMaxSide() != null && limits.getMaxSide() > 0) {
+            scale = Math.min(scale, (double) limits.getMaxSide() / Math.max(width, height));
+        }
+        if (limits.getMaxPixels() != null && limits.getMaxPixels() > 0) {
+            scale = Math.min(scale, Math.sqrt((double) limits.getMaxPixels() / ((long) width * height)));
+        }
+        return scale;
+    }
+
+    /**
+     * 逐级减半的双线性缩放，同时转换为不带透明通道的 RGB（透明区域填充白色）
+     */
+    private BufferedImage resize(BufferedImage source, int targetWidth, int targetHeight) {
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            if (width < targetWidth * 2 || height < targetHeight * 2) {
+                width = targetWidth;
+                height = targetHeight;
+            }
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    /**
+     * 按 EXIF 方向（1~8）旋转/翻转像素
+     */
+    private BufferedImage applyOrientation(BufferedImage image, int orientation) {
+        if (orientation <= 1 || orientation > 8) {
+            return image;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean swap = orientation >= 5;
+        AffineTransform transform = new AffineTransform();
+        // 变换作用于原图坐标，W/H 为原图宽高
+        switch (orientation) {
+            case 2 -> {
+                // 水平翻转：(W - x, y)
+                transform.translate(width, 0);
+                transform.scale(-1, 1);
+            }
+            case 3 -> {
+                // 旋转 180°：(W - x, H - y)
+                transform.translate(width, height);
+                transform.rotate(Math.PI);
+            }
+            case 4 -> {
+                // 垂直翻转：(x, H - y)
+                transform.translate(0, height);
+                transform.scale(1, -1);
+            }
+            case 5 -> {
+                // 沿主对角线翻转：(y, x)
+                transform.rotate(Math.PI / 2);
+                transform.scale(1, -1);
+            }
+            case 6 -> {
+                // 顺时针 90°：(H - y, x)
+                transform.translate(height, 0);
+                transform.rotate(Math.PI / 2);
+            }
+            case 7 -> {
+                // 沿副对角线翻转：(H - y, W - x)
+                transform.translate(height, width);
+                transform.rotate(-Math.PI / 2);
+                transform.scale(1, -1);
+            }
+            default -> {
+                // 8，逆时针 90°：(y, W - x)
+                transform.translate(0, width);
+                transform.rotate(-Math.PI / 2);
+            }
+        }
+        BufferedImage result = new BufferedImage(swap ? height : width, swap ? width : height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = result.createGraphics();
+        try {
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return result;
+    }
+
+    /**
+     * 编码为 JPEG，不写入任何元数据
+     */
+    private byte[] encodeJpeg(BufferedImage image, Float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(image.getWidth() * image.getHeight() / 4);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality != null ? quality : 0.85f);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 获取预处理统计
+     */
+    public ImageProcessStats stats() {
+        long count = processed.sum();
+        long in = bytesIn.sum();
+        long out = bytesOut.sum();
+        return ImageProcessStats.builder()
+                .enabled(isEnabled())
+                .processedCount(count)
+                .skippedCount(skipped.sum())
+                .bytesIn(in)
+                .bytesOut(out)
+                .bytesSaved(in - out)
+                .averageTimeMs(count == 0 ? 0.0 : processingNanos.sum() / 1_000_000.0 / count)
+                .cacheHitCount(cacheHits.sum())
+                .build();
+    }
+
+    /**
+     * 预处理结果缓存键：不同模型的限制相同时共享结果
+     */
+    private record CacheKey(String imageId, ImageProcessConfig.Limits limits) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.proj.ai.job;
+
+import com.proj.ai.dto.OllamaChatRequest;
+import com.proj.ai.dto.OllamaChatWithImageRequest;
+import com.proj.ai.dto.OllamaResponse;
+import com.proj.ai.dto.WhisperRequest;
+import com.proj.ai.dto.WhisperResponse;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 异步任务（持久化到任务目录）
+ * Whisper 任务的音频 Base64 单独保存，不写入任务 JSON
+ */
+@Data
+public class Job {
+    
+    private String id;
+    
+    private JobType type;
+    
+    private volatile JobStatus status;
+    
+    private Long createdAt;
+    
+    private Long startedAt;
+    
+    private Long finishedAt;
+    
+    /**
+     * 已执行次数
+     */
+    private Integer attempts = 0;
+    
+    private OllamaChatRequest chat;
+    
+    private OllamaChatWithImageRequest image;
+    
+    private WhisperRequest whisper;
+    
+    private OllamaResponse ollamaResult;
+    
+    private WhisperResponse whisperResult;
+    
+    private String errorMessage;
+    
+    private String webhookUrl;
+    
+    /**
+     * Webhook 回调状态：pending/delivered/failed
+     */
+    private String webhookStatus;
+    
+    /**
+     * 保护状态变更及其保存（不序列化）
+     */
+    @Getter(AccessLevel.NONE)
+    private final transient ReentrantLock lock = new ReentrantLock();
+    
+    ReentrantLock lock() {
+        return lock;
+    }
+}
@@ -0,0 +1,413 @@
+package com.proj.ai.job;
+
+import com.proj.ai.config.JobConfig;
+import com.proj.ai.dto.JobInfo;
+import com.proj.ai.dto.JobStats;
+import com.proj.ai.dto.JobSubmitRequest;
+import com.proj.ai.dto.WhisperRequest;
+import com.proj.ai.dto.WhisperResponse;
+import com.proj.ai.exception.OverloadException;
+import com.proj.ai.service.OllamaService;
+import com.proj.ai.service.WhisperService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步任务管理
+ * <p>
+ * 提交时任务先写入 {@link JobStore} 再进入内存队列，由固定数量的工作线程依次执行，提交本身只有一次小文件写入；
+ * 重启后排队中和执行中的任务重新排队，回调未送达的已结束任务重新回调。
+ * 推理服务过载（{@link OverloadException}）时按 Retry-After 延迟重新排队，最多执行 jobs.max-attempts 次
+ */
+@Slf4j
+@Component
+public class JobManager {
+
+    private static final String WEBHOOK_PENDING = "pending";
+    private static final String WEBHOOK_DELIVERED = "delivered";
+    private static final String WEBHOOK_FAILED = "failed";
+
+    @Autowired
+    private JobConfig jobConfig;
+
+    @Autowired
+    private JobStore jobStore;
+
+    @Autowired
+    private OllamaService ollamaService;
+
+    @Autowired
+    private WhisperService whisperService;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder queueTimeMs = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+    private final LongAdder runTimeMs = new LongAdder();
+
+    private ExecutorService workers;
+
+    private ScheduledExecutorService scheduler;
+
+    private WebClient webClient;
+
+    @PostConstruct
+    public void init() throws IOException {
+        AtomicInteger workerIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(jobConfig.getWorkers(), r -> {
+            Thread thread = new Thread(r, "job-worker-" + workerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "job-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.webClient = WebClient.builder().build();
+
+        recover();
+        scheduler.scheduleWithFixedDelay(this::purgeExpired, 10, 10, TimeUnit.MINUTES);
+        log.info("初始化异步任务，目录: {}, 工作线程: {}, 排队上限: {}, 已恢复任务: {}（排队 {}）",
+                jobConfig.getDir(), jobConfig.getWorkers(), jobConfig.getMaxPending(), jobs.size(), pending.get());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        // 执行中的任务保持 RUNNING，重启后重新排队
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param request 提交请求
+     * @return 任务详情（PENDING）
+     */
+    public JobInfo submit(JobSubmitRequest request) {
+        Job job = new Job();
+        job.setId(UUID.randomUUID().toString().replace("-", ""));
+        job.setType(request.getType());
+        job.setStatus(JobStatus.PENDING);
+        job.setCreatedAt(System.currentTimeMillis());
+        job.setWebhookUrl(request.getWebhookUrl());
+        switch (request.getType()) {
+            case OLLAMA_CHAT -> job.setChat(require(request.getChat(), "chat"));
+            case OLLAMA_IMAGE -> job.setImage(require(request.getImage(), "image"));
+            case WHISPER -> job.setWhisper(require(request.getWhisper(), "whisper"));
+        }
+
+        if (pending.incrementAndGet() > jobConfig.getMaxPending()) {
+            pending.decrementAndGet();
+            rejected.increment();
+            throw new OverloadException("任务队列已满（" + jobConfig.getMaxPending() + "），请稍后重试", 429, 10);
+        }
+        try {
+            if (job.getType() == JobType.WHISPER) {
+                // 音频单独保存，任务 JSON 保持小巧
+                jobStore.saveAudio(job.getId(), job.getWhisper().getAudioBase64());
+                job.getWhisper().setAudioBase64(null);
+            }
+            jobStore.save(job);
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            jobStore.delete(job.getId());
+            throw e;
+        }
+        jobs.put(job.getId(), job);
+        submitted.increment();
+        workers.execute(() -> run(job));
+        log.info("提交任务 {}，类型: {}, 排队: {}", job.getId(), job.getType(), pending.get());
+        return toInfo(job);
+    }
+
+    /**
+     * 查询任务
+     *
+     * @param id 任务 ID
+     * @return 任务详情，不存在时返回 null
+     */
+    public JobInfo get(String id) {
+        Job job = jobs.get(id);
+        return job != null ? toInfo(job) : null;
+    }
+
+    /**
+     * 取消排队中的任务，执行中或已结束的任务不能取消
+     *
+     * @param id 任务 ID
+     * @return 任务详情，不存在时返回 null
+     */
+    public JobInfo cancel(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            return null;
+        }
+        job.lock().lock();
+        try {
+            if (job.getStatus() != JobStatus.PENDING) {
+                throw new IllegalStateException("任务状态为 " + job.getStatus() + "，只能取消排队中的任务");
+            }
+            pending.decrementAndGet();
+            job.setErrorMessage("已取消");
+            finish(job, JobStatus.CANCELLED);
+        } finally {
+            job.lock().unlock();
+        }
+        return toInfo(job);
+    }
+
+    /**
+     * 获取统计
+     */
+    public JobStats stats() {
+        int succeeded = 0;
+        int failed = 0;
+        int cancelled = 0;
+        for (Job job : jobs.values()) {
+            switch (job.getStatus()) {
+                case SUCCEEDED -> succeeded++;
+                case FAILED -> failed++;
+                case CANCELLED -> cancelled++;
+                default -> {
+                }
+            }
+        }
+        long startedCount = started.sum();
+        long finishedCount = finished.sum();
+        return JobStats.builder()
+                .workers(jobConfig.getWorkers())
+                .pending(pending.get())
+                .running(running.get())
+                .succeeded(succeeded)
+                .failed(failed)
+                .cancelled(cancelled)
+                .submittedCount(submitted.sum())
+                .rejectedCount(rejected.sum())
+                .avgQueueTimeMs(startedCount > 0 ? queueTimeMs.sum() / startedCount : 0)
+                .avgRunTimeMs(finishedCount > 0 ? runTimeMs.sum() / finishedCount : 0)
+                .build();
+    }
+
+    /**
+     * 在工作线程上执行任务
+     */
+    private void run(Job job) {
+        job.lock().lock();
+        try {
+            if (job.getStatus() != JobStatus.PENDING) {
+                return;
+            }
+            pending.decrementAndGet();
+            running.incrementAndGet();
+            job.setStatus(JobStatus.RUNNING);
+            job.setStartedAt(System.currentTimeMillis());
+            job.setAttempts(job.getAttempts() + 1);
+            jobStore.save(job);
+        } finally {
+            job.lock().unlock();
+        }
+        started.increment();
+        queueTimeMs.add(job.getStartedAt() - job.getCreatedAt());
+        log.info("开始执行任务 {}，类型: {}, 第 {} 次", job.getId(), job.getType(), job.getAttempts());
+
+        try {
+            execute(job);
+            finish(job, job.getErrorMessage() == null ? JobStatus.SUCCEEDED : JobStatus.FAILED);
+        } catch (OverloadException e) {
+            if (job.getAttempts() < jobConfig.getMaxAttempts()) {
+                log.warn("任务 {} 执行时推理服务过载，{} 秒后重新排队", job.getId(), e.getRetryAfterSeconds());
+                job.lock().lock();
+                try {
+                    pending.incrementAndGet();
+                    job.setStatus(JobStatus.PENDING);
+                    jobStore.save(job);
+                } finally {
+                    job.lock().unlock();
+                }
+                scheduler.schedule(() -> workers.execute(() -> run(job)), e.getRetryAfterSeconds(), TimeUnit.SECONDS);
+            } else {
+                job.setErrorMessage(e.getMessage());
+                finish(job, JobStatus.FAILED);
+            }
+        } catch (Exception e) {
+            log.error("任务 {} 执行失败: {}", job.getId(), e.getMessage(), e);
+            job.setErrorMessage(e.getMessage());
+            finish(job, JobStatus.FAILED);
+        } finally {
+            running.decrementAndGet();
+            runTimeMs.add(System.currentTimeMillis() - job.getStartedAt());
+            finished.increment();
+        }
+    }
+
+    /**
+     * 调用对应的服务，失败时设置 errorMessage 或抛出异常
+     */
+    private void execute(Job job) {
+        switch (job.getType()) {
+            case OLLAMA_CHAT -> job.setOllamaResult(ollamaService.chat(job.getChat()));
+            case OLLAMA_IMAGE -> job.setOllamaResult(ollamaService.chatWithImage(job.getImage()));
+            case WHISPER -> {
+                WhisperRequest request = new WhisperRequest();
+                request.setAudioBase64(jobStore.readAudio(job.getId()));
+                request.setLanguage(job.getWhisper().getLanguage());
+                request.setResponseFormat(job.getWhisper().getResponseFormat());
+                request.setTranslate(job.getWhisper().getTranslate());
+                WhisperResponse response = whisperService.recognize(request);
+                job.setWhisperResult(response);
+                if (!Boolean.TRUE.equals(response.getSuccess())) {
+                    job.setErrorMessage(response.getErrorMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 任务结束：保存状态、删除音频、发送回调
+     */
+    private void finish(Job job, JobStatus status) {
+        job.lock().lock();
+        try {
+            job.setStatus(status);
+            job.setFinishedAt(System.currentTimeMillis());
+            if (job.getWebhookUrl() != null && !job.getWebhookUrl().isBlank()) {
+                job.setWebhookStatus(WEBHOOK_PENDING);
+            }
+            jobStore.save(job);
+        } finally {
+            job.lock().unlock();
+        }
+        if (job.getType() == JobType.WHISPER) {
+            jobStore.deleteAudio(job.getId());
+        }
+        log.info("任务 {} 结束，状态: {}", job.getId(), status);
+        notifyWebhook(job);
+    }
+
+    /**
+     * 以 POST 发送任务详情到回调地址，失败时按指数退避重试
+     */
+    private void notifyWebhook(Job job) {
+        if (!WEBHOOK_PENDING.equals(job.getWebhookStatus())) {
+            return;
+        }
+        webClient.post()
+                .uri(job.getWebhookUrl())
+                .bodyValue(toInfo(job))
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(Duration.ofMillis(jobConfig.getWebhookTimeout()))
+                .retryWhen(Retry.backoff(jobConfig.getWebhookRetries(), Duration.ofSeconds(1)))
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(
+                        response -> updateWebhookStatus(job, WEBHOOK_DELIVERED),
+                        e -> {
+                            log.warn("任务 {} 回调失败 {}: {}", job.getId(), job.getWebhookUrl(), e.getMessage());
+                            updateWebhookStatus(job, WEBHOOK_FAILED);
+                        });
+    }
+
+    private void updateWebhookStatus(Job job, String status) {
+        job.lock().lock();
+        try {
+            job.setWebhookStatus(status);
+            if (jobs.containsKey(job.getId())) {
+                jobStore.save(job);
+            }
+        } finally {
+            job.lock().unlock();
+        }
+    }
+
+    /**
+     * 启动时恢复任务：排队中和执行中的按提交时间重新排队，回调未送达的重新回调
+     */
+    private void recover() throws IOException {
+        List<Job> loaded = jobStore.loadAll();
+        loaded.sort(Comparator.comparing(Job::getCreatedAt));
+        for (Job job : loaded) {
+            jobs.put(job.getId(), job);
+            if (!job.getStatus().isFinished()) {
+                job.setStatus(JobStatus.PENDING);
+                pending.incrementAndGet();
+                workers.execute(() -> run(job));
+            } else if (WEBHOOK_PENDING.equals(job.getWebhookStatus())) {
+                notifyWebhook(job);
+            }
+        }
+    }
+
+    /**
+     * 删除超过保留时间的已结束任务
+     */
+    private void purgeExpired() {
+        long expireBefore = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(jobConfig.getRetentionHours());
+        jobs.values().removeIf(job -> {
+            if (job.getStatus().isFinished() && job.getFinishedAt() != null && job.getFinishedAt() < expireBefore) {
+                jobStore.delete(job.getId());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private <T> T require(T payload, String field) {
+        if (payload == null) {
+            throw new IllegalArgumentException("任务类型与参数不匹配，请填写 " + field);
+        }
+        return payload;
+    }
+
+    private JobInfo toInfo(Job job) {
+        job.lock().lock();
+        try {
+            return JobInfo.builder()
+                    .id(job.getId())
+                    .type(job.getType())
+                    .status(job.getStatus())
+                    .createdAt(job.getCreatedAt())
+                    .startedAt(job.getStartedAt())
+                    .finishedAt(job.getFinishedAt())
+                    .attempts(job.getAttempts())
+                    .ollamaResult(job.getOllamaResult())
+                    .whisperResult(job.getWhisperResult())
+                    .errorMessage(job.getErrorMessage())
+                    .webhookStatus(job.getWebhookStatus())
+                    .build();
+        } finally {
+            job.lock().unlock();
+        }
+    }
+}
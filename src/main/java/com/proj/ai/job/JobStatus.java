@@ -0,0 +1,39 @@
+package com.proj.ai.job;
+
+/**
+ * 异步任务状态
+ */
+public enum JobStatus {
+    
+    /**
+     * 排队中
+     */
+    PENDING,
+    
+    /**
+     * 执行中
+     */
+    RUNNING,
+    
+    /**
+     * 成功
+     */
+    SUCCEEDED,
+    
+    /**
+     * 失败
+     */
+    FAILED,
+    
+    /**
+     * 已取消
+     */
+    CANCELLED;
+    
+    /**
+     * 是否已结束
+     */
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,125 @@
+package com.proj.ai.job;
+
+import com.alibaba.fastjson2.JSON;
+import com.proj.ai.config.JobConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 任务持久化（本地文件）
+ * <p>
+ * 每个任务保存为 {id}.json，Whisper 任务的音频 Base64 保存为 {id}.b64；
+ * 写入先写临时文件再原子替换，进程在写入途中退出不会留下半个文件
+ */
+@Slf4j
+@Component
+public class JobStore {
+
+    @Autowired
+    private JobConfig jobConfig;
+
+    private Path dir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        this.dir = Files.createDirectories(Path.of(jobConfig.getDir()));
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> file.getFileName().toString().startsWith("tmp-"))
+                    .forEach(this::deleteQuietly);
+        }
+    }
+
+    /**
+     * 保存任务状态
+     */
+    public void save(Job job) {
+        write(dir.resolve(job.getId() + ".json"), JSON.toJSONString(job));
+    }
+
+    /**
+     * 保存 Whisper 任务的音频 Base64
+     */
+    public void saveAudio(String id, String audioBase64) {
+        write(dir.resolve(id + ".b64"), audioBase64);
+    }
+
+    /**
+     * 读取 Whisper 任务的音频 Base64
+     */
+    public String readAudio(String id) {
+        try {
+            return Files.readString(dir.resolve(id + ".b64"), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取任务音频失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 删除音频（任务结束后不再需要）
+     */
+    public void deleteAudio(String id) {
+        deleteQuietly(dir.resolve(id + ".b64"));
+    }
+
+    /**
+     * 删除任务及其音频
+     */
+    public void delete(String id) {
+        deleteQuietly(dir.resolve(id + ".json"));
+        deleteAudio(id);
+    }
+
+    /**
+     * 读取全部任务，无法解析的文件跳过
+     */
+    public List<Job> loadAll() throws IOException {
+        List<Job> jobs = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".json"))::iterator) {
+                try {
+                    Job job = JSON.parseObject(Files.readString(file, StandardCharsets.UTF_8), Job.class);
+                    if (job != null && job.getId() != null) {
+                        jobs.add(job);
+                    }
+                } catch (Exception e) {
+                    log.warn("跳过无法解析的任务文件 {}: {}", file, e.getMessage());
+                }
+            }
+        }
+        return jobs;
+    }
+
+    private void write(Path target, String content) {
+        try {
+            Path temp = Files.createTempFile(dir, "tmp-", ".part");
+            try {
+                Files.writeString(temp, content, StandardCharsets.UTF_8);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存任务失败: " + e.getMessage(), e);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除任务文件失败 {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.proj.ai.job;
+
+/**
+ * 异步任务类型
+ */
+public enum JobType {
+    
+    /**
+     * Ollama 文本对话
+     */
+    OLLAMA_CHAT,
+    
+    /**
+     * Ollama 图片+文本对话
+     */
+    OLLAMA_IMAGE,
+    
+    /**
+     * Whisper 语音识别
+     */
+    WHISPER
+}
@@ -0,0 +1,419 @@
+package com.proj.ai.limit;
+
+import com.proj.ai.config.ConcurrencyLimitConfig;
+import com.proj.ai.dto.ConcurrencyLimitStats;
+import com.proj.ai.exception.OverloadException;
+import io.netty.handler.timeout.ReadTimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 自适应并发限制（AIMD）
+ * <p>
+ * 在途请求数达到上限后，新请求进入有界队列等待，排队已满或等待超过 queueTimeout 时抛出 {@link OverloadException}；
+ * 上限根据请求结果调整：
+ * <ul>
+ *     <li>成功且延迟样本不超过延迟阈值，并且在途请求数达到上限的一半以上时，上限加 1/limit（每完成约 limit 个请求加 1）</li>
+ *     <li>超时、连接失败、5xx/429 或延迟样本超过延迟阈值时，上限乘以 backoffRatio；
+ *     下调之前已经发出的请求不再重复下调，避免一次拥塞把上限压到最低</li>
+ *     <li>业务错误（如参数错误）和取消不调整上限</li>
+ * </ul>
+ * 延迟样本不能随请求大小变化，否则长输出、长音频会被误判为拥塞：流式调用取首个响应元素的耗时，
+ * 非流式调用取耗时除以调用方给出的工作量（如 Whisper 的音频秒数）；没有样本的调用（工作量未知的非流式调用）
+ * 只按错误和超时调整。
+ * 延迟阈值取基线样本的 p90 × latencyTolerance：基线只采集在途请求数不超过上限一半时开始的成功请求，
+ * 反映后端不拥挤时的正常延迟，不会随负载升高而上漂；样本不足 latencyWindow 个时使用配置的 latencyThreshold。
+ * 请求在队列中等待时不占用线程（非阻塞调用），同步调用在调用线程上等待，最长 queueTimeout
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+
+    private final ConcurrencyLimitConfig.Limit config;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Deque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+
+    private double limit;
+
+    private int inFlight;
+
+    private long lastDecreaseNanos;
+
+    /**
+     * 许可占用时长（毫秒，指数加权），用于估算 Retry-After
+     */
+    private double avgLatencyMs;
+
+    /**
+     * 基线延迟样本（环形缓冲区，毫秒）
+     */
+    private final long[] baselineSamples;
+
+    private int baselineCount;
+
+    private long baselineP90Ms;
+
+    private double latencyThresholdMs;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueTimeouts = new LongAdder();
+    private final LongAdder decreases = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitConfig.Limit config) {
+        this.name = name;
+        this.config = config;
+        this.limit = config.getInitialLimit();
+        this.baselineSamples = new long[Math.max(10, config.getLatencyWindow())];
+        this.latencyThresholdMs = config.getLatencyThreshold();
+        this.lastDecreaseNanos = System.nanoTime();
+        log.info("初始化 {} 并发限制，enabled: {}, 初始上限: {}, 范围: [{}, {}], 队列: {}, 排队超时: {}ms, 初始延迟阈值: {}ms, "
+                        + "基线窗口: {}, 阈值倍数: {}",
+                name, config.getEnabled(), config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit(),
+                config.getMaxQueue(), config.getQueueTimeout(), config.getLatencyThreshold(),
+                config.getLatencyWindow(), config.getLatencyTolerance());
+    }
+
+    /**
+     * 在并发限制内执行同步调用；没有延迟样本，只按错误和超时调整上限
+     *
+     * @param call 实际调用
+     * @return 调用结果
+     */
+    public <T> T execute(Supplier<T> call) {
+        Permit permit = acquire();
+        try {
+            T result = call.get();
+            permit.release(null);
+            return result;
+        } catch (RuntimeException | Error e) {
+            permit.release(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 在并发限制内执行非阻塞调用，结束、出错或取消时归还许可；没有延迟样本，只按错误和超时调整上限
+     *
+     * @param call 实际调用（取得许可后才订阅）
+     * @return 调用结果
+     */
+    public <T> Mono<T> executeMono(Supplier<Mono<T>> call) {
+        return executeMono(call, 0);
+    }
+
+    /**
+     * 在并发限制内执行非阻塞调用，成功时以 耗时 / 工作量 作为延迟样本
+     *
+     * @param call 实际调用（取得许可后才订阅）
+     * @param workUnits 本次调用的工作量（如音频秒数），不大于 0 时不采集延迟样本
+     * @return 调用结果
+     */
+    public <T> Mono<T> executeMono(Supplier<Mono<T>> call, double workUnits) {
+        return Mono.usingWhen(acquireMono(),
+                permit -> call.get().doOnNext(result -> permit.sampleLatency(workUnits)),
+                permit -> Mono.fromRunnable(() -> permit.release(null)),
+                (permit, error) -> Mono.fromRunnable(() -> permit.release(error)),
+                permit -> Mono.fromRunnable(permit::cancel));
+    }
+
+    /**
+     * 在并发限制内执行流式调用，流结束、出错或取消时归还许可；以首个元素的耗时作为延迟样本
+     *
+     * @param call 实际调用（取得许可后才订阅）
+     * @return 响应流
+     */
+    public <T> Flux<T> executeFlux(Supplier<Flux<T>> call) {
+        return Flux.usingWhen(acquireMono(),
+                permit -> call.get().doOnNext(element -> permit.sampleLatency(1)),
+                permit -> Mono.fromRunnable(() -> permit.release(null)),
+                (permit, error) -> Mono.fromRunnable(() -> permit.release(error)),
+                permit -> Mono.fromRunnable(permit::cancel));
+    }
+
+    /**
+     * 获取许可（同步），排队时阻塞调用线程
+     */
+    public Permit acquire() {
+        try {
+            return acquireAsync().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    /**
+     * 获取许可（非阻塞），订阅者取消时退出队列；许可已发出但未送达时直接归还。
+     * 取消信号先传到 fromFuture 再取消等待方，CancellationException 由 fromFuture 忽略，不会作为丢弃的错误打印
+     */
+    private Mono<Permit> acquireMono() {
+        return Mono.defer(() -> {
+            CompletableFuture<Permit> future = acquireAsync();
+            AtomicBoolean delivered = new AtomicBoolean();
+            return Mono.fromFuture(future, true)
+                    .doOnNext(permit -> delivered.set(true))
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL && !future.cancel(false) && !delivered.get()) {
+                            future.thenAccept(Permit::cancel);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * 获取许可：未达到上限时立即放行，否则排队；排队已满时立即拒绝
+     */
+    private CompletableFuture<Permit> acquireAsync() {
+        CompletableFuture<Permit> waiter;
+        lock.lock();
+        try {
+            if (!Boolean.TRUE.equals(config.getEnabled()) || inFlight < (int) limit) {
+                inFlight++;
+                accepted.increment();
+                return CompletableFuture.completedFuture(new Permit(inFlight));
+            }
+            if (waiters.size() >= config.getMaxQueue()) {
+                rejected.increment();
+                return CompletableFuture.failedFuture(overload("排队已满"));
+            }
+            waiter = new CompletableFuture<>();
+            waiters.addLast(waiter);
+        } finally {
+            lock.unlock();
+        }
+
+        // 超时或取消时移出队列
+        waiter.whenComplete((permit, error) -> {
+            if (error != null) {
+                lock.lock();
+                try {
+                    waiters.remove(waiter);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+        CompletableFuture.delayedExecutor(config.getQueueTimeout(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (!waiter.isDone() && waiter.completeExceptionally(overload("排队超时"))) {
+                rejected.increment();
+                queueTimeouts.increment();
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * 归还许可并根据结果调整上限，然后把空出的名额交给排队的请求
+     */
+    private void release(Permit permit, Throwable error, boolean sample) {
+        long now = System.nanoTime();
+        List<CompletableFuture<Permit>> granted = new ArrayList<>();
+        List<Permit> permits = new ArrayList<>();
+        lock.lock();
+        try {
+            inFlight--;
+            if (sample) {
+                adjust(permit, error, now);
+            }
+            while (!waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                granted.add(waiters.pollFirst());
+                permits.add(new Permit(inFlight));
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // 在锁外唤醒，等待方的后续处理不占用锁；已超时或取消的等待方把名额还回来
+        for (int i = 0; i < granted.size(); i++) {
+            if (granted.get(i).complete(permits.get(i))) {
+                accepted.increment();
+            } else {
+                permits.get(i).cancel();
+            }
+        }
+    }
+
+    /**
+     * AIMD 调整（持有锁时调用）
+     */
+    private void adjust(Permit permit, Throwable error, long now) {
+        if (error != null && !isOverloadSignal(error)) {
+            return;
+        }
+        double sampleMs = permit.latencySampleMs;
+        if (error == null) {
+            double heldMs = (now - permit.startNanos) / 1_000_000.0;
+            avgLatencyMs = avgLatencyMs == 0 ? heldMs : avgLatencyMs * 0.9 + heldMs * 0.1;
+            if (sampleMs >= 0 && permit.inFlightAtStart * 2 <= (int) limit) {
+                recordBaseline((long) sampleMs);
+            }
+        }
+
+        if (error != null || sampleMs > latencyThresholdMs) {
+            if (permit.startNanos > lastDecreaseNanos) {
+                double previous = limit;
+                limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+                lastDecreaseNanos = now;
+                decreases.increment();
+                log.warn("{} 过载，并发上限 {} -> {}，原因: {}", name, (int) previous, (int) limit,
+                        error != null ? error.getMessage()
+                                : "延迟 " + (long) sampleMs + "ms 超过阈值 " + (long) latencyThresholdMs + "ms");
+            }
+        } else if (permit.inFlightAtStart * 2 >= (int) limit) {
+            limit = Math.min(config.getMaxLimit(), limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * 记录基线样本（持有锁时调用），样本满一个窗口后每新增 1/10 个窗口重新计算 p90 和延迟阈值
+     */
+    private void recordBaseline(long latencyMs) {
+        int window = baselineSamples.length;
+        baselineSamples[baselineCount % window] = latencyMs;
+        baselineCount++;
+        if (baselineCount < window || baselineCount % Math.max(1, window / 10) != 0) {
+            return;
+        }
+        long[] sorted = baselineSamples.clone();
+        Arrays.sort(sorted);
+        baselineP90Ms = sorted[(int) Math.ceil(window * 0.9) - 1];
+        latencyThresholdMs = Math.max(1, baselineP90Ms * config.getLatencyTolerance());
+        log.debug("{} 基线延迟 p90: {}ms, 延迟阈值: {}ms", name, baselineP90Ms, (long) latencyThresholdMs);
+    }
+
+    /**
+     * 过载信号：超时、连接失败、等待连接超时、5xx/429 响应
+     */
+    private boolean isOverloadSignal(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            // 等待连接超时（PoolAcquireTimeoutException）也是 TimeoutException
+            if (t instanceof TimeoutException || t instanceof ReadTimeoutException
+                    || t instanceof WebClientRequestException || t instanceof ResourceAccessException) {
+                return true;
+            }
+            if (t instanceof WebClientResponseException response) {
+                return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 拒绝异常，Retry-After 按平均耗时估算空出一个名额需要的时间
+     */
+    private OverloadException overload(String reason) {
+        long retryAfter;
+        int currentLimit;
+        lock.lock();
+        try {
+            currentLimit = (int) limit;
+            retryAfter = (long) Math.ceil(avgLatencyMs * (waiters.size() + 1) / Math.max(1, currentLimit) / 1000);
+        } finally {
+            lock.unlock();
+        }
+        retryAfter = Math.max(1, Math.min(config.getMaxRetryAfter(), retryAfter));
+        return new OverloadException(name + " 服务繁忙（并发上限 " + currentLimit + "，" + reason + "），请 "
+                + retryAfter + " 秒后重试", config.getRejectStatus(), retryAfter);
+    }
+
+    /**
+     * 获取统计
+     */
+    public ConcurrencyLimitStats stats() {
+        lock.lock();
+        try {
+            return ConcurrencyLimitStats.builder()
+                    .name(name)
+                    .enabled(config.getEnabled())
+                    .limit((int) limit)
+                    .inFlight(inFlight)
+                    .queued(waiters.size())
+                    .maxQueue(config.getMaxQueue())
+                    .acceptedCount(accepted.sum())
+                    .rejectedCount(rejected.sum())
+                    .queueTimeoutCount(queueTimeouts.sum())
+                    .limitDecreaseCount(decreases.sum())
+                    .avgLatencyMs((long) avgLatencyMs)
+                    .baselineP90Ms(baselineP90Ms > 0 ? baselineP90Ms : null)
+                    .latencyThresholdMs((long) latencyThresholdMs)
+                    .build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 许可，只能归还一次
+     */
+    public final class Permit {
+
+        private final long startNanos = System.nanoTime();
+
+        private final int inFlightAtStart;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * 延迟样本（毫秒），小于 0 表示没有样本
+         */
+        private volatile double latencySampleMs = -1;
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * 记录延迟样本：取得许可到现在的耗时除以工作量，只记录第一次
+         *
+         * @param workUnits 工作量，不大于 0 时不记录
+         */
+        public void sampleLatency(double workUnits) {
+            if (latencySampleMs < 0 && workUnits > 0) {
+                latencySampleMs = (System.nanoTime() - startNanos) / 1_000_000.0 / workUnits;
+            }
+        }
+
+        /**
+         * 调用结束后归还
+         *
+         * @param error 调用失败的异常，成功时为 null
+         */
+        public void release(Throwable error) {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.release(this, error, true);
+            }
+        }
+
+        /**
+         * 调用被取消时归还，不调整上限
+         */
+        public void cancel() {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.release(this, null, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.proj.ai.metrics;
+
+import com.proj.ai.dto.OllamaModelStats;
+import com.proj.ai.exception.OverloadException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 推理调用指标（Micrometer，通过 /actuator/prometheus 暴露）
+ * <p>
+ * <ul>
+ *     <li>ai.ollama.requests：Ollama 调用耗时，按模型、节点、结果区分</li>
+ *     <li>ai.ollama.ttft：首个响应块耗时（time to first token），按模型、节点区分</li>
+ *     <li>ai.ollama.tokens.per.second：生成速度，由 eval_count / eval_duration 计算</li>
+ *     <li>ai.ollama.tokens：提示词和生成 token 数</li>
+ *     <li>ai.ollama.warmup：模型预热（加载）耗时，按模型、节点、结果区分</li>
+ *     <li>ai.whisper.requests：Whisper 调用耗时，按服务、结果区分</li>
+ *     <li>ai.whisper.audio.duration：识别的音频时长（秒），sum 即累计处理的音频秒数</li>
+ *     <li>ai.image.download：图片下载耗时，按结果（下载/304 复用/失败）区分</li>
+ *     <li>ai.payload.size：发送给推理服务的请求体和收到的响应体大小</li>
+ *     <li>ai.errors：按后端和原因统计的错误数</li>
+ * </ul>
+ * 各接口的耗时分布由 Spring Boot 的 http.server.requests 提供
+ */
+@Component
+public class InferenceMetrics {
+
+    public static final String BACKEND_OLLAMA = "ollama";
+    public static final String BACKEND_WHISPER = "whisper";
+    public static final String BACKEND_IMAGE = "image";
+
+    public static final String DIRECTION_REQUEST = "request";
+    public static final String DIRECTION_RESPONSE = "response";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * 统计流式调用：订阅到第一个元素的耗时记为首 token 耗时，结束时记录总耗时，出错时按原因计数；
+     * 取消（客户端断开）只记录耗时
+     *
+     * @param flux 调用返回的响应流
+     * @param model 模型名称
+     * @param node 节点地址
+     */
+    public <T> Flux<T> observeOllama(Flux<T> flux, String model, String node) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean first = new AtomicBoolean(true);
+            return flux
+                    .doOnNext(item -> {
+                        if (first.compareAndSet(true, false)) {
+                            recordFirstToken(model, node, System.nanoTime() - start);
+                        }
+                    })
+                    .doOnComplete(() -> recordOllama(model, node, System.nanoTime() - start, null))
+                    .doOnError(e -> recordOllama(model, node, System.nanoTime() - start, e))
+                    .doOnCancel(() -> ollamaTimer(model, node, "cancelled").record(System.nanoTime() - start,
+                            TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * 记录一次 Ollama 调用
+     *
+     * @param error 失败原因，成功时为 null
+     */
+    public void recordOllama(String model, String node, long nanos, Throwable error) {
+        ollamaTimer(model, node, error == null ? "success" : "error").record(nanos, TimeUnit.NANOSECONDS);
+        if (error != null) {
+            recordError(BACKEND_OLLAMA, error);
+        }
+    }
+
+    /**
+     * 记录首 token 耗时
+     */
+    public void recordFirstToken(String model, String node, long nanos) {
+        Timer.builder("ai.ollama.ttft")
+                .description("Ollama 首个响应块耗时")
+                .tag("model", model)
+                .tag("node", node)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofMinutes(2))
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次模型预热（加载）
+     *
+     * @param error 失败原因，成功时为 null
+     */
+    public void recordWarmup(String model, String node, long nanos, Throwable error) {
+        Timer.builder("ai.ollama.warmup")
+                .description("Ollama 模型预热耗时")
+                .tag("model", model)
+                .tag("node", node)
+                .tag("outcome", error == null ? "success" : "error")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录生成统计（Ollama 最后一个响应块的 prompt_eval_count、eval_count、eval_duration），缺失的字段跳过
+     *
+     * @param evalDurationNanos 生成耗时（纳秒）
+     */
+    public void recordGeneration(String model, String node, Long promptEvalCount, Long evalCount,
+                                 Long evalDurationNanos) {
+        if (promptEvalCount != null && promptEvalCount > 0) {
+            tokenCounter(model, node, "prompt").increment(promptEvalCount);
+        }
+        if (evalCount == null || evalCount <= 0) {
+            return;
+        }
+        tokenCounter(model, node, "completion").increment(evalCount);
+        if (evalDurationNanos != null && evalDurationNanos > 0) {
+            DistributionSummary.builder("ai.ollama.tokens.per.second")
+                    .description("Ollama 生成速度（eval_count / eval_duration）")
+                    .baseUnit("tokens")
+                    .tag("model", model)
+                    .tag("node", node)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(1.0)
+                    .maximumExpectedValue(1000.0)
+                    .register(registry)
+                    .record(evalCount * 1_000_000_000.0 / evalDurationNanos);
+        }
+    }
+
+    /**
+     * 汇总单个模型在所有节点上的调用统计（进程启动以来的累计值），用于比较不同模型的耗时和生成速度
+     *
+     * @param vision 模型是否支持图片输入
+     */
+    public OllamaModelStats modelStats(String model, boolean vision) {
+        long successCount = 0;
+        long errorCount = 0;
+        double latencyMs = 0;
+        for (Timer timer : registry.find("ai.ollama.requests").tag("model", model).timers()) {
+            String outcome = timer.getId().getTag("outcome");
+            if ("success".equals(outcome)) {
+                successCount += timer.count();
+                latencyMs += timer.totalTime(TimeUnit.MILLISECONDS);
+            } else if ("error".equals(outcome)) {
+                errorCount += timer.count();
+            }
+        }
+        long firstTokenCount = 0;
+        double firstTokenMs = 0;
+        for (Timer timer : registry.find("ai.ollama.ttft").tag("model", model).timers()) {
+            firstTokenCount += timer.count();
+            firstTokenMs += timer.totalTime(TimeUnit.MILLISECONDS);
+        }
+        long speedCount = 0;
+        double speedSum = 0;
+        for (DistributionSummary summary : registry.find("ai.ollama.tokens.per.second").tag("model", model)
+                .summaries()) {
+            speedCount += summary.count();
+            speedSum += summary.totalAmount();
+        }
+        long promptTokens = 0;
+        long completionTokens = 0;
+        for (Counter counter : registry.find("ai.ollama.tokens").tag("model", model).counters()) {
+            if ("prompt".equals(counter.getId().getTag("type"))) {
+                promptTokens += (long) counter.count();
+            } else {
+                completionTokens += (long) counter.count();
+            }
+        }
+        return OllamaModelStats.builder()
+                .model(model)
+                .vision(vision)
+                .successCount(successCount)
+                .errorCount(errorCount)
+                .avgLatencyMs(successCount > 0 ? round(latencyMs / successCount) : null)
+                .avgFirstTokenMs(firstTokenCount > 0 ? round(firstTokenMs / firstTokenCount) : null)
+                .avgTokensPerSecond(speedCount > 0 ? round(speedSum / speedCount) : null)
+                .promptTokens(promptTokens)
+                .completionTokens(completionTokens)
+                .build();
+    }
+
+    /**
+     * 记录一次 Whisper 调用
+     *
+     * @param server 推理接口 URL
+     * @param error 失败原因，成功时为 null
+     */
+    public void recordWhisper(String server, long nanos, Throwable error) {
+        Timer.builder("ai.whisper.requests")
+                .description("Whisper 调用耗时")
+                .tag("server", server)
+                .tag("outcome", error == null ? "success" : "error")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(50))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (error != null) {
+            recordError(BACKEND_WHISPER, error);
+        }
+    }
+
+    /**
+     * 记录识别的音频时长
+     */
+    public void recordAudioDuration(long audioMs) {
+        DistributionSummary.builder("ai.whisper.audio.duration")
+                .description("Whisper 识别的音频时长")
+                .baseUnit("seconds")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(0.5)
+                .maximumExpectedValue(3600.0)
+                .register(registry)
+                .record(audioMs / 1000.0);
+    }
+
+    /**
+     * 记录图片下载
+     *
+     * @param result downloaded（下载）、not_modified（304 复用缓存）、error（失败）
+     */
+    public void recordImageDownload(String result, long nanos) {
+        Timer.builder("ai.image.download")
+                .description("图片下载耗时（不含缓存命中）")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(5))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录请求体/响应体大小
+     *
+     * @param backend ollama、whisper、image
+     * @param direction request、response
+     */
+    public void recordPayload(String backend, String direction, long bytes) {
+        DistributionSummary.builder("ai.payload.size")
+                .description("推理服务请求体/响应体大小")
+                .baseUnit("bytes")
+                .tag("backend", backend)
+                .tag("direction", direction)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(64.0)
+                .maximumExpectedValue(64.0 * 1024 * 1024)
+                .register(registry)
+                .record(bytes);
+    }
+
+    /**
+     * 包装请求体，写出时统计实际发送的字节数
+     */
+    public BodyInserter<Object, ClientHttpRequest> measureRequest(String backend,
+                                                                  BodyInserter<?, ? super ClientHttpRequest> body) {
+        return (request, context) -> body.insert(new ClientHttpRequestDecorator(request) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> buffers) {
+                long[] bytes = new long[1];
+                return super.writeWith(Flux.from(buffers).doOnNext(buffer -> bytes[0] += buffer.readableByteCount()))
+                        .doOnSuccess(v -> recordPayload(backend, DIRECTION_REQUEST, bytes[0]));
+            }
+        }, context);
+    }
+
+    /**
+     * 统计响应流的字节数，响应正常结束时记录
+     */
+    public Flux<DataBuffer> measureResponse(String backend, Flux<DataBuffer> response) {
+        return Flux.defer(() -> {
+            long[] bytes = new long[1];
+            return response
+                    .doOnNext(buffer -> bytes[0] += buffer.readableByteCount())
+                    .doOnComplete(() -> recordPayload(backend, DIRECTION_RESPONSE, bytes[0]));
+        });
+    }
+
+    /**
+     * 按原因记录错误
+     */
+    public void recordError(String backend, Throwable error) {
+        Counter.builder("ai.errors")
+                .description("推理调用错误数")
+                .tag("backend", backend)
+                .tag("cause", causeOf(error))
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * 错误原因：overload（并发限制拒绝）、timeout、connection、http_4xx、http_5xx、invalid_argument、other
+     */
+    static String causeOf(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof OverloadException) {
+                return "overload";
+            }
+            // 等待连接超时（PoolAcquireTimeoutException）也是 TimeoutException
+            if (t instanceof TimeoutException || t instanceof ReadTimeoutException) {
+                return "timeout";
+            }
+            if (t instanceof WebClientRequestException || t instanceof ResourceAccessException) {
+                return "connection";
+            }
+            if (t instanceof WebClientResponseException response) {
+                return response.getStatusCode().is5xxServerError() ? "http_5xx" : "http_4xx";
+            }
+            if (t instanceof IllegalArgumentException) {
+                return "invalid_argument";
+            }
+        }
+        return "other";
+    }
+
+    /**
+     * 字符串的 UTF-8 字节数（不分配数组）
+     */
+    public static long utf8Length(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private Timer ollamaTimer(String model, String node, String outcome) {
+        return Timer.builder("ai.ollama.requests")
+                .description("Ollama 调用耗时")
+                .tag("model", model)
+                .tag("node", node)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(50))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(registry);
+    }
+
+    private Counter tokenCounter(String model, String node, String type) {
+        return Counter.builder("ai.ollama.tokens")
+                .description("Ollama 处理的 token 数")
+                .tag("model", model)
+                .tag("node", node)
+                .tag("type", type)
+                .register(registry);
+    }
+}
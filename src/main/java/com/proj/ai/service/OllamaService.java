@@ -1,8 +1,25 @@
 package com.proj.ai.service;
 
+import com.proj.ai.dto.ConcurrencyLimitStats;
+import com.proj.ai.dto.ImageProcessStats;
+import com.proj.ai.dto.OllamaBatchChatRequest;
+import com.proj.ai.dto.OllamaBatchItem;
+import com.proj.ai.dto.OllamaBatchResponse;
 import com.proj.ai.dto.OllamaChatRequest;
 import com.proj.ai.dto.OllamaChatWithImageRequest;
+import com.proj.ai.dto.OllamaImageBatchEvent;
+import com.proj.ai.dto.OllamaImageBatchRequest;
+import com.proj.ai.dto.OllamaModelStats;
+import com.proj.ai.dto.OllamaNodeStatus;
 import com.proj.ai.dto.OllamaResponse;
+import com.proj.ai.dto.OllamaStreamEvent;
+import com.proj.ai.dto.ResponseCacheStats;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 
 /**
  * Ollama 服务接口
@@ -18,5 +35,80 @@ public interface OllamaService {
      * 图片+文本对话
      */
     OllamaResponse chatWithImage(OllamaChatWithImageRequest request);
+    
+    /**
+     * 图片+文本对话（上传图片文件）
+     * 图片在发送时流式编码为 Base64，不在内存中生成完整的 Base64 字符串
+     */
+    OllamaResponse chatWithImageUpload(String prompt, String model, MultipartFile file);
+    
+    /**
+     * 文本对话（非阻塞，WebFlux 模式使用）
+     */
+    Mono<OllamaResponse> chatReactive(OllamaChatRequest request);
+    
+    /**
+     * 图片+文本对话（非阻塞，WebFlux 模式使用）
+     */
+    Mono<OllamaResponse> chatWithImageReactive(OllamaChatWithImageRequest request);
+    
+    /**
+     * 图片+文本对话（上传图片文件，非阻塞，WebFlux 模式使用）
+     */
+    Mono<OllamaResponse> chatWithImageUploadReactive(String prompt, String model, FilePart file);
+    
+    /**
+     * 文本对话（流式）
+     * 逐个返回 token 事件，最后返回一个携带耗时统计的 done 事件
+     */
+    Flux<OllamaStreamEvent> chatStream(OllamaChatRequest request);
+    
+    /**
+     * 图片+文本对话（流式）
+     * 逐个返回 token 事件，最后返回一个携带耗时统计的 done 事件
+     */
+    Flux<OllamaStreamEvent> chatWithImageStream(OllamaChatWithImageRequest request);
+    
+    /**
+     * 批量文本对话
+     * 多个提示词有限并行执行，全部完成后按请求顺序返回，单条失败不影响其他提示词
+     */
+    Mono<OllamaBatchResponse> chatBatch(OllamaBatchChatRequest request);
+    
+    /**
+     * 批量文本对话（流式）
+     * 按完成顺序逐条返回结果，通过 index 对应请求中的提示词
+     */
+    Flux<OllamaBatchItem> chatBatchStream(OllamaBatchChatRequest request);
+    
+    /**
+     * 批量图片识别（流式）
+     * 下载、预处理、推理三个阶段流水线执行，按完成顺序返回每张图片的结果，最后返回携带吞吐量的 done 事件
+     */
+    Flux<OllamaImageBatchEvent> chatWithImageBatchStream(OllamaImageBatchRequest request);
+    
+    /**
+     * 获取 Ollama 节点状态
+     */
+    List<OllamaNodeStatus> getNodeStatus();
+    
+    /**
+     * 获取响应缓存统计
+     */
+    ResponseCacheStats getCacheStats();
+    
+    /**
+     * 获取图片预处理统计
+     */
+    ImageProcessStats getImageProcessStats();
+    
+    /**
+     * 获取 Ollama 并发限制统计
+     */
+    ConcurrencyLimitStats getLimitStats();
+    
+    /**
+     * 获取可用模型及各模型的调用统计（调用数、耗时、首 token 耗时、生成速度）
+     */
+    List<OllamaModelStats> getModelStats();
 }
-
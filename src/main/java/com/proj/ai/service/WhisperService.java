@@ -1,8 +1,15 @@
 package com.proj.ai.service;
 
+import com.proj.ai.dto.AudioNormalizeStats;
+import com.proj.ai.dto.ConcurrencyLimitStats;
+import com.proj.ai.dto.WhisperPoolStats;
 import com.proj.ai.dto.WhisperRequest;
 import com.proj.ai.dto.WhisperResponse;
+import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Whisper 语音识别服务接口
@@ -25,5 +32,74 @@ public interface WhisperService {
      * @return 识别结果
      */
     WhisperResponse recognizeFile(MultipartFile file, String language);
+    
+    /**
+     * 语音识别（Base64 编码，异步）
+     * 不占用调用线程，识别失败时返回 success=false 的响应，只有过载时以 OverloadException 异常完成
+     *
+     * @param request 请求参数
+     * @return 识别结果
+     */
+    CompletableFuture<WhisperResponse> recognizeAsync(WhisperRequest request);
+    
+    /**
+     * 语音识别（文件上传，异步）
+     * 文件内容在调用线程内读取，之后的识别不占用调用线程
+     *
+     * @param file 音频文件
+     * @param language 语言代码（可选，默认 zh）
+     * @return 识别结果
+     */
+    CompletableFuture<WhisperResponse> recognizeFileAsync(MultipartFile file, String language);
+    
+    /**
+     * 语音识别（Base64 编码，非阻塞，WebFlux 模式使用）
+     * 识别失败时返回 success=false 的响应，只有过载时以 OverloadException 结束
+     *
+     * @param request 请求参数
+     * @return 识别结果
+     */
+    Mono<WhisperResponse> recognizeReactive(WhisperRequest request);
+    
+    /**
+     * 语音识别（文件上传，非阻塞，WebFlux 模式使用）
+     * 未启用长音频分段时上传内容直接转发给 Whisper 服务，不在内存中汇总
+     *
+     * @param file 音频文件
+     * @param language 语言代码（可选，默认 zh）
+     * @return 识别结果
+     */
+    Mono<WhisperResponse> recognizeFileReactive(FilePart file, String language);
+    
+    /**
+     * 语音识别（内存中的短音频，非阻塞）
+     * 实时识别使用，不做长音频分段；识别失败时返回 success=false 的响应，只有过载时以 OverloadException 结束
+     *
+     * @param audioBytes 音频（如 WAV）
+     * @param language 语言代码
+     * @return 识别结果
+     */
+    Mono<WhisperResponse> recognizeBytesReactive(byte[] audioBytes, String language);
+    
+    /**
+     * 获取 Whisper 连接池统计
+     *
+     * @return 连接池统计
+     */
+    WhisperPoolStats getPoolStats();
+    
+    /**
+     * 获取 Whisper 并发限制统计
+     *
+     * @return 并发限制统计
+     */
+    ConcurrencyLimitStats getLimitStats();
+    
+    /**
+     * 获取音频归一化统计
+     *
+     * @return 音频归一化统计
+     */
+    AudioNormalizeStats getNormalizeStats();
 }
 
@@ -1,13 +1,48 @@
 package com.proj.ai.service.impl;
 
+import com.proj.ai.cache.ImageCache;
+import com.proj.ai.cache.RequestCoalescer;
+import com.proj.ai.cache.ResponseCache;
+import com.proj.ai.client.ModelRouter;
 import com.proj.ai.client.OllamaClient;
+import com.proj.ai.client.OllamaNodePool;
+import com.proj.ai.client.OllamaStreamChunk;
+import com.proj.ai.config.OllamaBatchConfig;
+import com.proj.ai.image.ImageBatchPipeline;
+import com.proj.ai.image.ImagePreprocessor;
+import com.proj.ai.metrics.InferenceMetrics;
+import com.proj.ai.dto.ConcurrencyLimitStats;
+import com.proj.ai.dto.ImageProcessStats;
+import com.proj.ai.dto.OllamaBatchChatRequest;
+import com.proj.ai.dto.OllamaBatchItem;
+import com.proj.ai.dto.OllamaBatchResponse;
 import com.proj.ai.dto.OllamaChatRequest;
 import com.proj.ai.dto.OllamaChatWithImageRequest;
+import com.proj.ai.dto.OllamaImageBatchEvent;
+import com.proj.ai.dto.OllamaImageBatchRequest;
+import com.proj.ai.dto.OllamaModelStats;
+import com.proj.ai.dto.OllamaNodeStatus;
 import com.proj.ai.dto.OllamaResponse;
+import com.proj.ai.dto.OllamaStreamEvent;
+import com.proj.ai.dto.ResponseCacheStats;
 import com.proj.ai.service.OllamaService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Ollama 服务实现
@@ -19,6 +54,36 @@ public class OllamaServiceImpl implements OllamaService {
     @Autowired
     private OllamaClient ollamaClient;
     
+    @Autowired
+    private OllamaNodePool nodePool;
+    
+    @Autowired
+    private ResponseCache responseCache;
+    
+    @Autowired
+    private ImageCache imageCache;
+    
+    @Autowired
+    private ImagePreprocessor imagePreprocessor;
+    
+    @Autowired
+    private RequestCoalescer coalescer;
+    
+    @Autowired
+    private OllamaBatchConfig batchConfig;
+    
+    @Autowired
+    private ImageBatchPipeline imageBatchPipeline;
+    
+    @Autowired
+    private ModelRouter modelRouter;
+    
+    @Autowired
+    private InferenceMetrics inferenceMetrics;
+    
+    @Value("${spring.ai.ollama.chat.options.temperature:0.7}")
+    private Double temperature;
+    
     /**
      * 文本对话
      */
@@ -27,17 +92,40 @@ public class OllamaServiceImpl implements OllamaService {
         log.info("处理文本对话请求");
         
         long startTime = System.currentTimeMillis();
+        String model = modelRouter.textModel(request.getModel(), request.getFallback());
+        
+        // 查询响应缓存（请求可通过 useCache=false 跳过）
+        boolean useCache = responseCache.isEnabled() && !Boolean.FALSE.equals(request.getUseCache());
+        String cacheKey = chatKey(model, request);
+        if (useCache) {
+            String cached = responseCache.get(cacheKey);
+            if (cached != null) {
+                log.info("文本对话命中响应缓存");
+                return OllamaResponse.builder()
+                        .response(cached)
+                        .modelName(model)
+                        .responseTime(System.currentTimeMillis() - startTime)
+                        .cached(true)
+                        .build();
+            }
+        }
+        
+        // 调用 Ollama（相同请求正在执行时共享其结果）
+        String response = coalesce(request.getUseCache(), cacheKey,
+                () -> ollamaClient.chat(model, request.getPrompt()));
         
-        // 调用 Ollama
-        String response = ollamaClient.chat(request.getPrompt());
+        if (useCache && response != null && !response.isEmpty()) {
+            responseCache.put(cacheKey, response);
+        }
         
         long endTime = System.currentTimeMillis();
         
         // 构建响应
         return OllamaResponse.builder()
                 .response(response)
-                .modelName(ollamaClient.getModelName())
+                .modelName(model)
                 .responseTime(endTime - startTime)
+                .cached(false)
                 .build();
     }
     
@@ -49,22 +137,474 @@ public class OllamaServiceImpl implements OllamaService {
         log.info("处理图片+文本对话请求");
         
         long startTime = System.currentTimeMillis();
+        String model = modelRouter.visionModel(request.getModel(), request.getFallback());
         
-        // 调用 Ollama（支持 imageBase64 和 imageUrl 两种方式）
-        String response = ollamaClient.chatWithImage(
+        // 调用 Ollama（支持 imageBase64 和 imageUrl 两种方式，相同请求正在执行时共享其结果）
+        ResolvedImage image = resolveImage(request).block();
+        String response = coalesce(null, imageKey(model, request, image), () -> ollamaClient.chatWithImage(
+                model,
                 request.getPrompt(), 
-                request.getImage(),
-                request.getImageUrl()
-        );
+                image.base64(),
+                null,
+                image.imageId()
+        ));
         
         long endTime = System.currentTimeMillis();
         
         // 构建响应
         return OllamaResponse.builder()
                 .response(response)
-                .modelName(ollamaClient.getModelName())
+                .modelName(model)
+                .responseTime(endTime - startTime)
+                .cached(false)
+                .build();
+    }
+    
+    /**
+     * 图片+文本对话（上传图片文件）
+     */
+    @Override
+    public OllamaResponse chatWithImageUpload(String prompt, String model, MultipartFile file) {
+        log.info("处理图片+文本对话请求（文件上传）");
+        
+        long startTime = System.currentTimeMillis();
+        String resolvedModel = modelRouter.visionModel(model, null);
+        
+        String response = ollamaClient.chatWithImageBytes(resolvedModel, prompt, file);
+        
+        long endTime = System.currentTimeMillis();
+        
+        return OllamaResponse.builder()
+                .response(response)
+                .modelName(resolvedModel)
                 .responseTime(endTime - startTime)
+                .cached(false)
                 .build();
     }
+    
+    /**
+     * 文本对话（非阻塞）
+     */
+    @Override
+    public Mono<OllamaResponse> chatReactive(OllamaChatRequest request) {
+        return Mono.defer(() -> {
+            log.info("处理文本对话请求（非阻塞）");
+            
+            long startTime = System.currentTimeMillis();
+            String model = modelRouter.textModel(request.getModel(), request.getFallback());
+            
+            boolean useCache = responseCache.isEnabled() && !Boolean.FALSE.equals(request.getUseCache());
+            String cacheKey = chatKey(model, request);
+            if (useCache) {
+                String cached = responseCache.get(cacheKey);
+                if (cached != null) {
+                    log.info("文本对话命中响应缓存");
+                    return Mono.just(OllamaResponse.builder()
+                            .response(cached)
+                            .modelName(model)
+                            .responseTime(System.currentTimeMillis() - startTime)
+                            .cached(true)
+                            .build());
+                }
+            }
+            
+            return coalesceReactive(request.getUseCache(), cacheKey,
+                    () -> ollamaClient.chatReactive(model, request.getPrompt()))
+                    .doOnNext(response -> {
+                        if (useCache && !response.isEmpty()) {
+                            responseCache.put(cacheKey, response);
+                        }
+                    })
+                    .map(response -> OllamaResponse.builder()
+                            .response(response)
+                            .modelName(model)
+                            .responseTime(System.currentTimeMillis() - startTime)
+                            .cached(false)
+                            .build());
+        });
+    }
+    
+    /**
+     * 图片+文本对话（非阻塞）
+     */
+    @Override
+    public Mono<OllamaResponse> chatWithImageReactive(OllamaChatWithImageRequest request) {
+        return Mono.defer(() -> {
+            log.info("处理图片+文本对话请求（非阻塞）");
+            
+            long startTime = System.currentTimeMillis();
+            String model = modelRouter.visionModel(request.getModel(), request.getFallback());
+            
+            return resolveImage(request)
+                    .flatMap(image -> coalesceReactive(null, imageKey(model, request, image),
+                            () -> ollamaClient.chatWithImageReactive(
+                                    model,
+                                    request.getPrompt(),
+                                    image.base64(),
+                                    null,
+                                    image.imageId())))
+                    .map(response -> OllamaResponse.builder()
+                            .response(response)
+                            .modelName(model)
+                            .responseTime(System.currentTimeMillis() - startTime)
+                            .cached(false)
+                            .build());
+        });
+    }
+    
+    /**
+     * 图片+文本对话（上传图片文件，非阻塞）
+     */
+    @Override
+    public Mono<OllamaResponse> chatWithImageUploadReactive(String prompt, String model, FilePart file) {
+        return Mono.defer(() -> {
+            log.info("处理图片+文本对话请求（文件上传，非阻塞）");
+            
+            long startTime = System.currentTimeMillis();
+            String resolvedModel = modelRouter.visionModel(model, null);
+            
+            return ollamaClient.chatWithImageBytesReactive(resolvedModel, prompt, file.content())
+                    .map(response -> OllamaResponse.builder()
+                            .response(response)
+                            .modelName(resolvedModel)
+                            .responseTime(System.currentTimeMillis() - startTime)
+                            .cached(false)
+                            .build());
+        });
+    }
+    
+    /**
+     * 文本对话（流式）
+     */
+    @Override
+    public Flux<OllamaStreamEvent> chatStream(OllamaChatRequest request) {
+        return Flux.defer(() -> {
+            log.info("处理流式文本对话请求");
+            String model = modelRouter.textModel(request.getModel(), request.getFallback());
+            Supplier<Flux<OllamaStreamChunk>> source = () -> ollamaClient.chatStream(model, request.getPrompt());
+            return toStreamEvents(model, coalesceStream(request.getUseCache(), chatKey(model, request), source));
+        });
+    }
+    
+    /**
+     * 图片+文本对话（流式）
+     */
+    @Override
+    public Flux<OllamaStreamEvent> chatWithImageStream(OllamaChatWithImageRequest request) {
+        return Flux.defer(() -> {
+            log.info("处理流式图片+文本对话请求");
+            String model = modelRouter.visionModel(request.getModel(), request.getFallback());
+            return resolveImage(request).flatMapMany(image -> {
+                Supplier<Flux<OllamaStreamChunk>> source = () -> ollamaClient.chatWithImageStream(
+                        model,
+                        request.getPrompt(),
+                        image.base64(),
+                        null,
+                        image.imageId()
+                );
+                return toStreamEvents(model, coalesceStream(null, imageKey(model, request, image), source));
+            });
+        });
+    }
+    
+    /**
+     * 批量文本对话
+     */
+    @Override
+    public Mono<OllamaBatchResponse> chatBatch(OllamaBatchChatRequest request) {
+        return Mono.defer(() -> {
+            long startTime = System.currentTimeMillis();
+            String model = modelRouter.textModel(request.getModel(), request.getFallback());
+            return chatBatchStream(request)
+                    .collectSortedList(Comparator.comparing(OllamaBatchItem::getIndex))
+                    .map(items -> {
+                        int successCount = (int) items.stream().filter(OllamaBatchItem::getSuccess).count();
+                        return OllamaBatchResponse.builder()
+                                .total(items.size())
+                                .successCount(successCount)
+                                .failureCount(items.size() - successCount)
+                                .modelName(model)
+                                .responseTime(System.currentTimeMillis() - startTime)
+                                .items(items)
+                                .build();
+                    });
+        });
+    }
+    
+    /**
+     * 批量文本对话（流式）
+     * 每个提示词走 {@link #chatReactive}，共享响应缓存、请求合并和并发限制；
+     * 并行数不超过 Ollama 当前的并发上限，避免一个批量请求占满名额后其余提示词被限流拒绝
+     */
+    @Override
+    public Flux<OllamaBatchItem> chatBatchStream(OllamaBatchChatRequest request) {
+        return Flux.defer(() -> {
+            List<String> prompts = request.getPrompts();
+            if (prompts.size() > batchConfig.getMaxSize()) {
+                return Flux.error(new IllegalArgumentException(
+                        "单次最多 " + batchConfig.getMaxSize() + " 个提示词，当前: " + prompts.size()));
+            }
+            // 模型不可用时整个批量失败，而不是每个提示词各失败一次
+            String model = modelRouter.textModel(request.getModel(), request.getFallback());
+            int concurrency = batchConcurrency(request.getConcurrency(), prompts.size());
+            log.info("处理批量文本对话请求，模型: {}, 数量: {}, 并行数: {}", model, prompts.size(), concurrency);
+            
+            return Flux.range(0, prompts.size())
+                    .flatMap(index -> chatBatchItem(index, prompts.get(index), model, request.getUseCache()),
+                            concurrency);
+        });
+    }
+    
+    /**
+     * 批量图片识别（流式）
+     * 推理阶段并行数与批量文本对话的计算方式相同，下载和预处理并行数见 ollama.batch.image
+     */
+    @Override
+    public Flux<OllamaImageBatchEvent> chatWithImageBatchStream(OllamaImageBatchRequest request) {
+        return Flux.defer(() -> {
+            List<String> imageUrls = request.getImageUrls();
+            int maxSize = batchConfig.getImage().getMaxSize();
+            if (imageUrls.size() > maxSize) {
+                return Flux.error(new IllegalArgumentException(
+                        "单次最多 " + maxSize + " 张图片，当前: " + imageUrls.size()));
+            }
+            String model = modelRouter.visionModel(request.getModel(), request.getFallback());
+            int concurrency = batchConcurrency(request.getConcurrency(), imageUrls.size());
+            log.info("处理批量图片识别请求，模型: {}, 数量: {}, 推理并行数: {}", model, imageUrls.size(), concurrency);
+            return imageBatchPipeline.run(request.getPrompt(), model, imageUrls, concurrency);
+        });
+    }
+    
+    /**
+     * 批量中的单个提示词，失败时转换为失败结果而不是中断整个批量
+     */
+    private Mono<OllamaBatchItem> chatBatchItem(int index, String prompt, String model, Boolean useCache) {
+        OllamaChatRequest request = new OllamaChatRequest();
+        request.setPrompt(prompt);
+        request.setModel(model);
+        request.setUseCache(useCache);
+        return chatReactive(request)
+                .map(response -> OllamaBatchItem.builder()
+                        .index(index)
+                        .success(true)
+                        .response(response.getResponse())
+                        .cached(response.getCached())
+                        .responseTime(response.getResponseTime())
+                        .build())
+                .onErrorResume(e -> {
+                    log.warn("批量文本对话第 {} 个提示词失败: {}", index, e.getMessage());
+                    return Mono.just(OllamaBatchItem.builder()
+                            .index(index)
+                            .success(false)
+                            .errorMessage(e.getMessage())
+                            .build());
+                });
+    }
+    
+    /**
+     * 批量并行数：请求指定值（默认取配置），不超过配置上限、Ollama 当前并发上限和提示词数量
+     */
+    private int batchConcurrency(Integer requested, int size) {
+        int concurrency = requested != null ? requested : batchConfig.getConcurrency();
+        concurrency = Math.min(concurrency, batchConfig.getMaxConcurrency());
+        ConcurrencyLimitStats limit = nodePool.getLimiter().stats();
+        if (Boolean.TRUE.equals(limit.getEnabled())) {
+            concurrency = Math.min(concurrency, limit.getLimit());
+        }
+        return Math.max(1, Math.min(concurrency, size));
+    }
+    
+    /**
+     * 获取 Ollama 节点状态
+     */
+    @Override
+    public List<OllamaNodeStatus> getNodeStatus() {
+        return nodePool.getNodes().stream()
+                .map(node -> OllamaNodeStatus.builder()
+                        .url(node.getUrl())
+                        .weight(node.getWeight())
+                        .healthy(node.isHealthy())
+                        .inFlight(node.getInFlight().get())
+                        .availableModels(node.getAvailableModels())
+                        .loadedModels(node.getLoadedModels())
+                        .lastCheckTime(node.getLastCheckTime())
+                        .build())
+                .toList();
+    }
+    
+    /**
+     * 获取响应缓存统计
+     */
+    @Override
+    public ResponseCacheStats getCacheStats() {
+        ResponseCacheStats stats = responseCache.stats();
+        stats.setCoalescedCount(coalescer.getCoalescedCount());
+        stats.setInFlightCount(coalescer.getInFlightCount());
+        return stats;
+    }
+    
+    /**
+     * 文本请求 key：模型 + 规范化提示词 + 推理参数
+     */
+    private String chatKey(String model, OllamaChatRequest request) {
+        return responseCache.key(model, request.getPrompt(),
+                Map.of("temperature", temperature));
+    }
+    
+    /**
+     * 图片请求 key：模型 + 规范化提示词 + 图片摘要；未启用请求合并时为 null
+     * 按内容而不是 URL 区分图片：不同 URL 的相同图片可以合并，同一 URL 的图片更新后不会拿到旧图片的结果
+     */
+    private String imageKey(String model, OllamaChatWithImageRequest request, ResolvedImage image) {
+        if (image.imageId() == null) {
+            return null;
+        }
+        return responseCache.key(model, request.getPrompt(), Map.of("image", image.imageId()));
+    }
+    
+    /**
+     * 解析请求中的图片：imageBase64 优先，启用请求合并时计算 Base64 字符的摘要；
+     * 否则通过图片缓存获取 imageUrl，使用下载时已计算的内容摘要
+     */
+    private Mono<ResolvedImage> resolveImage(OllamaChatWithImageRequest request) {
+        String image = request.getImage();
+        if (image != null && !image.trim().isEmpty()) {
+            if (!coalescer.isEnabled()) {
+                return Mono.just(new ResolvedImage(image, null));
+            }
+            // 摘要需要遍历整个 Base64，CPU 密集，不在事件循环线程执行
+            return Mono.fromCallable(() -> new ResolvedImage(image, "b64:" + ImageCache.digestBase64(image)))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+        String imageUrl = request.getImageUrl();
+        if (imageUrl == null || imageUrl.trim().isEmpty()) {
+            return Mono.error(new IllegalArgumentException("图片不能为空，请提供 imageBase64 或 imageUrl"));
+        }
+        return Mono.fromFuture(() -> imageCache.getEntryAsync(imageUrl), true)
+                .map(entry -> new ResolvedImage(entry.getBase64(), ImageCache.imageId(entry)))
+                .onErrorMap(e -> new RuntimeException("下载图片失败: " + e.getMessage(), e));
+    }
+    
+    /**
+     * 解析后的图片
+     *
+     * @param base64 图片 Base64
+     * @param imageId 图片内容标识，用于请求合并和复用预处理结果；imageBase64 输入未启用请求合并时为 null
+     */
+    private record ResolvedImage(String base64, String imageId) {
+    }
+    
+    /**
+     * 合并正在执行的相同请求；请求 useCache=false 时单独调用
+     */
+    private String coalesce(Boolean useCache, String key, Supplier<String> call) {
+        if (!coalescer.isEnabled() || Boolean.FALSE.equals(useCache)) {
+            return call.get();
+        }
+        return coalescer.execute(key, call);
+    }
+    
+    /**
+     * 合并正在执行的相同非阻塞请求；请求 useCache=false 时单独调用
+     */
+    private Mono<String> coalesceReactive(Boolean useCache, String key, Supplier<Mono<String>> call) {
+        if (!coalescer.isEnabled() || Boolean.FALSE.equals(useCache)) {
+            return call.get();
+        }
+        return coalescer.executeReactive(key, call);
+    }
+    
+    /**
+     * 合并正在执行的相同流式请求；请求 useCache=false 时单独调用
+     */
+    private Flux<OllamaStreamChunk> coalesceStream(Boolean useCache, String key,
+                                                   Supplier<Flux<OllamaStreamChunk>> source) {
+        if (!coalescer.isEnabled() || Boolean.FALSE.equals(useCache)) {
+            return source.get();
+        }
+        return coalescer.stream(key, source);
+    }
+    
+    /**
+     * 获取图片预处理统计
+     */
+    @Override
+    public ImageProcessStats getImageProcessStats() {
+        return imagePreprocessor.stats();
+    }
+    
+    /**
+     * 获取 Ollama 并发限制统计
+     */
+    @Override
+    public ConcurrencyLimitStats getLimitStats() {
+        return nodePool.getLimiter().stats();
+    }
+    
+    /**
+     * 获取可用模型及各模型的调用统计
+     */
+    @Override
+    public List<OllamaModelStats> getModelStats() {
+        return modelRouter.getAllowedModels().stream()
+                .map(model -> inferenceMetrics.modelStats(model, modelRouter.supportsImage(model)))
+                .toList();
+    }
+    
+    /**
+     * 将增量片段转换为 token 事件，并在流结束时追加 done 事件
+     * 只累计长度和统计字段，不在内存中保留完整响应
+     */
+    private Flux<OllamaStreamEvent> toStreamEvents(String model, Flux<OllamaStreamChunk> chunks) {
+        return Flux.defer(() -> {
+            long startTime = System.currentTimeMillis();
+            AtomicLong firstTokenTime = new AtomicLong(-1);
+            AtomicInteger responseLength = new AtomicInteger();
+            AtomicReference<OllamaStreamChunk> stats = new AtomicReference<>();
+            
+            return chunks
+                    .doOnNext(chunk -> {
+                        if (chunk.getEvalCount() != null) {
+                            stats.set(chunk);
+                        }
+                        if (chunk.getText() != null && !chunk.getText().isEmpty()) {
+                            firstTokenTime.compareAndSet(-1, System.currentTimeMillis() - startTime);
+                            responseLength.addAndGet(chunk.getText().length());
+                        }
+                    })
+                    .filter(chunk -> chunk.getText() != null && !chunk.getText().isEmpty())
+                    .map(chunk -> OllamaStreamEvent.token(chunk.getText()))
+                    .concatWith(Mono.fromSupplier(() -> {
+                        long responseTime = System.currentTimeMillis() - startTime;
+                        log.info("流式响应完成, 首 token 耗时: {}ms, 总耗时: {}ms, 响应长度: {}",
+                                firstTokenTime.get(), responseTime, responseLength.get());
+                        return buildDoneEvent(model, stats.get(), firstTokenTime.get(), responseTime,
+                                responseLength.get());
+                    }));
+        });
+    }
+    
+    /**
+     * 构建 done 事件
+     */
+    private OllamaStreamEvent buildDoneEvent(String model, OllamaStreamChunk stats, long firstTokenTime,
+                                             long responseTime, int responseLength) {
+        OllamaStreamEvent.OllamaStreamEventBuilder builder = OllamaStreamEvent.builder()
+                .event(OllamaStreamEvent.EVENT_DONE)
+                .modelName(model)
+                .firstTokenTime(firstTokenTime >= 0 ? firstTokenTime : null)
+                .responseTime(responseTime)
+                .responseLength(responseLength);
+        if (stats != null) {
+            builder.promptEvalCount(stats.getPromptEvalCount())
+                    .evalCount(stats.getEvalCount());
+            // eval_duration 为纳秒；文本路径无此字段时按首 token 之后的耗时估算
+            if (stats.getEvalDuration() != null && stats.getEvalDuration() > 0) {
+                builder.tokensPerSecond(stats.getEvalCount() * 1e9 / stats.getEvalDuration());
+            } else if (firstTokenTime >= 0 && responseTime > firstTokenTime) {
+                builder.tokensPerSecond(stats.getEvalCount() * 1000.0 / (responseTime - firstTokenTime));
+            }
+        }
+        return builder.build();
+    }
 }
-
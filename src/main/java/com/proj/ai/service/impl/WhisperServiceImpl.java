@@ -1,26 +1,40 @@
 package com.proj.ai.service.impl;
 
 import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
+import com.proj.ai.audio.AudioNormalizer;
+import com.proj.ai.audio.AudioSegment;
+import com.proj.ai.audio.AudioSegmenter;
+import com.proj.ai.audio.NormalizedAudio;
+import com.proj.ai.client.WhisperClient;
 import com.proj.ai.config.WhisperConfig;
+import com.proj.ai.dto.AudioNormalizeStats;
+import com.proj.ai.dto.ConcurrencyLimitStats;
+import com.proj.ai.dto.WhisperPoolStats;
 import com.proj.ai.dto.WhisperRequest;
 import com.proj.ai.dto.WhisperResponse;
+import com.proj.ai.dto.WhisperSegment;
+import com.proj.ai.exception.OverloadException;
+import com.proj.ai.metrics.InferenceMetrics;
 import com.proj.ai.service.WhisperService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.util.StringUtils;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Whisper 语音识别服务实现
@@ -32,55 +46,24 @@ public class WhisperServiceImpl implements WhisperService {
     @Autowired
     private WhisperConfig whisperConfig;
     
-    private final RestTemplate restTemplate;
+    @Autowired
+    private AudioSegmenter audioSegmenter;
     
-    public WhisperServiceImpl() {
-        this.restTemplate = new RestTemplate();
-    }
+    @Autowired
+    private AudioNormalizer audioNormalizer;
+    
+    @Autowired
+    private InferenceMetrics inferenceMetrics;
+    
+    @Autowired
+    private WhisperClient whisperClient;
     
     /**
      * 语音识别（Base64 编码）
      */
     @Override
     public WhisperResponse recognize(WhisperRequest request) {
-        log.info("开始处理语音识别请求，语言: {}", request.getLanguage());
-        
-        long startTime = System.currentTimeMillis();
-        
-        try {
-            // Base64 解码
-            byte[] audioBytes = Base64.getDecoder().decode(request.getAudioBase64());
-            
-            // 调用 Whisper 服务
-            String resultText = callWhisperService(
-                    audioBytes, 
-                    request.getLanguage(), 
-                    request.getResponseFormat()
-            );
-            
-            long endTime = System.currentTimeMillis();
-            
-            log.info("语音识别成功，耗时: {}ms", endTime - startTime);
-            
-            // 构建响应
-            return WhisperResponse.builder()
-                    .text(resultText)
-                    .language(request.getLanguage())
-                    .processingTime(endTime - startTime)
-                    .success(true)
-                    .build();
-                    
-        } catch (Exception e) {
-            log.error("语音识别失败: {}", e.getMessage(), e);
-            
-            long endTime = System.currentTimeMillis();
-            
-            return WhisperResponse.builder()
-                    .success(false)
-                    .errorMessage("语音识别失败: " + e.getMessage())
-                    .processingTime(endTime - startTime)
-                    .build();
-        }
+        return join(recognizeAsync(request));
     }
     
     /**
@@ -88,106 +71,372 @@ public class WhisperServiceImpl implements WhisperService {
      */
     @Override
     public WhisperResponse recognizeFile(MultipartFile file, String language) {
+        return join(recognizeFileAsync(file, language));
+    }
+    
+    /**
+     * 等待异步识别结果，过载异常原样抛出
+     */
+    private WhisperResponse join(CompletableFuture<WhisperResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+    
+    /**
+     * 语音识别（Base64 编码，异步）
+     */
+    @Override
+    public CompletableFuture<WhisperResponse> recognizeAsync(WhisperRequest request) {
+        return recognizeReactive(request).toFuture();
+    }
+    
+    /**
+     * 语音识别（文件上传，异步）
+     * 上传文件在请求结束后会被删除，因此在调用线程内先读出字节
+     */
+    @Override
+    public CompletableFuture<WhisperResponse> recognizeFileAsync(MultipartFile file, String language) {
         log.info("开始处理文件上传识别请求，文件名: {}, 语言: {}", file.getOriginalFilename(), language);
         
         long startTime = System.currentTimeMillis();
         
+        // 使用默认语言
+        String lang = StringUtils.hasText(language) ? language : "zh";
+        
+        Mono<Transcription> transcription;
         try {
             // 获取文件字节
             byte[] audioBytes = file.getBytes();
             
-            // 使用默认语言
-            String lang = StringUtils.hasText(language) ? language : "zh";
+            // 调用 Whisper 服务（长音频分段并行识别）
+            transcription = transcribe(audioBytes, lang, "json");
+        } catch (Exception e) {
+            transcription = Mono.error(e);
+        }
+        return toResponse(transcription, lang, startTime).toFuture();
+    }
+    
+    /**
+     * 语音识别（Base64 编码，非阻塞）
+     */
+    @Override
+    public Mono<WhisperResponse> recognizeReactive(WhisperRequest request) {
+        return Mono.defer(() -> {
+            log.info("开始处理语音识别请求，语言: {}", request.getLanguage());
+            
+            long startTime = System.currentTimeMillis();
             
-            // 调用 Whisper 服务
-            String resultText = callWhisperService(audioBytes, lang, "json");
+            // Base64 解码后调用 Whisper 服务（长音频分段并行识别）
+            return toResponse(Mono.fromCallable(() -> Base64.getDecoder().decode(request.getAudioBase64()))
+                    .flatMap(audioBytes -> transcribe(audioBytes, request.getLanguage(), request.getResponseFormat())),
+                    request.getLanguage(), startTime);
+        });
+    }
+    
+    /**
+     * 语音识别（文件上传，非阻塞）
+     * 长音频分段和音频归一化需要完整的音频才能解码，此时汇总上传内容后再识别
+     */
+    @Override
+    public Mono<WhisperResponse> recognizeFileReactive(FilePart file, String language) {
+        return Mono.defer(() -> {
+            log.info("开始处理文件上传识别请求，文件名: {}, 语言: {}", file.filename(), language);
             
-            long endTime = System.currentTimeMillis();
+            long startTime = System.currentTimeMillis();
             
-            log.info("语音识别成功，耗时: {}ms", endTime - startTime);
+            // 使用默认语言
+            String lang = StringUtils.hasText(language) ? language : "zh";
             
-            // 构建响应
-            return WhisperResponse.builder()
-                    .text(resultText)
-                    .language(lang)
-                    .processingTime(endTime - startTime)
-                    .success(true)
-                    .build();
+            Mono<Transcription> transcription;
+            if (Boolean.TRUE.equals(whisperConfig.getLongAudio().getEnabled()) || audioNormalizer.isEnabled()) {
+                transcription = DataBufferUtils.join(file.content())
+                        .map(buffer -> {
+                            try {
+                                byte[] audioBytes = new byte[buffer.readableByteCount()];
+                                buffer.read(audioBytes);
+                                return audioBytes;
+                            } finally {
+                                DataBufferUtils.release(buffer);
+                            }
+                        })
+                        .flatMap(audioBytes -> transcribe(audioBytes, lang, "json"));
+            } else {
+                transcription = whisperClient.inference(whisperConfig.getInferenceUrl(), file.content(), lang, "json")
+                        .map(this::parseTranscription);
+            }
+            return toResponse(transcription, lang, startTime);
+        });
+    }
+    
+    /**
+     * 语音识别（内存中的短音频，非阻塞）
+     */
+    @Override
+    public Mono<WhisperResponse> recognizeBytesReactive(byte[] audioBytes, String language) {
+        return Mono.defer(() -> {
+            long startTime = System.currentTimeMillis();
+            return toResponse(normalize(audioBytes)
+                    .flatMap(audio -> callWhisperService(audio.bytes(), audio.audioMs(), language, "json")
+                            .map(result -> result.withAudio(audio))),
+                    language, startTime);
+        });
+    }
+    
+    /**
+     * 获取 Whisper 连接池统计
+     */
+    @Override
+    public WhisperPoolStats getPoolStats() {
+        return whisperClient.stats();
+    }
+    
+    /**
+     * 获取 Whisper 并发限制统计
+     */
+    @Override
+    public ConcurrencyLimitStats getLimitStats() {
+        return whisperClient.limitStats();
+    }
+    
+    /**
+     * 获取音频归一化统计
+     */
+    @Override
+    public AudioNormalizeStats getNormalizeStats() {
+        return audioNormalizer.stats();
+    }
+    
+    /**
+     * 将识别结果转换为响应，异常转换为失败响应；只有过载（{@link OverloadException}）以错误信号结束，
+     * 由接口层返回 429/503 和 Retry-After
+     */
+    private Mono<WhisperResponse> toResponse(Mono<Transcription> transcription, String language, long startTime) {
+        return transcription
+                .map(result -> {
+                    long endTime = System.currentTimeMillis();
                     
-        } catch (Exception e) {
-            log.error("语音识别失败: {}", e.getMessage(), e);
+                    log.info("语音识别成功，耗时: {}ms", endTime - startTime);
+                    
+                    // 构建响应
+                    NormalizedAudio audio = result.audio();
+                    if (audio != null && audio.audioMs() > 0) {
+                        inferenceMetrics.recordAudioDuration(audio.audioMs());
+                    }
+                    return WhisperResponse.builder()
+                            .text(result.text())
+                            .segments(result.segments())
+                            .language(language)
+                            .processingTime(endTime - startTime)
+                            .success(true)
+                            .originalBytes(audio != null ? (long) audio.originalBytes() : null)
+                            .uploadBytes(audio != null ? (long) audio.bytes().length : null)
+                            .normalizeTime(audio != null ? audio.elapsedMs() : null)
+                            .build();
+                })
+                .onErrorResume(e -> !(e instanceof OverloadException), e -> {
+                    log.error("语音识别失败: {}", e.getMessage(), e);
+                    
+                    long endTime = System.currentTimeMillis();
+                    
+                    return Mono.just(WhisperResponse.builder()
+                            .success(false)
+                            .errorMessage("语音识别失败: " + e.getMessage())
+                            .processingTime(endTime - startTime)
+                            .build());
+                });
+    }
+    
+    /**
+     * 识别音频：先归一化为 16kHz 单声道 WAV，超过长音频阈值且可解码时分段并行识别，否则整段识别
+     */
+    private Mono<Transcription> transcribe(byte[] audioBytes, String language, String responseFormat) {
+        return normalize(audioBytes)
+                .flatMap(audio -> transcribeNormalized(audio, language, responseFormat)
+                        .map(result -> result.withAudio(audio)));
+    }
+    
+    /**
+     * 音频归一化，在 boundedElastic 线程执行，不占用 Netty IO 线程；未启用时不切换线程
+     */
+    private Mono<NormalizedAudio> normalize(byte[] audioBytes) {
+        if (!audioNormalizer.isEnabled()) {
+            return Mono.just(new NormalizedAudio(audioBytes, audioBytes.length, false, 0, 0));
+        }
+        return Mono.fromCallable(() -> audioNormalizer.normalize(audioBytes))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+    
+    /**
+     * 识别归一化后的音频
+     * 音频解码和切分在 boundedElastic 线程执行，不占用 Netty IO 线程
+     */
+    private Mono<Transcription> transcribeNormalized(NormalizedAudio audio, String language, String responseFormat) {
+        WhisperConfig.LongAudio longAudio = whisperConfig.getLongAudio();
+        if (!Boolean.TRUE.equals(longAudio.getEnabled())) {
+            return callWhisperService(audio.bytes(), audio.audioMs(), language, responseFormat);
+        }
+        return Mono.fromCallable(() -> audioSegmenter.split(audio.bytes(), longAudio))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(segments -> segments.isEmpty()
+                        ? callWhisperService(audio.bytes(), audio.audioMs(), language, responseFormat)
+                        : transcribeSegments(segments, language));
+    }
+    
+    /**
+     * 分段并行识别：每个 Whisper 服务启动 concurrencyPerServer 个 worker 从队列中领取分段，
+     * 总耗时随服务数量增加而下降；识别完成后按顺序拼接并去除重叠部分
+     * 任一分段最终失败时整体失败，其他 worker 随之取消
+     */
+    private Mono<Transcription> transcribeSegments(List<AudioSegment> segments, String language) {
+        List<String> servers = whisperConfig.getServerUrls();
+        int workers = Math.min(segments.size(),
+                servers.size() * Math.max(1, whisperConfig.getLongAudio().getConcurrencyPerServer()));
+        log.info("开始长音频分段识别，分段数: {}, 服务数: {}, 并发数: {}", segments.size(), servers.size(), workers);
+        long startTime = System.currentTimeMillis();
+        
+        ConcurrentLinkedQueue<AudioSegment> queue = new ConcurrentLinkedQueue<>(segments);
+        String[] results = new String[segments.size()];
+        return Flux.range(0, workers)
+                .flatMap(w -> drain(queue, results, language, servers, w % servers.size()), workers)
+                .then(Mono.fromCallable(() -> {
+                    log.info("长音频分段识别完成，耗时: {}ms", System.currentTimeMillis() - startTime);
+                    return stitch(segments, results);
+                }));
+    }
+    
+    /**
+     * 单个 worker：依次从队列领取分段识别，直到队列为空
+     */
+    private Mono<Void> drain(ConcurrentLinkedQueue<AudioSegment> queue, String[] results, String language,
+                             List<String> servers, int serverIndex) {
+        return Mono.defer(() -> {
+            AudioSegment segment = queue.poll();
+            if (segment == null) {
+                return Mono.empty();
+            }
+            return transcribeSegment(segment, language, servers, serverIndex)
+                    .doOnNext(body -> results[segment.getIndex()] = body)
+                    .then(drain(queue, results, language, servers, serverIndex));
+        });
+    }
+    
+    /**
+     * 识别单个分段，失败时换下一个服务重试一次（过载时不重试，所有服务共用同一个并发限制）
+     */
+    private Mono<String> transcribeSegment(AudioSegment segment, String language, List<String> servers,
+                                           int serverIndex) {
+        String server = servers.get(serverIndex);
+        long audioMs = segment.getEndMs() - segment.getOffsetMs();
+        return whisperClient.inference(whisperConfig.getInferenceUrl(server), segment.getWav(), audioMs, language,
+                        "verbose_json")
+                .onErrorResume(e -> !(e instanceof OverloadException), e -> {
+                    String retryServer = servers.get((serverIndex + 1) % servers.size());
+                    log.warn("分段 {} 识别失败（{}），重试服务: {}", segment.getIndex(), server, retryServer);
+                    return whisperClient.inference(whisperConfig.getInferenceUrl(retryServer), segment.getWav(),
+                                    audioMs, language, "verbose_json")
+                            .onErrorMap(retryError -> !(retryError instanceof OverloadException),
+                                    retryError -> new RuntimeException(
+                                    "分段 " + segment.getIndex() + " 识别失败: " + retryError.getMessage(), retryError));
+                });
+    }
+    
+    /**
+     * 按顺序拼接分段结果
+     * 有时间戳时：时间戳加上分段偏移量，重叠区内中点早于切点的句子属于上一段，直接丢弃；
+     * 无时间戳时：按文本首尾重叠去重
+     */
+    private Transcription stitch(List<AudioSegment> segments, String[] results) {
+        StringBuilder text = new StringBuilder();
+        List<WhisperSegment> stitched = new ArrayList<>();
+        
+        for (AudioSegment segment : segments) {
+            String body = results[segment.getIndex()];
+            JSONObject json;
+            try {
+                json = JSON.parseObject(body);
+            } catch (Exception e) {
+                json = null;
+            }
+            JSONArray items = json != null ? json.getJSONArray("segments") : null;
             
-            long endTime = System.currentTimeMillis();
+            if (items == null || items.isEmpty()) {
+                String segmentText = json != null ? json.getString("text") : body;
+                appendWithoutOverlap(text, segmentText != null ? segmentText.trim() : "");
+                continue;
+            }
             
-            return WhisperResponse.builder()
-                    .success(false)
-                    .errorMessage("语音识别失败: " + e.getMessage())
-                    .processingTime(endTime - startTime)
-                    .build();
+            for (int i = 0; i < items.size(); i++) {
+                JSONObject item = items.getJSONObject(i);
+                long start = segment.getOffsetMs() + Math.round(item.getDoubleValue("start") * 1000);
+                long end = segment.getOffsetMs() + Math.round(item.getDoubleValue("end") * 1000);
+                if (segment.getIndex() > 0 && (start + end) / 2 < segment.getBoundaryMs()) {
+                    continue;
+                }
+                String itemText = item.getString("text");
+                stitched.add(WhisperSegment.builder().start(start).end(end).text(itemText.trim()).build());
+                text.append(itemText);
+            }
         }
+        return new Transcription(text.toString().trim(), stitched.isEmpty() ? null : stitched, null);
     }
     
     /**
-     * 调用 Whisper 服务
+     * 追加文本，去掉与已有文本末尾重复的开头部分（最长匹配 40 个字符）
+     */
+    private void appendWithoutOverlap(StringBuilder text, String next) {
+        int maxOverlap = Math.min(40, Math.min(text.length(), next.length()));
+        for (int k = maxOverlap; k >= 2; k--) {
+            if (text.substring(text.length() - k).equals(next.substring(0, k))) {
+                text.append(next, k, next.length());
+                return;
+            }
+        }
+        text.append(next);
+    }
+    
+    /**
+     * 调用 Whisper 服务（整段识别）
      *
      * @param audioBytes 音频字节数组
+     * @param audioMs 音频时长（毫秒），未知时为 0
      * @param language 语言代码
      * @param responseFormat 响应格式
-     * @return 识别的文本
+     * @return 识别结果
+     */
+    private Mono<Transcription> callWhisperService(byte[] audioBytes, long audioMs, String language,
+                                                   String responseFormat) {
+        return whisperClient.inference(whisperConfig.getInferenceUrl(), audioBytes, audioMs, language, responseFormat)
+                .map(this::parseTranscription);
+    }
+    
+    /**
+     * 解析整段识别的响应
      */
-    private String callWhisperService(byte[] audioBytes, String language, String responseFormat) {
+    private Transcription parseTranscription(String body) {
+        // 尝试解析 JSON
         try {
-            // 构建 multipart 请求
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-            
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            
-            // 添加文件
-            ByteArrayResource fileResource = new ByteArrayResource(audioBytes) {
-                @Override
-                public String getFilename() {
-                    return "audio.wav";
-                }
-            };
-            body.add("file", fileResource);
-            
-            // 添加语言参数
-            if (StringUtils.hasText(language)) {
-                body.add("language", language);
-            }
-            
-            // 添加响应格式
-            if (StringUtils.hasText(responseFormat)) {
-                body.add("response_format", responseFormat);
-            }
-            
-            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-            
-            // 发送请求
-            String url = whisperConfig.getInferenceUrl();
-            log.info("调用 Whisper 服务: {}", url);
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(url, requestEntity, String.class);
-            
-            // 解析响应
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                // 尝试解析 JSON
-                try {
-                    JSONObject jsonResponse = JSON.parseObject(response.getBody());
-                    return jsonResponse.getString("text");
-                } catch (Exception e) {
-                    // 如果不是 JSON，直接返回文本
-                    return response.getBody();
-                }
-            } else {
-                throw new RuntimeException("Whisper 服务返回错误: " + response.getStatusCode());
-            }
-            
+            JSONObject jsonResponse = JSON.parseObject(body);
+            return new Transcription(jsonResponse.getString("text"), null, null);
         } catch (Exception e) {
-            log.error("调用 Whisper 服务失败: {}", e.getMessage(), e);
-            throw new RuntimeException("调用 Whisper 服务失败: " + e.getMessage(), e);
+            // 如果不是 JSON，直接返回文本
+            return new Transcription(body, null, null);
+        }
+    }
+    
+    /**
+     * 识别结果
+     *
+     * @param text 识别文本
+     * @param segments 识别分段（仅长音频分段识别时有值）
+     * @param audio 归一化结果（音频直接转发给 Whisper 时为 null）
+     */
+    private record Transcription(String text, List<WhisperSegment> segments, NormalizedAudio audio) {
+        
+        Transcription withAudio(NormalizedAudio audio) {
+            return new Transcription(text, segments, audio);
         }
     }
 }
-
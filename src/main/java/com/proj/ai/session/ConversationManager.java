@@ -0,0 +1,235 @@
+package com.proj.ai.session;
+
+import com.proj.ai.client.ModelRouter;
+import com.proj.ai.client.OllamaClient;
+import com.proj.ai.client.OllamaStreamChunk;
+import com.proj.ai.config.ConversationConfig;
+import com.proj.ai.dto.ConversationCreateRequest;
+import com.proj.ai.dto.ConversationInfo;
+import com.proj.ai.dto.ConversationReply;
+import com.proj.ai.dto.ConversationStats;
+import com.proj.ai.dto.OllamaStreamEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多轮会话管理
+ * <p>
+ * 每轮只发送本轮提示词和上一轮 /api/generate 返回的 context（已编码的完整对话 token），Ollama 不需要重新分词历史文本，
+ * 节点上仍缓存着该会话前缀的 KV 时只需 prefill 本轮新增的 token；因此每轮优先路由到上一轮所在的节点。
+ * 一轮正常结束后才保存新的 context，失败或客户端断开时保留上一轮的 context
+ */
+@Slf4j
+@Component
+public class ConversationManager {
+
+    @Autowired
+    private ConversationConfig config;
+
+    @Autowired
+    private ConversationStore store;
+
+    @Autowired
+    private ModelRouter modelRouter;
+
+    @Autowired
+    private OllamaClient ollamaClient;
+
+    private final LongAdder turnCount = new LongAdder();
+    private final LongAdder contextResetCount = new LongAdder();
+
+    /**
+     * 创建会话
+     */
+    public ConversationInfo create(ConversationCreateRequest request) {
+        String model = modelRouter.textModel(request.getModel(), request.getFallback());
+        ConversationSession session = new ConversationSession(UUID.randomUUID().toString().replace("-", ""),
+                model, request.getSystem(), System.currentTimeMillis());
+        store.add(session);
+        log.info("创建会话: {}, model: {}", session.getId(), model);
+        return toInfo(session);
+    }
+
+    /**
+     * 查询会话
+     *
+     * @return 会话不存在或已过期时返回 null
+     */
+    public ConversationInfo get(String id) {
+        ConversationSession session = store.get(id);
+        return session != null ? toInfo(session) : null;
+    }
+
+    /**
+     * 删除会话
+     *
+     * @return 会话不存在时返回 null
+     */
+    public ConversationInfo delete(String id) {
+        ConversationSession session = store.delete(id);
+        if (session == null) {
+            return null;
+        }
+        log.info("删除会话: {}, 轮数: {}", id, session.getTurns());
+        return toInfo(session);
+    }
+
+    /**
+     * 会话对话
+     */
+    public Mono<ConversationReply> chat(String id, String prompt) {
+        return Mono.defer(() -> {
+            ConversationSession session = getRequired(id);
+            long startTime = System.currentTimeMillis();
+            AtomicBoolean contextReset = new AtomicBoolean();
+            StringBuilder response = new StringBuilder();
+            AtomicReference<OllamaStreamChunk> stats = new AtomicReference<>();
+            return turn(session, prompt, contextReset)
+                    .doOnNext(chunk -> {
+                        if (chunk.getText() != null) {
+                            response.append(chunk.getText());
+                        }
+                        if (chunk.isDone()) {
+                            stats.set(chunk);
+                        }
+                    })
+                    .then(Mono.fromSupplier(() -> {
+                        OllamaStreamChunk done = stats.get();
+                        return ConversationReply.builder()
+                                .sessionId(session.getId())
+                                .response(response.toString())
+                                .modelName(session.getModel())
+                                .turn(session.getTurns())
+                                .contextTokens(session.getContextTokens())
+                                .promptEvalCount(done != null ? done.getPromptEvalCount() : null)
+                                .evalCount(done != null ? done.getEvalCount() : null)
+                                .responseTime(System.currentTimeMillis() - startTime)
+                                .contextReset(contextReset.get())
+                                .build();
+                    }));
+        });
+    }
+
+    /**
+     * 会话对话（流式），事件格式与 /api/ollama/chat/stream 相同
+     */
+    public Flux<OllamaStreamEvent> chatStream(String id, String prompt) {
+        return Flux.defer(() -> {
+            ConversationSession session = getRequired(id);
+            long startTime = System.currentTimeMillis();
+            AtomicLong firstTokenTime = new AtomicLong(-1);
+            AtomicLong responseLength = new AtomicLong();
+            AtomicReference<OllamaStreamChunk> stats = new AtomicReference<>();
+            return turn(session, prompt, new AtomicBoolean())
+                    .doOnNext(chunk -> {
+                        if (chunk.isDone()) {
+                            stats.set(chunk);
+                        }
+                        if (chunk.getText() != null && !chunk.getText().isEmpty()) {
+                            firstTokenTime.compareAndSet(-1, System.currentTimeMillis() - startTime);
+                            responseLength.addAndGet(chunk.getText().length());
+                        }
+                    })
+                    .filter(chunk -> chunk.getText() != null && !chunk.getText().isEmpty())
+                    .map(chunk -> OllamaStreamEvent.token(chunk.getText()))
+                    .concatWith(Mono.fromSupplier(() -> {
+                        OllamaStreamChunk done = stats.get();
+                        OllamaStreamEvent.OllamaStreamEventBuilder builder = OllamaStreamEvent.builder()
+                                .event(OllamaStreamEvent.EVENT_DONE)
+                                .modelName(session.getModel())
+                                .firstTokenTime(firstTokenTime.get() >= 0 ? firstTokenTime.get() : null)
+                                .responseTime(System.currentTimeMillis() - startTime)
+                                .responseLength((int) responseLength.get());
+                        if (done != null) {
+                            builder.promptEvalCount(done.getPromptEvalCount())
+                                    .evalCount(done.getEvalCount());
+                            if (done.getEvalCount() != null && done.getEvalDuration() != null
+                                    && done.getEvalDuration() > 0) {
+                                builder.tokensPerSecond(done.getEvalCount() * 1e9 / done.getEvalDuration());
+                            }
+                        }
+                        return builder.build();
+                    }));
+        });
+    }
+
+    /**
+     * 会话统计
+     */
+    public ConversationStats stats() {
+        return ConversationStats.builder()
+                .activeSessions(store.size())
+                .maxSessions(config.getMaxSessions())
+                .usedBytes(store.getUsedBytes())
+                .maxBytes(store.getMaxBytes())
+                .createdCount(store.getCreatedCount())
+                .expiredCount(store.getExpiredCount())
+                .evictedCount(store.getEvictedCount())
+                .turnCount(turnCount.sum())
+                .contextResetCount(contextResetCount.sum())
+                .build();
+    }
+
+    /**
+     * 执行一轮对话：同一会话同时只允许一轮，done 块到达后保存新的 context 和节点
+     */
+    private Flux<OllamaStreamChunk> turn(ConversationSession session, String prompt, AtomicBoolean contextReset) {
+        if (!session.tryAcquire()) {
+            return Flux.error(new IllegalStateException("会话正在处理上一轮对话，请稍后再试"));
+        }
+        return ollamaClient.chatWithContextStream(session.getModel(), session.getSystem(), prompt,
+                        session.getContext(), session.getNode())
+                .doOnNext(chunk -> {
+                    if (chunk.isDone()) {
+                        complete(session, chunk, contextReset);
+                    }
+                })
+                .doFinally(signal -> session.release());
+    }
+
+    private void complete(ConversationSession session, OllamaStreamChunk chunk, AtomicBoolean contextReset) {
+        int[] context = chunk.getContext();
+        if (context == null) {
+            // 新版 Ollama 可能不再返回 context，此时下一轮不包含之前的对话
+            log.warn("Ollama 未返回 context, 会话: {}", session.getId());
+        } else if (context.length > config.getMaxContextTokens()) {
+            log.info("会话 context 超过上限, 清空: {}, tokens: {}", session.getId(), context.length);
+            context = null;
+            contextReset.set(true);
+            contextResetCount.increment();
+        }
+        store.update(session, context, chunk.getNode());
+        turnCount.increment();
+    }
+
+    private ConversationSession getRequired(String id) {
+        ConversationSession session = store.get(id);
+        if (session == null) {
+            throw new NoSuchElementException("会话不存在或已过期: " + id);
+        }
+        return session;
+    }
+
+    private ConversationInfo toInfo(ConversationSession session) {
+        return ConversationInfo.builder()
+                .sessionId(session.getId())
+                .modelName(session.getModel())
+                .node(session.getNode())
+                .turns(session.getTurns())
+                .contextTokens(session.getContextTokens())
+                .createTime(session.getCreateTime())
+                .lastAccessTime(session.getLastAccessTime())
+                .expireTime(session.getLastAccessTime() + store.getIdleTtlMs())
+                .build();
+    }
+}
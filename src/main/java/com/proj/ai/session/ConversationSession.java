@@ -0,0 +1,102 @@
+package com.proj.ai.session;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 多轮会话
+ * 只保存 Ollama 返回的 context（int[]，每个 token 4 字节），不保存历史文本；
+ * 记录上一轮所在的节点，下一轮优先路由到该节点以复用节点上缓存的前缀
+ */
+@Getter
+public class ConversationSession {
+
+    /**
+     * 每个会话除 context 外的固定开销估算（字节）
+     */
+    static final int OVERHEAD_BYTES = 256;
+
+    private final String id;
+
+    private final String model;
+
+    private final String system;
+
+    private final long createTime;
+
+    private volatile int[] context;
+
+    private volatile String node;
+
+    private volatile int turns;
+
+    private volatile long lastAccessTime;
+
+    /**
+     * 同一会话同时只处理一轮对话，否则两轮会基于同一个 context 分叉
+     */
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean busy = new AtomicBoolean();
+
+    /**
+     * 已通过接口删除，进行中的一轮结束后不再放回存储
+     */
+    private volatile boolean deleted;
+
+    public ConversationSession(String id, String model, String system, long now) {
+        this.id = id;
+        this.model = model;
+        this.system = system;
+        this.createTime = now;
+        this.lastAccessTime = now;
+    }
+
+    /**
+     * context 的 token 数
+     */
+    public int getContextTokens() {
+        int[] current = context;
+        return current != null ? current.length : 0;
+    }
+
+    /**
+     * 估算占用内存（字节）
+     */
+    long weight() {
+        return OVERHEAD_BYTES + (system != null ? system.length() * 2L : 0) + getContextTokens() * (long) Integer.BYTES;
+    }
+
+    /**
+     * 开始一轮对话
+     *
+     * @return 上一轮仍在处理时返回 false
+     */
+    boolean tryAcquire() {
+        return busy.compareAndSet(false, true);
+    }
+
+    void release() {
+        busy.set(false);
+    }
+
+    void markDeleted() {
+        this.deleted = true;
+    }
+
+    void touch(long now) {
+        this.lastAccessTime = now;
+    }
+
+    /**
+     * 一轮对话完成后更新 context 和节点
+     */
+    void advance(int[] context, String node) {
+        this.context = context;
+        if (node != null) {
+            this.node = node;
+        }
+        this.turns++;
+    }
+}
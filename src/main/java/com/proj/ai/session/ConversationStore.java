@@ -0,0 +1,242 @@
+package com.proj.ai.session;
+
+import com.proj.ai.config.ConversationConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 会话存储（内存）
+ * <p>
+ * 按访问顺序排列的 LinkedHashMap，严格按最久未使用（LRU）淘汰：会话数或估算内存超过上限时从最久未使用的会话开始移除；
+ * 空闲超过 idle-ttl 的会话在访问时或定时清理时移除。
+ * 不使用 Caffeine：W-TinyLFU 的准入策略会优先保留访问频率高的条目，刚创建的会话可能在下一轮之前就被拒绝
+ */
+@Slf4j
+@Component
+public class ConversationStore {
+
+    @Autowired
+    private ConversationConfig config;
+
+    private final LinkedHashMap<String, ConversationSession> sessions = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 当前会话估算占用内存（字节），受 lock 保护
+     */
+    private long usedBytes;
+
+    private long maxBytes;
+
+    private long idleTtlMs;
+
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void init() {
+        maxBytes = config.getMaxMemoryMb() * 1024L * 1024L;
+        idleTtlMs = config.getIdleTtlSeconds() * 1000L;
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "conversation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, config.getSweepInterval(), config.getSweepInterval(),
+                TimeUnit.MILLISECONDS);
+        log.info("初始化会话存储，最大会话数: {}, 内存上限: {}MB, 空闲过期: {}s",
+                config.getMaxSessions(), config.getMaxMemoryMb(), config.getIdleTtlSeconds());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * 保存新会话
+     */
+    public void add(ConversationSession session) {
+        lock.lock();
+        try {
+            sessions.put(session.getId(), session);
+            usedBytes += session.weight();
+            createdCount.increment();
+            evict(session);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取会话并刷新访问时间
+     *
+     * @return 会话不存在或已过期时返回 null
+     */
+    public ConversationSession get(String id) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            ConversationSession session = sessions.get(id);
+            if (session == null) {
+                return null;
+            }
+            if (now - session.getLastAccessTime() > idleTtlMs) {
+                remove(session, expiredCount);
+                return null;
+            }
+            session.touch(now);
+            return session;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 一轮对话完成后更新会话；对话期间会话被淘汰时重新放回（它是最近使用的会话），被删除时不再放回
+     */
+    public void update(ConversationSession session, int[] context, String node) {
+        lock.lock();
+        try {
+            if (session.isDeleted()) {
+                return;
+            }
+            if (sessions.get(session.getId()) == session) {
+                usedBytes -= session.weight();
+            } else {
+                sessions.put(session.getId(), session);
+            }
+            session.advance(context, node);
+            session.touch(System.currentTimeMillis());
+            usedBytes += session.weight();
+            evict(session);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除会话
+     *
+     * @return 会话不存在时返回 null
+     */
+    public ConversationSession delete(String id) {
+        lock.lock();
+        try {
+            ConversationSession session = sessions.remove(id);
+            if (session != null) {
+                session.markDeleted();
+                usedBytes -= session.weight();
+            }
+            return session;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 移除空闲过期的会话：访问顺序即最近访问时间顺序，从最久未使用的开始，遇到未过期的会话即可停止
+     */
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        lock.lock();
+        try {
+            Iterator<Map.Entry<String, ConversationSession>> iterator = sessions.entrySet().iterator();
+            while (iterator.hasNext()) {
+                ConversationSession session = iterator.next().getValue();
+                if (now - session.getLastAccessTime() <= idleTtlMs) {
+                    break;
+                }
+                iterator.remove();
+                usedBytes -= session.weight();
+                expiredCount.increment();
+                removed++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (removed > 0) {
+            log.info("清理过期会话: {}", removed);
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return sessions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getUsedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getIdleTtlMs() {
+        return idleTtlMs;
+    }
+
+    public long getCreatedCount() {
+        return createdCount.sum();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.sum();
+    }
+
+    /**
+     * 超出会话数或内存上限时按 LRU 淘汰，不淘汰刚写入的会话
+     */
+    private void evict(ConversationSession current) {
+        Iterator<Map.Entry<String, ConversationSession>> iterator = sessions.entrySet().iterator();
+        while ((sessions.size() > config.getMaxSessions() || usedBytes > maxBytes) && iterator.hasNext()) {
+            ConversationSession eldest = iterator.next().getValue();
+            if (eldest == current) {
+                continue;
+            }
+            iterator.remove();
+            usedBytes -= eldest.weight();
+            evictedCount.increment();
+            log.debug("淘汰会话: {}, context tokens: {}", eldest.getId(), eldest.getContextTokens());
+        }
+    }
+
+    private void remove(ConversationSession session, LongAdder counter) {
+        sessions.remove(session.getId());
+        usedBytes -= session.weight();
+        counter.increment();
+    }
+}
@@ -0,0 +1,208 @@
+package com.proj.ai.client;
+
+import com.proj.ai.config.ConcurrencyLimitConfig;
+import com.proj.ai.config.OllamaPoolConfig;
+import com.proj.ai.metrics.InferenceMetrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.ollama.api.OllamaOptions;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * OllamaNodePool 测试：启动三个本地 Ollama 桩服务，验证最少在途请求路由、健康检查摘除/恢复和全部不健康时的退回
+ */
+class OllamaNodePoolTest {
+
+    private static final String MODEL = "qwen2.5:3b";
+
+    private final List<StubNode> stubs = new ArrayList<>();
+
+    private OllamaNodePool pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        OllamaPoolConfig poolConfig = new OllamaPoolConfig();
+        for (int i = 0; i < 3; i++) {
+            StubNode stub = new StubNode();
+            stubs.add(stub);
+            OllamaPoolConfig.Node node = new OllamaPoolConfig.Node();
+            node.setUrl(stub.url());
+            poolConfig.getNodes().add(node);
+        }
+        poolConfig.setHealthCheckInterval(100L);
+        poolConfig.setHealthCheckTimeout(500L);
+        poolConfig.setFailureThreshold(2);
+
+        InferenceMetrics metrics = new InferenceMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", new SimpleMeterRegistry());
+
+        pool = new OllamaNodePool();
+        ReflectionTestUtils.setField(pool, "poolConfig", poolConfig);
+        ReflectionTestUtils.setField(pool, "restClientBuilderProvider",
+                new DefaultListableBeanFactory().getBeanProvider(RestClient.Builder.class));
+        ReflectionTestUtils.setField(pool, "limitConfig", new ConcurrencyLimitConfig());
+        ReflectionTestUtils.setField(pool, "inferenceMetrics", metrics);
+        ReflectionTestUtils.setField(pool, "defaultModel", MODEL);
+        ReflectionTestUtils.setField(pool, "chatOptions", OllamaOptions.builder().topK(17).numCtx(8192).build());
+        pool.init();
+
+        await(() -> pool.getNodes().stream().allMatch(node -> node.getLastCheckTime() > 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.destroy();
+        stubs.forEach(stub -> stub.server.stop(0));
+    }
+
+    @Test
+    void routesToIdleNode() {
+        OllamaNode first = pool.acquire(MODEL);
+        OllamaNode second = pool.acquire(MODEL);
+        assertThat(second).isNotSameAs(first);
+
+        // 两个节点各有一个在途请求，新请求应发到空闲节点
+        String response = pool.executeFlux(MODEL, node -> node.getWebClient().post()
+                        .uri("/api/generate")
+                        .retrieve()
+                        .bodyToFlux(String.class))
+                .blockLast(Duration.ofSeconds(5));
+        assertThat(response).isEqualTo("{\"done\":true}");
+
+        StubNode idle = stubOf(pool.getNodes().stream()
+                .filter(node -> node != first && node != second)
+                .findFirst()
+                .orElseThrow());
+        assertThat(idle.generateCount.get()).isEqualTo(1);
+        assertThat(stubOf(first).generateCount.get() + stubOf(second).generateCount.get()).isZero();
+
+        // 请求结束后释放节点；仍有在途请求的节点不会被选中
+        pool.release(first);
+        assertThat(first.getInFlight().get()).isZero();
+        assertThat(pool.acquire(MODEL)).isNotSameAs(second);
+    }
+
+    @Test
+    void ejectsFailingNodeAndRestoresAfterRecovery() {
+        OllamaNode failing = pool.getNodes().get(1);
+        stubOf(failing).failing.set(true);
+        await(() -> !failing.isHealthy());
+
+        for (int i = 0; i < 20; i++) {
+            OllamaNode node = pool.acquire(MODEL);
+            assertThat(node).isNotSameAs(failing);
+            pool.release(node);
+        }
+
+        stubOf(failing).failing.set(false);
+        await(failing::isHealthy);
+        assertThat(failing.getConsecutiveFailures().get()).isZero();
+
+        // 恢复后在途请求数最低，重新参与路由
+        OllamaNode busy1 = pool.acquire(MODEL);
+        OllamaNode busy2 = pool.acquire(MODEL);
+        assertThat(List.of(busy1, busy2, pool.acquire(MODEL))).contains(failing);
+    }
+
+    @Test
+    void fallsBackToAllNodesWhenNoneHealthy() {
+        stubs.forEach(stub -> stub.failing.set(true));
+        await(() -> pool.getNodes().stream().noneMatch(OllamaNode::isHealthy));
+
+        Set<OllamaNode> selected = new HashSet<>();
+        for (int i = 0; i < pool.getNodes().size(); i++) {
+            selected.add(pool.acquire(MODEL));
+        }
+        assertThat(selected).containsExactlyInAnyOrderElementsOf(pool.getNodes());
+    }
+
+    @Test
+    void nodeChatModelsKeepConfiguredOptions() {
+        for (OllamaNode node : pool.getNodes()) {
+            OllamaOptions options = (OllamaOptions) node.getChatModel().getDefaultOptions();
+            assertThat(options.getModel()).isEqualTo(MODEL);
+            assertThat(options.getTopK()).isEqualTo(17);
+            assertThat(options.getNumCtx()).isEqualTo(8192);
+        }
+    }
+
+    private StubNode stubOf(OllamaNode node) {
+        return stubs.stream()
+                .filter(stub -> stub.url().equals(node.getUrl()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("等待超时");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    /**
+     * Ollama 桩服务：/api/tags、/api/ps 返回模型列表，failing 时返回 500；/api/generate 返回一行 done
+     */
+    private static class StubNode {
+
+        private final HttpServer server;
+
+        private final AtomicBoolean failing = new AtomicBoolean();
+
+        private final AtomicInteger generateCount = new AtomicInteger();
+
+        StubNode() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            String models = "{\"models\":[{\"name\":\"" + MODEL + "\"}]}";
+            server.createContext("/api/tags", exchange -> respond(exchange, failing.get() ? 500 : 200, models));
+            server.createContext("/api/ps", exchange -> respond(exchange, failing.get() ? 500 : 200, models));
+            server.createContext("/api/generate", exchange -> {
+                generateCount.incrementAndGet();
+                respond(exchange, 200, "{\"done\":true}");
+            });
+            server.start();
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.proj.ai.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * OllamaStreamParser 测试：字符串转义、跳过无关字段、跨字节块的行以及结束行统计
+ */
+class OllamaStreamParserTest {
+
+    @Test
+    void decodesUnicodeEscapesAndSurrogatePairs() {
+        OllamaStreamParser parser = OllamaStreamParser.aggregating();
+        feed(parser, "{\"response\":\"\\u4f60\\u597D \\uD83D\\uDE00\",\"done\":false}\n");
+        feed(parser, "{\"response\":\"\\\"q\\\" \\\\ \\/ \\n\\t\",\"done\":false}\n");
+
+        assertThat(parser.getResponse()).isEqualTo("你好 😀\"q\" \\ / \n\t");
+        assertThat(parser.getResponse().codePointCount(0, parser.getResponseLength())).isEqualTo(14);
+    }
+
+    @Test
+    void decodesRawUtf8() {
+        OllamaStreamParser parser = OllamaStreamParser.aggregating();
+        feed(parser, "{\"response\":\"中文 😀 é\"}\n");
+
+        assertThat(parser.getResponse()).isEqualTo("中文 😀 é");
+    }
+
+    @Test
+    void responseKeyInsideStringContentIsNotAField() {
+        OllamaStreamParser parser = OllamaStreamParser.chunking();
+        List<OllamaStreamChunk> chunks = feed(parser,
+                "{\"model\":\"m\",\"note\":\"\\\"response\\\":\\\"fake\\\"\",\"response\":\"real\",\"done\":false}\n"
+                        + "{\"response\":\"say \\\"response\\\": \\\"x\\\"\",\"done\":false}\n");
+
+        assertThat(chunks).extracting(OllamaStreamChunk::getText)
+                .containsExactly("real", "say \"response\": \"x\"");
+    }
+
+    @Test
+    void skipsNestedObjectsAndArrays() {
+        OllamaStreamParser parser = OllamaStreamParser.chunking();
+        List<OllamaStreamChunk> chunks = feed(parser,
+                "{\"meta\":{\"a\":[1,{\"done\":true,\"response\":\"no\"}],\"s\":\"}]\"},"
+                        + "\"context\":[1,2,3],\"response\":\"yes\",\"extra\":[[],{}],\"done\":false}\n");
+
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.get(0).getText()).isEqualTo("yes");
+        assertThat(chunks.get(0).isDone()).isFalse();
+        assertThat(chunks.get(0).getContext()).isNull();
+        assertThat(parser.isDone()).isFalse();
+    }
+
+    @Test
+    void reassemblesLinesSplitAcrossBuffers() {
+        byte[] stream = ("{\"response\":\"你好\\u0021 😀\",\"done\":false}\n"
+                + "{\"response\":\"\",\"done\":true,\"eval_count\":7}\n").getBytes(StandardCharsets.UTF_8);
+        // 在每个字节位置切分（包括多字节字符和 \\u 转义中间）
+        for (int split = 1; split < stream.length; split++) {
+            OllamaStreamParser parser = OllamaStreamParser.chunking();
+            List<OllamaStreamChunk> chunks = new ArrayList<>(parser.feed(stream, 0, split));
+            chunks.addAll(parser.feed(stream, split, stream.length - split));
+            chunks.addAll(parser.finish());
+
+            assertThat(chunks).extracting(OllamaStreamChunk::getText).containsExactly("你好! 😀", "");
+            assertThat(parser.getEvalCount()).isEqualTo(7L);
+        }
+    }
+
+    @Test
+    void feedsDataBuffersAndParsesLastLineWithoutNewline() {
+        OllamaStreamParser parser = OllamaStreamParser.aggregating();
+        DefaultDataBufferFactory factory = DefaultDataBufferFactory.sharedInstance;
+        parser.feed(factory.wrap("{\"response\":\"Hel".getBytes(StandardCharsets.UTF_8)));
+        parser.feed(factory.wrap("lo\"}\n{\"response\":\" world\",\"do".getBytes(StandardCharsets.UTF_8)));
+        parser.feed(factory.wrap("ne\":true}".getBytes(StandardCharsets.UTF_8)));
+        assertThat(parser.isDone()).isFalse();
+
+        parser.finish();
+        assertThat(parser.getResponse()).isEqualTo("Hello world");
+        assertThat(parser.isDone()).isTrue();
+        assertThat(parser.getLineCount()).isEqualTo(2);
+    }
+
+    @Test
+    void readsStatisticsFromDoneLine() {
+        OllamaStreamParser parser = OllamaStreamParser.chunkingWithContext();
+        List<OllamaStreamChunk> chunks = feed(parser,
+                "{\"response\":\"hi\",\"done\":false,\"eval_count\":99}\n"
+                        + "{\"model\":\"qwen2.5:3b\",\"response\":\"\",\"done\":true,\"done_reason\":\"stop\","
+                        + "\"context\":[10, 20 ,30],\"total_duration\":5000000000,\"load_duration\":1000000,"
+                        + "\"prompt_eval_count\":26,\"prompt_eval_duration\":1.5e8,"
+                        + "\"eval_count\":290,\"eval_duration\":4000000000}\n");
+
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0).isDone()).isFalse();
+        OllamaStreamChunk done = chunks.get(1);
+        assertThat(done.isDone()).isTrue();
+        assertThat(done.getPromptEvalCount()).isEqualTo(26L);
+        assertThat(done.getEvalCount()).isEqualTo(290L);
+        assertThat(done.getEvalDuration()).isEqualTo(4_000_000_000L);
+        assertThat(done.getContext()).containsExactly(10, 20, 30);
+
+        assertThat(parser.isDone()).isTrue();
+        assertThat(parser.getPromptEvalCount()).isEqualTo(26L);
+        assertThat(parser.getEvalCount()).isEqualTo(290L);
+        assertThat(parser.getEvalDuration()).isEqualTo(4_000_000_000L);
+        assertThat(parser.getTotalDuration()).isEqualTo(5_000_000_000L);
+        assertThat(parser.getLoadDuration()).isEqualTo(1_000_000L);
+        assertThat(parser.getContext()).containsExactly(10, 20, 30);
+    }
+
+    @Test
+    void capturesErrorAndRejectsMalformedLine() {
+        OllamaStreamParser parser = OllamaStreamParser.aggregating();
+        feed(parser, "{\"error\":\"model \\\"x\\\" not found\"}\n");
+        assertThat(parser.getErrorMessage()).isEqualTo("model \"x\" not found");
+
+        assertThatThrownBy(() -> feed(parser, "{\"response\":\"unterminated}\n"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("字符串未结束");
+    }
+
+    private static List<OllamaStreamChunk> feed(OllamaStreamParser parser, String data) {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        return parser.feed(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,237 @@
+package com.proj.ai.limit;
+
+import com.proj.ai.config.ConcurrencyLimitConfig;
+import com.proj.ai.dto.ConcurrencyLimitStats;
+import com.proj.ai.exception.OverloadException;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * AdaptiveConcurrencyLimiter 测试：AIMD 上调/下调、延迟样本与请求大小无关、排队已满/排队超时，以及取消和归还许可
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void increasesLimitWhenBusyAndSucceeding() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config(4));
+
+        for (int round = 0; round < 10; round++) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(limiter, limiter.stats().getLimit());
+            permits.forEach(permit -> permit.release(null));
+        }
+
+        ConcurrencyLimitStats stats = limiter.stats();
+        assertThat(stats.getLimit()).isGreaterThan(4);
+        assertThat(stats.getInFlight()).isZero();
+        assertThat(stats.getLimitDecreaseCount()).isZero();
+    }
+
+    @Test
+    void keepsLimitWhenLightlyLoaded() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config(4));
+
+        for (int i = 0; i < 50; i++) {
+            limiter.execute(() -> "ok");
+        }
+
+        assertThat(limiter.stats().getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void decreasesOnceForRequestsStartedBeforeTheDecrease() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config(8));
+
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(limiter, 8);
+        permits.forEach(permit -> permit.release(new TimeoutException("read timeout")));
+
+        ConcurrencyLimitStats stats = limiter.stats();
+        assertThat(stats.getLimit()).isEqualTo(4);
+        assertThat(stats.getLimitDecreaseCount()).isEqualTo(1);
+
+        // 下调之后发出的请求再次超时，继续下调
+        limiter.acquire().release(new TimeoutException("read timeout"));
+        assertThat(limiter.stats().getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void ignoresBusinessErrors() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config(4));
+
+        assertThatThrownBy(() -> limiter.execute(() -> {
+            throw new IllegalArgumentException("bad request");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        ConcurrencyLimitStats stats = limiter.stats();
+        assertThat(stats.getLimit()).isEqualTo(4);
+        assertThat(stats.getLimitDecreaseCount()).isZero();
+        assertThat(stats.getInFlight()).isZero();
+    }
+
+    @Test
+    void streamUsesTimeToFirstElementNotStreamLength() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config(4));
+
+        // 首个元素立即返回，整个流持续 300ms：不视为过载
+        limiter.executeFlux(() -> Flux.just(1).concatWith(Mono.delay(Duration.ofMillis(300)).thenReturn(2)))
+                .blockLast();
+        assertThat(limiter.stats().getLimitDecreaseCount()).isZero();
+
+        // 首个元素 300ms 后才返回：超过 100ms 阈值，下调
+        limiter.executeFlux(() -> Mono.delay(Duration.ofMillis(300)).thenReturn(1).flux()).blockLast();
+        assertThat(limiter.stats().getLimitDecreaseCount()).isEqualTo(1);
+        assertThat(limiter.stats().getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void monoLatencyIsNormalisedByWorkUnits() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config(4));
+        Mono<String> slow = Mono.delay(Duration.ofMillis(300)).thenReturn("ok");
+
+        // 10 个工作量单位，每单位约 30ms，低于阈值
+        limiter.executeMono(() -> slow, 10).block();
+        // 工作量未知时不采集延迟样本，只按错误调整
+        limiter.executeMono(() -> slow).block();
+        assertThat(limiter.stats().getLimitDecreaseCount()).isZero();
+
+        limiter.executeMono(() -> slow, 1).block();
+        assertThat(limiter.stats().getLimitDecreaseCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() {
+        ConcurrencyLimitConfig.Limit config = config(1);
+        config.setMaxQueue(1);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config);
+
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+        CompletableFuture<String> queued = limiter.executeMono(() -> Mono.just("ok")).toFuture();
+        assertThat(limiter.stats().getQueued()).isEqualTo(1);
+
+        assertThatThrownBy(() -> limiter.executeMono(() -> Mono.just("ok")).block())
+                .isInstanceOf(OverloadException.class)
+                .hasMessageContaining("排队已满");
+        assertThat(limiter.stats().getRejectedCount()).isEqualTo(1);
+
+        held.release(null);
+        assertThat(queued.join()).isEqualTo("ok");
+    }
+
+    @Test
+    void rejectsAfterQueueTimeout() {
+        ConcurrencyLimitConfig.Limit config = config(1);
+        config.setQueueTimeout(100L);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config);
+
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+        long start = System.nanoTime();
+        assertThatThrownBy(limiter::acquire)
+                .isInstanceOf(OverloadException.class)
+                .hasMessageContaining("排队超时");
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        // 计数在等待方失败之后更新
+        await().atMost(Duration.ofSeconds(1)).until(() -> limiter.stats().getQueueTimeoutCount() == 1);
+        ConcurrencyLimitStats stats = limiter.stats();
+        assertThat(stats.getRejectedCount()).isEqualTo(1);
+        assertThat(stats.getQueued()).isZero();
+
+        // 超时的等待方不会再占用名额
+        held.release(null);
+        assertThat(limiter.stats().getInFlight()).isZero();
+    }
+
+    @Test
+    void releaseHandsPermitToWaiter() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config(1));
+
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+        CompletableFuture<String> queued = limiter.executeMono(() -> Mono.just("ok")).toFuture();
+        assertThat(queued).isNotDone();
+
+        held.release(null);
+
+        assertThat(queued.join()).isEqualTo("ok");
+        ConcurrencyLimitStats stats = limiter.stats();
+        assertThat(stats.getInFlight()).isZero();
+        assertThat(stats.getAcceptedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void cancelReleasesWithoutAdjusting() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config(2));
+
+        Disposable running = limiter.executeFlux(Flux::never).subscribe();
+        assertThat(limiter.stats().getInFlight()).isEqualTo(1);
+        running.dispose();
+
+        ConcurrencyLimitStats stats = limiter.stats();
+        assertThat(stats.getInFlight()).isZero();
+        assertThat(stats.getLimit()).isEqualTo(2);
+        assertThat(stats.getLimitDecreaseCount()).isZero();
+    }
+
+    @Test
+    void cancelledWaiterLeavesQueue() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config(1));
+
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+        Disposable waiting = limiter.executeMono(() -> Mono.just("ok")).subscribe();
+        assertThat(limiter.stats().getQueued()).isEqualTo(1);
+
+        waiting.dispose();
+        await().atMost(Duration.ofSeconds(1)).until(() -> limiter.stats().getQueued() == 0);
+
+        held.release(null);
+        ConcurrencyLimitStats stats = limiter.stats();
+        assertThat(stats.getInFlight()).isZero();
+        assertThat(stats.getAcceptedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void permitIsReleasedOnlyOnce() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config(2));
+
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        limiter.acquire();
+        permit.release(null);
+        permit.release(new TimeoutException("late"));
+        permit.cancel();
+
+        ConcurrencyLimitStats stats = limiter.stats();
+        assertThat(stats.getInFlight()).isEqualTo(1);
+        assertThat(stats.getLimitDecreaseCount()).isZero();
+    }
+
+    private static ConcurrencyLimitConfig.Limit config(int initialLimit) {
+        ConcurrencyLimitConfig.Limit config = new ConcurrencyLimitConfig.Limit();
+        config.setInitialLimit(initialLimit);
+        config.setMinLimit(1);
+        config.setMaxLimit(64);
+        config.setMaxQueue(8);
+        config.setQueueTimeout(2000L);
+        config.setLatencyThreshold(100L);
+        config.setBackoffRatio(0.5);
+        return config;
+    }
+
+    private static List<AdaptiveConcurrencyLimiter.Permit> acquire(AdaptiveConcurrencyLimiter limiter, int count) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            permits.add(limiter.acquire());
+        }
+        return permits;
+    }
+}